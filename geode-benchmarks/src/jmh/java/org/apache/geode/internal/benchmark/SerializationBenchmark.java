@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.benchmark;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.apache.geode.DataSerializable;
+import org.apache.geode.DataSerializer;
+import org.apache.geode.internal.util.BlobHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures serializing and deserializing the kinds of values most commonly found in messages and
+ * client requests through {@link BlobHelper}.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class SerializationBenchmark {
+
+  @State(Scope.Thread)
+  public static class SerializedState {
+    private String string;
+    private HashMap<String, Integer> map;
+    private Customer customer;
+
+    private byte[] serializedString;
+    private byte[] serializedMap;
+    private byte[] serializedCustomer;
+
+    @Setup
+    public void setup() throws IOException {
+      string = "value-0123456789";
+      map = new HashMap<>();
+      for (int i = 0; i < 16; i++) {
+        map.put("key-" + i, i);
+      }
+      customer = new Customer(1, "name", new byte[64]);
+
+      serializedString = BlobHelper.serializeToBlob(string);
+      serializedMap = BlobHelper.serializeToBlob(map);
+      serializedCustomer = BlobHelper.serializeToBlob(customer);
+    }
+  }
+
+  @Benchmark
+  public byte[] serializeString(SerializedState state) throws IOException {
+    return BlobHelper.serializeToBlob(state.string);
+  }
+
+  @Benchmark
+  public byte[] serializeMap(SerializedState state) throws IOException {
+    return BlobHelper.serializeToBlob(state.map);
+  }
+
+  @Benchmark
+  public byte[] serializeDataSerializable(SerializedState state) throws IOException {
+    return BlobHelper.serializeToBlob(state.customer);
+  }
+
+  @Benchmark
+  public Object deserializeString(SerializedState state)
+      throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(state.serializedString);
+  }
+
+  @Benchmark
+  public Object deserializeMap(SerializedState state) throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(state.serializedMap);
+  }
+
+  @Benchmark
+  public Object deserializeDataSerializable(SerializedState state)
+      throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(state.serializedCustomer);
+  }
+
+  public static class Customer implements DataSerializable {
+    private int id;
+    private String name;
+    private byte[] payload;
+
+    public Customer() {}
+
+    Customer(int id, String name, byte[] payload) {
+      this.id = id;
+      this.name = name;
+      this.payload = payload;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeInt(id);
+      DataSerializer.writeString(name, out);
+      DataSerializer.writeByteArray(payload, out);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      id = in.readInt();
+      name = DataSerializer.readString(in);
+      payload = DataSerializer.readByteArray(in);
+    }
+  }
+}
@@ -94,7 +94,13 @@ public class AsyncEventQueueStats extends GatewaySenderStats {
             f.createIntGauge(LOAD_BALANCES_IN_PROGRESS, "Number of load balances in progress",
                 "operations"),
             f.createLongCounter(LOAD_BALANCE_TIME, "Total time spent load balancing this sender",
-                "nanoseconds"),});
+                "nanoseconds"),
+            f.createLongCounter(BATCH_BYTES_SAVED,
+                "Number of bytes saved by compressing batches. Not used by AsyncEventQueues.",
+                "bytes"),
+            f.createIntCounter(BUCKETS_REASSIGNED,
+                "Number of queue buckets handed from one dispatcher thread to another.",
+                "operations"),});
 
     // Initialize id fields
     eventsReceivedId = type.nameToId(EVENTS_RECEIVED);
@@ -123,6 +129,8 @@ public class AsyncEventQueueStats extends GatewaySenderStats {
     loadBalancesCompletedId = type.nameToId(LOAD_BALANCES_COMPLETED);
     loadBalancesInProgressId = type.nameToId(LOAD_BALANCES_IN_PROGRESS);
     loadBalanceTimeId = type.nameToId(LOAD_BALANCE_TIME);
+    batchBytesSavedId = type.nameToId(BATCH_BYTES_SAVED);
+    bucketsReassignedId = type.nameToId(BUCKETS_REASSIGNED);
   }
 
   /**
@@ -14,7 +14,11 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.internal.cache.tier.sockets.Message;
@@ -25,6 +29,7 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.types.CollectionType;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.cache.query.internal.QueryUtils;
+import org.apache.geode.cache.query.internal.StreamingResultsHandler;
 import org.apache.geode.cache.query.internal.StructImpl;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.internal.types.TypeUtils;
@@ -58,6 +63,56 @@ public class QueryOp {
     return (SelectResults) pool.execute(op);
   }
 
+  /**
+   * Does a region query on a server, passing the results to the given handler one chunk at a time
+   * as they arrive. The query is not retried on another server since the handler may already have
+   * received some of the results.
+   * 
+   * @param pool the pool to use to communicate with the server.
+   * @param queryPredicate A query language boolean query predicate
+   * @param handler receives the values that match the <code>queryPredicate</code>
+   */
+  public static void execute(ExecutablePool pool, String queryPredicate, Object[] queryParams,
+      StreamingResultsHandler handler) {
+    AbstractOp op = null;
+
+    if (queryParams != null && queryParams.length > 0) {
+      op = new StreamingQueryOpImpl(queryPredicate, queryParams, handler);
+    } else {
+      op = new StreamingQueryOpImpl(queryPredicate, handler);
+    }
+    pool.execute(op, 0);
+  }
+
+  /**
+   * Adds the results of one chunk of a query response to the given collection
+   */
+  static void addResults(Collection results, Object queryResult, ObjectType objectType) {
+    Object[] resultArray;
+    // for select * queries, the serialized object byte arrays are
+    // returned as part of ObjectPartList
+    boolean isObjectPartList = false;
+    if (queryResult instanceof ObjectPartList) {
+      isObjectPartList = true;
+      resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
+    } else {
+      // Add the results to the SelectResults
+      resultArray = (Object[]) queryResult;
+    }
+    if (objectType.isStructType()) {
+      for (int i = 0; i < resultArray.length; i++) {
+        if (isObjectPartList) {
+          results.add(new StructImpl((StructTypeImpl) objectType,
+              ((ObjectPartList) resultArray[i]).getObjects().toArray()));
+        } else {
+          results.add(new StructImpl((StructTypeImpl) objectType, (Object[]) resultArray[i]));
+        }
+      }
+    } else {
+      results.addAll(Arrays.asList(resultArray));
+    }
+  }
+
   private QueryOp() {
     // no instances allowed
   }
@@ -103,73 +158,30 @@ public class QueryOp {
     @Override
     protected Object processResponse(Message msg) throws Exception {
       final SelectResults[] resultRef = new SelectResults[1];
-      final Exception[] exceptionRef = new Exception[1];
-      ChunkHandler ch = new ChunkHandler() {
-        public void handle(ChunkedMessage cm) throws Exception {
-          Part collectionTypePart = cm.getPart(0);
-          Object o = collectionTypePart.getObject();
-          if (o instanceof Throwable) {
-            String s = "While performing a remote " + getOpName();
-            exceptionRef[0] = new ServerOperationException(s, (Throwable) o);
-            return;
-          }
-          CollectionType collectionType = (CollectionType) o;
-          Part resultPart = cm.getPart(1);
-          Object queryResult = null;
-          try {
-            queryResult = resultPart.getObject();
-          } catch (Exception e) {
-            String s = "While deserializing " + getOpName() + " result";
-            exceptionRef[0] = new SerializationException(s, e);
-            return;
+      QueryResponseHandler ch = new QueryResponseHandler(getOpName(), false) {
+        @Override
+        boolean handleCount(Integer count) {
+          // Create the appropriate SelectResults instance if necessary
+          if (resultRef[0] == null) {
+            resultRef[0] = QueryUtils.getEmptySelectResults(TypeUtils.OBJECT_TYPE, null);
           }
-          if (queryResult instanceof Throwable) {
-            String s = "While performing a remote " + getOpName();
-            exceptionRef[0] = new ServerOperationException(s, (Throwable) queryResult);
-            return;
-          } else if (queryResult instanceof Integer) {
-            // Create the appropriate SelectResults instance if necessary
-            if (resultRef[0] == null) {
-              resultRef[0] = QueryUtils.getEmptySelectResults(TypeUtils.OBJECT_TYPE, null);
-            }
-            resultRef[0].add(queryResult);
-          } else { // typical query result
-            // Create the appropriate SelectResults instance if necessary
-            if (resultRef[0] == null) {
-              resultRef[0] = QueryUtils.getEmptySelectResults(collectionType, null);
-            }
-            SelectResults selectResults = resultRef[0];
-            ObjectType objectType = collectionType.getElementType();
-            Object[] resultArray;
-            // for select * queries, the serialized object byte arrays are
-            // returned as part of ObjectPartList
-            boolean isObjectPartList = false;
-            if (queryResult instanceof ObjectPartList) {
-              isObjectPartList = true;
-              resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
-            } else {
-              // Add the results to the SelectResults
-              resultArray = (Object[]) queryResult;
-            }
-            if (objectType.isStructType()) {
-              for (int i = 0; i < resultArray.length; i++) {
-                if (isObjectPartList) {
-                  selectResults.add(new StructImpl((StructTypeImpl) objectType,
-                      ((ObjectPartList) resultArray[i]).getObjects().toArray()));
-                } else {
-                  selectResults
-                      .add(new StructImpl((StructTypeImpl) objectType, (Object[]) resultArray[i]));
-                }
-              }
-            } else {
-              selectResults.addAll(Arrays.asList(resultArray));
-            }
+          resultRef[0].add(count);
+          return true;
+        }
+
+        @Override
+        boolean handleResults(CollectionType collectionType, Object queryResult) {
+          // Create the appropriate SelectResults instance if necessary
+          if (resultRef[0] == null) {
+            resultRef[0] = QueryUtils.getEmptySelectResults(collectionType, null);
           }
+          addResults(resultRef[0], queryResult, collectionType.getElementType());
+          return true;
         }
       };
       processChunkedResponse((ChunkedMessage) msg, getOpName(), ch);
-      if (exceptionRef[0] != null) {
-        throw exceptionRef[0];
+      if (ch.getException() != null) {
+        throw ch.getException();
       } else {
         return resultRef[0];
       }
@@ -200,4 +212,151 @@ public class QueryOp {
       stats.endQuery(start, hasTimedOut(), hasFailed());
     }
   }
+
+  /**
+   * Passes each chunk of the query response to a {@link StreamingResultsHandler} instead of
+   * collecting them in a SelectResults. Once the handler stops before the last chunk, the
+   * connection is destroyed so that the server stops sending the rest of the results.
+   */
+  private static class StreamingQueryOpImpl extends QueryOpImpl {
+    private final StreamingResultsHandler handler;
+
+    StreamingQueryOpImpl(String queryPredicate, StreamingResultsHandler handler) {
+      super(queryPredicate);
+      this.handler = handler;
+    }
+
+    StreamingQueryOpImpl(String queryPredicate, Object[] queryParams,
+        StreamingResultsHandler handler) {
+      super(queryPredicate, queryParams);
+      this.handler = handler;
+    }
+
+    @Override
+    protected Object processResponse(Message msg, Connection con) throws Exception {
+      QueryResponseHandler ch = new QueryResponseHandler(getOpName(), true) {
+        @Override
+        boolean handleCount(Integer count) {
+          CollectionType collectionType = QueryUtils
+              .getEmptySelectResults(TypeUtils.OBJECT_TYPE, null).getCollectionType();
+          return passResults(collectionType, Collections.singletonList(count));
+        }
+
+        @Override
+        boolean handleResults(CollectionType collectionType, Object queryResult) {
+          List<Object> results = new ArrayList<Object>();
+          addResults(results, queryResult, collectionType.getElementType());
+          return passResults(collectionType, results);
+        }
+
+        private boolean passResults(CollectionType collectionType, List<Object> results) {
+          try {
+            return handler.handleResults(collectionType, results);
+          } catch (Exception e) {
+            stop(e);
+            return false;
+          }
+        }
+      };
+      try {
+        processChunkedResponse((ChunkedMessage) msg, getOpName(), ch);
+      } catch (StreamingStoppedException e) {
+        // the rest of the response is still on its way; closing the connection is the only way
+        // to stop the server from writing it
+        con.destroy();
+      }
+      if (ch.getException() != null) {
+        throw ch.getException();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Decodes the chunks of a query response and passes their results on. Once a chunk holds an
+   * exception, or the results of a chunk are refused, the following chunks are not decoded. They
+   * are still read off the connection, unless the handler stops reading the response, in which
+   * case it throws a {@link StreamingStoppedException} from the chunk it stopped at.
+   */
+  abstract static class QueryResponseHandler implements ChunkHandler {
+    private final String opName;
+
+    private final boolean stopReading;
+
+    private Exception exception;
+
+    private boolean stopped;
+
+    QueryResponseHandler(String opName, boolean stopReading) {
+      this.opName = opName;
+      this.stopReading = stopReading;
+    }
+
+    /** Handles the count of a count query, returns false if no more chunks should be handled */
+    abstract boolean handleCount(Integer count);
+
+    /** Handles the results of one chunk, returns false if no more chunks should be handled */
+    abstract boolean handleResults(CollectionType collectionType, Object queryResult);
+
+    public void handle(ChunkedMessage cm) throws Exception {
+      if (this.stopped) {
+        return;
+      }
+      if (!handleChunk(cm)) {
+        this.stopped = true;
+        if (this.stopReading && !cm.isLastChunk()) {
+          throw new StreamingStoppedException();
+        }
+      }
+    }
+
+    private boolean handleChunk(ChunkedMessage cm) throws Exception {
+      Part collectionTypePart = cm.getPart(0);
+      Object o = collectionTypePart.getObject();
+      if (o instanceof Throwable) {
+        String s = "While performing a remote " + this.opName;
+        stop(new ServerOperationException(s, (Throwable) o));
+        return false;
+      }
+      CollectionType collectionType = (CollectionType) o;
+      Part resultPart = cm.getPart(1);
+      Object queryResult = null;
+      try {
+        queryResult = resultPart.getObject();
+      } catch (Exception e) {
+        String s = "While deserializing " + this.opName + " result";
+        stop(new SerializationException(s, e));
+        return false;
+      }
+      if (queryResult instanceof Throwable) {
+        String s = "While performing a remote " + this.opName;
+        stop(new ServerOperationException(s, (Throwable) queryResult));
+        return false;
+      } else if (queryResult instanceof Integer) {
+        return handleCount((Integer) queryResult);
+      } else { // typical query result
+        return handleResults(collectionType, queryResult);
+      }
+    }
+
+    /** Records the exception the query fails with */
+    void stop(Exception e) {
+      this.exception = e;
+    }
+
+    Exception getException() {
+      return this.exception;
+    }
+  }
+
+  /**
+   * Thrown by a {@link QueryResponseHandler} to stop reading the response
+   */
+  private static class StreamingStoppedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    StreamingStoppedException() {
+      super(null, null, false, false);
+    }
+  }
 }
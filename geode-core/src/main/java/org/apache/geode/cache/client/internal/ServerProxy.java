@@ -17,6 +17,7 @@ package org.apache.geode.cache.client.internal;
 import java.util.List;
 
 import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.StreamingResultsHandler;
 import org.apache.geode.distributed.internal.ServerLocation;
 
 /**
@@ -70,4 +71,14 @@ public class ServerProxy {
     return QueryOp.execute(this.pool, queryPredicate, queryParams);
   }
 
+  /**
+   * Does a query on a server, passing the results to the given handler as they arrive
+   * 
+   * @param queryPredicate A query language boolean query predicate
+   * @param handler receives the values that match the <code>queryPredicate</code>
+   */
+  public void query(String queryPredicate, Object[] queryParams, StreamingResultsHandler handler) {
+    QueryOp.execute(this.pool, queryPredicate, queryParams, handler);
+  }
+
 }
@@ -211,6 +211,31 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
 
 
 
+  /**
+   * Estimates the size of this junction from its index evaluable operands: the smallest estimate
+   * for an AND junction, the sum of the estimates for an OR junction.
+   *
+   * @return the estimate or -1 if none of the operands can be evaluated using an index
+   */
+  int estimateFromOperands(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    long estimate = -1;
+    for (CompiledValue operand : this._operands) {
+      if (!(operand instanceof Filter) || !operand.getPlanInfo(context).evalAsFilter) {
+        continue;
+      }
+      int size = ((Filter) operand).getSizeEstimate(context);
+      if (estimate < 0) {
+        estimate = size;
+      } else if (this._operator == LITERAL_and) {
+        estimate = Math.min(estimate, size);
+      } else {
+        estimate += size;
+      }
+    }
+    return (int) Math.min(estimate, Integer.MAX_VALUE);
+  }
+
   private List getCondtionsSortedOnIncreasingEstimatedIndexResultSize(ExecutionContext context)
       throws FunctionDomainException, TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
@@ -28,6 +28,9 @@ import org.apache.geode.pdx.PdxSerializationException;
 import org.apache.geode.pdx.internal.FieldNotFoundInPdxVersion;
 import org.apache.geode.pdx.internal.PdxInstanceImpl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -50,9 +53,20 @@ import java.util.concurrent.ConcurrentMap;
 
 public class AttributeDescriptor {
   private final String _name;
-  /** cache for remembering the correct Member for a class and attribute */
+  /** cache for remembering the correct ReadAccessor for a class and attribute */
   private static final ConcurrentMap _cache = new ConcurrentHashMap();
 
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  /**
+   * The accessor for the class this attribute was last read from. An attribute of a query is
+   * usually read from objects of a single class, which then do not need a lookup in the cache. Not
+   * volatile, as ReadAccessor is immutable and a stale value only costs a lookup.
+   */
+  private ReadAccessor _lastAccessor;
+
 
 
   public AttributeDescriptor(String name) {
@@ -92,8 +106,18 @@ public class AttributeDescriptor {
       return QueryService.UNDEFINED;
     }
 
-    Class resolutionClass = target.getClass();
-    Member m = getReadMember(resolutionClass);
+    ReadAccessor accessor = getReadAccessor(target.getClass());
+    if (accessor.handle != null) {
+      try {
+        return (Object) accessor.handle.invokeExact(target);
+      } catch (EntryDestroyedException e) {
+        // eat the exception
+        return QueryService.UNDEFINED;
+      } catch (Throwable t) {
+        throw new QueryInvocationTargetException(t);
+      }
+    }
+    Member m = accessor.member;
     try {
       if (m instanceof Method) {
         try {
@@ -142,28 +166,54 @@ public class AttributeDescriptor {
   }
 
   Member getReadMember(Class targetClass) throws NameNotFoundException {
+    return getReadAccessor(targetClass).member;
+  }
+
+  private ReadAccessor getReadAccessor(Class targetClass) throws NameNotFoundException {
+    ReadAccessor accessor = _lastAccessor;
+    if (accessor != null && accessor.targetClass == targetClass) {
+      return accessor;
+    }
+
     // mapping: public field (same name), method (getAttribute()),
     // method (attribute())
     List key = new ArrayList();
     key.add(targetClass);
     key.add(_name);
 
-    Member m = (Member) _cache.get(key);
-    if (m != null)
-      return m;
+    accessor = (ReadAccessor) _cache.get(key);
+    if (accessor == null) {
+      Member m = getReadField(targetClass);
+      if (m == null)
+        m = getReadMethod(targetClass);
+      if (m == null)
+        throw new NameNotFoundException(
+            LocalizedStrings.AttributeDescriptor_NO_PUBLIC_ATTRIBUTE_NAMED_0_WAS_FOUND_IN_CLASS_1
+                .toLocalizedString(new Object[] {_name, targetClass.getName()}));
+      // override security for nonpublic derived classes with public members
+      ((AccessibleObject) m).setAccessible(true);
+      accessor = new ReadAccessor(targetClass, m, compile(m));
+      _cache.putIfAbsent(key, accessor);
+    }
+    _lastAccessor = accessor;
+    return accessor;
+  }
 
-    m = getReadField(targetClass);
-    if (m == null)
-      m = getReadMethod(targetClass);
-    if (m != null)
-      _cache.putIfAbsent(key, m);
-    else
-      throw new NameNotFoundException(
-          LocalizedStrings.AttributeDescriptor_NO_PUBLIC_ATTRIBUTE_NAMED_0_WAS_FOUND_IN_CLASS_1
-              .toLocalizedString(new Object[] {_name, targetClass.getName()}));
-    // override security for nonpublic derived classes with public members
-    ((AccessibleObject) m).setAccessible(true);
-    return m;
+  /**
+   * Compiles the member into a method handle taking the target and returning the attribute, which
+   * the JIT can inline into the query evaluation unlike a reflective call.
+   *
+   * @return the method handle, or null if the member has to be read by reflection
+   */
+  private static MethodHandle compile(Member m) {
+    try {
+      MethodHandle handle =
+          m instanceof Method ? LOOKUP.unreflect((Method) m) : LOOKUP.unreflectGetter((Field) m);
+      return handle.asType(READ_TYPE);
+    } catch (IllegalAccessException | RuntimeException e) {
+      // static members, for instance, do not take the target
+      return null;
+    }
   }
 
 
@@ -308,6 +358,21 @@ public class AttributeDescriptor {
     return false;
   }
 
+  /**
+   * The member reading an attribute on a class, and its compiled form
+   */
+  private static class ReadAccessor {
+    final Class targetClass;
+    final Member member;
+    final MethodHandle handle;
+
+    ReadAccessor(Class targetClass, Member member, MethodHandle handle) {
+      this.targetClass = targetClass;
+      this.member = member;
+      this.handle = handle;
+    }
+  }
+
 
 
 }
@@ -14,6 +14,7 @@
  */
 package org.apache.geode.cache.query.internal;
 
+import org.apache.geode.cache.query.Aggregator;
 import org.apache.geode.cache.query.AmbiguousNameException;
 import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
@@ -66,6 +67,14 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
   @Override
   public Object evaluate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    return createAggregator(context);
+  }
+
+  /**
+   * Creates a new Aggregator for this function, depending on whether it runs on a bucket node, on
+   * the query node of a partitioned region or on a local region.
+   */
+  Aggregator createAggregator(ExecutionContext context) {
     boolean isPRQueryNode = context.getIsPRQueryNode();
     boolean isBucketNode = context.getBucketList() != null;
     switch (this.aggFuncType) {
@@ -29,6 +29,7 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.index.IndexData;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.cache.query.internal.index.IndexProtocol;
 import org.apache.geode.cache.query.internal.index.IndexUtils;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
@@ -772,8 +773,9 @@ public class CompiledComparison extends AbstractCompiledValue
     int thatSize = comparedTo.getSizeEstimate(context);
     int thatOperator = comparedTo.getOperator();
 
-    // Go with the lowest cost when hint is used.
-    if (context instanceof QueryExecutionContext && ((QueryExecutionContext) context).hasHints()) {
+    // Go with the lowest cost when hint is used or when the estimates come from key statistics.
+    if (IndexManager.isCostBasedIndexSelection() || (context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints())) {
       return thisSize <= thatSize;
     }
 
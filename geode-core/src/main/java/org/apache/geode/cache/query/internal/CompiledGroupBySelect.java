@@ -22,6 +22,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.geode.cache.query.Aggregator;
 import org.apache.geode.cache.query.AmbiguousNameException;
@@ -164,6 +165,25 @@ public class CompiledGroupBySelect extends CompiledSelect {
 
   }
 
+  /**
+   * Rows of a query grouping on struct fields are aggregated as they are produced by a
+   * {@link GroupingBag}, rather than first being collected and sorted on the group by columns.
+   */
+  @Override
+  protected SelectResults prepareEmptyResultSet(ExecutionContext context, boolean ignoreOrderBy)
+      throws TypeMismatchException, AmbiguousNameException, FunctionDomainException,
+      NameResolutionException, QueryInvocationTargetException {
+    SelectResults results = super.prepareEmptyResultSet(context, ignoreOrderBy);
+    if (!ignoreOrderBy && results instanceof SortedStructBag) {
+      Comparator comparator = ((SortedStructBag) results).comparator();
+      if (comparator.getClass() == OrderByComparator.class) {
+        return new GroupingBag((OrderByComparator) comparator,
+            (StructType) results.getCollectionType().getElementType(), context);
+      }
+    }
+    return results;
+  }
+
   public SelectResults applyAggregateAndGroupBy(SelectResults baseResults, ExecutionContext context)
       throws FunctionDomainException, TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
@@ -177,7 +197,10 @@ public class CompiledGroupBySelect extends CompiledSelect {
         createResultSet(context, elementType, isStruct, createOrderedResultSet);
     Aggregator[] aggregators = new Aggregator[this.aggregateFunctions.length];
     refreshAggregators(aggregators, context);
-    if (this.orderByAttrs != null) {
+    if (baseResults instanceof GroupingBag) {
+      ((GroupingBag) baseResults).addGroupsToResults(newResults, context,
+          !createOrderedResultSet, limitValue);
+    } else if (this.orderByAttrs != null) {
       applyGroupBy(baseResults, context, isStruct, newResults, aggregators, !createOrderedResultSet,
           objectChangedMarker, limitValue);
     } else {
@@ -315,7 +338,11 @@ public class CompiledGroupBySelect extends CompiledSelect {
       this.terminateAndAddToResults(isStruct, newResults, aggregators, prev, context,
           isStructFields, limitValue);
     }
+    applyLimitToOrderedGroups(newResults, context, limitValue);
+  }
 
+  private void applyLimitToOrderedGroups(SelectResults newResults, ExecutionContext context,
+      int limitValue) {
     if (this.originalOrderByClause != null && limitValue > 0
         && (context.getIsPRQueryNode() || context.getBucketList() == null)) {
       ((Bag) newResults).applyLimit(limitValue);
@@ -365,13 +392,10 @@ public class CompiledGroupBySelect extends CompiledSelect {
     return keepAdding;
   }
 
-  private void refreshAggregators(Aggregator[] aggregators, ExecutionContext context)
-      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
-      QueryInvocationTargetException {
+  private void refreshAggregators(Aggregator[] aggregators, ExecutionContext context) {
     int i = 0;
     for (CompiledAggregateFunction aggFunc : this.aggregateFunctions) {
-      Aggregator agg = (Aggregator) aggFunc.evaluate(context);
-      aggregators[i++] = agg;
+      aggregators[i++] = aggFunc.createAggregator(context);
     }
   }
 
@@ -384,21 +408,26 @@ public class CompiledGroupBySelect extends CompiledSelect {
 
   private void accumulate(boolean isStruct, Aggregator[] aggregators, Object current,
       boolean[] objectChangedMarker) {
-    int bitstart = 0;
+    if (isStruct) {
+      accumulateFieldValues(aggregators, ((Struct) current).getFieldValues(),
+          objectChangedMarker);
+      return;
+    }
     for (Aggregator aggregator : aggregators) {
-      if (isStruct) {
-        int pos = this.aggregateColsPos.nextSetBit(bitstart);
-        bitstart = pos + 1;
-        Struct struct = (Struct) current;
-        Object scalar = PDXUtils.convertPDX(struct.getFieldValues()[pos], false, true, true, true,
-            objectChangedMarker, isStruct);
+      current = PDXUtils.convertPDX(current, false, true, true, true, objectChangedMarker, false);
+      aggregator.accumulate(current);
+    }
+  }
 
-        aggregator.accumulate(scalar);
-      } else {
-        current =
-            PDXUtils.convertPDX(current, false, true, true, true, objectChangedMarker, isStruct);
-        aggregator.accumulate(current);
-      }
+  private void accumulateFieldValues(Aggregator[] aggregators, Object[] fieldValues,
+      boolean[] objectChangedMarker) {
+    int bitstart = 0;
+    for (Aggregator aggregator : aggregators) {
+      int pos = this.aggregateColsPos.nextSetBit(bitstart);
+      bitstart = pos + 1;
+      Object scalar =
+          PDXUtils.convertPDX(fieldValues[pos], false, true, true, true, objectChangedMarker, true);
+      aggregator.accumulate(scalar);
     }
   }
 
@@ -496,4 +525,55 @@ public class CompiledGroupBySelect extends CompiledSelect {
     return found;
   }
 
+  /**
+   * Collects the projected rows of a group by query by aggregating each of them into the
+   * Aggregators of its group as it is added, so that only one row per group is held instead of
+   * every row in the result. Groups are kept in the order of the group by columns, which is the
+   * order a bucket node has to return them in and the order the coordinator merges them in.
+   */
+  private class GroupingBag extends SortedStructBag {
+
+    private final TreeMap<Object[], Aggregator[]> groups;
+    private final ExecutionContext context;
+    private final boolean[] objectChangedMarker = new boolean[] {false};
+
+    GroupingBag(final OrderByComparator comparator, StructType elementType,
+        ExecutionContext context) {
+      super(comparator, elementType, false);
+      this.groups = new TreeMap<>((row1, row2) -> comparator.evaluateSortCriteria(row1, row2));
+      this.context = context;
+    }
+
+    @Override
+    public boolean addFieldValues(Object[] fieldValues) {
+      addAndGetOccurence(fieldValues);
+      return true;
+    }
+
+    @Override
+    public int addAndGetOccurence(Object element) {
+      Object[] fieldValues = (Object[]) element;
+      Aggregator[] aggregators = this.groups.get(fieldValues);
+      if (aggregators == null) {
+        aggregators = new Aggregator[aggregateFunctions.length];
+        refreshAggregators(aggregators, this.context);
+        this.groups.put(fieldValues, aggregators);
+      }
+      accumulateFieldValues(aggregators, fieldValues, this.objectChangedMarker);
+      return 1;
+    }
+
+    void addGroupsToResults(SelectResults newResults, ExecutionContext context,
+        boolean isStructFields, int limitValue) throws FunctionDomainException,
+        TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+      StructTypeImpl structType = (StructTypeImpl) getCollectionType().getElementType();
+      for (Map.Entry<Object[], Aggregator[]> group : this.groups.entrySet()) {
+        if (!terminateAndAddToResults(true, newResults, group.getValue(),
+            new StructImpl(structType, group.getKey()), context, isStructFields, limitValue)) {
+          break;
+        }
+      }
+      applyLimitToOrderedGroups(newResults, context, limitValue);
+    }
+  }
 }
@@ -39,6 +39,7 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.index.IndexData;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.cache.query.internal.index.IndexProtocol;
 import org.apache.geode.cache.query.internal.index.IndexUtils;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
@@ -747,8 +748,9 @@ public class CompiledIn extends AbstractCompiledValue implements Indexable {
     int thatSize = comparedTo.getSizeEstimate(context);
     int thatOperator = comparedTo.getOperator();
 
-    // Go with the lowest cost when hint is used.
-    if (context instanceof QueryExecutionContext && ((QueryExecutionContext) context).hasHints()) {
+    // Go with the lowest cost when hint is used or when the estimates come from key statistics.
+    if (IndexManager.isCostBasedIndexSelection() || (context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints())) {
       return thisSize <= thatSize;
     }
 
@@ -52,6 +52,12 @@ public class CompiledOperation extends AbstractCompiledValue {
   private final List args;
   private static final ConcurrentMap cache = new ConcurrentHashMap();
 
+  /**
+   * The dispatch of the last evaluation without arguments. The receivers of an operation are
+   * usually of a single class, which then does not need a lookup in the cache.
+   */
+  private MethodDispatch lastDispatch;
+
 
   // receiver is an ID or PATH that contains the operation name
   public CompiledOperation(CompiledValue receiver, String methodName, List args) {
@@ -253,9 +259,18 @@ public class CompiledOperation extends AbstractCompiledValue {
     }
 
     // see if in cache
-    MethodDispatch methodDispatch;
-    List key = Arrays.asList(new Object[] {resolutionType, this.methodName, argTypes});
-    methodDispatch = (MethodDispatch) CompiledOperation.cache.get(key);
+    MethodDispatch methodDispatch = null;
+    if (argTypes.isEmpty()) {
+      MethodDispatch last = this.lastDispatch;
+      if (last != null && last.getTargetClass() == resolutionType) {
+        methodDispatch = last;
+      }
+    }
+    List key = null;
+    if (methodDispatch == null) {
+      key = Arrays.asList(new Object[] {resolutionType, this.methodName, argTypes});
+      methodDispatch = (MethodDispatch) CompiledOperation.cache.get(key);
+    }
     if (methodDispatch == null) {
       try {
         methodDispatch = new MethodDispatch(resolutionType, this.methodName, argTypes);
@@ -271,6 +286,9 @@ public class CompiledOperation extends AbstractCompiledValue {
       // cache
       CompiledOperation.cache.putIfAbsent(key, methodDispatch);
     }
+    if (argTypes.isEmpty()) {
+      this.lastDispatch = methodDispatch;
+    }
     if (receiver instanceof PdxInstance) {
       try {
         if (receiver instanceof PdxInstanceImpl) {
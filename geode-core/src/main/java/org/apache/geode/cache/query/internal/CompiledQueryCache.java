@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the compiled form of the local queries of a cache by normalized query string, so that a
+ * query created again for one of these strings is not parsed again. The least recently used query
+ * is evicted once the cache holds more than {@link DefaultQueryService#COMPILED_QUERY_CACHE_SIZE}
+ * queries. Every query kept has completed the transformation of its compiled form, which is not
+ * modified any further by executing it.
+ *
+ * @see DefaultQueryService#newQuery
+ */
+public class CompiledQueryCache {
+
+  private final Map<String, DefaultQuery> queries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Returns the query compiled for the given normalized query string, or null if there is none
+   */
+  synchronized DefaultQuery get(String queryString) {
+    return this.queries.get(queryString);
+  }
+
+  /**
+   * Keeps the given compiled query, evicting the least recently used queries beyond the given size
+   */
+  synchronized void put(String queryString, DefaultQuery query, int maxSize) {
+    this.queries.put(queryString, query);
+    Iterator<DefaultQuery> iterator = this.queries.values().iterator();
+    while (this.queries.size() > maxSize && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  synchronized int size() {
+    return this.queries.size();
+  }
+
+  /** Removes all compiled queries, called when the cache is closed */
+  public synchronized void clear() {
+    this.queries.clear();
+  }
+}
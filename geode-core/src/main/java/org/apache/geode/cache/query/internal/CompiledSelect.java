@@ -923,8 +923,31 @@ public class CompiledSelect extends AbstractCompiledValue {
     }
   }
 
-  private SelectResults prepareEmptyResultSet(ExecutionContext context, boolean ignoreOrderBy)
-      throws TypeMismatchException, AmbiguousNameException {
+  /**
+   * If the query has a LIMIT, bounds a sorted result collection to the first LIMIT rows so that
+   * rows which cannot make it into the result are discarded as soon as they are added. The rows of
+   * each bucket of a partitioned region are bounded the same way and then merged by
+   * {@link NWayMergeResults}, which stops after LIMIT rows.
+   */
+  private void applyTopN(SelectResults results, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    int limitValue = evaluateLimitValue(context, this.limit);
+    if (limitValue < 0) {
+      return;
+    }
+    if (results instanceof SortedResultsBag) {
+      ((SortedResultsBag) results).setTopN(limitValue);
+    } else if (results instanceof SortedStructSet) {
+      ((SortedStructSet) results).setTopN(limitValue);
+    } else if (results instanceof SortedResultSet) {
+      ((SortedResultSet) results).setTopN(limitValue);
+    }
+  }
+
+  protected SelectResults prepareEmptyResultSet(ExecutionContext context, boolean ignoreOrderBy)
+      throws TypeMismatchException, AmbiguousNameException, FunctionDomainException,
+      NameResolutionException, QueryInvocationTargetException {
     // if no projection attributes or '*'as projection attribute
     // & more than one/RunTimeIterator then create a StrcutSet.
     // If attribute is null or '*' & only one RuntimeIterator then create a
@@ -954,7 +977,7 @@ public class CompiledSelect extends AbstractCompiledValue {
                 : new OrderByComparator(this.orderByAttrs, (StructTypeImpl) elementType, context);
             results = this.distinct ? new SortedStructSet(comparator, (StructTypeImpl) elementType)
                 : new SortedStructBag(comparator, (StructType) elementType, nullValuesAtStart);
-
+            applyTopN(results, context);
           }
         } else {
           if (ignoreOrderBy) {
@@ -967,6 +990,7 @@ public class CompiledSelect extends AbstractCompiledValue {
                 : new OrderByComparator(this.orderByAttrs, elementType, context);
             results = this.distinct ? new SortedResultSet(comparator)
                 : new SortedResultsBag(comparator, nullValuesAtStart);
+            applyTopN(results, context);
           }
           results.setElementType(elementType);
         }
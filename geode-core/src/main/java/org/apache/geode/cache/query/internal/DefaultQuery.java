@@ -40,6 +40,7 @@ import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.Query;
 import org.apache.geode.cache.query.QueryException;
+import org.apache.geode.cache.query.QueryExecutionTimeoutException;
 import org.apache.geode.cache.query.QueryInvalidException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.QueryService;
@@ -48,12 +49,16 @@ import org.apache.geode.cache.query.RegionNotFoundException;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.CachePerfStats;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.LocalDataSet;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PRQueryProcessor;
 import org.apache.geode.internal.cache.PartitionedRegion;
 import org.apache.geode.internal.cache.TXManagerImpl;
@@ -96,6 +101,19 @@ public class DefaultQuery implements Query {
 
   public static int TEST_COMPILED_QUERY_CLEAR_TIME = -1;
 
+  /**
+   * System property for the number of milliseconds a query waits for the asynchronously maintained
+   * indexes of its regions to apply the updates of the operations completed before it started. A
+   * query that is still waiting when the time elapses fails with a
+   * {@link QueryExecutionTimeoutException}. By default queries do not wait. A query on a
+   * partitioned region waits on each member for the buckets it queries, so the property has to be
+   * set on the members hosting the data.
+   */
+  public static final long INDEX_MAINTENANCE_WAIT_TIME = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "Query.INDEX_MAINTENANCE_WAIT_TIME", 0);
+
+  private long indexMaintenanceWaitTime = INDEX_MAINTENANCE_WAIT_TIME;
+
   /**
    * Use to represent null result. Used while adding PR results to the results-queue, which is a
    * blocking queue.
@@ -283,6 +301,49 @@ public class DefaultQuery implements Query {
     this.stats = new DefaultQueryStatistics();
   }
 
+  /**
+   * Creates a local query sharing the compiled form of another query with the same query string,
+   * which skips parsing the query string.
+   *
+   * @see DefaultQueryService#newQuery
+   */
+  DefaultQuery(DefaultQuery compiled) {
+    this.queryString = compiled.queryString;
+    this.compiledQuery = compiled.compiledQuery;
+    this.traceOn = compiled.traceOn;
+    this.cache = compiled.cache;
+    this.stats = new DefaultQueryStatistics();
+  }
+
+  /**
+   * Returns whether the compiled form of this query can be shared by queries executed concurrently.
+   * A count(*) query keeps its count in its compiled form while it is executed.
+   */
+  boolean isCompiledFormSharable() {
+    CompiledSelect cs = getSimpleSelect();
+    return cs != null && !cs.isCount();
+  }
+
+  /**
+   * Completes the transformation of the compiled form of this query, which its first execution
+   * does otherwise, so that the compiled form is no longer modified once it is shared.
+   *
+   * @return false if the compiled form could not be transformed before the query is executed
+   */
+  boolean completeTransformation() {
+    try {
+      getSimpleSelect().computeDependencies(new QueryExecutionContext(null, this.cache));
+      return true;
+    } catch (QueryException | QueryInvalidException ignore) {
+      // reported when the query is executed
+      return false;
+    }
+  }
+
+  InternalCache getCache() {
+    return this.cache;
+  }
+
   public static boolean getPdxReadSerialized() {
     return pdxReadSerialized.get();
   }
@@ -382,7 +443,23 @@ public class DefaultQuery implements Query {
       }
 
       context.setCqQueryContext(this.isCqQuery);
-      result = executeUsingContext(context);
+      LocalRegion[] cacheableRegions = QueryResultCache.getCacheableRegions(this, params);
+      QueryResultCache resultCache = this.cache.getQueryResultCache();
+      result = cacheableRegions == null ? null : resultCache.get(this, params);
+      if (result != null) {
+        this.cache.getCachePerfStats().incQueryResultCacheHits();
+      } else {
+        long[] changeCounts = null;
+        if (cacheableRegions != null) {
+          this.cache.getCachePerfStats().incQueryResultCacheMisses();
+          changeCounts = QueryResultCache.getChangeCounts(cacheableRegions);
+        }
+        waitForIndexMaintenance(params, null);
+        result = executeUsingContext(context);
+        if (changeCounts != null) {
+          result = resultCache.put(this, params, cacheableRegions, changeCounts, result);
+        }
+      }
       // Only wrap/copy results when copy on read is set and an index is used
       // This is because when an index is used, the results are actual references to values in the
       // cache
@@ -443,7 +520,45 @@ public class DefaultQuery implements Query {
     return !isRemoteQuery() && !this.cache.getPdxReadSerialized();
   }
 
+  /**
+   * Executes this query and passes its results to the given handler. If the query is executed on a
+   * server the results are passed one chunk at a time as they arrive, so a client does not have to
+   * hold all of them in memory. A local query passes all results in one call.
+   * 
+   * @param params the bind parameters; may not be null
+   * @param handler receives the results
+   */
+  public void execute(Object[] params, StreamingResultsHandler handler)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (params == null) {
+      throw new IllegalArgumentException(
+          LocalizedStrings.DefaultQuery_PARAMETERS_CANNOT_BE_NULL.toLocalizedString());
+    }
+
+    if (this.serverProxy != null) {
+      executeOnServer(params, handler);
+      return;
+    }
+
+    Object result = execute(params);
+    if (result instanceof SelectResults) {
+      SelectResults selectResults = (SelectResults) result;
+      handler.handleResults(selectResults.getCollectionType(), selectResults.asList());
+    } else {
+      handler.handleResults(new CollectionTypeImpl(List.class, TypeUtils.OBJECT_TYPE),
+          Collections.singletonList(result));
+    }
+  }
+
   private Object executeOnServer(Object[] parameters) {
+    return executeOnServer(parameters, null);
+  }
+
+  /**
+   * @param handler if not null the results are passed to it as they arrive and null is returned
+   */
+  private Object executeOnServer(Object[] parameters, StreamingResultsHandler handler) {
     long startTime = CachePerfStats.getStatTime();
     Object result = null;
     try {
@@ -453,7 +568,11 @@ public class DefaultQuery implements Query {
         }
         UserAttributes.userAttributes.set(this.proxyCache.getUserAttributes());
       }
-      result = this.serverProxy.query(this.queryString, parameters);
+      if (handler == null) {
+        result = this.serverProxy.query(this.queryString, parameters);
+      } else {
+        this.serverProxy.query(this.queryString, parameters, handler);
+      }
     } finally {
       UserAttributes.userAttributes.set(null);
       long endTime = CachePerfStats.getStatTime();
@@ -509,6 +628,7 @@ public class DefaultQuery implements Query {
 
     Object result = null;
     try {
+      waitForIndexMaintenance(parameters, bukRgn);
       result = executeUsingContext(context);
     } finally {
       if (queryMonitor != null && PRQueryProcessor.NUM_THREADS > 1) {
@@ -580,6 +700,50 @@ public class DefaultQuery implements Query {
     }
   }
 
+  /**
+   * Waits for the asynchronously maintained indexes of the bucket, or of the regions of this query
+   * if it is not executed on a bucket, to catch up with the operations completed so far.
+   *
+   * @throws QueryExecutionTimeoutException if the indexes did not catch up within the index
+   *         maintenance wait time
+   */
+  private void waitForIndexMaintenance(Object[] parameters, BucketRegion bucket) {
+    if (this.indexMaintenanceWaitTime <= 0 || this.isCqQuery) {
+      return;
+    }
+    List<LocalRegion> regions = new ArrayList<>();
+    if (bucket != null) {
+      regions.add(bucket);
+    } else {
+      for (Object regionPath : getRegionsInQuery(parameters)) {
+        LocalRegion region = this.cache.getRegionByPath((String) regionPath);
+        // the buckets of a partitioned region are waited for when they are queried
+        if (region != null && !(region instanceof PartitionedRegion)) {
+          regions.add(region);
+        }
+      }
+    }
+    long deadline = System.currentTimeMillis() + this.indexMaintenanceWaitTime;
+    for (LocalRegion region : regions) {
+      IndexManager indexManager = region.getIndexManager();
+      if (indexManager == null) {
+        continue;
+      }
+      boolean upToDate;
+      try {
+        upToDate = indexManager
+            .waitForIndexMaintenance(Math.max(deadline - System.currentTimeMillis(), 0));
+      } catch (InterruptedException ignore) {
+        Thread.currentThread().interrupt();
+        upToDate = false;
+      }
+      if (!upToDate) {
+        throw new QueryExecutionTimeoutException("The indexes of region " + region.getFullPath()
+            + " were not up to date after " + this.indexMaintenanceWaitTime + " ms");
+      }
+    }
+  }
+
   private QueryExecutor checkQueryOnPR(Object[] parameters)
       throws RegionNotFoundException, PartitionOfflineException {
 
@@ -863,6 +1027,18 @@ public class DefaultQuery implements Query {
     return this.cqQuery;
   }
 
+  /**
+   * Sets the number of milliseconds this query waits for asynchronously maintained indexes to catch
+   * up before it is executed, overriding {@link #INDEX_MAINTENANCE_WAIT_TIME}. 0 does not wait.
+   */
+  public void setIndexMaintenanceWaitTime(long waitTime) {
+    this.indexMaintenanceWaitTime = waitTime;
+  }
+
+  public long getIndexMaintenanceWaitTime() {
+    return this.indexMaintenanceWaitTime;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder("Query String = ");
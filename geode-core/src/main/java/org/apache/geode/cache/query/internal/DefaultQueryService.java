@@ -66,6 +66,18 @@ public class DefaultQueryService implements QueryService {
   /** Test purpose only */
   public static boolean TEST_QUERY_HETEROGENEOUS_OBJECTS = false;
 
+  /**
+   * System property for the number of local queries whose compiled form is kept by query string,
+   * see {@link CompiledQueryCache}. A query created again for one of these strings is not parsed
+   * again, and reuses the attribute and method accessors its compiled form resolved in earlier
+   * executions. 0 disables the cache.
+   */
+  public static final int COMPILED_QUERY_CACHE_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.COMPILED_QUERY_CACHE_SIZE", 0);
+
+  /** Test purpose only */
+  public static int TEST_COMPILED_QUERY_CACHE_SIZE = -1;
+
   private final InternalCache cache;
 
   private InternalPool pool;
@@ -103,11 +115,72 @@ public class DefaultQueryService implements QueryService {
           LocalizedStrings.DefaultQueryService_THE_QUERY_STRING_MUST_NOT_BE_EMPTY
               .toLocalizedString());
     ServerProxy serverProxy = pool == null ? null : new ServerProxy(pool);
-    DefaultQuery query = new DefaultQuery(queryString, this.cache, serverProxy != null);
+    DefaultQuery query = serverProxy != null ? new DefaultQuery(queryString, this.cache, true)
+        : newLocalQuery(queryString);
     query.setServerProxy(serverProxy);
     return query;
   }
 
+  /**
+   * Creates a local query, sharing the compiled form of an earlier query on the same string if the
+   * compiled query cache is enabled
+   */
+  private DefaultQuery newLocalQuery(String queryString) {
+    int cacheSize = TEST_COMPILED_QUERY_CACHE_SIZE >= 0 ? TEST_COMPILED_QUERY_CACHE_SIZE
+        : COMPILED_QUERY_CACHE_SIZE;
+    if (cacheSize <= 0) {
+      return new DefaultQuery(queryString, this.cache, false);
+    }
+    CompiledQueryCache compiledQueries = this.cache.getCompiledQueryCache();
+    String key = normalizeQueryString(queryString);
+    DefaultQuery compiled = compiledQueries.get(key);
+    if (compiled == null) {
+      this.cache.getCachePerfStats().incQueryPlanCacheMisses();
+      compiled = new DefaultQuery(queryString, this.cache, false);
+      if (!compiled.isCompiledFormSharable()) {
+        return compiled;
+      }
+      if (!compiled.completeTransformation()) {
+        // the compiled form may have been partly transformed
+        return new DefaultQuery(queryString, this.cache, false);
+      }
+      compiledQueries.put(key, compiled, cacheSize);
+    } else {
+      this.cache.getCachePerfStats().incQueryPlanCacheHits();
+    }
+    return new DefaultQuery(compiled);
+  }
+
+  /**
+   * Returns the query string with leading and trailing whitespace removed and every other run of
+   * whitespace outside of quoted literals and identifiers replaced by a single space, so that
+   * queries differing only in layout share their cached compiled form and results.
+   */
+  static String normalizeQueryString(String queryString) {
+    String trimmed = queryString.trim();
+    StringBuilder normalized = new StringBuilder(trimmed.length());
+    char quote = 0;
+    boolean pendingSpace = false;
+    for (int i = 0; i < trimmed.length(); i++) {
+      char c = trimmed.charAt(i);
+      if (quote == 0 && Character.isWhitespace(c)) {
+        pendingSpace = true;
+        continue;
+      }
+      if (pendingSpace) {
+        normalized.append(' ');
+        pendingSpace = false;
+      }
+      if (quote == 0 && (c == '\'' || c == '"')) {
+        quote = c;
+      } else if (c == quote) {
+        quote = 0;
+      }
+      normalized.append(c);
+    }
+    return normalized.toString();
+  }
+
   public Query newQuery(String queryString, ProxyCache proxyCache) {
     Query query = newQuery(queryString);
     ((DefaultQuery) query).setProxyCache(proxyCache);
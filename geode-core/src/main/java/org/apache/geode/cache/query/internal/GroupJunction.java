@@ -23,6 +23,7 @@ import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 
 /**
  * This structure contains the filter evaluable and iter evaluable conditions which are dependent on
@@ -178,6 +179,12 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
 
   public int getSizeEstimate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (IndexManager.isCostBasedIndexSelection()) {
+      int estimate = estimateFromOperands(context);
+      if (estimate >= 0) {
+        return estimate;
+      }
+    }
     return 1;
   }
 }
@@ -28,7 +28,10 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.index.CompactMapRangeIndex;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
 import org.apache.geode.cache.query.internal.index.MapRangeIndex;
 import org.apache.geode.internal.cache.PartitionedRegionQueryEvaluator.TestHook;
 
@@ -58,6 +61,7 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       iInfo = new IndexInfo();
     }
     iInfo.addRegionId(index.getRegion().getFullPath());
+    iInfo.addEstimate(index.getRegion().getFullPath(), estimateLookup(index, oper, key));
     indexMap.put(indexName, iInfo);
     this.lastIndexUsed.set(index);
     this.lastKeyUsed.set(key);
@@ -82,6 +86,12 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       iInfo = new IndexInfo();
     }
     iInfo.addRegionId(index.getRegion().getFullPath());
+    int estimate = estimateLookup(index, lowerBoundOperator, lowerBoundKey);
+    int upperEstimate = estimateLookup(index, upperBoundOperator, upperBoundKey);
+    if (estimate < 0 || (upperEstimate >= 0 && upperEstimate < estimate)) {
+      estimate = upperEstimate;
+    }
+    iInfo.addEstimate(index.getRegion().getFullPath(), estimate);
     indexMap.put(index.getName(), iInfo);
     this.lastIndexUsed.set(index);
     if (th != null) {
@@ -116,6 +126,23 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
     }
   }
 
+  /**
+   * Returns the size the index estimated for the lookup when cost based index selection is on, so
+   * that the trace shows it next to the actual size of the results.
+   *
+   * @return the estimate or -1 if there is none
+   */
+  private static int estimateLookup(Index index, int operator, Object key) {
+    if (!IndexManager.isCostBasedIndexSelection() || !(index instanceof IndexProtocol)) {
+      return -1;
+    }
+    try {
+      return ((IndexProtocol) index).getSizeEstimate(key, operator, 0);
+    } catch (TypeMismatchException ignore) {
+      return -1;
+    }
+  }
+
   private String getIndexName(Index index, Object key) {
     String indexName;
     if ((index instanceof MapRangeIndex || index instanceof CompactMapRangeIndex)
@@ -164,6 +191,9 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
     // A {RegionFullPath, results} map for an Index lookup on a Region.
     private Map<String, Integer> results = new Object2ObjectOpenHashMap();
 
+    // A {RegionFullPath, estimated results} map, filled only with cost based index selection.
+    private Map<String, Integer> estimates = new Object2ObjectOpenHashMap();
+
     public Map getResults() {
       return results;
     }
@@ -188,17 +218,35 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       this.results.put(regionId, 0);
     }
 
+    public void addEstimate(String regionId, int estimate) {
+      if (estimate >= 0) {
+        this.estimates.put(regionId, estimate);
+      }
+    }
+
+    public Map getEstimates() {
+      return estimates;
+    }
+
     @Override
     public String toString() {
       int total = 0;
       for (Integer i : results.values()) {
         total += i.intValue();
       }
-      return "(Results: " + total + ")";
+      if (estimates.isEmpty()) {
+        return "(Results: " + total + ")";
+      }
+      long estimated = 0;
+      for (Integer i : estimates.values()) {
+        estimated += i.intValue();
+      }
+      return "(Estimated: " + estimated + ", Results: " + total + ")";
     }
 
     public void merge(IndexInfo src) {
       this.addResults(src.getResults());
+      this.estimates.putAll(src.getEstimates());
     }
   }
 
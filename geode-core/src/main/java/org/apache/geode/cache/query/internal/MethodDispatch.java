@@ -17,6 +17,9 @@ package org.apache.geode.cache.query.internal;
 
 
 import java.util.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 
 import org.apache.geode.cache.query.*;
@@ -35,6 +38,7 @@ public class MethodDispatch {
   private String _methodName;
   private Class[] _argTypes;
   private Method _method; // remember the right method
+  private MethodHandle _handle; // the method compiled for a call without arguments, or null
 
 
   public MethodDispatch(Class targetClass, String methodName, List argTypes)
@@ -47,12 +51,32 @@ public class MethodDispatch {
     // override security in case this is a method on a nonpublic class
     // with a public method
     _method.setAccessible(true);
+    if (_argTypes.length == 0 && !Modifier.isStatic(_method.getModifiers())) {
+      try {
+        _handle = MethodHandles.lookup().unreflect(_method)
+            .asType(MethodType.methodType(Object.class, Object.class));
+      } catch (IllegalAccessException | RuntimeException e) {
+        // invoke the method by reflection
+        _handle = null;
+      }
+    }
+  }
+
+  Class getTargetClass() {
+    return _targetClass;
   }
 
 
 
   public Object invoke(Object target, List args)
       throws NameNotFoundException, QueryInvocationTargetException {
+    if (_handle != null && args.isEmpty()) {
+      try {
+        return (Object) _handle.invokeExact(target);
+      } catch (Throwable t) {
+        throw new QueryInvocationTargetException(t);
+      }
+    }
     Object[] argsArray = args.toArray();
 
 
@@ -138,6 +138,14 @@ public class OrderByComparator implements Comparator {
     // No op
   }
 
+  /**
+   * Called when a row is evicted from a bounded (top-N) result collection, so that any sort
+   * criteria evaluated for it by {@link #addEvaluatedSortCriteria} can be released.
+   */
+  void removeEvaluatedSortCriteria(Object row) {
+    // No op
+  }
+
   private int compareHelperMethod(Object obj1, Object obj2) {
     if (obj1 == null || obj2 == null) {
       return compareIfOneOrMoreNull(obj1, obj2);
@@ -53,6 +53,11 @@ public class OrderByComparatorUnmapped extends OrderByComparator {
     this.orderByMap.put(row, this.calculateSortCriteria(context, row));
   }
 
+  @Override
+  void removeEvaluatedSortCriteria(Object row) {
+    this.orderByMap.remove(row);
+  }
+
   @Override
   public int evaluateSortCriteria(Object obj1, Object obj2) {
     int result = -1;
@@ -172,6 +172,22 @@ public class QueryMonitor implements Runnable {
     }
   }
 
+  /**
+   * Returns the query execution status of the current thread. It is set to TRUE when the query
+   * executed by the thread is canceled.
+   */
+  public static AtomicBoolean getQueryExecutionStatus() {
+    return queryExecutionStatus.get();
+  }
+
+  /**
+   * Makes the current thread use the given query execution status. Threads that help the monitored
+   * thread execute one query use the status of that thread, so they are canceled along with it.
+   */
+  public static void setQueryExecutionStatus(AtomicBoolean status) {
+    queryExecutionStatus.set(status);
+  }
+
   /**
    * Stops query monitoring.
    */
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.TXManagerImpl;
+
+/**
+ * Keeps the results of local queries by query string and bind parameters, so that a query executed
+ * again with the same parameters returns its earlier results without being evaluated again.
+ * <p>
+ * A result is only reused while none of the regions the query reads has changed since the query
+ * started to execute, which is checked with {@link LocalRegion#getEntryChangeCount()}. Only queries
+ * on initialized, non-partitioned regions that maintain their indexes synchronously are cached, and
+ * not while a transaction is in progress, the cache copies on read or a {@link QueryObserver} is
+ * installed. Bind parameters must be of an immutable type, such as strings, numbers and enums.
+ * <p>
+ * Each cache keeps its own results, evicting the least recently used one once it holds more than
+ * {@link #RESULT_CACHE_SIZE} of them. Cached results are shared by every execution that finds them,
+ * so they are returned wrapped in an {@link UnmodifiableResultsWrapper}.
+ */
+public class QueryResultCache {
+
+  /**
+   * System property for the number of query results kept by the cache. 0, the default, disables
+   * the cache.
+   */
+  public static final int RESULT_CACHE_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.RESULT_CACHE_SIZE", 0);
+
+  /** Test purpose only */
+  public static int TEST_RESULT_CACHE_SIZE = -1;
+
+  /** The bind parameter types whose instances cannot be modified */
+  private static final Set<Class<?>> IMMUTABLE_PARAMETER_TYPES = new HashSet<>(Arrays.asList(
+      String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+      Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class));
+
+  private final Map<ResultKey, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+
+  static int getResultCacheSize() {
+    return TEST_RESULT_CACHE_SIZE >= 0 ? TEST_RESULT_CACHE_SIZE : RESULT_CACHE_SIZE;
+  }
+
+  /**
+   * Returns the regions the query reads if its results with the given parameters may be cached, or
+   * null if they may not.
+   */
+  static LocalRegion[] getCacheableRegions(DefaultQuery query, Object[] params) {
+    if (getResultCacheSize() <= 0 || query.isCqQuery() || QueryObserverHolder.hasObserver()
+        || !areImmutable(params)) {
+      return null;
+    }
+    InternalCache cache = query.getCache();
+    if (cache.getCopyOnRead()
+        || ((TXManagerImpl) cache.getCacheTransactionManager()).getTXState() != null) {
+      return null;
+    }
+    Set regionPaths = query.getRegionsInQuery(params);
+    if (regionPaths.isEmpty()) {
+      return null;
+    }
+    LocalRegion[] regions = new LocalRegion[regionPaths.size()];
+    int i = 0;
+    for (Object regionPath : regionPaths) {
+      Region region = cache.getRegion((String) regionPath);
+      if (!(region instanceof LocalRegion) || region instanceof PartitionedRegion) {
+        return null;
+      }
+      LocalRegion localRegion = (LocalRegion) region;
+      if (!localRegion.isInitialized() || localRegion.isDestroyed()
+          || !localRegion.getAttributes().getIndexMaintenanceSynchronous()) {
+        return null;
+      }
+      regions[i++] = localRegion;
+    }
+    return regions;
+  }
+
+  private static boolean areImmutable(Object[] params) {
+    for (Object param : params) {
+      if (param != null && !(param instanceof Enum)
+          && !IMMUTABLE_PARAMETER_TYPES.contains(param.getClass())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the change counts of the given regions, to be taken before the query reads them
+   */
+  static long[] getChangeCounts(LocalRegion[] regions) {
+    long[] changeCounts = new long[regions.length];
+    for (int i = 0; i < regions.length; i++) {
+      changeCounts[i] = regions[i].getEntryChangeCount();
+    }
+    return changeCounts;
+  }
+
+  /**
+   * Returns the cached results of the query with the given parameters, or null if there are none
+   * or the regions they were computed from have changed since
+   */
+  SelectResults get(DefaultQuery query, Object[] params) {
+    ResultKey key = new ResultKey(query, params);
+    CachedResult cached;
+    synchronized (this.results) {
+      cached = this.results.get(key);
+      if (cached == null) {
+        return null;
+      }
+      if (!cached.isCurrent()) {
+        this.results.remove(key);
+        return null;
+      }
+    }
+    return new UnmodifiableResultsWrapper(cached.result);
+  }
+
+  /**
+   * Caches the results of the query with the given parameters, computed from the given regions
+   * while they had the given change counts
+   *
+   * @return the results to return from this execution of the query, which may not be modified
+   *         either once they are cached
+   */
+  Object put(DefaultQuery query, Object[] params, LocalRegion[] regions, long[] changeCounts,
+      Object result) {
+    if (!(result instanceof SelectResults)) {
+      return result;
+    }
+    CachedResult cached = new CachedResult(regions, changeCounts, (SelectResults) result);
+    ResultKey key = new ResultKey(query, params);
+    int maxSize = getResultCacheSize();
+    synchronized (this.results) {
+      this.results.put(key, cached);
+      Iterator<CachedResult> iterator = this.results.values().iterator();
+      while (this.results.size() > maxSize && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    return new UnmodifiableResultsWrapper(cached.result);
+  }
+
+  int size() {
+    synchronized (this.results) {
+      return this.results.size();
+    }
+  }
+
+  /** Removes all cached results, called when the cache is closed */
+  public void clear() {
+    synchronized (this.results) {
+      this.results.clear();
+    }
+  }
+
+  /**
+   * The query string and bind parameters of a cached result, along with the settings that change
+   * the form of the values in the result
+   */
+  private static class ResultKey {
+
+    private final String queryString;
+
+    private final List<Object> params;
+
+    private final boolean remoteQuery;
+
+    private final boolean keepSerialized;
+
+    private final boolean pdxReadSerialized;
+
+    ResultKey(DefaultQuery query, Object[] params) {
+      this.queryString = DefaultQueryService.normalizeQueryString(query.getQueryString());
+      this.params = Arrays.asList(params.clone());
+      this.remoteQuery = query.isRemoteQuery();
+      this.keepSerialized = query.isKeepSerialized();
+      this.pdxReadSerialized =
+          query.getCache().getPdxReadSerialized() || DefaultQuery.getPdxReadSerialized();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof ResultKey)) {
+        return false;
+      }
+      ResultKey that = (ResultKey) other;
+      return this.queryString.equals(that.queryString) && this.params.equals(that.params)
+          && this.remoteQuery == that.remoteQuery && this.keepSerialized == that.keepSerialized
+          && this.pdxReadSerialized == that.pdxReadSerialized;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = 31 * this.queryString.hashCode() + this.params.hashCode();
+      hash = 31 * hash + (this.remoteQuery ? 1 : 0);
+      hash = 31 * hash + (this.keepSerialized ? 1 : 0);
+      return 31 * hash + (this.pdxReadSerialized ? 1 : 0);
+    }
+  }
+
+  private static class CachedResult {
+
+    private final LocalRegion[] regions;
+
+    private final long[] changeCounts;
+
+    private final SelectResults result;
+
+    CachedResult(LocalRegion[] regions, long[] changeCounts, SelectResults result) {
+      this.regions = regions;
+      this.changeCounts = changeCounts;
+      this.result = result;
+    }
+
+    boolean isCurrent() {
+      for (int i = 0; i < this.regions.length; i++) {
+        if (this.regions[i].isDestroyed()
+            || this.regions[i].getEntryChangeCount() != this.changeCounts[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
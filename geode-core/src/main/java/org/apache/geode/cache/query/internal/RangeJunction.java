@@ -33,6 +33,7 @@ import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
@@ -114,8 +115,9 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     // return the one with lower size estimate is better
     boolean isThisBetter = true;
 
-    // Go with the lowest cost when hint is used.
-    if (context instanceof QueryExecutionContext && ((QueryExecutionContext) context).hasHints()) {
+    // Go with the lowest cost when hint is used or when the estimates come from key statistics.
+    if (IndexManager.isCostBasedIndexSelection() || (context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints())) {
       return thisSize <= comparedTo.getSizeEstimate(context);
     }
 
@@ -517,8 +519,14 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     Support.assertionFailed("Should not have come here");
   }
 
-  public int getSizeEstimate(ExecutionContext context) {
-    // TODO:Asif:Try to estimate better
+  public int getSizeEstimate(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (IndexManager.isCostBasedIndexSelection()) {
+      int estimate = estimateFromOperands(context);
+      if (estimate >= 0) {
+        return estimate;
+      }
+    }
     return RANGE_SIZE_ESTIMATE;
   }
 
@@ -843,9 +851,9 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
 
       int thatOperator = comparedTo.getOperator();
 
-      // Go with the lowest cost when hint is used.
-      if (context instanceof QueryExecutionContext
-          && ((QueryExecutionContext) context).hasHints()) {
+      // Go with the lowest cost when hint is used or when the estimates come from key statistics.
+      if (IndexManager.isCostBasedIndexSelection() || (context instanceof QueryExecutionContext
+          && ((QueryExecutionContext) context).hasHints())) {
         return thisSize <= comparedTo.getSizeEstimate(context);
       }
 
@@ -37,6 +37,9 @@ public class SortedResultSet extends TreeSet
 
   private ObjectType elementType;
 
+  /** If non negative, the maximum number of elements retained */
+  private transient int topN = -1;
+
   public SortedResultSet() {}
 
   SortedResultSet(Collection c) {
@@ -57,6 +60,36 @@ public class SortedResultSet extends TreeSet
     super(c);
   }
 
+  @Override
+  public boolean add(Object element) {
+    boolean added = super.add(element);
+    if (added) {
+      trimToTopN();
+    }
+    return added;
+  }
+
+  /**
+   * Bounds this set to the first n elements in sort order. Elements sorting after them are
+   * discarded as they are added.
+   */
+  void setTopN(int n) {
+    this.topN = n;
+  }
+
+  /**
+   * Discards the element sorting last once the set holds more than topN elements.
+   */
+  private void trimToTopN() {
+    if (this.topN >= 0 && size() > this.topN) {
+      Object last = pollLast();
+      Comparator comparator = comparator();
+      if (comparator instanceof OrderByComparator) {
+        ((OrderByComparator) comparator).removeEvaluatedSortCriteria(last);
+      }
+    }
+  }
+
   @Override
   public boolean equals(Object other) {
     if (!(other instanceof SortedResultSet)) {
@@ -40,6 +40,12 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
   private final Map<E, Integer> sortedMap;
   private final boolean orderedDataAddition;
   private final boolean emitNullAtStart;
+  /**
+   * If non negative, the maximum number of elements retained. Elements sorting after the first
+   * topN are discarded as they are added, so that an ORDER BY with a LIMIT does not need to hold
+   * the entire result.
+   */
+  private int topN = -1;
 
   /**
    * Constructor for unordered input
@@ -145,6 +151,57 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
     this.emitNullAtStart = nullAtStart;
   }
 
+  /**
+   * Bounds this bag to the first n elements in sort order. Only applies to a bag sorting unordered
+   * input with a comparator and should be called before any element is added.
+   */
+  void setTopN(int n) {
+    if (!this.orderedDataAddition) {
+      this.topN = n;
+    }
+  }
+
+  @Override
+  public boolean add(Object element) {
+    boolean added = super.add(element);
+    trimToTopN();
+    return added;
+  }
+
+  @Override
+  public int addAndGetOccurence(Object element) {
+    int occurence = super.addAndGetOccurence(element);
+    trimToTopN();
+    return occurence;
+  }
+
+  /**
+   * Discards the element sorting last once the bag holds more than topN elements. Nulls are
+   * emitted either before or after all the other elements, so they are the first to go if they
+   * sort at the end.
+   */
+  private void trimToTopN() {
+    if (this.topN < 0 || this.size <= this.topN) {
+      return;
+    }
+    if (this.numNulls > 0 && (!this.emitNullAtStart || this.sortedMap.isEmpty())) {
+      this.numNulls--;
+    } else {
+      Map.Entry<E, Integer> last = ((TreeMap<E, Integer>) this.sortedMap).lastEntry();
+      int count = last.getValue();
+      if (count == 1) {
+        this.sortedMap.remove(last.getKey());
+        Comparator comparator = comparator();
+        if (comparator instanceof OrderByComparator) {
+          ((OrderByComparator) comparator).removeEvaluatedSortCriteria(last.getKey());
+        }
+      } else {
+        this.sortedMap.put(last.getKey(), count - 1);
+      }
+    }
+    this.size--;
+  }
+
   @Override
   public boolean isModifiable() {
     return false;
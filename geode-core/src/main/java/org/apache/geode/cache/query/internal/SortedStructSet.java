@@ -42,6 +42,9 @@ public class SortedStructSet extends TreeSet
    */
   private boolean modifiable = true;
 
+  /** If non negative, the maximum number of elements retained */
+  private transient int topN = -1;
+
   /** Creates a new instance of StructSet */
   public SortedStructSet() {};
 
@@ -101,7 +104,32 @@ public class SortedStructSet extends TreeSet
    * For internal use. Just add the Object[] values for a struct with same type
    */
   public boolean addFieldValues(Object[] fieldValues) {
-    return super.add(fieldValues);
+    boolean added = super.add(fieldValues);
+    if (added) {
+      trimToTopN();
+    }
+    return added;
+  }
+
+  /**
+   * Bounds this set to the first n elements in sort order. Elements sorting after them are
+   * discarded as they are added.
+   */
+  void setTopN(int n) {
+    this.topN = n;
+  }
+
+  /**
+   * Discards the element sorting last once the set holds more than topN elements.
+   */
+  private void trimToTopN() {
+    if (this.topN >= 0 && size() > this.topN) {
+      Object last = pollLast();
+      Comparator comparator = comparator();
+      if (comparator instanceof OrderByComparator) {
+        ((OrderByComparator) comparator).removeEvaluatedSortCriteria(last);
+      }
+    }
   }
 
   /**
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.List;
+
+import org.apache.geode.cache.query.types.CollectionType;
+
+/**
+ * Receives the results of a query executed on a server one chunk at a time, as they arrive, instead
+ * of all at once in a {@link org.apache.geode.cache.query.SelectResults}. Only one chunk is held in
+ * memory by the client at a time.
+ * 
+ * @see DefaultQuery#execute(Object[], StreamingResultsHandler)
+ */
+public interface StreamingResultsHandler {
+
+  /**
+   * Handles the next chunk of results.
+   * 
+   * @param collectionType the type of the query results
+   * @param results the results in this chunk; struct results are {@code Struct}s
+   * @return true to receive more results, false to stop, for example once a limit is satisfied.
+   *         The remaining chunks sent by the server are then discarded without being deserialized.
+   */
+  public boolean handleResults(CollectionType collectionType, List<Object> results);
+}
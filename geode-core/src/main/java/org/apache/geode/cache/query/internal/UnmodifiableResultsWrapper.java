@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
+import org.apache.geode.cache.query.types.CollectionType;
+import org.apache.geode.cache.query.types.ObjectType;
+
+/**
+ * Class that wraps a SelectResults shared by several executions of a query, as the results kept by
+ * the {@link QueryResultCache} are. Every modification of the results is rejected with an
+ * {@link UnsupportedOperationException}. Setting the element type, which a query iterating over the
+ * results does, only changes the type reported by this wrapper.
+ */
+public class UnmodifiableResultsWrapper implements SelectResults {
+
+  private final SelectResults results;
+
+  private CollectionType collectionType;
+
+  public UnmodifiableResultsWrapper(SelectResults results) {
+    this.results = results;
+  }
+
+  @Override
+  public Iterator iterator() {
+    final Iterator iterator = this.results.iterator();
+    return new Iterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Object next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public boolean add(Object e) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean addAll(Collection c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean removeAll(Collection c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean retainAll(Collection c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return this.results.contains(o);
+  }
+
+  @Override
+  public boolean containsAll(Collection c) {
+    return this.results.containsAll(c);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.results.isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return this.results.size();
+  }
+
+  @Override
+  public Object[] toArray() {
+    return this.results.toArray();
+  }
+
+  @Override
+  public Object[] toArray(Object[] a) {
+    return this.results.toArray(a);
+  }
+
+  @Override
+  public boolean isModifiable() {
+    return false;
+  }
+
+  @Override
+  public int occurrences(Object element) {
+    return this.results.occurrences(element);
+  }
+
+  @Override
+  public Set asSet() {
+    return new HashSet(this);
+  }
+
+  @Override
+  public List asList() {
+    return new ArrayList(this);
+  }
+
+  @Override
+  public synchronized CollectionType getCollectionType() {
+    return this.collectionType != null ? this.collectionType : this.results.getCollectionType();
+  }
+
+  @Override
+  public synchronized void setElementType(ObjectType elementType) {
+    this.collectionType =
+        new CollectionTypeImpl(this.results.getCollectionType().resolveClass(), elementType);
+  }
+
+  @Override
+  public String toString() {
+    return this.results.toString();
+  }
+}
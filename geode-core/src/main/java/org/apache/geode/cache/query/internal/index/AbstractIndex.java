@@ -117,6 +117,9 @@ public abstract class AbstractIndex implements IndexProtocol {
 
   InternalIndexStatistics internalIndexStats;
 
+  /** Statistics on the keys of this index; null unless cost based index selection is enabled */
+  final IndexKeyStatistics keyStatistics;
+
   /** For PartitionedIndex for now */
   protected Index prIndex;
 
@@ -159,6 +162,39 @@ public abstract class AbstractIndex implements IndexProtocol {
     } else {
       this.internalIndexStats = createStats(indexName);
     }
+    this.keyStatistics =
+        IndexManager.isCostBasedIndexSelection() ? new IndexKeyStatistics() : null;
+  }
+
+  /**
+   * Called before the index is populated with the entries of its region.
+   *
+   * @param expectedEntries the number of entries in the region
+   */
+  void prepareForPopulation(int expectedEntries) {
+    // nothing by default
+  }
+
+  /**
+   * Records a key added to this index in its key statistics, if they are kept.
+   */
+  void recordIndexKey(Object key) {
+    if (this.keyStatistics != null) {
+      this.keyStatistics.keyAdded(key);
+    }
+  }
+
+  /**
+   * Estimates from the key statistics how many of the values in this index have a key that
+   * satisfies {@code indexKey operator key}.
+   * 
+   * @return the estimate, or -1 if there are no key statistics or not enough of them
+   */
+  int estimateFromKeyStatistics(Object key, int operator, int totalValues) {
+    if (this.keyStatistics == null) {
+      return -1;
+    }
+    return this.keyStatistics.estimateMatches(key, operator, totalValues);
   }
 
   /**
@@ -917,6 +953,10 @@ public abstract class AbstractIndex implements IndexProtocol {
     public void incReadLockCount(int delta) {}
 
     public void incNumBucketIndexes(int delta) {}
+
+    public void incPopulateEntries(int delta) {}
+
+    public void incPopulatesInProgress(int delta) {}
   }
 
   class IMQEvaluator implements IndexedExpressionEvaluator {
@@ -147,6 +147,14 @@ public abstract class AbstractMapIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incPopulateEntries(int delta) {
+      this.vsdStats.incPopulateEntries(delta);
+    }
+
+    public void incPopulatesInProgress(int delta) {
+      this.vsdStats.incPopulatesInProgress(delta);
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
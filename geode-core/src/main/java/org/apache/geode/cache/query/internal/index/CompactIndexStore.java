@@ -0,0 +1,1300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.NullToken;
+import org.apache.geode.cache.query.internal.Undefined;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * An index storage for keys that are all Integers, all Longs, all Dates or all Strings, which keeps
+ * the mappings in sorted arrays instead of a skip list of boxed keys and entry collections.
+ *
+ * The mappings are held in an immutable block of parallel arrays with one slot per mapping, sorted
+ * by index key and then by the identity hash code of the region entry. Integer, Long and Date keys
+ * are stored as primitive longs. Updates go to a buffer of added mappings and a set of mappings
+ * removed from the block, which are merged into a new block once they outgrow an eighth of it.
+ * Iterators merge the block with the buffer as they go, so queries never wait for updates. Updates
+ * are serialized on the store, but the merge is not: the thread whose update fills the buffer
+ * builds the new block after releasing the store, and the updates made meanwhile are journaled and
+ * applied again to the new generation when it is swapped in.
+ *
+ * The null and undefined keys are kept in sets of their own, as the iterators skip them. When a key
+ * of any other type is added, the store moves its mappings to a {@link MemoryIndexStore} and
+ * delegates to it from then on.
+ *
+ * @see IndexManager#isCompactIndexStore()
+ */
+class CompactIndexStore implements IndexStore {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of pending updates that always fit in the buffer, however small the block is
+   */
+  private static final int MIN_BUFFER_SIZE = 128;
+
+  private static final Comparator<RegionEntry> IDENTITY_ORDER =
+      (e1, e2) -> Integer.compare(System.identityHashCode(e1), System.identityHashCode(e2));
+
+  private enum KeyType {
+    INTEGER, LONG, DATE, STRING
+  }
+
+  private final Region region;
+
+  private final InternalIndexStatistics internalIndexStats;
+
+  /**
+   * Evaluates the region entries and takes over the mappings if a key cannot be held in arrays
+   */
+  private final MemoryIndexStore memoryStore;
+
+  private volatile boolean useMemoryStore;
+
+  private volatile Generation generation = new Generation(null, Block.EMPTY);
+
+  /** a generation whose buffer is full, waiting for an updating thread to merge it */
+  private volatile Generation pendingMerge;
+
+  // number of keys in the generation, guarded by this
+  private volatile int numKeys;
+
+  CompactIndexStore(Region region, InternalIndexStatistics internalIndexStats) {
+    this.region = region;
+    this.internalIndexStats = internalIndexStats;
+    this.memoryStore = new MemoryIndexStore(region, internalIndexStats);
+  }
+
+  @Override
+  public void addMapping(Object indexKey, RegionEntry re) throws IMQException {
+    // for add, oldkey is null
+    updateMapping(indexKey, null, re, null);
+  }
+
+  @Override
+  public void updateMapping(Object indexKey, Object oldKey, RegionEntry re, Object oldValue)
+      throws IMQException {
+    if (!this.useMemoryStore) {
+      boolean updated = false;
+      synchronized (this) {
+        if (!this.useMemoryStore) {
+          basicUpdateMapping(indexKey, oldKey, re, oldValue);
+          updated = true;
+        }
+      }
+      if (this.pendingMerge != null) {
+        mergePending();
+      }
+      if (updated) {
+        return;
+      }
+    }
+    this.memoryStore.updateMapping(indexKey, oldKey, re, oldValue);
+  }
+
+  private void basicUpdateMapping(Object indexKey, Object oldKey, RegionEntry re,
+      Object oldValue) throws IMQException {
+    try {
+      // Without a reverse map, the old index key of a value updated in place can only be found by
+      // looking for the entry in the store.
+      if (oldValue != null && oldValue == getTargetObjectInVM(re)) {
+        oldKey = findOldKey(indexKey, re);
+      }
+
+      // No need to update the store if new and old index key are same.
+      if (oldKey != null && oldKey.equals(TypeUtils.indexKeyFor(indexKey))) {
+        return;
+      }
+
+      indexKey = TypeUtils.indexKeyFor(indexKey);
+      if (indexKey.equals(QueryService.UNDEFINED)) {
+        Object targetObject = this.memoryStore.getTargetObjectForUpdate(re);
+        if (Token.isInvalidOrRemoved(targetObject)) {
+          if (oldKey != null) {
+            basicRemoveMapping(oldKey, re, false);
+          }
+          return;
+        }
+      }
+
+      if (!canHold(indexKey)) {
+        moveToMemoryStore(indexKey);
+        this.memoryStore.updateMapping(indexKey, oldKey, re, oldValue);
+        return;
+      }
+
+      add(indexKey, re);
+      // remove the old mapping in case of update
+      if (oldKey != null) {
+        basicRemoveMapping(oldKey, re, false);
+      }
+    } catch (TypeMismatchException ex) {
+      throw new IMQException("Could not add object of type " + indexKey.getClass().getName(), ex);
+    }
+    this.internalIndexStats.incNumValues(1);
+  }
+
+  @Override
+  public void removeMapping(Object indexKey, RegionEntry re) throws IMQException {
+    if (!this.useMemoryStore) {
+      boolean removed = false;
+      synchronized (this) {
+        if (!this.useMemoryStore) {
+          basicRemoveMapping(indexKey, re, true);
+          removed = true;
+        }
+      }
+      if (this.pendingMerge != null) {
+        mergePending();
+      }
+      if (removed) {
+        return;
+      }
+    }
+    this.memoryStore.removeMapping(indexKey, re);
+  }
+
+  private boolean basicRemoveMapping(Object key, RegionEntry entry, boolean findOldKey)
+      throws IMQException {
+    boolean found;
+    try {
+      found = remove(TypeUtils.indexKeyFor(key), entry);
+      if (found) {
+        this.internalIndexStats.incNumValues(-1);
+      } else if (findOldKey && key != null) {
+        // the value may have been modified in place, so look for the key it was added with
+        found = basicRemoveMapping(findOldKey(key, entry), entry, false);
+      }
+    } catch (TypeMismatchException ex) {
+      throw new IMQException("Could not remove object of type " + key.getClass().getName(), ex);
+    }
+    return found;
+  }
+
+  private boolean canHold(Object indexKey) {
+    if (indexKey instanceof NullToken || indexKey instanceof Undefined) {
+      return true;
+    }
+    KeyType keyType = this.generation.keyType;
+    return keyType == null ? keyTypeOf(indexKey) != null : keyType == keyTypeOf(indexKey);
+  }
+
+  private static KeyType keyTypeOf(Object indexKey) {
+    Class keyClass = indexKey.getClass();
+    if (keyClass == Integer.class) {
+      return KeyType.INTEGER;
+    } else if (keyClass == Long.class) {
+      return KeyType.LONG;
+    } else if (keyClass == Date.class) {
+      return KeyType.DATE;
+    } else if (keyClass == String.class) {
+      return KeyType.STRING;
+    }
+    return null;
+  }
+
+  /**
+   * Adds a mapping the store can hold. Called with the store locked.
+   */
+  private void add(Object indexKey, RegionEntry re) {
+    Generation gen = this.generation;
+    if (indexKey instanceof NullToken || indexKey instanceof Undefined) {
+      Set<RegionEntry> entries =
+          indexKey instanceof NullToken ? gen.nullEntries : gen.undefinedEntries;
+      if (entries.add(re) && entries.size() == 1) {
+        this.internalIndexStats.incNumKeys(1);
+      }
+      return;
+    }
+    if (gen.keyType == null) {
+      gen = this.generation = new Generation(keyTypeOf(indexKey), Block.EMPTY, gen.nullEntries,
+          gen.undefinedEntries);
+    }
+    Object key = gen.normalize(indexKey);
+    boolean newKey = gen.count(key) == 0;
+    if (gen.addMapping(key, re)) {
+      if (gen.journal != null) {
+        gen.journal.add(new Update(key, re, true));
+      }
+      if (newKey) {
+        this.numKeys++;
+        this.internalIndexStats.incNumKeys(1);
+      }
+      mergeIfFull(gen);
+    }
+  }
+
+  /**
+   * Removes a mapping. Called with the store locked.
+   *
+   * @return true if the mapping was found
+   */
+  private boolean remove(Object indexKey, RegionEntry re) {
+    Generation gen = this.generation;
+    if (indexKey instanceof NullToken || indexKey instanceof Undefined) {
+      Set<RegionEntry> entries =
+          indexKey instanceof NullToken ? gen.nullEntries : gen.undefinedEntries;
+      boolean found = entries.remove(re);
+      if (found && entries.isEmpty()) {
+        this.internalIndexStats.incNumKeys(-1);
+      }
+      return found;
+    }
+    Object key = gen.normalizeLookup(indexKey);
+    if (key == null) {
+      return false;
+    }
+    boolean found = gen.removeMapping(key, re);
+    if (found) {
+      if (gen.journal != null) {
+        gen.journal.add(new Update(key, re, false));
+      }
+      if (gen.count(key) == 0) {
+        this.numKeys--;
+        this.internalIndexStats.incNumKeys(-1);
+      }
+      mergeIfFull(gen);
+    }
+    return found;
+  }
+
+  /**
+   * Find the old key by looking for the entry in the store, in case of in-place modification. The
+   * block is searched through its positions ordered by entry, and the buffer through its keys by
+   * entry. If not found it means the value object was modified with same value, so oldKey is same
+   * as newKey.
+   */
+  private Object findOldKey(Object newKey, RegionEntry re) throws TypeMismatchException {
+    Generation gen = this.generation;
+    Block block = gen.block;
+    int hash = System.identityHashCode(re);
+    for (int i = block.firstOfEntryHash(hash); i < block.size; i++) {
+      int index = block.entryOrder[i];
+      if (System.identityHashCode(block.entries[index]) != hash) {
+        break;
+      }
+      if (block.entries[index] == re && !gen.isRemoved(index)) {
+        Object indexKey = gen.keyAt(index);
+        if (isOtherKey(indexKey, newKey)) {
+          return indexKey;
+        }
+      }
+    }
+    Object addedKey = gen.addedKeys.get(re);
+    if (addedKey != null) {
+      Object indexKey = gen.denormalize(addedKey);
+      if (isOtherKey(indexKey, newKey)) {
+        return indexKey;
+      }
+    }
+    if (gen.nullEntries.contains(re) && isOtherKey(IndexManager.NULL, newKey)) {
+      return IndexManager.NULL;
+    }
+    if (gen.undefinedEntries.contains(re) && isOtherKey(QueryService.UNDEFINED, newKey)) {
+      return QueryService.UNDEFINED;
+    }
+    return newKey;
+  }
+
+  private static boolean isOtherKey(Object indexKey, Object newKey) throws TypeMismatchException {
+    return TypeUtils.compare(indexKey, newKey, OQLLexerTokenTypes.TOK_NE).equals(Boolean.TRUE);
+  }
+
+  /**
+   * Schedules the merge of the pending updates into a new block once there are too many of them to
+   * be merged by the iterators cheaply. The updates made from then on are journaled. Called with
+   * the store locked.
+   */
+  private void mergeIfFull(Generation gen) {
+    if (gen.journal == null && gen.numPending > Math.max(MIN_BUFFER_SIZE, gen.block.size >>> 3)) {
+      gen.journal = new ArrayList<>();
+      this.pendingMerge = gen;
+    }
+  }
+
+  /**
+   * Merges the generation waiting for it, if no other thread has taken it yet. The new block is
+   * built without holding the store, then the updates journaled meanwhile are applied again to the
+   * new generation, which replaces the merged one unless the store has been cleared or moved to the
+   * memory store in the meantime.
+   */
+  private void mergePending() {
+    Generation gen;
+    synchronized (this) {
+      gen = this.pendingMerge;
+      this.pendingMerge = null;
+    }
+    if (gen == null) {
+      return;
+    }
+    Block block = null;
+    try {
+      block = gen.merge();
+    } finally {
+      synchronized (this) {
+        if (this.generation == gen) {
+          if (block == null) {
+            // let a later update try again
+            gen.journal = null;
+          } else {
+            Generation merged =
+                new Generation(gen.keyType, block, gen.nullEntries, gen.undefinedEntries);
+            for (Update update : gen.journal) {
+              if (update.add) {
+                merged.addMapping(update.key, update.entry);
+              } else {
+                merged.removeMapping(update.key, update.entry);
+              }
+            }
+            this.generation = merged;
+            mergeIfFull(merged);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves all the mappings to the memory store, as a key the arrays cannot hold is being added.
+   * Called with the store locked.
+   */
+  private void moveToMemoryStore(Object indexKey) throws IMQException {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Moving index store of region {} to a skip list for key of {}",
+          this.region.getFullPath(), indexKey.getClass().getName());
+    }
+    this.internalIndexStats.incNumKeys(-size());
+    CloseableIterator<IndexStoreEntry> iterator = new CompactIndexStoreIterator(this.generation,
+        true, 0, this.generation.block.size, this.generation.added, null);
+    int numValues = 0;
+    while (iterator.hasNext()) {
+      CompactIndexStoreEntry entry = (CompactIndexStoreEntry) iterator.next();
+      this.memoryStore.addMapping(entry.getDeserializedKey(), entry.getRegionEntry());
+      numValues++;
+    }
+    for (RegionEntry re : this.generation.nullEntries) {
+      this.memoryStore.addMapping(IndexManager.NULL, re);
+      numValues++;
+    }
+    for (RegionEntry re : this.generation.undefinedEntries) {
+      this.memoryStore.addMapping(QueryService.UNDEFINED, re);
+      numValues++;
+    }
+    // the memory store has counted them again
+    this.internalIndexStats.incNumValues(-numValues);
+    // Readers read the generation before checking the flag, so they see either all the mappings
+    // here or all of them in the memory store. The sets of the old generation are left as they are
+    // for the readers still iterating them.
+    this.useMemoryStore = true;
+    this.generation = new Generation(null, Block.EMPTY);
+    this.numKeys = 0;
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> get(Object indexKey) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.get(indexKey);
+    }
+    if (indexKey instanceof NullToken) {
+      return new EntrySetIterator(IndexManager.NULL, gen.nullEntries);
+    } else if (indexKey instanceof Undefined) {
+      return new EntrySetIterator(QueryService.UNDEFINED, gen.undefinedEntries);
+    }
+    if (gen.normalizeLookup(indexKey) == null) {
+      return new EntrySetIterator(indexKey, Collections.emptySet());
+    }
+    return iterator(gen, indexKey, true, indexKey, true, null, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive, Collection keysToRemove) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.iterator(start, startInclusive, end, endInclusive, keysToRemove);
+    }
+    return iterator(gen, start, startInclusive, end, endInclusive, keysToRemove, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
+      Collection keysToRemove) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.iterator(start, startInclusive, keysToRemove);
+    }
+    return iterator(gen, start, startInclusive, null, false, keysToRemove, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Collection keysToRemove) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.iterator(keysToRemove);
+    }
+    return iterator(gen, null, false, null, false, keysToRemove, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive, Collection keysToRemove) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.descendingIterator(start, startInclusive, end, endInclusive,
+          keysToRemove);
+    }
+    return iterator(gen, start, startInclusive, end, endInclusive, keysToRemove, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
+      Collection keysToRemove) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.descendingIterator(start, startInclusive, keysToRemove);
+    }
+    return iterator(gen, start, startInclusive, null, false, keysToRemove, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Collection keysToRemove) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.descendingIterator(keysToRemove);
+    }
+    return iterator(gen, null, false, null, false, keysToRemove, false);
+  }
+
+  /**
+   * Returns the mappings between the given bounds, a null bound meaning no bound. The null and
+   * undefined keys sort before all others, and are skipped like in the skip list.
+   *
+   * @throws ClassCastException if a bound cannot be compared with the keys of the store
+   */
+  private CloseableIterator<IndexStoreEntry> iterator(Generation gen, Object start,
+      boolean startInclusive, Object end, boolean endInclusive, Collection keysToRemove,
+      boolean ascending) {
+    if (start instanceof NullToken || start instanceof Undefined) {
+      start = null;
+    }
+    if (gen.keyType == null || end instanceof NullToken || end instanceof Undefined) {
+      return new EntrySetIterator(null, Collections.emptySet());
+    }
+    Object lower = start == null ? null : gen.toBound(start);
+    Object upper = end == null ? null : gen.toBound(end);
+    Block block = gen.block;
+    int from = lower == null ? 0 : block.lowerIndex(lower, startInclusive);
+    int to = upper == null ? block.size : block.lowerIndex(upper, !endInclusive);
+    ConcurrentNavigableMap<Object, Set<RegionEntry>> added = gen.added;
+    if (lower != null && upper != null) {
+      if (added.comparator().compare(lower, upper) > 0) {
+        return new EntrySetIterator(null, Collections.emptySet());
+      }
+      added = added.subMap(lower, startInclusive, upper, endInclusive);
+    } else if (lower != null) {
+      added = added.tailMap(lower, startInclusive);
+    } else if (upper != null) {
+      added = added.headMap(upper, endInclusive);
+    }
+    if (!ascending) {
+      added = added.descendingMap();
+    }
+    return new CompactIndexStoreIterator(gen, ascending, from, Math.max(from, to), added,
+        keysToRemove);
+  }
+
+  @Override
+  public int size(Object key) {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.size(key);
+    }
+    if (key instanceof NullToken) {
+      return gen.nullEntries.size();
+    } else if (key instanceof Undefined) {
+      return gen.undefinedEntries.size();
+    }
+    Object normalizedKey = gen.normalizeLookup(key);
+    return normalizedKey == null ? 0 : gen.count(normalizedKey);
+  }
+
+  @Override
+  public int size() {
+    Generation gen = this.generation;
+    if (this.useMemoryStore) {
+      return this.memoryStore.size();
+    }
+    return this.numKeys + (gen.nullEntries.isEmpty() ? 0 : 1)
+        + (gen.undefinedEntries.isEmpty() ? 0 : 1);
+  }
+
+  @Override
+  public synchronized boolean clear() {
+    if (this.useMemoryStore) {
+      return this.memoryStore.clear();
+    }
+    this.generation = new Generation(null, Block.EMPTY);
+    this.numKeys = 0;
+    return true;
+  }
+
+  @Override
+  public boolean isIndexOnRegionKeys() {
+    return this.memoryStore.isIndexOnRegionKeys();
+  }
+
+  @Override
+  public void setIndexOnRegionKeys(boolean indexOnRegionKeys) {
+    this.memoryStore.setIndexOnRegionKeys(indexOnRegionKeys);
+  }
+
+  @Override
+  public boolean isIndexOnValues() {
+    return this.memoryStore.isIndexOnValues();
+  }
+
+  @Override
+  public void setIndexOnValues(boolean indexOnValues) {
+    this.memoryStore.setIndexOnValues(indexOnValues);
+  }
+
+  @Override
+  public Object getTargetObject(RegionEntry entry) {
+    return this.memoryStore.getTargetObject(entry);
+  }
+
+  @Override
+  public Object getTargetObjectInVM(RegionEntry entry) {
+    return this.memoryStore.getTargetObjectInVM(entry);
+  }
+
+  @Override
+  public String printAll() {
+    if (this.useMemoryStore) {
+      return this.memoryStore.printAll();
+    }
+    StringBuilder sb = new StringBuilder();
+    printAll(sb, iterator(null));
+    printAll(sb, get(IndexManager.NULL));
+    printAll(sb, get(QueryService.UNDEFINED));
+    return sb.toString();
+  }
+
+  private void printAll(StringBuilder sb, CloseableIterator<IndexStoreEntry> iterator) {
+    Object lastKey = null;
+    while (iterator.hasNext()) {
+      IndexStoreEntry entry = iterator.next();
+      if (!entry.getDeserializedKey().equals(lastKey)) {
+        if (lastKey != null) {
+          sb.append("\n");
+        }
+        lastKey = entry.getDeserializedKey();
+        sb.append("Key: ").append(lastKey);
+      }
+      sb.append(" Value:").append(entry.getDeserializedValue());
+    }
+    if (lastKey != null) {
+      sb.append("\n");
+    }
+  }
+
+  /**
+   * An immutable array of mappings sorted by key and then by the identity hash code of the entry.
+   * The keys are in longKeys for Integer, Long and Date keys and in objectKeys for String keys.
+   */
+  private static class Block {
+    static final Block EMPTY = new Block(null, null, new RegionEntry[0], 0);
+
+    final long[] longKeys;
+
+    final Object[] objectKeys;
+
+    final RegionEntry[] entries;
+
+    final int size;
+
+    /** the positions of the mappings, sorted by the identity hash code of their entry */
+    final int[] entryOrder;
+
+    Block(long[] longKeys, Object[] objectKeys, RegionEntry[] entries, int size) {
+      this.longKeys = longKeys;
+      this.objectKeys = objectKeys;
+      this.entries = entries;
+      this.size = size;
+      this.entryOrder = sortByEntry(entries, size);
+    }
+
+    private static int[] sortByEntry(RegionEntry[] entries, int size) {
+      // the hash code goes in the high bits, so that sorting the longs sorts the positions by entry
+      long[] hashAndIndex = new long[size];
+      for (int i = 0; i < size; i++) {
+        hashAndIndex[i] = ((long) System.identityHashCode(entries[i]) << 32) | i;
+      }
+      Arrays.sort(hashAndIndex);
+      int[] order = new int[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = (int) hashAndIndex[i];
+      }
+      return order;
+    }
+
+    /**
+     * Returns the index in entryOrder of the first mapping whose entry has the given identity hash
+     * code or a greater one
+     */
+    int firstOfEntryHash(int hash) {
+      int low = 0;
+      int high = this.size;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (System.identityHashCode(this.entries[this.entryOrder[mid]]) < hash) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    boolean contains(Object key, RegionEntry re) {
+      return indexOf(lowerIndex(key, true), lowerIndex(key, false), re) >= 0;
+    }
+
+    /**
+     * Compares the key at the index with a normalized key or bound
+     */
+    int compare(int index, Object key) {
+      if (this.longKeys == null) {
+        return ((String) this.objectKeys[index]).compareTo((String) key);
+      }
+      long longKey = this.longKeys[index];
+      // compare like the numeric comparator does
+      if (key instanceof Double) {
+        return Double.compare((double) longKey, (Double) key);
+      } else if (key instanceof Float) {
+        return Float.compare((float) longKey, (Float) key);
+      }
+      return Long.compare(longKey, ((Number) key).longValue());
+    }
+
+    boolean sameKey(int index1, int index2) {
+      if (this.longKeys == null) {
+        return this.objectKeys[index1].equals(this.objectKeys[index2]);
+      }
+      return this.longKeys[index1] == this.longKeys[index2];
+    }
+
+    Object normalizedKeyAt(int index) {
+      return this.longKeys == null ? this.objectKeys[index] : Long.valueOf(this.longKeys[index]);
+    }
+
+    /**
+     * Returns the index of the first mapping with a key greater than the bound, or equal to it if
+     * inclusive
+     */
+    int lowerIndex(Object bound, boolean inclusive) {
+      int low = 0;
+      int high = this.size;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compare(mid, bound);
+        if (cmp < 0 || cmp == 0 && !inclusive) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Returns the index of the entry among the mappings from start to end, which have the same key,
+     * or -1 if it is not there
+     */
+    int indexOf(int start, int end, RegionEntry re) {
+      int hash = System.identityHashCode(re);
+      int low = start;
+      int high = end;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (System.identityHashCode(this.entries[mid]) < hash) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for (int i = low; i < end && System.identityHashCode(this.entries[i]) == hash; i++) {
+        if (this.entries[i] == re) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * A block together with the updates made since it was built. Once a generation has been replaced
+   * it is not updated anymore, so the iterators using it keep seeing the same mappings.
+   */
+  private static class Generation {
+    final KeyType keyType;
+
+    final Block block;
+
+    /** mappings added since the block was built, by normalized key */
+    final ConcurrentNavigableMap<Object, Set<RegionEntry>> added =
+        new ConcurrentSkipListMap<>(TypeUtils.getExtendedNumericComparator());
+
+    /** normalized keys of the added mappings, by entry */
+    final ConcurrentMap<RegionEntry, Object> addedKeys = new ConcurrentHashMap<>();
+
+    /** mappings of the block removed since it was built, by normalized key */
+    final ConcurrentMap<Object, Set<RegionEntry>> removed = new ConcurrentHashMap<>();
+
+    /**
+     * Entries of the null and undefined keys. They are handed over to the next generation when the
+     * block is merged, and left alone when the store is cleared.
+     */
+    final Set<RegionEntry> nullEntries;
+
+    final Set<RegionEntry> undefinedEntries;
+
+    /** number of added and removed mappings, guarded by the store */
+    int numPending;
+
+    /** the updates made while the generation is being merged, guarded by the store */
+    List<Update> journal;
+
+    Generation(KeyType keyType, Block block) {
+      this(keyType, block, ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet());
+    }
+
+    Generation(KeyType keyType, Block block, Set<RegionEntry> nullEntries,
+        Set<RegionEntry> undefinedEntries) {
+      this.keyType = keyType;
+      this.block = block;
+      this.nullEntries = nullEntries;
+      this.undefinedEntries = undefinedEntries;
+    }
+
+    /**
+     * Adds a mapping of a normalized key. Called with the store locked.
+     *
+     * @return false if the generation already had the mapping
+     */
+    boolean addMapping(Object key, RegionEntry re) {
+      Set<RegionEntry> removedEntries = this.removed.get(key);
+      if (removedEntries != null && removedEntries.remove(re)) {
+        // the mapping is still in the block
+        if (removedEntries.isEmpty()) {
+          this.removed.remove(key);
+        }
+        this.numPending--;
+        return true;
+      }
+      if (this.block.contains(key, re)
+          || !this.added.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(re)) {
+        return false;
+      }
+      this.addedKeys.put(re, key);
+      this.numPending++;
+      return true;
+    }
+
+    /**
+     * Removes a mapping of a normalized key. Called with the store locked.
+     *
+     * @return false if the generation did not have the mapping
+     */
+    boolean removeMapping(Object key, RegionEntry re) {
+      Set<RegionEntry> addedEntries = this.added.get(key);
+      if (addedEntries != null && addedEntries.remove(re)) {
+        if (addedEntries.isEmpty()) {
+          this.added.remove(key);
+        }
+        this.addedKeys.remove(re, key);
+        this.numPending--;
+        return true;
+      }
+      if (this.block.contains(key, re)
+          && this.removed.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(re)) {
+        this.numPending++;
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Converts a key of the type of the store to the form it is kept in the buffer, a Long or a
+     * String
+     */
+    Object normalize(Object indexKey) {
+      switch (this.keyType) {
+        case INTEGER:
+          return Long.valueOf((Integer) indexKey);
+        case DATE:
+          return ((Date) indexKey).getTime();
+        default:
+          return indexKey;
+      }
+    }
+
+    /**
+     * Converts a key being looked up to its normalized form, or returns null if no key of the store
+     * can be equal to it
+     */
+    Object normalizeLookup(Object indexKey) {
+      if (this.keyType == null) {
+        return null;
+      }
+      switch (this.keyType) {
+        case INTEGER:
+        case LONG:
+          if (indexKey instanceof Double || indexKey instanceof Float) {
+            double doubleKey = ((Number) indexKey).doubleValue();
+            return doubleKey == (long) doubleKey ? Long.valueOf((long) doubleKey) : null;
+          }
+          return indexKey instanceof Number ? Long.valueOf(((Number) indexKey).longValue()) : null;
+        case DATE:
+          return indexKey instanceof Date ? Long.valueOf(((Date) indexKey).getTime()) : null;
+        default:
+          return indexKey instanceof String ? indexKey : null;
+      }
+    }
+
+    /**
+     * Converts a range bound to a form that can be compared with the normalized keys
+     *
+     * @throws ClassCastException if the bound cannot be compared with the keys
+     */
+    Object toBound(Object indexKey) {
+      switch (this.keyType) {
+        case INTEGER:
+        case LONG:
+          return (Number) indexKey;
+        case DATE:
+          return ((Date) indexKey).getTime();
+        default:
+          return (String) indexKey;
+      }
+    }
+
+    Object denormalize(Object key) {
+      switch (this.keyType) {
+        case INTEGER:
+          return ((Long) key).intValue();
+        case DATE:
+          return new Date((Long) key);
+        default:
+          return key;
+      }
+    }
+
+    Object keyAt(int index) {
+      switch (this.keyType) {
+        case INTEGER:
+          return (int) this.block.longKeys[index];
+        case LONG:
+          return this.block.longKeys[index];
+        case DATE:
+          return new Date(this.block.longKeys[index]);
+        default:
+          return this.block.objectKeys[index];
+      }
+    }
+
+    boolean isRemoved(int index) {
+      if (this.removed.isEmpty()) {
+        return false;
+      }
+      Set<RegionEntry> entries = this.removed.get(this.block.normalizedKeyAt(index));
+      return entries != null && entries.contains(this.block.entries[index]);
+    }
+
+    /**
+     * Returns the number of mappings of a normalized key
+     */
+    int count(Object key) {
+      int count = this.block.lowerIndex(key, false) - this.block.lowerIndex(key, true);
+      Set<RegionEntry> entries = this.removed.get(key);
+      if (entries != null) {
+        count -= entries.size();
+      }
+      entries = this.added.get(key);
+      if (entries != null) {
+        count += entries.size();
+      }
+      return count;
+    }
+
+    /**
+     * Builds the block holding the mappings of this generation. The pending updates may change
+     * while the block is built, so they are copied first; the updates missed or half seen are
+     * journaled and applied again to the new generation.
+     */
+    Block merge() {
+      NavigableMap<Object, RegionEntry[]> addedCopy = new TreeMap<>(this.added.comparator());
+      int maxSize = this.block.size;
+      for (Map.Entry<Object, Set<RegionEntry>> added : this.added.entrySet()) {
+        RegionEntry[] entries = added.getValue().toArray(new RegionEntry[0]);
+        if (entries.length > 0) {
+          addedCopy.put(added.getKey(), entries);
+          maxSize += entries.length;
+        }
+      }
+      Map<Object, Set<RegionEntry>> removedCopy = new HashMap<>();
+      for (Map.Entry<Object, Set<RegionEntry>> removed : this.removed.entrySet()) {
+        removedCopy.put(removed.getKey(), new HashSet<>(removed.getValue()));
+      }
+      long[] longKeys = this.keyType == KeyType.STRING ? null : new long[maxSize];
+      Object[] objectKeys = this.keyType == KeyType.STRING ? new Object[maxSize] : null;
+      RegionEntry[] entries = new RegionEntry[maxSize];
+
+      int index = 0;
+      int count = 0;
+      for (Map.Entry<Object, RegionEntry[]> added : addedCopy.entrySet()) {
+        Object key = added.getKey();
+        int start = index;
+        while (index < this.block.size && this.block.compare(index, key) < 0) {
+          index++;
+        }
+        count = copy(start, index, removedCopy, longKeys, objectKeys, entries, count);
+        start = index;
+        while (index < this.block.size && this.block.compare(index, key) == 0) {
+          index++;
+        }
+        int keyStart = count;
+        count = copy(start, index, removedCopy, longKeys, objectKeys, entries, count);
+        for (RegionEntry re : added.getValue()) {
+          if (longKeys != null) {
+            longKeys[count] = (Long) key;
+          } else {
+            objectKeys[count] = key;
+          }
+          entries[count++] = re;
+        }
+        Arrays.sort(entries, keyStart, count, IDENTITY_ORDER);
+      }
+      count = copy(index, this.block.size, removedCopy, longKeys, objectKeys, entries, count);
+      if (count < maxSize) {
+        longKeys = longKeys == null ? null : Arrays.copyOf(longKeys, count);
+        objectKeys = objectKeys == null ? null : Arrays.copyOf(objectKeys, count);
+        entries = Arrays.copyOf(entries, count);
+      }
+      return new Block(longKeys, objectKeys, entries, count);
+    }
+
+    /**
+     * Copies the mappings of the block from start to end that have not been removed
+     */
+    private int copy(int start, int end, Map<Object, Set<RegionEntry>> removed,
+        long[] longKeys, Object[] objectKeys, RegionEntry[] entries, int count) {
+      Set<RegionEntry> removedEntries = null;
+      for (int i = start; i < end; i++) {
+        if (!removed.isEmpty()) {
+          if (i == start || !this.block.sameKey(i - 1, i)) {
+            removedEntries = removed.get(this.block.normalizedKeyAt(i));
+          }
+          if (removedEntries != null && removedEntries.contains(this.block.entries[i])) {
+            continue;
+          }
+        }
+        if (longKeys != null) {
+          longKeys[count] = this.block.longKeys[i];
+        } else {
+          objectKeys[count] = this.block.objectKeys[i];
+        }
+        entries[count++] = this.block.entries[i];
+      }
+      return count;
+    }
+  }
+
+  /**
+   * An update journaled while a generation is being merged
+   */
+  private static class Update {
+    final Object key;
+
+    final RegionEntry entry;
+
+    final boolean add;
+
+    Update(Object key, RegionEntry entry, boolean add) {
+      this.key = key;
+      this.entry = entry;
+      this.add = add;
+    }
+  }
+
+  /**
+   * Iterates over a range of a generation, merging the mappings of the block with the added ones in
+   * key order.
+   */
+  private class CompactIndexStoreIterator implements CloseableIterator<IndexStoreEntry> {
+    private final Generation gen;
+    private final int step;
+    private final int blockEnd;
+    private final Iterator<Map.Entry<Object, Set<RegionEntry>>> addedIterator;
+    private final Set<Object> keysToRemove;
+    private final CompactIndexStoreEntry currentEntry;
+
+    private int blockIndex;
+    // index of the block mapping whose key the following fields were computed for
+    private int keyIndex = -1;
+    private boolean skipKey;
+    private Set<RegionEntry> removedEntries;
+
+    private Object addedKey;
+    private Iterator<RegionEntry> addedEntries;
+    private RegionEntry nextAdded;
+
+    private Object nextKey;
+    private RegionEntry nextEntry;
+
+    CompactIndexStoreIterator(Generation gen, boolean ascending, int from, int to,
+        Map<Object, Set<RegionEntry>> added, Collection keysToRemove) {
+      this.gen = gen;
+      this.step = ascending ? 1 : -1;
+      this.blockIndex = ascending ? from : to - 1;
+      this.blockEnd = ascending ? to : from - 1;
+      this.addedIterator = added.entrySet().iterator();
+      this.keysToRemove = normalizeKeysToRemove(keysToRemove);
+      this.currentEntry =
+          new CompactIndexStoreEntry(GemFireCacheImpl.getInstance().cacheTimeMillis());
+    }
+
+    private Set<Object> normalizeKeysToRemove(Collection keysToRemove) {
+      if (keysToRemove == null || keysToRemove.isEmpty()) {
+        return null;
+      }
+      Set<Object> keys = new HashSet<>();
+      for (Object key : keysToRemove) {
+        Object normalizedKey = this.gen.normalizeLookup(key);
+        if (normalizedKey != null) {
+          keys.add(normalizedKey);
+        }
+      }
+      return keys.isEmpty() ? null : keys;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (this.nextEntry != null) {
+        return true;
+      }
+      boolean inBlock = advanceBlock();
+      boolean inAdded = advanceAdded();
+      if (inBlock) {
+        int cmp = inAdded ? this.gen.block.compare(this.blockIndex, this.addedKey) : 0;
+        if (!inAdded || (this.step > 0 ? cmp <= 0 : cmp >= 0)) {
+          this.nextKey = this.gen.keyAt(this.blockIndex);
+          this.nextEntry = this.gen.block.entries[this.blockIndex];
+          this.blockIndex += this.step;
+          return true;
+        }
+      }
+      if (inAdded) {
+        this.nextKey = this.gen.denormalize(this.addedKey);
+        this.nextEntry = this.nextAdded;
+        this.nextAdded = null;
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Moves to the next mapping of the block that has not been removed
+     */
+    private boolean advanceBlock() {
+      Block block = this.gen.block;
+      for (; this.blockIndex != this.blockEnd; this.blockIndex += this.step) {
+        if (this.keyIndex < 0 || !block.sameKey(this.keyIndex, this.blockIndex)) {
+          this.keyIndex = this.blockIndex;
+          Object key = null;
+          if (this.keysToRemove != null || !this.gen.removed.isEmpty()) {
+            key = block.normalizedKeyAt(this.blockIndex);
+          }
+          this.skipKey = this.keysToRemove != null && this.keysToRemove.contains(key);
+          this.removedEntries = key == null ? null : this.gen.removed.get(key);
+        }
+        if (!this.skipKey && (this.removedEntries == null
+            || !this.removedEntries.contains(block.entries[this.blockIndex]))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Moves to the next added mapping
+     */
+    private boolean advanceAdded() {
+      while (this.nextAdded == null) {
+        if (this.addedEntries != null && this.addedEntries.hasNext()) {
+          this.nextAdded = this.addedEntries.next();
+        } else if (this.addedIterator.hasNext()) {
+          Map.Entry<Object, Set<RegionEntry>> added = this.addedIterator.next();
+          this.addedKey = added.getKey();
+          this.addedEntries = this.keysToRemove != null && this.keysToRemove.contains(this.addedKey)
+              ? null : added.getValue().iterator();
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public IndexStoreEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      this.currentEntry.setEntry(this.nextKey, this.nextEntry);
+      this.nextEntry = null;
+      return this.currentEntry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // do nothing
+    }
+  }
+
+  /**
+   * Iterates over the entries of a single key
+   */
+  private class EntrySetIterator implements CloseableIterator<IndexStoreEntry> {
+    private final Object indexKey;
+    private final Iterator<RegionEntry> entries;
+    private final CompactIndexStoreEntry currentEntry;
+
+    EntrySetIterator(Object indexKey, Set<RegionEntry> entries) {
+      this.indexKey = indexKey;
+      this.entries = entries.iterator();
+      this.currentEntry =
+          new CompactIndexStoreEntry(GemFireCacheImpl.getInstance().cacheTimeMillis());
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.entries.hasNext();
+    }
+
+    @Override
+    public IndexStoreEntry next() {
+      this.currentEntry.setEntry(this.indexKey, this.entries.next());
+      return this.currentEntry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // do nothing
+    }
+  }
+
+  /**
+   * A mapping of an index key to a RegionEntry
+   */
+  class CompactIndexStoreEntry implements IndexStoreEntry {
+    private Object deserializedIndexKey;
+    private RegionEntry regionEntry;
+    private boolean updateInProgress;
+    private Object value;
+    private final long iteratorStartTime;
+
+    private CompactIndexStoreEntry(long iteratorStartTime) {
+      this.iteratorStartTime = iteratorStartTime;
+    }
+
+    void setEntry(Object deserializedIndexKey, RegionEntry regionEntry) {
+      this.deserializedIndexKey = deserializedIndexKey;
+      this.regionEntry = regionEntry;
+      this.updateInProgress = regionEntry.isUpdateInProgress();
+      this.value = getTargetObject(regionEntry);
+    }
+
+    @Override
+    public Object getDeserializedKey() {
+      return this.deserializedIndexKey;
+    }
+
+    @Override
+    public Object getDeserializedValue() {
+      return this.value;
+    }
+
+    @Override
+    public Object getDeserializedRegionKey() {
+      return this.regionEntry.getKey();
+    }
+
+    public RegionEntry getRegionEntry() {
+      return this.regionEntry;
+    }
+
+    @Override
+    public boolean isUpdateInProgress() {
+      return this.updateInProgress || this.regionEntry.isUpdateInProgress()
+      // The index update could have started just before the iterator was created. The entry still
+      // needs to be re-evaluated in this case.
+          || IndexManager.needsRecalculation(this.iteratorStartTime,
+              this.regionEntry.getLastModified());
+    }
+  }
+}
@@ -14,6 +14,7 @@
  */
 package org.apache.geode.cache.query.internal.index;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -56,7 +57,6 @@ import org.apache.geode.cache.query.internal.StructImpl;
 import org.apache.geode.cache.query.internal.Support;
 import org.apache.geode.cache.query.internal.index.IndexManager.TestHook;
 import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
-import org.apache.geode.cache.query.internal.index.MemoryIndexStore.MemoryIndexStoreEntry;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.internal.types.TypeUtils;
@@ -84,7 +84,7 @@ import org.apache.geode.pdx.internal.PdxString;
  * 
  * @since GemFire 6.0
  */
-public class CompactRangeIndex extends AbstractIndex {
+public class CompactRangeIndex extends AbstractIndex implements SnapshotCapableIndex {
   private static final Logger logger = LogService.getLogger();
 
   private static TestHook testHook;
@@ -103,6 +103,8 @@ public class CompactRangeIndex extends AbstractIndex {
     if (IndexManager.IS_TEST_LDM) {
       indexStore = new MapIndexStore(
           ((LocalRegion) region).getIndexMap(indexName, indexedExpression, origFromClause), region);
+    } else if (IndexManager.isCompactIndexStore() && !IndexManager.isObjectModificationInplace()) {
+      indexStore = new CompactIndexStore(region, internalIndexStats);
     } else {
       indexStore = new MemoryIndexStore(region, internalIndexStats);
     }
@@ -278,7 +280,7 @@ public class CompactRangeIndex extends AbstractIndex {
     CompactRangeIndex index = (CompactRangeIndex) indexInfo._getIndex();
     RuntimeIterator runtimeItr = index.getRuntimeIteratorForThisIndex(context, indexInfo);
     if (runtimeItr != null) {
-      runtimeItr.setCurrent(((MemoryIndexStoreEntry) entry).getDeserializedValue());
+      runtimeItr.setCurrent(entry.getDeserializedValue());
     }
     return evaluateEntry(indexInfo, context, keyVal);
   }
@@ -308,6 +310,11 @@ public class CompactRangeIndex extends AbstractIndex {
           break;
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
+          if (matchLevel <= 0
+              && (size = estimateFromKeyStatistics(key, operator, indexStore.size())) >= 0) {
+            break;
+          }
+          size = 0;
           if (matchLevel <= 0 && (key instanceof Number)) {
 
             int totalSize = indexStore.size();
@@ -372,6 +379,11 @@ public class CompactRangeIndex extends AbstractIndex {
 
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
+          if (matchLevel <= 0
+              && (size = estimateFromKeyStatistics(key, operator, indexStore.size())) >= 0) {
+            break;
+          }
+          size = 0;
           if (matchLevel <= 0 && (key instanceof Number)) {
             int totalSize = indexStore.size();
             if (CompactRangeIndex.testHook != null) {
@@ -1003,6 +1015,14 @@ public class CompactRangeIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incPopulateEntries(int delta) {
+      this.vsdStats.incPopulateEntries(delta);
+    }
+
+    public void incPopulatesInProgress(int delta) {
+      this.vsdStats.incPopulatesInProgress(delta);
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
@@ -1466,6 +1486,7 @@ public class CompactRangeIndex extends AbstractIndex {
       }
       RegionEntry re = temp.getRegionEntry();
       indexStore.addMapping(indexKey, re);
+      recordIndexKey(indexKey);
     }
 
     /**
@@ -1523,6 +1544,7 @@ public class CompactRangeIndex extends AbstractIndex {
           oldValue = oldKeyValuePair.getOldValue();
         }
 
+        recordIndexKey(indexKey);
         // Add new index entries
         // A null oldKey means this is a create
         // oldKey would be a NullToken in case of update
@@ -1597,6 +1619,33 @@ public class CompactRangeIndex extends AbstractIndex {
   void addMapping(Object key, Object value, RegionEntry entry) throws IMQException {
     // Only called from CompactMapRangeIndex
     indexStore.addMapping(key, entry);
+    recordIndexKey(key);
+  }
+
+  public boolean visitMappings(IndexSnapshot.MappingVisitor visitor) throws IOException {
+    visitMappings(this.indexStore.iterator(null), visitor);
+    // the store iterators skip the null and undefined keys
+    visitMappings(this.indexStore.get(IndexManager.NULL), visitor);
+    visitMappings(this.indexStore.get(QueryService.UNDEFINED), visitor);
+    return true;
+  }
+
+  private void visitMappings(CloseableIterator<IndexStoreEntry> iterator,
+      IndexSnapshot.MappingVisitor visitor) throws IOException {
+    try {
+      while (iterator.hasNext()) {
+        IndexStoreEntry indexStoreEntry = iterator.next();
+        visitor.visit(indexStoreEntry.getDeserializedKey(),
+            indexStoreEntry.getDeserializedRegionKey());
+      }
+    } finally {
+      iterator.close();
+    }
+  }
+
+  public void addSnapshotMapping(Object indexKey, RegionEntry entry) throws IMQException {
+    addMapping(indexKey, null, entry);
+    this.internalIndexStats.incNumUpdates();
   }
 
   public static void setTestHook(TestHook hook) {
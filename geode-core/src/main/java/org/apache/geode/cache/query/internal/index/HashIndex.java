@@ -16,6 +16,7 @@ package org.apache.geode.cache.query.internal.index;
 
 import static org.apache.geode.internal.lang.SystemUtils.*;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -87,7 +88,7 @@ import org.apache.geode.internal.offheap.StoredObject;
  * <p>
  * Currently this implementation only supports an index on a region path.
  */
-public class HashIndex extends AbstractIndex {
+public class HashIndex extends AbstractIndex implements SnapshotCapableIndex {
   private static final Logger logger = LogService.getLogger();
 
   /**
@@ -163,12 +164,46 @@ public class HashIndex extends AbstractIndex {
   @Override
   public void initializeIndex(boolean loadEntries) throws IMQException {
     long startTime = System.nanoTime();
+    if (loadEntries) {
+      prepareForPopulation(this.region.size());
+    }
     this.evaluator.initializeIndex(loadEntries);
     this.internalIndexStats.incNumUpdates(((IMQEvaluator) this.evaluator).getTotalEntriesUpdated());
     long endTime = System.nanoTime();
     this.internalIndexStats.incUpdateTime(endTime - startTime);
   }
 
+  /**
+   * The hash index does not keep the keys of its mappings, so they are evaluated again from the
+   * values. The snapshot is given up as soon as a value is found not to be in memory.
+   */
+  public boolean visitMappings(IndexSnapshot.MappingVisitor visitor) throws IOException {
+    Iterator iterator = this.entriesSet.iterator();
+    while (iterator.hasNext()) {
+      RegionEntry entry = (RegionEntry) iterator.next();
+      Object indexKey;
+      if (IndexManager.isObjectModificationInplace()) {
+        indexKey = this.entryToValuesMap.get(entry);
+      } else if (this.indexOnValues && entry.isValueNull()) {
+        return false;
+      } else {
+        indexKey = ((IMQEvaluator) this.evaluator).evaluateKey(entry);
+      }
+      visitor.visit(indexKey, entry.getKey());
+    }
+    return true;
+  }
+
+  public void addSnapshotMapping(Object indexKey, RegionEntry entry) throws IMQException {
+    basicAddMapping(indexKey, entry);
+    this.internalIndexStats.incNumUpdates();
+  }
+
+  @Override
+  void prepareForPopulation(int expectedEntries) {
+    this.entriesSet.ensureCapacity(expectedEntries);
+  }
+
   void addMapping(RegionEntry entry) throws IMQException {
     this.evaluator.evaluate(entry, true);
     this.internalIndexStats.incNumUpdates();
@@ -225,6 +260,7 @@ public class HashIndex extends AbstractIndex {
       int indexSlot = this.entriesSet.add(newKey, entry);
 
       if (indexSlot >= 0) {
+        recordIndexKey(newKey);
         // Update the reverse map
         if (IndexManager.isObjectModificationInplace()) {
           this.entryToValuesMap.put(entry, newKey);
@@ -430,6 +466,10 @@ public class HashIndex extends AbstractIndex {
         case OQLLexerTokenTypes.TOK_EQ: {
           key = TypeUtils.indexKeyFor(key);
           size = this.entriesSet.size(key);
+          if (this.keyStatistics != null) {
+            // the set only knows its total size
+            size = this.keyStatistics.estimateEqualMatches(size);
+          }
         }
           break;
         case OQLLexerTokenTypes.TOK_NE_ALT:
@@ -437,6 +477,9 @@ public class HashIndex extends AbstractIndex {
           size = this.region.size();
           key = TypeUtils.indexKeyFor(key);
           size = this.entriesSet.size(key);
+          if (this.keyStatistics != null) {
+            size -= this.keyStatistics.estimateEqualMatches(size);
+          }
           break;
       }
     } finally {
@@ -881,6 +924,14 @@ public class HashIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incPopulateEntries(int delta) {
+      this.vsdStats.incPopulateEntries(delta);
+    }
+
+    public void incPopulatesInProgress(int delta) {
+      this.vsdStats.incPopulatesInProgress(delta);
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
@@ -443,6 +443,18 @@ public class HashIndexSet implements Set {
     return hashIndexSetProperties.set.length;
   }
 
+  /**
+   * Grows the set so that it can hold the expected number of objects without rehashing, as every
+   * rehash evaluates the index key of each object in the set again.
+   */
+  public synchronized void ensureCapacity(int expectedSize) {
+    int newN = arraySize(expectedSize, _loadFactor);
+    if (newN > hashIndexSetProperties.n) {
+      rehash(newN);
+      hashIndexSetProperties.free = hashIndexSetProperties.computeNumFree();
+    }
+  }
+
 
   public boolean remove(Object obj) {
     return remove(_imqEvaluator.evaluateKey(obj), obj);
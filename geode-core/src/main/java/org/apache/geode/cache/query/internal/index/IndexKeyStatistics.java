@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.hll.HyperLogLog;
+import org.apache.geode.internal.hll.MurmurHash;
+
+/**
+ * Statistics on the keys of an index, used to estimate how many values a lookup returns. The number
+ * of distinct keys is estimated with a {@link HyperLogLog} and the distribution of the keys with a
+ * uniform random sample of them (reservoir sampling).
+ * 
+ * Both are only updated when keys are added to the index; keys are not taken out when they are
+ * removed, so the statistics describe all keys the index has seen. Updates are not synchronized,
+ * and a lost update only makes the estimates slightly less accurate.
+ */
+class IndexKeyStatistics {
+
+  /** Number of keys kept in the sample */
+  static final int SAMPLE_SIZE = 256;
+
+  /** Minimum number of sampled keys needed to estimate a range */
+  static final int MIN_SAMPLE_SIZE = 32;
+
+  /** 2^10 registers, about 3% error */
+  private static final int LOG2M = 10;
+
+  private final HyperLogLog distinctKeys = new HyperLogLog(LOG2M);
+
+  private final AtomicReferenceArray<Object> sample = new AtomicReferenceArray<Object>(SAMPLE_SIZE);
+
+  private final AtomicLong keysSeen = new AtomicLong();
+
+  /**
+   * Records a key added to the index
+   */
+  void keyAdded(Object key) {
+    if (key == null || key == IndexManager.NULL || key == QueryService.UNDEFINED) {
+      return;
+    }
+    this.distinctKeys.offerHashed(MurmurHash.hashLong(key.hashCode()));
+    long seen = this.keysSeen.getAndIncrement();
+    if (seen < SAMPLE_SIZE) {
+      this.sample.set((int) seen, key);
+    } else {
+      long slot = ThreadLocalRandom.current().nextLong(seen + 1);
+      if (slot < SAMPLE_SIZE) {
+        this.sample.set((int) slot, key);
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated number of distinct keys seen
+   */
+  long getDistinctKeys() {
+    return this.distinctKeys.cardinality();
+  }
+
+  /**
+   * Estimates how many of the given number of values have a key that satisfies
+   * {@code indexKey operator key}.
+   * 
+   * @return the estimate, or -1 if there are not enough keys in the sample
+   */
+  int estimateMatches(Object key, int operator, int totalValues) {
+    int sampled = (int) Math.min(this.keysSeen.get(), SAMPLE_SIZE);
+    if (sampled < MIN_SAMPLE_SIZE) {
+      return -1;
+    }
+    int matches = 0;
+    int compared = 0;
+    for (int i = 0; i < sampled; i++) {
+      Object sampleKey = this.sample.get(i);
+      if (sampleKey == null) {
+        continue;
+      }
+      try {
+        if (TypeUtils.compare(sampleKey, key, operator) == Boolean.TRUE) {
+          matches++;
+        }
+        compared++;
+      } catch (TypeMismatchException ignore) {
+        // keys of a different type never match
+      }
+    }
+    if (compared == 0) {
+      return -1;
+    }
+    // round up so that a non empty match is never estimated as zero
+    return (int) Math.ceil(((double) matches * totalValues) / compared);
+  }
+
+  /**
+   * Estimates the number of values with a given key, assuming they are spread evenly over the
+   * distinct keys
+   */
+  int estimateEqualMatches(int totalValues) {
+    long distinct = getDistinctKeys();
+    if (distinct <= 0) {
+      return totalValues;
+    }
+    return (int) Math.max(1, totalValues / distinct);
+  }
+}
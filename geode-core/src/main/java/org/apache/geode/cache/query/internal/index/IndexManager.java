@@ -28,11 +28,17 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.Logger;
 
@@ -85,6 +91,9 @@ public class IndexManager {
   // Asif : This action is to rerun Index creation after
   // clear is called on the region
   public static final int RECREATE_INDEX = 4;
+  // Queued to the other updater threads along with a RECREATE_INDEX, to tell the thread recreating
+  // the indexes that the updates queued before it have been applied
+  private static final int RECREATE_INDEX_FENCE = 5;
   protected final Region region;
 
   private final boolean isOverFlowToDisk;
@@ -102,7 +111,13 @@ public class IndexManager {
   private final ConcurrentMap indexes = new ConcurrentHashMap();
   // TODO Asif : Fix the appropriate size of the Map & the concurrency level
   private ConcurrentMap canonicalizedIteratorNameMap = new ConcurrentHashMap();
-  private IndexUpdaterThread updater;
+  private IndexUpdaterThread[] updaters;
+
+  /**
+   * Held for read by the updater threads while they apply a batch of updates, and for write while
+   * the indexes are recreated, so that no update is applied during a recreate.
+   */
+  private final ReentrantReadWriteLock asyncUpdateLock = new ReentrantReadWriteLock();
 
   // Threshold for Queue.
   private final int INDEX_MAINTENANCE_BUFFER =
@@ -138,6 +153,85 @@ public class IndexManager {
 
   /** For test purpose only */
   public static boolean TEST_RANGEINDEX_ONLY = false;
+
+  /**
+   * System property to keep statistics on the keys of each index and choose between indexes by
+   * comparing the estimated sizes of their results rather than by the kind of comparison.
+   */
+  public static final boolean COST_BASED_INDEX_SELECTION =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.costBasedSelection");
+
+  /** For test purpose only */
+  public static boolean TEST_COST_BASED_INDEX_SELECTION = false;
+
+  /**
+   * System property for the number of threads populating the indexes of a region. 1 populates them
+   * on the calling thread only, 0 or less uses one thread per processor.
+   */
+  public static final int INDEX_POPULATION_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.populationThreads", 1);
+
+  /** For test purpose only */
+  public static int TEST_INDEX_POPULATION_THREADS = 0;
+
+  /**
+   * System property to save the compact range and hash indexes of a persistent region into its disk
+   * store when the region is closed, and to load them from there when it is recovered.
+   */
+  public static final boolean PERSIST_INDEXES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.persistWithDiskStore");
+
+  /** For test purpose only */
+  public static boolean TEST_PERSIST_INDEXES = false;
+
+  /**
+   * System property for the number of milliseconds a closing cache waits for the snapshots of its
+   * indexes to be saved. The snapshots that are not saved by then are discarded, and their indexes
+   * are rebuilt from the region when it is recovered.
+   */
+  public static final long INDEX_SNAPSHOT_SAVE_TIMEOUT =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "index.snapshotSaveTimeout", 60000);
+
+  /**
+   * System property to keep the mappings of compact range indexes on Integer, Long, Date or String
+   * keys in sorted arrays rather than in a skip list, which takes several times less memory.
+   */
+  public static final boolean COMPACT_INDEX_STORE =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.compactStore");
+
+  /** For test purpose only */
+  public static boolean TEST_COMPACT_INDEX_STORE = false;
+
+  /**
+   * System property for the number of threads applying the index updates of a region whose index
+   * maintenance is asynchronous. The updates of an entry are always applied by the same thread, in
+   * order. The buckets of a partitioned region have one thread each.
+   */
+  public static final int ASYNC_MAINTENANCE_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.asyncMaintenanceThreads", 1);
+
+  /** For test purpose only */
+  public static int TEST_ASYNC_MAINTENANCE_THREADS = 0;
+
+  /**
+   * System property for the number of milliseconds the index updates may lag behind the operations
+   * when index maintenance is asynchronous. An operation that finds an update queued for longer
+   * waits up to that long for the updater to catch up, which throttles the operations to the rate at
+   * which the indexes are updated. 0 does not throttle the operations. This does not bound what the
+   * queries see; a query waits for the indexes to catch up only if it has an index maintenance wait
+   * time, see {@link DefaultQuery#INDEX_MAINTENANCE_WAIT_TIME}.
+   */
+  public static final long ASYNC_MAINTENANCE_THROTTLE_LAG =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "index.asyncMaintenanceThrottleLag", 0);
+
+  /** For test purpose only */
+  public static long TEST_ASYNC_MAINTENANCE_THROTTLE_LAG = -1;
+
+  /** Maximum number of queued index updates an updater thread applies at a time */
+  private static final int ASYNC_MAINTENANCE_BATCH_SIZE = 1000;
+
+  /** Number of region entries a thread takes from the region at a time while populating indexes */
+  private static final int POPULATE_BATCH_SIZE = 1000;
   public static final String INDEX_ELEMARRAY_THRESHOLD_PROP = "index_elemarray_threshold";
   public static final String INDEX_ELEMARRAY_SIZE_PROP = "index_elemarray_size";
   public static final int INDEX_ELEMARRAY_THRESHOLD =
@@ -168,9 +262,14 @@ public class IndexManager {
     if (!indexMaintenanceSynchronous) {
       final LoggingThreadGroup group =
           LoggingThreadGroup.createThreadGroup("QueryMonitor Thread Group", logger);
-      updater = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER,
-          "OqlIndexUpdater:" + region.getFullPath());
-      updater.start();
+      int numThreads = region instanceof BucketRegion ? 1 : getAsyncMaintenanceThreads();
+      updaters = new IndexUpdaterThread[numThreads];
+      for (int i = 0; i < numThreads; i++) {
+        String threadName = "OqlIndexUpdater:" + region.getFullPath();
+        updaters[i] = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER,
+            numThreads == 1 ? threadName : threadName + '-' + i);
+        updaters[i].start();
+      }
     }
   }
 
@@ -247,7 +346,37 @@ public class IndexManager {
    * Used by tests to access the updater thread to determine its progress
    */
   public IndexUpdaterThread getUpdaterThread() {
-    return this.updater;
+    return this.updaters == null ? null : this.updaters[0];
+  }
+
+  /**
+   * Returns the updater thread that applies the updates of the given entry
+   */
+  private IndexUpdaterThread getUpdaterThread(RegionEntry entry) {
+    if (entry == null || this.updaters.length == 1) {
+      return this.updaters[0];
+    }
+    return this.updaters[(System.identityHashCode(entry) & 0x7fffffff) % this.updaters.length];
+  }
+
+  /**
+   * Waits until the index updates queued before this call have been applied, when index
+   * maintenance is asynchronous. Returns immediately when it is synchronous.
+   *
+   * @param timeout the maximum number of milliseconds to wait
+   * @return true if the indexes are up to date, false if the timeout elapsed first
+   */
+  public boolean waitForIndexMaintenance(long timeout) throws InterruptedException {
+    if (isIndexMaintenanceTypeSynchronous()) {
+      return true;
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    for (IndexUpdaterThread updater : this.updaters) {
+      if (!updater.waitForTasksAdded(deadline)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   // @todo need more specific list of exceptions
@@ -890,8 +1019,13 @@ public class IndexManager {
     if (isIndexMaintenanceTypeSynchronous()) {
       recreateAllIndexesForRegion();
     } else {
-      // System.out.println("Aynchronous update");
-      updater.addTask(RECREATE_INDEX, null, IndexProtocol.OTHER_OP);
+      // The indexes are recreated by the first updater thread once the others have applied the
+      // updates queued before the recreate, so that none of them is applied to the new indexes.
+      CountDownLatch fence = new CountDownLatch(this.updaters.length - 1);
+      for (int i = 1; i < this.updaters.length; i++) {
+        this.updaters[i].addTask(RECREATE_INDEX_FENCE, null, IndexProtocol.OTHER_OP, fence);
+      }
+      this.updaters[0].addTask(RECREATE_INDEX, null, IndexProtocol.OTHER_OP, fence);
     }
   }
 
@@ -903,55 +1037,253 @@ public class IndexManager {
     if (region.getCache().getLogger().infoEnabled()) {
       region.getCache().getLogger().info("Populating indexes for region " + region.getName());
     }
-    boolean throwException = false;
-    HashMap<String, Exception> exceptionsMap = new HashMap<String, Exception>();
-    boolean oldReadSerialized = DefaultQuery.getPdxReadSerialized();
-    DefaultQuery.setPdxReadSerialized(true);
+    List<AbstractIndex> indexesToPopulate = new ArrayList<AbstractIndex>(indexSet.size());
+    for (Index ind : indexSet) {
+      AbstractIndex index = (AbstractIndex) ind;
+      if (!index.isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
+        indexesToPopulate.add(index);
+      }
+    }
+    ConcurrentMap<String, Exception> exceptionsMap = new ConcurrentHashMap<String, Exception>();
+    if (isPersistIndexes()) {
+      for (Iterator<AbstractIndex> iterator = indexesToPopulate.iterator(); iterator.hasNext();) {
+        AbstractIndex index = iterator.next();
+        try {
+          if (index instanceof SnapshotCapableIndex
+              && IndexSnapshot.load((LocalRegion) region, index)) {
+            iterator.remove();
+          }
+        } catch (IMQException e) {
+          exceptionsMap.put(index.indexName, e);
+          iterator.remove();
+        }
+      }
+    }
+    int numThreads = getIndexPopulationThreads();
     try {
+      for (AbstractIndex index : indexesToPopulate) {
+        index.internalIndexStats.incPopulatesInProgress(1);
+        index.prepareForPopulation(this.region.size());
+      }
       Iterator entryIter = ((LocalRegion) region).getBestIterator(true);
-      while (entryIter.hasNext()) {
-        RegionEntry entry = (RegionEntry) entryIter.next();
-        if (entry == null || entry.isInvalidOrRemoved()) {
-          continue;
-        }
-        // Fault in the value once before index update so that every index
-        // update does not have
-        // to read the value from disk every time.
-        entry.getValue((LocalRegion) this.region);
-        Iterator<Index> indexSetIterator = indexSet.iterator();
-        while (indexSetIterator.hasNext()) {
-          AbstractIndex index = (AbstractIndex) indexSetIterator.next();
-          if (!index.isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
-            if (logger.isDebugEnabled()) {
-              logger.debug("Adding to index :{}{} value :{}", index.getName(),
-                  this.region.getFullPath(), entry.getKey());
-            }
-            long start = ((AbstractIndex) index).updateIndexUpdateStats();
-            try {
-              index.addIndexMapping(entry);
-            } catch (IMQException e) {
-              if (logger.isDebugEnabled()) {
-                logger.debug("Adding to index failed for: {}, {}", index.getName(), e.getMessage(),
-                    e);
-              }
-              exceptionsMap.put(index.indexName, e);
-              indexSetIterator.remove();
-              throwException = true;
-            }
-            ((AbstractIndex) index).updateIndexUpdateStats(start);
+      if (numThreads > 1 && !indexesToPopulate.isEmpty()) {
+        populateIndexesInParallel(entryIter, indexesToPopulate, exceptionsMap, numThreads);
+      } else {
+        new IndexPopulator(entryIter, indexesToPopulate, exceptionsMap).call();
+      }
+      if (!exceptionsMap.isEmpty()) {
+        for (Iterator<Index> indexSetIterator = indexSet.iterator(); indexSetIterator.hasNext();) {
+          if (exceptionsMap.containsKey(((AbstractIndex) indexSetIterator.next()).indexName)) {
+            indexSetIterator.remove();
           }
         }
       }
       setPopulateFlagForIndexes(indexSet);
-      if (throwException) {
-        throw new MultiIndexCreationException(exceptionsMap);
+      if (!exceptionsMap.isEmpty()) {
+        throw new MultiIndexCreationException(new HashMap<String, Exception>(exceptionsMap));
       }
     } finally {
-      DefaultQuery.setPdxReadSerialized(oldReadSerialized);
+      for (AbstractIndex index : indexesToPopulate) {
+        index.internalIndexStats.incPopulatesInProgress(-1);
+      }
       notifyAfterUpdate();
     }
   }
 
+  /**
+   * Returns the number of threads populating the indexes of a region, including the calling thread.
+   */
+  public static int getIndexPopulationThreads() {
+    int numThreads =
+        TEST_INDEX_POPULATION_THREADS > 0 ? TEST_INDEX_POPULATION_THREADS : INDEX_POPULATION_THREADS;
+    return numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Populates the indexes using the given number of threads, the calling thread being one of them.
+   * The helper threads come from the index population thread pool of the cache, which is shared by
+   * all the regions and buckets. The threads take batches of entries from the shared region
+   * iterator.
+   */
+  private void populateIndexesInParallel(Iterator entryIter, List<AbstractIndex> indexes,
+      ConcurrentMap<String, Exception> exceptionsMap, int numThreads) {
+    ExecutorService executor =
+        ((InternalCache) this.region.getCache()).getIndexPopulationThreadPool();
+    List<PopulationHelper> helpers = new ArrayList<PopulationHelper>(numThreads - 1);
+    for (int i = 1; i < numThreads && executor != null; i++) {
+      PopulationHelper helper =
+          new PopulationHelper(new IndexPopulator(entryIter, indexes, exceptionsMap));
+      try {
+        executor.execute(helper);
+      } catch (RejectedExecutionException ignore) {
+        // the cache is closing, the calling thread populates the indexes by itself
+        break;
+      }
+      helpers.add(helper);
+    }
+    new IndexPopulator(entryIter, indexes, exceptionsMap).call();
+    for (PopulationHelper helper : helpers) {
+      helper.awaitCompletion();
+    }
+  }
+
+  /**
+   * Runs an {@link IndexPopulator} on a pooled thread. A helper that has not started by the time
+   * the calling thread has iterated the whole region is not run at all, so that the calling thread
+   * does not wait for the pool to get to it.
+   */
+  private static class PopulationHelper implements Runnable {
+    private final IndexPopulator populator;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private volatile Throwable failure;
+
+    PopulationHelper(IndexPopulator populator) {
+      this.populator = populator;
+    }
+
+    public void run() {
+      if (!this.claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        this.populator.call();
+      } catch (VirtualMachineError err) {
+        SystemFailure.initiateFailure(err);
+        throw err;
+      } catch (Throwable t) {
+        SystemFailure.checkFailure();
+        this.failure = t;
+      } finally {
+        this.completed.countDown();
+      }
+    }
+
+    /**
+     * Waits for the helper to complete if it has started, and rethrows its failure.
+     */
+    void awaitCompletion() {
+      if (this.claimed.compareAndSet(false, true)) {
+        return;
+      }
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            this.completed.await();
+            break;
+          } catch (InterruptedException ignore) {
+            // the helper stops by itself once the region has been iterated
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      Throwable cause = this.failure;
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      if (cause != null) {
+        throw new IndexMaintenanceException(cause);
+      }
+    }
+  }
+
+  /**
+   * Adds region entries taken from a shared iterator to a set of indexes, a batch at a time. The
+   * indexes that fail are recorded in the exceptions map and skipped for the remaining entries.
+   * The populator is created by the thread populating the indexes, and carries the region
+   * thread-locals of that thread over to the pooled thread it may run on.
+   */
+  private class IndexPopulator implements Callable<Void> {
+    private final Iterator entryIter;
+    private final List<AbstractIndex> indexes;
+    private final ConcurrentMap<String, Exception> exceptionsMap;
+    private final RegionEntry[] batch = new RegionEntry[POPULATE_BATCH_SIZE];
+    private final int initLevel;
+    private final boolean indexCreationThread;
+
+    IndexPopulator(Iterator entryIter, List<AbstractIndex> indexes,
+        ConcurrentMap<String, Exception> exceptionsMap) {
+      this.entryIter = entryIter;
+      this.indexes = indexes;
+      this.exceptionsMap = exceptionsMap;
+      this.initLevel = LocalRegion.threadInitLevelRequirement();
+      this.indexCreationThread = ((LocalRegion) region).isIndexCreationThread();
+    }
+
+    public Void call() {
+      LocalRegion localRegion = (LocalRegion) region;
+      boolean oldReadSerialized = DefaultQuery.getPdxReadSerialized();
+      boolean oldIndexCreationThread = localRegion.isIndexCreationThread();
+      int oldInitLevel = LocalRegion.setThreadInitLevelRequirement(this.initLevel);
+      DefaultQuery.setPdxReadSerialized(true);
+      localRegion.setFlagForIndexCreationThread(this.indexCreationThread);
+      try {
+        int batchSize;
+        while ((batchSize = nextBatch()) > 0) {
+          for (int i = 0; i < batchSize; i++) {
+            addToIndexes(this.batch[i]);
+            this.batch[i] = null;
+          }
+          for (AbstractIndex index : this.indexes) {
+            index.internalIndexStats.incPopulateEntries(batchSize);
+          }
+        }
+      } finally {
+        localRegion.setFlagForIndexCreationThread(oldIndexCreationThread);
+        DefaultQuery.setPdxReadSerialized(oldReadSerialized);
+        LocalRegion.setThreadInitLevelRequirement(oldInitLevel);
+      }
+      return null;
+    }
+
+    private int nextBatch() {
+      int batchSize = 0;
+      synchronized (this.entryIter) {
+        while (batchSize < POPULATE_BATCH_SIZE && this.entryIter.hasNext()) {
+          RegionEntry entry = (RegionEntry) this.entryIter.next();
+          if (entry != null && !entry.isInvalidOrRemoved()) {
+            this.batch[batchSize++] = entry;
+          }
+        }
+      }
+      return batchSize;
+    }
+
+    private void addToIndexes(RegionEntry entry) {
+      // Fault in the value once before index update so that every index
+      // update does not have
+      // to read the value from disk every time.
+      entry.getValue((LocalRegion) region);
+      for (AbstractIndex index : this.indexes) {
+        if (this.exceptionsMap.containsKey(index.indexName)) {
+          continue;
+        }
+        if (logger.isDebugEnabled()) {
+          logger.debug("Adding to index :{}{} value :{}", index.getName(), region.getFullPath(),
+              entry.getKey());
+        }
+        long start = index.updateIndexUpdateStats();
+        try {
+          index.addIndexMapping(entry);
+        } catch (IMQException e) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Adding to index failed for: {}, {}", index.getName(), e.getMessage(), e);
+          }
+          this.exceptionsMap.putIfAbsent(index.indexName, e);
+        }
+        index.updateIndexUpdateStats(start);
+      }
+    }
+  }
+
   /**
    * Sets the {@link AbstractIndex#isPopulated} after populating all the indexes in this region
    */
@@ -993,7 +1325,7 @@ public class IndexManager {
       processAction(entry, action, opCode);
     } else {
       // System.out.println("Aynchronous update");
-      updater.addTask(action, entry, opCode);
+      getUpdaterThread(entry).addTask(action, entry, opCode);
     }
   }
 
@@ -1283,8 +1615,11 @@ public class IndexManager {
    */
   public void destroy() throws QueryException {
     this.indexes.clear();
-    if (!isIndexMaintenanceTypeSynchronous())
-      updater.shutdown();
+    if (!isIndexMaintenanceTypeSynchronous()) {
+      for (IndexUpdaterThread updater : this.updaters) {
+        updater.shutdown();
+      }
+    }
   }
 
   /**
@@ -1339,6 +1674,56 @@ public class IndexManager {
     return (INPLACE_OBJECT_MODIFICATION || INPLACE_OBJECT_MODIFICATION_FOR_TEST);
   }
 
+  public static boolean isPersistIndexes() {
+    return (PERSIST_INDEXES || TEST_PERSIST_INDEXES);
+  }
+
+  /**
+   * Saves the indexes of this region into its disk store, for a region that is being closed.
+   * Indexes that were not saved are left with no snapshot.
+   */
+  public void saveIndexSnapshots() {
+    for (Object ind : this.indexes.values()) {
+      if (ind instanceof AbstractIndex) {
+        AbstractIndex index = (AbstractIndex) ind;
+        if (!index.isPopulated() || !index.isValid()
+            || !IndexSnapshot.save((LocalRegion) this.region, index)) {
+          IndexSnapshot.delete((LocalRegion) this.region, index);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the snapshots of the indexes of this region, for a region that is being destroyed
+   */
+  public void deleteIndexSnapshots() {
+    for (Object ind : this.indexes.values()) {
+      if (ind instanceof AbstractIndex) {
+        IndexSnapshot.delete((LocalRegion) this.region, (AbstractIndex) ind);
+      }
+    }
+  }
+
+  public static boolean isCostBasedIndexSelection() {
+    return (COST_BASED_INDEX_SELECTION || TEST_COST_BASED_INDEX_SELECTION);
+  }
+
+  public static boolean isCompactIndexStore() {
+    return (COMPACT_INDEX_STORE || TEST_COMPACT_INDEX_STORE);
+  }
+
+  public static int getAsyncMaintenanceThreads() {
+    int numThreads = TEST_ASYNC_MAINTENANCE_THREADS > 0 ? TEST_ASYNC_MAINTENANCE_THREADS
+        : ASYNC_MAINTENANCE_THREADS;
+    return Math.max(numThreads, 1);
+  }
+
+  public static long getAsyncMaintenanceThrottleLag() {
+    return TEST_ASYNC_MAINTENANCE_THROTTLE_LAG >= 0 ? TEST_ASYNC_MAINTENANCE_THROTTLE_LAG
+        : ASYNC_MAINTENANCE_THROTTLE_LAG;
+  }
+
   /**
    * Asif : This function is used exclusively by Index Manager. It gets the unique Iterator name for
    * a Iterator definition, if it already exists, else creates a unqiue name & also stores it in a
@@ -1392,6 +1777,21 @@ public class IndexManager {
 
     private volatile BlockingQueue pendingTasks;
 
+    /** Number of tasks added to the queue */
+    private final AtomicLong numTasksAdded = new AtomicLong();
+
+    /** Number of tasks taken from the queue and applied */
+    private volatile long numTasksApplied;
+
+    /**
+     * The System.nanoTime() at which the task being applied was added, or 0 if no task is being
+     * applied
+     */
+    private volatile long appliedTaskTime;
+
+    /** Notified each time a batch of tasks has been applied */
+    private final Object appliedLock = new Object();
+
     /**
      * Creates instance of IndexUpdaterThread
      */
@@ -1409,11 +1809,84 @@ public class IndexManager {
     }
 
     public void addTask(int action, RegionEntry entry, int opCode) {
-      Object[] task = new Object[3];
+      addTask(action, entry, opCode, null);
+    }
+
+    void addTask(int action, RegionEntry entry, int opCode, CountDownLatch fence) {
+      Object[] task = new Object[5];
       task[0] = action;
       task[1] = entry;
       task[2] = opCode;
+      task[3] = System.nanoTime();
+      task[4] = fence;
       pendingTasks.add(task);
+      numTasksAdded.incrementAndGet();
+      long throttleLag = getAsyncMaintenanceThrottleLag();
+      if (throttleLag > 0) {
+        waitForLaggingTasks(TimeUnit.MILLISECONDS.toNanos(throttleLag));
+      }
+    }
+
+    /**
+     * Waits, for at most the given lag, while the oldest task not yet applied was added longer than
+     * the given lag ago. The wait is bounded because the caller holds the lock of a region entry
+     * that a queued task may need.
+     */
+    private void waitForLaggingTasks(long maxLag) {
+      long deadline = System.nanoTime() + maxLag;
+      synchronized (this.appliedLock) {
+        while (this.running && isOldestTaskOlderThan(maxLag)) {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return;
+          }
+          ((LocalRegion) region).getCancelCriterion().checkCancelInProgress(null);
+          boolean interrupted = Thread.interrupted();
+          try {
+            TimeUnit.NANOSECONDS.timedWait(this.appliedLock, remaining);
+          } catch (InterruptedException ignore) {
+            interrupted = true;
+          } finally {
+            if (interrupted) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+          }
+        }
+      }
+    }
+
+    private boolean isOldestTaskOlderThan(long staleness) {
+      long oldestTaskTime = this.appliedTaskTime;
+      if (oldestTaskTime == 0) {
+        Object[] oldest = (Object[]) pendingTasks.peek();
+        if (oldest == null) {
+          return false;
+        }
+        oldestTaskTime = (Long) oldest[3];
+      }
+      return System.nanoTime() - oldestTaskTime > staleness;
+    }
+
+    /**
+     * Waits until the tasks added before this call have been applied
+     *
+     * @param deadline the System.nanoTime() at which to stop waiting
+     * @return true if the tasks have been applied, false if the deadline passed first
+     */
+    boolean waitForTasksAdded(long deadline) throws InterruptedException {
+      long numTasks = this.numTasksAdded.get();
+      synchronized (this.appliedLock) {
+        while (this.numTasksApplied < numTasks) {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0 || !this.running) {
+            return false;
+          }
+          ((LocalRegion) region).getCancelCriterion().checkCancelInProgress(null);
+          TimeUnit.NANOSECONDS.timedWait(this.appliedLock, remaining);
+        }
+      }
+      return true;
     }
 
     /**
@@ -1438,6 +1911,7 @@ public class IndexManager {
       // async writers main loop
       // logger.debug("DiskRegion writer started (writer=" + this + ")");
       org.apache.geode.CancelCriterion stopper = ((LocalRegion) region).getCancelCriterion();
+      List<Object> batch = new ArrayList<>();
       try {
         while (!this.shutdownRequested) {
           // Termination checks
@@ -1446,17 +1920,40 @@ public class IndexManager {
             break;
           }
           try {
-            Object[] task = (Object[]) pendingTasks.take();
+            batch.add(pendingTasks.take());
             if (this.shutdownRequested) {
               break;
             }
-            updateIndexes(task);
+            pendingTasks.drainTo(batch, ASYNC_MAINTENANCE_BATCH_SIZE - 1);
+            updateIndexes(batch);
           } catch (InterruptedException ignore) {
             return; // give up (exit the thread)
+          } finally {
+            batch.clear();
           }
         }
       } finally {
         this.running = false;
+        synchronized (this.appliedLock) {
+          this.appliedLock.notifyAll();
+        }
+      }
+    }
+
+    private void updateIndexes(List<Object> batch) {
+      asyncUpdateLock.readLock().lock();
+      try {
+        for (Object task : batch) {
+          this.appliedTaskTime = (Long) ((Object[]) task)[3];
+          updateIndexes((Object[]) task);
+        }
+      } finally {
+        this.appliedTaskTime = 0;
+        asyncUpdateLock.readLock().unlock();
+        synchronized (this.appliedLock) {
+          this.numTasksApplied += batch.size();
+          this.appliedLock.notifyAll();
+        }
       }
     }
 
@@ -1465,10 +1962,27 @@ public class IndexManager {
       RegionEntry entry = (RegionEntry) task[1];
       int opCode = (Integer) task[2];
       // System.out.println("entry = "+entry.getKey());
+      if (action == RECREATE_INDEX_FENCE) {
+        ((CountDownLatch) task[4]).countDown();
+        return;
+      }
       if (entry != null || action == RECREATE_INDEX) {
         try {
           if (action == RECREATE_INDEX) {
-            recreateAllIndexesForRegion();
+            // other updater threads must not apply updates while the indexes are recreated
+            asyncUpdateLock.readLock().unlock();
+            try {
+              if (awaitFence((CountDownLatch) task[4])) {
+                asyncUpdateLock.writeLock().lock();
+                try {
+                  recreateAllIndexesForRegion();
+                } finally {
+                  asyncUpdateLock.writeLock().unlock();
+                }
+              }
+            } finally {
+              asyncUpdateLock.readLock().lock();
+            }
           } else {
             if (entry != null) {
               entry.setUpdateInProgress(true);
@@ -1476,7 +1990,7 @@ public class IndexManager {
             processAction(entry, action, opCode);
           }
         } catch (Exception e) {
-          e.printStackTrace();
+          logger.warn("Could not update the indexes of region {}", region.getFullPath(), e);
         } finally {
           if (entry != null && action != RECREATE_INDEX) {
             entry.setUpdateInProgress(false);
@@ -1485,13 +1999,35 @@ public class IndexManager {
       }
     }
 
+    /**
+     * Waits until the other updater threads have reached the fence queued along with a recreate of
+     * the indexes. Called without holding the async update lock, which the other threads need to
+     * get there.
+     *
+     * @return false if this thread is stopping
+     */
+    private boolean awaitFence(CountDownLatch fence) {
+      org.apache.geode.CancelCriterion stopper = ((LocalRegion) region).getCancelCriterion();
+      while (!this.shutdownRequested && !stopper.isCancelInProgress()) {
+        try {
+          if (fence.await(100, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        } catch (InterruptedException ignore) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      return false;
+    }
+
     /**
      * Used by tests to determine if the updater thread has finished updating its indexes. The list
      * is cleared without synchronization, which makes this methods somewhat unsafe from a threading
      * point of view.
      */
     public synchronized boolean isDone() {
-      return this.pendingTasks.size() == 0;
+      return this.pendingTasks.size() == 0 && this.numTasksApplied >= this.numTasksAdded.get();
     }
 
   }
@@ -1646,7 +2182,14 @@ public class IndexManager {
         boolean indexCreatedSuccessfully = false;
         try {
           ((LocalRegion) region).setFlagForIndexCreationThread(true);
-          aIndex.initializeIndex(loadEntries);
+          if (loadEntries && isPersistIndexes() && aIndex instanceof SnapshotCapableIndex) {
+            aIndex.initializeIndex(false);
+            if (!IndexSnapshot.load((LocalRegion) region, aIndex)) {
+              aIndex.initializeIndex(true);
+            }
+          } else {
+            aIndex.initializeIndex(loadEntries);
+          }
           logger.info((loadEntries ? "Initialized and loaded entries into the index "
               : "Initialized but entries not yet loaded into the index " + indexName
                   + " on region: " + region.getFullPath()));
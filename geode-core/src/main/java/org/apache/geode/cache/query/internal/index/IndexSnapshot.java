@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.internal.cache.DiskRegion;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.versions.RegionVersionVector;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Saves the mappings of an index on a persistent region into the first directory of the region's
+ * disk store when the region is closed, so that the index can be loaded from it instead of being
+ * rebuilt from the region entries when the region is recovered.
+ *
+ * A snapshot holds the index key and the region key of each mapping, together with the region
+ * version vector at the time it was taken. It is only loaded if the version vector of the recovered
+ * region is the same, meaning the region has not changed since the snapshot was taken. A snapshot
+ * is deleted once it has been read, whether it was used or not.
+ */
+class IndexSnapshot {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final byte VERSION = 1;
+
+  private static final String FILE_PREFIX = "INDEX";
+
+  private static final String FILE_EXT = ".idx";
+
+  private static final byte KEY_OBJECT = 0;
+  private static final byte KEY_NULL = 1;
+  private static final byte KEY_UNDEFINED = 2;
+
+  /**
+   * Receives the mappings of an index being saved
+   */
+  interface MappingVisitor {
+    void visit(Object indexKey, Object regionKey) throws IOException;
+  }
+
+  private IndexSnapshot() {
+    // no instances
+  }
+
+  /**
+   * Returns the snapshot file of the index, or null if its region is not persistent
+   */
+  static File getSnapshotFile(LocalRegion region, AbstractIndex index) {
+    DiskRegion dr = region.getDiskRegion();
+    if (dr == null || !dr.isBackup()) {
+      return null;
+    }
+    String name = FILE_PREFIX + dr.getDiskStore().getName() + '_'
+        + (region.getFullPath() + '_' + index.getName()).replaceAll("[^\\w\\-.]", "_") + FILE_EXT;
+    return new File(dr.getDiskStore().getDiskDirs()[0], name);
+  }
+
+  /**
+   * Saves the mappings of the index. The snapshot is discarded if the region changes while it is
+   * being taken.
+   *
+   * @return true if the snapshot was saved
+   */
+  static boolean save(LocalRegion region, AbstractIndex index) {
+    File file = getSnapshotFile(region, index);
+    RegionVersionVector rvv = region.getVersionVector();
+    if (file == null || rvv == null || !(index instanceof SnapshotCapableIndex)) {
+      return false;
+    }
+    File tmpFile = new File(file.getPath() + ".tmp");
+    boolean saved = false;
+    try {
+      RegionVersionVector before = rvv.getCloneForTransmission();
+      try (final DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+        out.writeByte(VERSION);
+        writeDefinition(index, out);
+        DataSerializer.writeObject(before, out);
+        boolean complete = ((SnapshotCapableIndex) index).visitMappings(new MappingVisitor() {
+          public void visit(Object indexKey, Object regionKey) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+              throw new InterruptedIOException("index snapshot abandoned");
+            }
+            out.writeBoolean(true);
+            writeIndexKey(indexKey, out);
+            DataSerializer.writeObject(regionKey, out);
+          }
+        });
+        if (!complete) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Index {} of region {} has values that are not in memory",
+                index.getName(), region.getFullPath());
+          }
+          return false;
+        }
+        out.writeBoolean(false);
+      }
+      if (rvv.getCloneForTransmission().sameAs(before)
+          && !Thread.currentThread().isInterrupted()) {
+        saved = tmpFile.renameTo(file);
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.info("Could not save index {} of region {}: {}", index.getName(),
+          region.getFullPath(), e.toString());
+    } finally {
+      if (!saved) {
+        tmpFile.delete();
+      }
+    }
+    return saved;
+  }
+
+  /**
+   * Loads the mappings of the index from its snapshot, if there is one that matches the region.
+   * The index must be initialized and empty, and the caller must hold off the index updates of the
+   * region. Should the region change all the same while the mappings are added, the index is
+   * rebuilt from the region.
+   *
+   * @return true if the index was loaded, false if it has to be populated from the region
+   * @throws IMQException if the index could not be loaded after some of the mappings were added
+   */
+  static boolean load(LocalRegion region, AbstractIndex index) throws IMQException {
+    File file = getSnapshotFile(region, index);
+    if (file == null || !file.exists()) {
+      return false;
+    }
+    try {
+      RegionVersionVector rvv = region.getVersionVector();
+      if (rvv == null || !(index instanceof SnapshotCapableIndex)) {
+        return false;
+      }
+      List<Object> indexKeys = new ArrayList<Object>();
+      List<RegionEntry> entries = new ArrayList<RegionEntry>();
+      RegionVersionVector saved;
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        if (in.readByte() != VERSION || !readDefinition(index, in)) {
+          return false;
+        }
+        saved = DataSerializer.readObject(in);
+        if (!rvv.getCloneForTransmission().sameAs(saved)) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Index snapshot {} is stale", file);
+          }
+          return false;
+        }
+        while (in.readBoolean()) {
+          Object indexKey = readIndexKey(in);
+          RegionEntry entry = region.getRegionMap().getEntry(DataSerializer.readObject(in));
+          if (entry == null || entry.isInvalidOrRemoved()) {
+            return false;
+          }
+          indexKeys.add(indexKey);
+          entries.add(entry);
+        }
+      }
+      try {
+        for (int i = 0; i < entries.size(); i++) {
+          ((SnapshotCapableIndex) index).addSnapshotMapping(indexKeys.get(i), entries.get(i));
+        }
+      } catch (RuntimeException e) {
+        throw new IMQException(e);
+      }
+      if (!rvv.getCloneForTransmission().sameAs(saved)) {
+        logger.info("Region {} changed while index {} was loaded from its snapshot; rebuilding it",
+            region.getFullPath(), index.getName());
+        index.recreateIndexData();
+        return true;
+      }
+      logger.info("Loaded {} mappings of index {} on region {} from its snapshot", entries.size(),
+          index.getName(), region.getFullPath());
+      return true;
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      logger.info("Could not load index {} of region {}: {}", index.getName(),
+          region.getFullPath(), e.toString());
+      return false;
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Deletes the snapshot of the index, if it has one
+   */
+  static void delete(LocalRegion region, AbstractIndex index) {
+    File file = getSnapshotFile(region, index);
+    if (file != null) {
+      file.delete();
+    }
+  }
+
+  private static void writeDefinition(AbstractIndex index, DataOutputStream out)
+      throws IOException {
+    DataSerializer.writeString(index.getType().toString(), out);
+    DataSerializer.writeString(index.getCanonicalizedIndexedExpression(), out);
+    DataSerializer.writeString(index.getCanonicalizedFromClause(), out);
+  }
+
+  private static boolean readDefinition(AbstractIndex index, DataInputStream in)
+      throws IOException {
+    return Objects.equals(index.getType().toString(), DataSerializer.readString(in))
+        && Objects.equals(index.getCanonicalizedIndexedExpression(), DataSerializer.readString(in))
+        && Objects.equals(index.getCanonicalizedFromClause(), DataSerializer.readString(in));
+  }
+
+  /**
+   * The NULL and UNDEFINED tokens are singletons, so they are written as markers
+   */
+  private static void writeIndexKey(Object indexKey, DataOutputStream out) throws IOException {
+    if (indexKey == null || indexKey == IndexManager.NULL) {
+      out.writeByte(KEY_NULL);
+    } else if (indexKey == QueryService.UNDEFINED) {
+      out.writeByte(KEY_UNDEFINED);
+    } else {
+      out.writeByte(KEY_OBJECT);
+      DataSerializer.writeObject(indexKey, out);
+    }
+  }
+
+  private static Object readIndexKey(DataInputStream in)
+      throws IOException, ClassNotFoundException {
+    switch (in.readByte()) {
+      case KEY_NULL:
+        return IndexManager.NULL;
+      case KEY_UNDEFINED:
+        return QueryService.UNDEFINED;
+      default:
+        return DataSerializer.readObject(in);
+    }
+  }
+}
@@ -40,6 +40,8 @@ public class IndexStats {
   private static final int readLockCountId;
   private static final int numMapIndexKeysId;
   private static final int numBucketIndexesId;
+  private static final int populateEntriesId;
+  private static final int populatesInProgressId;
 
   /** The Statistics object that we delegate most behavior to */
   private final Statistics stats;
@@ -66,7 +68,12 @@ public class IndexStats {
             f.createIntGauge("readLockCount", "Current number of read locks taken.", "uses"),
             f.createLongGauge("numMapIndexKeys", "Number of keys in this Map index", "keys"),
             f.createIntGauge("numBucketIndexes",
-                "Number of bucket indexes in the partitioned region", "indexes"),});
+                "Number of bucket indexes in the partitioned region", "indexes"),
+            f.createLongCounter("populateEntries",
+                "Number of region entries added to this index while populating it", "entries"),
+            f.createIntGauge("populatesInProgress",
+                "Current number of regions or buckets this index is being populated for.",
+                "operations"),});
 
     // Initialize id fields
     numKeysId = type.nameToId("numKeys");
@@ -80,6 +87,8 @@ public class IndexStats {
     readLockCountId = type.nameToId("readLockCount");
     numMapIndexKeysId = type.nameToId("numMapIndexKeys");
     numBucketIndexesId = type.nameToId("numBucketIndexes");
+    populateEntriesId = type.nameToId("populateEntries");
+    populatesInProgressId = type.nameToId("populatesInProgress");
   }
 
   /**
@@ -126,6 +135,14 @@ public class IndexStats {
     return stats.getInt(numBucketIndexesId);
   }
 
+  public long getPopulateEntries() {
+    return stats.getLong(populateEntriesId);
+  }
+
+  public int getPopulatesInProgress() {
+    return stats.getInt(populatesInProgressId);
+  }
+
   public void incNumUpdates() {
     this.stats.incLong(numUpdatesId, 1);
   }
@@ -182,6 +199,14 @@ public class IndexStats {
     this.stats.incInt(numBucketIndexesId, delta);
   }
 
+  public void incPopulateEntries(int delta) {
+    this.stats.incLong(populateEntriesId, delta);
+  }
+
+  public void incPopulatesInProgress(int delta) {
+    this.stats.incInt(populatesInProgressId, delta);
+  }
+
   /**
    * Closes these stats so that they can not longer be used. The stats are closed when the cache is
    * closed.
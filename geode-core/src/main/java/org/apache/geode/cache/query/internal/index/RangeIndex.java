@@ -238,6 +238,7 @@ public class RangeIndex extends AbstractIndex {
         Object key = keys.iterator().next();
         try {
           Object newKey = TypeUtils.indexKeyFor(key);
+          recordIndexKey(newKey);
           boolean retry = false;
           do {
             retry = false;
@@ -286,6 +287,7 @@ public class RangeIndex extends AbstractIndex {
         for (Object key : keys) {
           try {
             Object newKey = TypeUtils.indexKeyFor(key);
+            recordIndexKey(newKey);
             boolean retry = false;
             // Going in a retry loop until concurrent index update is successful.
             do {
@@ -468,6 +470,7 @@ public class RangeIndex extends AbstractIndex {
     } else {
       try {
         Object newKey = TypeUtils.indexKeyFor(key);
+        recordIndexKey(newKey);
         RegionEntryToValuesMap rvMap = (RegionEntryToValuesMap) this.valueToEntriesMap.get(newKey);
         if (rvMap == null) {
           rvMap = new RegionEntryToValuesMap(true /* use target list */);
@@ -676,6 +679,11 @@ public class RangeIndex extends AbstractIndex {
           break;
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
+          if (matchLevel <= 0
+              && (size = estimateFromKeyStatistics(key, operator, this.region.size())) >= 0) {
+            break;
+          }
+          size = 0;
           if (matchLevel <= 0 && key instanceof Number) {
             int totalSize = valueToEntriesMapSize;// this.valueToEntriesMap.size();
             if (RangeIndex.testHook != null) {
@@ -715,6 +723,11 @@ public class RangeIndex extends AbstractIndex {
 
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
+          if (matchLevel <= 0
+              && (size = estimateFromKeyStatistics(key, operator, this.region.size())) >= 0) {
+            break;
+          }
+          size = 0;
           if (matchLevel <= 0 && key instanceof Number) {
             int totalSize = valueToEntriesMapSize;// this.valueToEntriesMap.size();
             if (testHook != null) {
@@ -1522,6 +1535,14 @@ public class RangeIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incPopulateEntries(int delta) {
+      this.vsdStats.incPopulateEntries(delta);
+    }
+
+    public void incPopulatesInProgress(int delta) {
+      this.vsdStats.incPopulatesInProgress(delta);
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
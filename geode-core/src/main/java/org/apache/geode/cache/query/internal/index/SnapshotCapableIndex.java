@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.io.IOException;
+
+import org.apache.geode.internal.cache.RegionEntry;
+
+/**
+ * Implemented by the indexes whose mappings can be saved in an {@link IndexSnapshot}
+ */
+interface SnapshotCapableIndex {
+
+  /**
+   * Passes the index key and the region key of each mapping of this index to the visitor. Values
+   * that are not in memory are not read back in to find their index key.
+   *
+   * @return false if some of the mappings could not be visited, in which case no snapshot is saved
+   */
+  boolean visitMappings(IndexSnapshot.MappingVisitor visitor) throws IOException;
+
+  /**
+   * Adds a mapping read from an {@link IndexSnapshot}, without evaluating the indexed expression
+   */
+  void addSnapshotMapping(Object indexKey, RegionEntry entry) throws IMQException;
+}
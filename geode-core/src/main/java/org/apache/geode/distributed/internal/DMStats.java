@@ -258,6 +258,16 @@ public interface DMStats {
    */
   public void endReplyWait(long startNanos, long initTime);
 
+  /**
+   * Same as {@link #endReplyWait(long, long)} but also records the wait in a histogram for the
+   * given type of reply processor, if reply wait histograms are enabled.
+   *
+   * @param startNanos the timestamp taken when the operation started
+   * @param initTime the time the operation begain (before msg transmission)
+   * @param processorType the class of the reply processor that waited
+   */
+  public void endReplyWait(long startNanos, long initTime, Class<?> processorType);
+
   /**
    * Increments the number of message replies that have timed out
    *
@@ -538,6 +548,17 @@ public interface DMStats {
    */
   public void incSenderBufferSize(int inc, boolean direct);
 
+  /**
+   * Increments the number of serialization buffers reused from the heap buffer pool.
+   */
+  public void incHeapBufferPoolHits();
+
+  /**
+   * Increments the number of serialization buffers allocated because the heap buffer pool was
+   * empty.
+   */
+  public void incHeapBufferPoolMisses();
+
   /**
    * @since GemFire 5.0.2.4
    */
@@ -14,6 +14,9 @@
  */
 package org.apache.geode.distributed.internal;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.StatisticDescriptor;
@@ -21,6 +24,7 @@ import org.apache.geode.Statistics;
 import org.apache.geode.StatisticsFactory;
 import org.apache.geode.StatisticsType;
 import org.apache.geode.StatisticsTypeFactory;
+import org.apache.geode.internal.HistogramStats;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
 import org.apache.geode.internal.logging.LogService;
@@ -39,6 +43,17 @@ public class DistributionStats implements DMStats {
 
   public static boolean enableClockStats = false;
 
+  /**
+   * If true, and clock stats are enabled, reply waits are also recorded in a histogram per type of
+   * reply processor.
+   */
+  public static final boolean ENABLE_REPLY_WAIT_HISTOGRAMS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DistributionStats.replyWaitHistograms");
+
+  /** Break points, in nanoseconds, of the reply wait histograms */
+  private static final long[] REPLY_WAIT_BREAK_POINTS = new long[] {100000L, 250000L, 500000L,
+      1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 100000000L, 1000000000L};
+
 
   ////////////////// Statistic "Id" Fields //////////////////
 
@@ -188,6 +203,8 @@ public class DistributionStats implements DMStats {
   private static final int receiverHeapBufferSizeId;
   private static final int senderDirectBufferSizeId;
   private static final int senderHeapBufferSizeId;
+  private static final int heapBufferPoolHitsId;
+  private static final int heapBufferPoolMissesId;
 
   private static final int messagesBeingReceivedId;
   private static final int messageBytesBeingReceivedId;
@@ -648,6 +665,12 @@ public class DistributionStats implements DMStats {
         f.createLongGauge("receiverHeapBufferSize", receiverHeapBufferSizeDesc, "bytes"),
         f.createLongGauge("senderDirectBufferSize", senderDirectBufferSizeDesc, "bytes"),
         f.createLongGauge("senderHeapBufferSize", senderHeapBufferSizeDesc, "bytes"),
+        f.createLongCounter("heapBufferPoolHits",
+            "Total number of times a serialization buffer was reused from the heap buffer pool.",
+            "operations"),
+        f.createLongCounter("heapBufferPoolMisses",
+            "Total number of times a serialization buffer had to be allocated because the heap buffer pool had none of the requested size.",
+            "operations"),
         f.createIntGauge("socketLocksInProgress",
             "Current number of threads waiting to lock a socket", "threads", false),
         f.createIntCounter("socketLocks", "Total number of times a socket has been locked.",
@@ -875,6 +898,8 @@ public class DistributionStats implements DMStats {
     receiverHeapBufferSizeId = type.nameToId("receiverHeapBufferSize");
     senderDirectBufferSizeId = type.nameToId("senderDirectBufferSize");
     senderHeapBufferSizeId = type.nameToId("senderHeapBufferSize");
+    heapBufferPoolHitsId = type.nameToId("heapBufferPoolHits");
+    heapBufferPoolMissesId = type.nameToId("heapBufferPoolMisses");
 
     socketLocksInProgressId = type.nameToId("socketLocksInProgress");
     socketLocksId = type.nameToId("socketLocks");
@@ -937,6 +962,13 @@ public class DistributionStats implements DMStats {
   // private final HistogramStats replyHandoffHistogram;
   // private final HistogramStats replyWaitHistogram;
 
+  /** Used to create the reply wait histograms; null if they are not enabled */
+  private final StatisticsFactory histogramFactory;
+
+  /** The reply wait histogram of each type of reply processor */
+  private final ConcurrentMap<Class<?>, HistogramStats> replyWaitHistograms =
+      new ConcurrentHashMap<Class<?>, HistogramStats>();
+
   //////////////////////// Constructors ////////////////////////
 
   /**
@@ -951,6 +983,7 @@ public class DistributionStats implements DMStats {
     // this.replyWaitHistogram = new HistogramStats("ReplyWait", "nanoseconds", f,
     // new long[] {100000, 200000, 300000, 400000, 500000, 600000, 700000, 800000, 900000, 1000000},
     // false);
+    this.histogramFactory = ENABLE_REPLY_WAIT_HISTOGRAMS ? f : null;
     Buffers.initBufferStats(this);
   }
 
@@ -959,6 +992,7 @@ public class DistributionStats implements DMStats {
    */
   public DistributionStats(Statistics stats) {
     this.stats = stats;
+    this.histogramFactory = null;
     // this.replyHandoffHistogram = null;
     // this.replyWaitHistogram = null;
   }
@@ -976,6 +1010,10 @@ public class DistributionStats implements DMStats {
 
   public void close() {
     this.stats.close();
+    for (HistogramStats histogram : this.replyWaitHistograms.values()) {
+      histogram.close();
+    }
+    this.replyWaitHistograms.clear();
   }
 
   /**
@@ -1544,6 +1582,33 @@ public class DistributionStats implements DMStats {
     Breadcrumbs.setProblem(null); // clear out reply-wait errors
   }
 
+  public void endReplyWait(long startNanos, long initTime, Class<?> processorType) {
+    if (enableClockStats && this.histogramFactory != null && processorType != null) {
+      getReplyWaitHistogram(processorType).endOp(getStatTime() - startNanos);
+    }
+    endReplyWait(startNanos, initTime);
+  }
+
+  private HistogramStats getReplyWaitHistogram(Class<?> processorType) {
+    HistogramStats histogram = this.replyWaitHistograms.get(processorType);
+    if (histogram == null) {
+      synchronized (this.replyWaitHistograms) {
+        histogram = this.replyWaitHistograms.get(processorType);
+        if (histogram == null) {
+          String name = processorType.getSimpleName();
+          if (name.isEmpty()) {
+            // anonymous processor
+            name = processorType.getName();
+          }
+          histogram = new HistogramStats("ReplyWait-" + name, "nanoseconds",
+              this.histogramFactory, REPLY_WAIT_BREAK_POINTS, false);
+          this.replyWaitHistograms.put(processorType, histogram);
+        }
+      }
+    }
+    return histogram;
+  }
+
   public void incReplyTimeouts() {
     stats.incLong(replyTimeoutsId, 1L);
   }
@@ -2114,6 +2179,22 @@ public class DistributionStats implements DMStats {
     }
   }
 
+  public void incHeapBufferPoolHits() {
+    stats.incLong(heapBufferPoolHitsId, 1);
+  }
+
+  public long getHeapBufferPoolHits() {
+    return stats.getLong(heapBufferPoolHitsId);
+  }
+
+  public void incHeapBufferPoolMisses() {
+    stats.incLong(heapBufferPoolMissesId, 1);
+  }
+
+  public long getHeapBufferPoolMisses() {
+    return stats.getLong(heapBufferPoolMissesId);
+  }
+
   public void incMessagesBeingReceived(boolean newMsg, int bytes) {
     if (newMsg) {
       stats.incInt(messagesBeingReceivedId, 1);
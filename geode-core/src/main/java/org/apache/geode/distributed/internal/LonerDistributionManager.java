@@ -493,6 +493,9 @@ public class LonerDistributionManager implements DM {
     @Override
     public void endReplyWait(long startNanos, long startMillis) {}
 
+    @Override
+    public void endReplyWait(long startNanos, long startMillis, Class<?> processorType) {}
+
     @Override
     public void incReplyTimeouts() {}
 
@@ -783,6 +786,12 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incSenderBufferSize(int inc, boolean direct) {}
 
+    @Override
+    public void incHeapBufferPoolHits() {}
+
+    @Override
+    public void incHeapBufferPoolMisses() {}
+
     @Override
     public long startSocketLock() {
       return 0;
@@ -17,6 +17,7 @@ package org.apache.geode.distributed.internal;
 import org.apache.geode.internal.*;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A message processor class typically creates an instance of ProcessorKeeper and holds it in a
@@ -31,13 +32,37 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <p>
  * Processor ids are always greater than 0.
  * </p>
+ * <p>
+ * Processors are kept in a fixed size table indexed by the low bits of their id, so putting,
+ * retrieving and removing a processor does not lock. Ids are handed out in sequence, so a slot is
+ * normally free again by the time its index comes around. When it is not, the id is skipped and if
+ * several slots in a row are still in use the processor is kept in an overflow map instead.
+ * </p>
  */
 public class ProcessorKeeper21 {
 
   /**
-   * Key is a unique id, value is an instance of some processor class
+   * Number of slots in the table of a keeper created without a table size. Keepers that hold many
+   * processors at a time, like the one of {@link ReplyProcessor21}, ask for a larger table.
+   */
+  static final int DEFAULT_TABLE_SIZE = 64;
+
+  /**
+   * Number of ids tried in the table before a processor is put in the overflow map
+   */
+  private static final int MAX_PROBES = 8;
+
+  /**
+   * Index is the low bits of the id, value is an Entry for the processor or null
+   */
+  private final AtomicReferenceArray<Entry> table;
+
+  private final int tableMask;
+
+  /**
+   * Key is a unique id, value is an Entry for a processor that did not fit in the table
    */
-  private final ObjIdConcurrentMap<Object> map = new ObjIdConcurrentMap<Object>();
+  private final ObjIdConcurrentMap<Entry> overflow = new ObjIdConcurrentMap<Entry>();
 
   /**
    * If true then use weak refs to reference the processors.
@@ -51,7 +76,25 @@ public class ProcessorKeeper21 {
   }
 
   public ProcessorKeeper21(boolean useWeakRefs) {
+    this(useWeakRefs, DEFAULT_TABLE_SIZE);
+  }
+
+  /**
+   * @param useWeakRefs if true then use weak refs to reference the processors
+   * @param tableSize the number of slots in the table, rounded up to a power of two
+   */
+  public ProcessorKeeper21(boolean useWeakRefs, int tableSize) {
     this.useWeakRefs = useWeakRefs;
+    int size = tableSize <= 1 ? 1 : Integer.highestOneBit(tableSize - 1) << 1;
+    this.table = new AtomicReferenceArray<Entry>(size);
+    this.tableMask = size - 1;
+  }
+
+  /**
+   * Returns the number of slots in the table
+   */
+  int getTableSize() {
+    return this.table.length();
   }
 
   private int getNextId() {
@@ -80,15 +123,28 @@ public class ProcessorKeeper21 {
    */
   public int put(Object processor) {
     int id;
-    final Object obj;
-    if (this.useWeakRefs) {
-      obj = new WeakReference<Object>(processor);
-    } else {
-      obj = processor;
+    for (int probes = 0; probes < MAX_PROBES; probes++) {
+      id = getNextId();
+      int index = id & this.tableMask;
+      Entry current = this.table.get(index);
+      if (current != null && current.get() != null) {
+        // slot still in use by an older processor
+        continue;
+      }
+      if (!this.overflow.isEmpty() && this.overflow.containsKey(id)) {
+        // id wrapped around to a processor that is still in the overflow map
+        continue;
+      }
+      if (this.table.compareAndSet(index, current, new Entry(id, processor, this.useWeakRefs))) {
+        Assert.assertTrue(id > 0);
+        return id;
+      }
     }
+    Entry entry;
     do {
       id = getNextId();
-    } while (this.map.putIfAbsent(id, obj) != null);
+      entry = new Entry(id, processor, this.useWeakRefs);
+    } while (this.overflow.putIfAbsent(id, entry) != null);
     Assert.assertTrue(id > 0);
     return id;
   }
@@ -99,20 +155,28 @@ public class ProcessorKeeper21 {
    * returned.
    */
   public Object retrieve(int id) {
-    Object o = null;
-    if (this.useWeakRefs) {
-      final WeakReference<?> ref = (WeakReference<?>) this.map.get(id);
-      if (ref != null) {
-        o = ref.get();
-        if (o == null) {
-          // Clean up
-          this.map.remove(id, ref);
-        }
+    int index = id & this.tableMask;
+    Entry entry = this.table.get(index);
+    if (entry != null && entry.id == id) {
+      Object o = entry.get();
+      if (o == null) {
+        // Clean up
+        this.table.compareAndSet(index, entry, null);
       }
-    } else {
-      o = this.map.get(id);
+      return o;
+    }
+    if (this.overflow.isEmpty()) {
+      return null;
+    }
+    entry = this.overflow.get(id);
+    if (entry == null) {
+      return null;
+    }
+    Object o = entry.get();
+    if (o == null) {
+      // Clean up
+      this.overflow.remove(id, entry);
     }
-    // System.out.println("ProcessorKeeper.retrieve(" + int + ") returning " + processor);
     return o;
   }
 
@@ -120,7 +184,29 @@ public class ProcessorKeeper21 {
    * Remove the processor with the given id. It's okay if no processor with that id exists.
    */
   public void remove(int id) {
-    map.remove(id);
+    int index = id & this.tableMask;
+    Entry entry = this.table.get(index);
+    if (entry != null && entry.id == id) {
+      this.table.compareAndSet(index, entry, null);
+    } else if (!this.overflow.isEmpty()) {
+      this.overflow.remove(id);
+    }
   }
 
+  /**
+   * Holds a processor and its id. The processor is only weakly referenced unless the keeper is not
+   * using weak refs.
+   */
+  private static class Entry extends WeakReference<Object> {
+    private final int id;
+
+    /** Keeps the processor strongly reachable if weak refs are not used */
+    private final Object processor;
+
+    Entry(int id, Object processor, boolean useWeakRefs) {
+      super(processor);
+      this.id = id;
+      this.processor = useWeakRefs ? null : processor;
+    }
+  }
 }
@@ -89,7 +89,7 @@ public class ReplyProcessor21 implements MembershipListener {
   public final static double PR_SEVERE_ALERT_RATIO;
 
   /** All live reply processors in this VM */
-  protected final static ProcessorKeeper21 keeper = new ProcessorKeeper21();
+  protected final static ProcessorKeeper21 keeper = new ProcessorKeeper21(true, 8192);
 
   //////////////////// Instance Methods ////////////////////
 
@@ -583,7 +583,7 @@ public class ReplyProcessor21 implements MembershipListener {
     waiting = false;
     removeListener();
     final DM mgr = getDistributionManager();
-    mgr.getStats().endReplyWait(this.statStart, this.initTime);
+    mgr.getStats().endReplyWait(this.statStart, this.initTime, getClass());
     mgr.getCancelCriterion().checkCancelInProgress(null);
   }
 
@@ -27,6 +27,7 @@ import org.apache.geode.distributed.internal.locks.DLockQueryProcessor.DLockQuer
 import org.apache.geode.distributed.internal.locks.DLockRequestProcessor.DLockRequestMessage;
 import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
 import org.apache.geode.internal.Assert;
+import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.IdentityArrayList;
 import org.apache.geode.internal.cache.TXReservationMgr;
 import org.apache.geode.internal.i18n.LocalizedStrings;
@@ -83,12 +84,19 @@ public class DLockGrantor {
   protected final DLockService dlock;
 
   /**
-   * Map of grant tokens for tracking grantor-side state of distributed locks. Key: Object name,
-   * Value: DLockGrantToken grant
+   * Number of stripes the grant tokens are divided into. Rounded up to a power of two.
+   */
+  static final int GRANT_TOKEN_STRIPES = roundUpToPowerOfTwo(Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "DLockService.DLockGrantor.grantTokenStripes", 16));
+
+  /**
+   * Maps of grant tokens for tracking grantor-side state of distributed locks, striped by the hash
+   * of the lock name so that requests for different locks do not contend with each other. Key:
+   * Object name, Value: DLockGrantToken grant
    * 
-   * guarded.By grantTokens
+   * guarded.By each stripe; see {@link #grantTokensFor(Object)}
    */
-  private final Map grantTokens = new HashMap();
+  private final Map[] grantTokens = createGrantTokenStripes();
 
   /**
    * Dedicated thread responsible for handling expirations and timeouts.
@@ -812,6 +820,7 @@ public class DLockGrantor {
       else if (request.isTryLock()) {
         cleanupSuspendState(request);
         request.respondWithTryLockFailed(request.getObjectName());
+        revokeCachedLease(grant);
       }
 
       // if request has timed out...
@@ -823,12 +832,39 @@ public class DLockGrantor {
       else {
         grant.schedule(request);
         this.thread.checkTimeToWait(calcWaitMillisFromNow(request), false);
+        revokeCachedLease(grant);
       }
     } finally {
       grant.decAccess();
     }
   }
 
+  /**
+   * Asks the member holding the grant to give back its lease if it may have cached it with
+   * {@link DLockService#CACHE_LEASES}. Nothing is sent unless the lease was granted as a cached
+   * lease, so contention on locks that are never cached costs no extra messages.
+   * <p>
+   * Synchronizes on the grant token.
+   * 
+   * @param grant the grant token that another request is waiting for
+   */
+  private void revokeCachedLease(DLockGrantToken grant) {
+    InternalDistributedMember holder = null;
+    int lockId = -1;
+    synchronized (grant) {
+      if (!grant.shouldRevokeLease()) {
+        return;
+      }
+      holder = grant.getOwner();
+      lockId = grant.getLockId();
+    }
+    if (logger.isTraceEnabled(LogMarker.DLS)) {
+      logger.trace(LogMarker.DLS, "[DLockGrantor.revokeCachedLease] revoking {}", grant);
+    }
+    DLockRevokeLeaseProcessor.revoke(this.dm, holder, this.dlock.getName(), grant.getName(),
+        lockId);
+  }
+
   /**
    * Initializes this new grantor with previously held locks as provided during grantor recovery.
    * <p>
@@ -849,12 +885,12 @@ public class DLockGrantor {
     }
 
     try {
-      synchronized (this.grantTokens) {
-        Set members = this.dlock.getDistributionManager().getDistributionManagerIds();
+      Set members = this.dlock.getDistributionManager().getDistributionManagerIds();
 
-        final boolean isDebugEnabled_DLS = logger.isTraceEnabled(LogMarker.DLS);
-        for (Iterator iter = tokens.iterator(); iter.hasNext();) {
-          DLockRemoteToken token = (DLockRemoteToken) iter.next();
+      final boolean isDebugEnabled_DLS = logger.isTraceEnabled(LogMarker.DLS);
+      for (Iterator iter = tokens.iterator(); iter.hasNext();) {
+        DLockRemoteToken token = (DLockRemoteToken) iter.next();
+        synchronized (grantTokensFor(token.getName())) {
           DLockGrantToken grantToken = getOrCreateGrant(token.getName());
           try {
 
@@ -918,9 +954,9 @@ public class DLockGrantor {
           } finally {
             grantToken.decAccess();
           }
+        } // grant stripe sync
 
-        } // tokens iter
-      } // grantTokens sync
+      } // tokens iter
       return;
     } finally {
       releaseDestroyReadLock();
@@ -1018,7 +1054,7 @@ public class DLockGrantor {
    */
   private void getAndReleaseGrantIfLockedBy(Object name, InternalDistributedMember owner,
       int lockId) {
-    synchronized (this.grantTokens) {
+    synchronized (grantTokensFor(name)) {
       DLockGrantToken grantToken = basicGetGrantToken(name);
       if (grantToken != null) { // checking isTokenDestroyed here will deadlock
         synchronized (grantToken) {
@@ -1119,53 +1155,58 @@ public class DLockGrantor {
               }
             }
           } // synchronized
-          synchronized (this.grantTokens) {
-            // do not call handleDepartureOf while iterating grantTokens
-            // changes fix bug 39172 (ConcurrentModificationException)
-
-            // 1) built up list of grants that reference departed member
-            List grantsReferencingMember = new ArrayList();
-            Collection grants = this.grantTokens.values();
-            for (Iterator iter = grants.iterator(); iter.hasNext();) {
-              DLockGrantToken grant = (DLockGrantToken) iter.next();
-              try {
-                grant.checkDepartureOf(owner, grantsReferencingMember);
-              } catch (CancelException e) {
-                if (isDebugEnabled_DLS) {
-                  logger.trace(LogMarker.DLS,
-                      "[DlockGrantor.handleDepartureOf] ignored cancellation (3)");
+          // do not call handleDepartureOf while iterating grantTokens
+          // changes fix bug 39172 (ConcurrentModificationException)
+
+          // 1) built up list of grants that reference departed member
+          List grantsReferencingMember = new ArrayList();
+          for (int i = 0; i < this.grantTokens.length; i++) {
+            synchronized (this.grantTokens[i]) {
+              Collection grants = this.grantTokens[i].values();
+              for (Iterator iter = grants.iterator(); iter.hasNext();) {
+                DLockGrantToken grant = (DLockGrantToken) iter.next();
+                try {
+                  grant.checkDepartureOf(owner, grantsReferencingMember);
+                } catch (CancelException e) {
+                  if (isDebugEnabled_DLS) {
+                    logger.trace(LogMarker.DLS,
+                        "[DlockGrantor.handleDepartureOf] ignored cancellation (3)");
+                  }
                 }
-              }
-            } // for
+              } // for
+            }
+          } // stripes
 
-            // 2) call handleDepartureOf on list of grantsReferencingMember
-            ArrayList grantsToRemoveIfUnused = new ArrayList();
-            for (Iterator iter = grantsReferencingMember.iterator(); iter.hasNext();) {
-              DLockGrantToken grant = (DLockGrantToken) iter.next();
-              try {
-                grant.handleDepartureOf(owner, grantsToRemoveIfUnused);
-              } catch (CancelException e) {
-                if (isDebugEnabled_DLS) {
-                  logger.trace(LogMarker.DLS,
-                      "[DlockGrantor.handleDepartureOf] ignored cancellation (4)");
-                }
+          // releasing a grant drains permitted requests for locks in any stripe so the
+          // following steps must not hold a stripe while iterating
+
+          // 2) call handleDepartureOf on list of grantsReferencingMember
+          ArrayList grantsToRemoveIfUnused = new ArrayList();
+          for (Iterator iter = grantsReferencingMember.iterator(); iter.hasNext();) {
+            DLockGrantToken grant = (DLockGrantToken) iter.next();
+            try {
+              grant.handleDepartureOf(owner, grantsToRemoveIfUnused);
+            } catch (CancelException e) {
+              if (isDebugEnabled_DLS) {
+                logger.trace(LogMarker.DLS,
+                    "[DlockGrantor.handleDepartureOf] ignored cancellation (4)");
               }
-            } // for
+            }
+          } // for
 
-            // 3) remove grants in grantsToRemoveIfUnused list
-            // TODO: if grantsReferencingMember is always empty remove this
-            for (Iterator iter = grantsToRemoveIfUnused.iterator(); iter.hasNext();) {
-              DLockGrantToken grant = (DLockGrantToken) iter.next();
-              try {
-                removeGrantIfUnused(grant);
-              } catch (CancelException e) {
-                if (isDebugEnabled_DLS) {
-                  logger.trace(LogMarker.DLS,
-                      "[DlockGrantor.handleDepartureOf] ignored cancellation (5)");
-                }
+          // 3) remove grants in grantsToRemoveIfUnused list
+          // TODO: if grantsReferencingMember is always empty remove this
+          for (Iterator iter = grantsToRemoveIfUnused.iterator(); iter.hasNext();) {
+            DLockGrantToken grant = (DLockGrantToken) iter.next();
+            try {
+              removeGrantIfUnused(grant);
+            } catch (CancelException e) {
+              if (isDebugEnabled_DLS) {
+                logger.trace(LogMarker.DLS,
+                    "[DlockGrantor.handleDepartureOf] ignored cancellation (5)");
               }
-            } // for
-          } // synchronized this.grantTokens
+            }
+          } // for
         } // finally
       } finally {
         releaseDestroyReadLock();
@@ -1199,14 +1240,16 @@ public class DLockGrantor {
             // assume the worst case and tell the elder that recovery will be required
             locksHeld = true;
           } else {
-            synchronized (this.grantTokens) {
-              InternalDistributedMember me = this.dlock.getDistributionManager().getId();
-              for (Iterator iter = this.grantTokens.values().iterator(); iter.hasNext();) {
-                DLockGrantToken grant = (DLockGrantToken) iter.next();
-                InternalDistributedMember owner = grant.getOwner();
-                if (owner != null && !owner.equals(me)) {
-                  locksHeld = true;
-                  break;
+            InternalDistributedMember me = this.dlock.getDistributionManager().getId();
+            for (int i = 0; i < this.grantTokens.length && !locksHeld; i++) {
+              synchronized (this.grantTokens[i]) {
+                for (Iterator iter = this.grantTokens[i].values().iterator(); iter.hasNext();) {
+                  DLockGrantToken grant = (DLockGrantToken) iter.next();
+                  InternalDistributedMember owner = grant.getOwner();
+                  if (owner != null && !owner.equals(me)) {
+                    locksHeld = true;
+                    break;
+                  }
                 }
               }
             }
@@ -1246,30 +1289,12 @@ public class DLockGrantor {
     Assert.assertHoldsLock(this, true);
     makeDestroyed();
     // reply to all pending requests w/ NOT_GRANTOR
-    synchronized (this.grantTokens) {
-      Collection grants = this.grantTokens.values();
-      for (Iterator iter = grants.iterator(); iter.hasNext();) {
-        DLockGrantToken grant = (DLockGrantToken) iter.next();
-        try {
+    for (int i = 0; i < this.grantTokens.length; i++) {
+      synchronized (this.grantTokens[i]) {
+        for (Iterator iter = this.grantTokens[i].values().iterator(); iter.hasNext();) {
+          DLockGrantToken grant = (DLockGrantToken) iter.next();
           grant.handleGrantorDestruction();
         }
-        // catch (VirtualMachineError err) {
-        // SystemFailure.initiateFailure(err);
-        // // If this ever returns, rethrow the error. We're poisoned
-        // // now, so don't let this thread continue.
-        // throw err;
-        // }
-        // catch (Throwable t) {
-        // // Whenever you catch Error or Throwable, you must also
-        // // catch VirtualMachineError (see above). However, there is
-        // // _still_ a possibility that you are dealing with a cascading
-        // // error condition, so you also need to check to see if the JVM
-        // // is still usable:
-        // SystemFailure.checkFailure();
-        // }
-        finally {
-
-        }
       }
     }
 
@@ -1365,7 +1390,7 @@ public class DLockGrantor {
     if (logger.isTraceEnabled(LogMarker.DLS)) {
       StringBuffer sb =
           new StringBuffer("DLockGrantor " + this.dlock.getName() + " initialized with:");
-      for (Iterator tokens = grantTokens.values().iterator(); tokens.hasNext();) {
+      for (Iterator tokens = snapshotGrantTokens().iterator(); tokens.hasNext();) {
         sb.append("\n\t" + tokens.next());
       }
       logger.trace(LogMarker.DLS, sb.toString());
@@ -1514,14 +1539,16 @@ public class DLockGrantor {
   /**
    * Returns a snapshot of the current grant tokens.
    * <p>
-   * Synchronizes on grantTokens.
+   * Synchronizes on each stripe of grantTokens.
    * 
    * @return a snapshot of the current grant tokens
    */
   protected Collection snapshotGrantTokens() {
-    Collection snapshot = null;
-    synchronized (this.grantTokens) {
-      snapshot = new ArrayList(this.grantTokens.values());
+    Collection snapshot = new ArrayList();
+    for (int i = 0; i < this.grantTokens.length; i++) {
+      synchronized (this.grantTokens[i]) {
+        snapshot.addAll(this.grantTokens[i].values());
+      }
     }
     return snapshot;
   }
@@ -1536,7 +1563,7 @@ public class DLockGrantor {
    */
   private DLockGrantToken getOrCreateGrant(Object name) {
     DLockGrantToken grantToken = null;
-    synchronized (this.grantTokens) {
+    synchronized (grantTokensFor(name)) {
       grantToken = basicGetGrantToken(name);
       if (grantToken == null) { // checking isTokenDestroyed here will deadlock
         grantToken = new DLockGrantToken(this.dlock, this, name);
@@ -1558,17 +1585,14 @@ public class DLockGrantor {
   }
 
   /**
-   * TEST HOOK: Returns an unmodifible collection backed by the values of the DLockGrantToken map
-   * for testing purposes only.
+   * TEST HOOK: Returns an unmodifible snapshot of the grant tokens for testing purposes only.
    * <p>
-   * Synchronizes on grantTokens.
+   * Synchronizes on each stripe of grantTokens.
    * 
    * @return unmodifible collection of the grant tokens
    */
   public Collection getGrantTokens() {
-    synchronized (this.grantTokens) {
-      return Collections.unmodifiableCollection(this.grantTokens.values());
-    }
+    return Collections.unmodifiableCollection(snapshotGrantTokens());
   }
 
   /**
@@ -1579,7 +1603,7 @@ public class DLockGrantor {
    * @param grant the grant token to remove
    */
   protected void removeGrantIfUnused(DLockGrantToken grant) {
-    synchronized (this.grantTokens) {
+    synchronized (grantTokensFor(grant.getName())) {
       synchronized (grant) {
         if (isDestroyed() || grant.isDestroyed()) {
           return;
@@ -1613,7 +1637,7 @@ public class DLockGrantor {
    * Synchronizes on grantTokens.
    */
   public DLockGrantToken getGrantToken(Object name) {
-    synchronized (this.grantTokens) {
+    synchronized (grantTokensFor(name)) {
       return basicGetGrantToken(name);
     }
   }
@@ -1621,37 +1645,39 @@ public class DLockGrantor {
   /**
    * Fetches the grant token value stored in the map under key name.
    * <p>
-   * Caller must synchronize on grantTokens
+   * Caller must synchronize on the grantTokens stripe for name
    * 
    * @param name the key to fetch the grant token value for
-   * @return the grant token stored under key name guarded.By {@link #grantTokens}
+   * @return the grant token stored under key name guarded.By {@link #grantTokensFor(Object)}
    */
   private DLockGrantToken basicGetGrantToken(Object name) {
-    return (DLockGrantToken) this.grantTokens.get(name);
+    return (DLockGrantToken) grantTokensFor(name).get(name);
   }
 
   /**
    * Stores the grant token as a value in the map under the key of its name.
    * <p>
-   * Caller must synchronize on grantTokens
+   * Caller must synchronize on the grantTokens stripe for the token's name
    * 
-   * @param grantToken the grant token to store in the map guarded.By {@link #grantTokens}
+   * @param grantToken the grant token to store in the map guarded.By
+   *        {@link #grantTokensFor(Object)}
    */
   private void basicPutGrantToken(DLockGrantToken grantToken) {
-    this.grantTokens.put(grantToken.getName(), grantToken);
+    grantTokensFor(grantToken.getName()).put(grantToken.getName(), grantToken);
     dlock.getStats().incGrantTokens(1);
   }
 
   /**
    * Removes the grant token from the map.
    * <p>
-   * Caller must synchronize on grantTokens and then the grantToken.
+   * Caller must synchronize on the grantTokens stripe for the token's name and then the grantToken.
    * 
-   * @param grantToken the grant token to remove from the map. guarded.By {@link #grantTokens} and
-   *        grantToken
+   * @param grantToken the grant token to remove from the map. guarded.By
+   *        {@link #grantTokensFor(Object)} and grantToken
    */
   private void basicRemoveGrantToken(DLockGrantToken grantToken) {
-    Object removed = this.grantTokens.remove(grantToken.getName()); // changed to ref token
+    // changed to ref token
+    Object removed = grantTokensFor(grantToken.getName()).remove(grantToken.getName());
     if (removed != null) {
       Assert.assertTrue(removed == grantToken);
       grantToken.destroy();
@@ -1662,6 +1688,34 @@ public class DLockGrantor {
     }
   }
 
+  /**
+   * Returns the stripe of grantTokens that holds the grant token for the named lock. The returned
+   * map is also the monitor guarding it.
+   * 
+   * @param name the name of the lock
+   * @return the stripe of grantTokens for name
+   */
+  private Map grantTokensFor(Object name) {
+    int h = name.hashCode();
+    h ^= (h >>> 16);
+    return this.grantTokens[h & (this.grantTokens.length - 1)];
+  }
+
+  private static Map[] createGrantTokenStripes() {
+    Map[] stripes = new Map[GRANT_TOKEN_STRIPES];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new HashMap();
+    }
+    return stripes;
+  }
+
+  private static int roundUpToPowerOfTwo(int value) {
+    if (value <= 1) {
+      return 1;
+    }
+    return Integer.highestOneBit(value - 1) << 1;
+  }
+
   /**
    * Iterates over grants and handles any that have expired.
    * <p>
@@ -2317,23 +2371,21 @@ public class DLockGrantor {
   /**
    * TEST HOOK: Logs all grant tokens and other lock information for this service at INFO level.
    * <p>
-   * Synchronizes on grantTokens.
+   * Synchronizes on each stripe of grantTokens.
    */
   protected void dumpService() {
-    synchronized (this.grantTokens) {
-      StringBuffer buffer = new StringBuffer();
-      buffer.append("DLockGrantor.dumpService() for ").append(this);
-      buffer.append("\n").append(this.grantTokens.size()).append(" grantTokens\n");
-      for (Iterator iter = this.grantTokens.entrySet().iterator(); iter.hasNext();) {
-        Map.Entry entry = (Map.Entry) iter.next();
-        buffer.append("    ").append(entry.getKey()).append(": ");
-        DLockGrantToken token = (DLockGrantToken) entry.getValue();
-        buffer.append(token.toString()).append("\n");
-      }
-      logger.info(LogMarker.DLS, LocalizedMessage.create(LocalizedStrings.TESTING, buffer));
-      logger.info(LogMarker.DLS, LocalizedMessage.create(LocalizedStrings.TESTING,
-          "\nreadLockCountMap:\n" + readLockCountMap));
+    Collection snapshot = snapshotGrantTokens();
+    StringBuffer buffer = new StringBuffer();
+    buffer.append("DLockGrantor.dumpService() for ").append(this);
+    buffer.append("\n").append(snapshot.size()).append(" grantTokens\n");
+    for (Iterator iter = snapshot.iterator(); iter.hasNext();) {
+      DLockGrantToken token = (DLockGrantToken) iter.next();
+      buffer.append("    ").append(token.getName()).append(": ");
+      buffer.append(token.toString()).append("\n");
     }
+    logger.info(LogMarker.DLS, LocalizedMessage.create(LocalizedStrings.TESTING, buffer));
+    logger.info(LogMarker.DLS, LocalizedMessage.create(LocalizedStrings.TESTING,
+        "\nreadLockCountMap:\n" + readLockCountMap));
   }
 
   /**
@@ -2450,6 +2502,20 @@ public class DLockGrantor {
      */
     private RemoteThread lesseeThread = null;
 
+    /**
+     * Lease id that the lessee has already been asked to give back or -1
+     * 
+     * guarded.By this
+     */
+    private int revokedLeaseId = -1;
+
+    /**
+     * True if the lessee may keep the current lease cached after unlocking it
+     * 
+     * guarded.By this
+     */
+    private boolean leaseCacheable = false;
+
     /**
      * Instatiates a new instance of DLockGrantToken.
      * 
@@ -3239,6 +3305,8 @@ public class DLockGrantor {
       this.leaseExpireTime = newLeaseExpireTime;
       this.leaseId = lockId;
       this.lesseeThread = remoteThread;
+      this.revokedLeaseId = -1;
+      this.leaseCacheable = isLeaseCacheable(owner, newLeaseExpireTime);
       if (logger.isTraceEnabled(LogMarker.DLS)) {
         logger.trace(LogMarker.DLS, "[DLockGrantToken.grantLock.grantor] Granting {}",
             toString(false));
@@ -3256,6 +3324,40 @@ public class DLockGrantor {
       return this.lessee != null && this.leaseId > -1;
     }
 
+    /**
+     * Returns true if a lease granted to the owner may be cached by it. Members share the
+     * {@link DLockService#CACHE_LEASES} setting, and members older than {@link Version#GEODE_130}
+     * never cache leases.
+     * <p>
+     * Caller must synchronize on this grant token.
+     * 
+     * @param owner the member that is being granted the lock
+     * @param newLeaseExpireTime the absolute expiration time
+     * @return true if the owner may cache the lease guarded.By this
+     */
+    private boolean isLeaseCacheable(InternalDistributedMember owner, long newLeaseExpireTime) {
+      return DLockService.CACHE_LEASES && newLeaseExpireTime == Long.MAX_VALUE
+          && !isSuspendLockingToken()
+          && owner.getVersionObject().compareTo(Version.GEODE_130) >= 0;
+    }
+
+    /**
+     * Returns true if the lessee should be asked to give back the current lease because it may
+     * have cached it. Only leases granted as cacheable are revoked and each lease is only revoked
+     * once.
+     * <p>
+     * Caller must synchronize on this grant token.
+     * 
+     * @return true if the current lease should be revoked guarded.By this
+     */
+    boolean shouldRevokeLease() {
+      if (!isLeaseHeld() || !this.leaseCacheable || this.revokedLeaseId == this.leaseId) {
+        return false;
+      }
+      this.revokedLeaseId = this.leaseId;
+      return true;
+    }
+
     /**
      * Mark this grant token as destroyed. This should only happen to a token that is no longer in
      * use.
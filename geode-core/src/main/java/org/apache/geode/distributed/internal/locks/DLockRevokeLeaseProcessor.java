@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal.locks;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.DataSerializer;
+import org.apache.geode.distributed.LockServiceDestroyedException;
+import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.DistributionManager;
+import org.apache.geode.distributed.internal.HighPriorityDistributionMessage;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.log4j.LogMarker;
+
+/**
+ * Asks the holder of a lease cached with {@link DLockService#CACHE_LEASES} to give it back to the
+ * grantor. Sent by the grantor when another request has to wait for the lock. No reply is sent;
+ * the holder gives the lease back with a normal release.
+ */
+public class DLockRevokeLeaseProcessor {
+  private static final Logger logger = LogService.getLogger();
+
+  private DLockRevokeLeaseProcessor() {
+    // no instances
+  }
+
+  /**
+   * Asks the holder to give back its lease on the named lock.
+   *
+   * @param dm the distribution manager of the grantor
+   * @param holder the member holding the lease
+   * @param serviceName the name of the lock service
+   * @param objectName the name of the lock
+   * @param lockId the id of the lease to revoke
+   */
+  static void revoke(DM dm, InternalDistributedMember holder, String serviceName,
+      Object objectName, int lockId) {
+    DLockRevokeLeaseMessage msg = new DLockRevokeLeaseMessage();
+    msg.serviceName = serviceName;
+    msg.objectName = objectName;
+    msg.lockId = lockId;
+    msg.setRecipient(holder);
+    if (holder.equals(dm.getId())) {
+      // local... don't message...
+      msg.setSender(holder);
+      msg.executeBasicProcess(dm);
+    } else {
+      dm.putOutgoing(msg);
+    }
+  }
+
+  // -------------------------------------------------------------------------
+  // DLockRevokeLeaseMessage
+  // -------------------------------------------------------------------------
+  public static class DLockRevokeLeaseMessage extends HighPriorityDistributionMessage {
+    /** The name of the DistributedLockService */
+    protected String serviceName;
+
+    /** The object name */
+    protected Object objectName;
+
+    /** Matches up this revocation with the lease held by the recipient */
+    protected int lockId;
+
+    public DLockRevokeLeaseMessage() {}
+
+    /**
+     * Processes this message - invoked on the member holding the lease.
+     */
+    @Override
+    protected void process(final DistributionManager dm) {
+      executeBasicProcess(dm);
+    }
+
+    /**
+     * Execute basicProcess inside Pooled Executor because giving back the lease waits for the
+     * grantor to reply.
+     */
+    private void executeBasicProcess(final DM dm) {
+      dm.getWaitingThreadPool().execute(new Runnable() {
+        public void run() {
+          basicProcess();
+        }
+      });
+    }
+
+    protected void basicProcess() {
+      if (logger.isTraceEnabled(LogMarker.DLS)) {
+        logger.trace(LogMarker.DLS, "[DLockRevokeLeaseMessage.basicProcess] {}", this);
+      }
+      DLockService svc = DLockService.getInternalServiceNamed(this.serviceName);
+      if (svc == null) {
+        return;
+      }
+      try {
+        svc.revokeCachedLease(this.objectName, this.lockId);
+      } catch (LockServiceDestroyedException | CancelException e) {
+        if (logger.isTraceEnabled(LogMarker.DLS)) {
+          logger.trace(LogMarker.DLS, "[DLockRevokeLeaseMessage.basicProcess] ignored {}", e);
+        }
+      }
+    }
+
+    public int getDSFID() {
+      return DLOCK_REVOKE_LEASE_MESSAGE;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      super.toData(out);
+      DataSerializer.writeString(this.serviceName, out);
+      DataSerializer.writeObject(this.objectName, out);
+      out.writeInt(this.lockId);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      super.fromData(in);
+      this.serviceName = DataSerializer.readString(in);
+      this.objectName = DataSerializer.readObject(in);
+      this.lockId = in.readInt();
+    }
+
+    @Override
+    public String toString() {
+      return new StringBuilder("DLockRevokeLeaseMessage for ").append(this.serviceName)
+          .append(", ").append(this.objectName).append("; lockId=").append(this.lockId)
+          .toString();
+    }
+  } // DLockRevokeLeaseMessage
+}
@@ -99,6 +99,15 @@ public class DLockService extends DistributedLockService {
   public static final boolean AUTOMATE_FREE_RESOURCES =
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DLockService.automateFreeResources");
 
+  /**
+   * Use -Dgemfire.DLockService.cacheLeases=true to keep locks with an infinite lease held from the
+   * grantor after they are unlocked, so that any thread in this member can relock them without
+   * messaging the grantor. The grantor revokes a cached lease as soon as another request has to
+   * wait for it, so this must be set the same way on every member of the system.
+   */
+  public static final boolean CACHE_LEASES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DLockService.cacheLeases");
+
   public static final int INVALID_LEASE_ID = -1;
 
   /** Unique name for this instance of the named locking service */
@@ -1222,7 +1231,7 @@ public class DLockService extends DistributedLockService {
         return false;
       synchronized (token) {
         token.checkForExpiration();
-        if (token.getLesseeThread() == null) {
+        if (token.getLesseeThread() == null || token.isLeaseCached()) {
           return false;
         }
         return token.getLesseeThread().getThreadId() == threadId;
@@ -1466,10 +1475,15 @@ public class DLockService extends DistributedLockService {
           // Check for recursive lock
           boolean reentrant = false;
           int recursionBefore = -1;
+          boolean reusedCachedLease = false;
 
           synchronized (token) {
             token.checkForExpiration();
-            if (token.isLeaseHeldByCurrentThread()) {
+            if (token.isLeaseCached() && requestLeaseTime == Long.MAX_VALUE) {
+              // this member still holds the lease from the grantor
+              token.reuseCachedLease(new RemoteThread(getDistributionManager().getId(), threadId));
+              reusedCachedLease = true;
+            } else if (token.isLeaseHeldByCurrentThread()) {
               if (isDebugEnabled_DLS) {
                 logger.trace(LogMarker.DLS, "{} , name: {} - lock() is reentrant: {}", this, name,
                     token);
@@ -1491,6 +1505,19 @@ public class DLockService extends DistributedLockService {
             } // isLeaseHeldByCurrentThread
           } // token sync
 
+          if (reusedCachedLease) {
+            // the cached lease was already counted as an active lock
+            decActiveLocks();
+            getStats().incCachedLeaseReuses();
+            if (isDebugEnabled_DLS) {
+              logger.trace(LogMarker.DLS, "{}, name: {} - reused cached lease: {}", this, name,
+                  token);
+            }
+            gotLock = true;
+            keepTrying = false;
+            continue;
+          }
+
           LockGrantorId theLockGrantorId = getLockGrantorId();
 
           if (reentrant) {
@@ -1878,6 +1905,7 @@ public class DLockService extends DistributedLockService {
 
     boolean hadRecursion = false;
     boolean unlocked = false;
+    boolean cachedLease = false;
     int lockId = -1;
     DLockToken token = null;
     RemoteThread rThread = null;
@@ -1899,7 +1927,7 @@ public class DLockService extends DistributedLockService {
         synchronized (token) {
           token.checkForExpiration();
           rThread = token.getLesseeThread();
-          if (!token.isLeaseHeldByCurrentOrRemoteThread(rThread)) {
+          if (token.isLeaseCached() || !token.isLeaseHeldByCurrentOrRemoteThread(rThread)) {
             token.throwIfCurrentThreadHadExpiredLease();
             if (isDebugEnabled_DLS) {
               logger.trace(LogMarker.DLS, "{}, [unlock] {} not leased by this thread.", this,
@@ -1915,13 +1943,17 @@ public class DLockService extends DistributedLockService {
           Assert.assertTrue(lockId > -1);
           if (hadRecursion) {
             unlocked = token.releaseLock(lockId, rThread);
+          } else if (isLeaseCacheable(token)) {
+            token.cacheLease();
+            cachedLease = true;
+            unlocked = true;
           } else {
             token.setIgnoreForRecovery(true);
           }
         } // token sync
       } // tokens map sync
 
-      if (!hadRecursion) {
+      if (!hadRecursion && !cachedLease) {
         boolean lockBatch = false;
         boolean released = false;
 
@@ -1952,7 +1984,10 @@ public class DLockService extends DistributedLockService {
     finally {
       try {
         if (!hadRecursion && lockId > -1 && token != null) {
-          decActiveLocks();
+          if (!cachedLease) {
+            // a cached lease remains active until it is revoked
+            decActiveLocks();
+          }
           if (!unlocked) {
             // // token is still held if grantor was remote, so now we unlock...
             // checkDestroyed(); // part of fix for bug 35239
@@ -1973,6 +2008,82 @@ public class DLockService extends DistributedLockService {
     }
   }
 
+  /**
+   * Returns true if the lease on the token may be kept by this member after it is unlocked. Caller
+   * must synchronize on the token.
+   */
+  private boolean isLeaseCacheable(DLockToken token) {
+    return CACHE_LEASES && !token.isRevokeRequested()
+        && token.getLeaseExpireTime() == Long.MAX_VALUE
+        && !(token.getName() instanceof SuspendLockingToken);
+  }
+
+  /**
+   * Gives back a cached lease on the named lock to the grantor. If the lease is currently in use it
+   * will be released to the grantor when it is unlocked instead. The revocation travels as a high
+   * priority message and may overtake the reply granting the lease, in which case the token
+   * remembers it until the grant arrives. Invoked when the grantor needs the lock for another
+   * request.
+   * 
+   * @param name the name of the lock to give back
+   * @param lockId the id of the lease the grantor wants back
+   */
+  void revokeCachedLease(Object name, int lockId) {
+    final boolean isDebugEnabled_DLS = logger.isTraceEnabled(LogMarker.DLS);
+    DLockToken token = null;
+    RemoteThread rThread = null;
+    synchronized (this.tokens) {
+      if (isDestroyed()) {
+        return;
+      }
+      token = basicGetToken(name);
+      if (token == null) {
+        return;
+      }
+      synchronized (token) {
+        if (!token.requestRevoke(lockId)) {
+          if (isDebugEnabled_DLS) {
+            logger.trace(LogMarker.DLS, "{}, [revokeCachedLease] not releasing {}", this, token);
+          }
+          return;
+        }
+        rThread = token.getLesseeThread();
+      }
+    }
+    getStats().incCachedLeaseRevocations();
+    if (isDebugEnabled_DLS) {
+      logger.trace(LogMarker.DLS, "{}, [revokeCachedLease] releasing {}", this, token);
+    }
+
+    try {
+      boolean released = false;
+      while (!released) {
+        checkDestroyed();
+        LockGrantorId theLockGrantorId = getLockGrantorId();
+        try {
+          released = callReleaseProcessor(theLockGrantorId.getLockGrantorMember(), name, false,
+              lockId);
+        } catch (LockGrantorDestroyedException e) {
+          // loop back around to get next lock grantor
+        } finally {
+          if (!released) {
+            notLockGrantorId(theLockGrantorId, 0, TimeUnit.MILLISECONDS);
+          }
+        }
+      }
+    } catch (LockServiceDestroyedException e) {
+      // done... NonGrantorDestroyedMessage will release locks for us
+    } finally {
+      synchronized (this.lockGrantorIdLock) {
+        token.releaseLock(lockId, rThread);
+      }
+      decActiveLocks();
+      if (this.automateFreeResources) {
+        removeTokenIfUnused(name);
+      }
+    }
+  }
+
   /**
    * Query the grantor for current leasing information of a lock. Returns the current lease info.
    * 
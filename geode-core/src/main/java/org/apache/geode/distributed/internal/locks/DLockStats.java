@@ -98,6 +98,8 @@ public class DLockStats implements DistributedLockStats {
   private final static int becomeGrantorRequestsId;
   private final static int freeResourcesCompletedId;
   private final static int freeResourcesFailedId;
+  private final static int cachedLeaseReusesId;
+  private final static int cachedLeaseRevocationsId;
 
   /** returns the current nano time, if time stats are enabled */
   static long getStatTime() {
@@ -234,6 +236,10 @@ public class DLockStats implements DistributedLockStats {
         "Total number of times this member has freed resources for a distributed lock.";
     final String freeResourcesFailedDesc =
         "Total number of times this member has attempted to free resources for a distributed lock which remained in use.";
+    final String cachedLeaseReusesDesc =
+        "Total number of times a distributed lock was acquired from a lease cached by this member without messaging the grantor.";
+    final String cachedLeaseRevocationsDesc =
+        "Total number of times the grantor has made this member give back a cached lease.";
 
     StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
 
@@ -318,7 +324,9 @@ public class DLockStats implements DistributedLockStats {
         f.createLongCounter("lockReleaseTime", lockReleaseTimeDesc, "nanoseconds", false),
         f.createIntCounter("becomeGrantorRequests", becomeGrantorRequestsDesc, "operations"),
         f.createIntCounter("freeResourcesCompleted", freeResourcesCompletedDesc, "operations"),
-        f.createIntCounter("freeResourcesFailed", freeResourcesFailedDesc, "operations"),});
+        f.createIntCounter("freeResourcesFailed", freeResourcesFailedDesc, "operations"),
+        f.createIntCounter("cachedLeaseReuses", cachedLeaseReusesDesc, "operations"),
+        f.createIntCounter("cachedLeaseRevocations", cachedLeaseRevocationsDesc, "operations"),});
 
     // Initialize id fields
     grantorsId = type.nameToId("grantors");
@@ -388,6 +396,8 @@ public class DLockStats implements DistributedLockStats {
     becomeGrantorRequestsId = type.nameToId("becomeGrantorRequests");
     freeResourcesCompletedId = type.nameToId("freeResourcesCompleted");
     freeResourcesFailedId = type.nameToId("freeResourcesFailed");
+    cachedLeaseReusesId = type.nameToId("cachedLeaseReuses");
+    cachedLeaseRevocationsId = type.nameToId("cachedLeaseRevocations");
   } // static block
 
   /** The Statistics object that we delegate most behavior to */
@@ -965,6 +975,22 @@ public class DLockStats implements DistributedLockStats {
     this.stats.incInt(freeResourcesFailedId, 1);
   }
 
+  public int getCachedLeaseReuses() {
+    return this.stats.getInt(cachedLeaseReusesId);
+  }
+
+  public void incCachedLeaseReuses() {
+    this.stats.incInt(cachedLeaseReusesId, 1);
+  }
+
+  public int getCachedLeaseRevocations() {
+    return this.stats.getInt(cachedLeaseRevocationsId);
+  }
+
+  public void incCachedLeaseRevocations() {
+    this.stats.incInt(cachedLeaseRevocationsId, 1);
+  }
+
   // -------------------------------------------------------------------------
   // StatHelpers for dedicated dlock executors
   // -------------------------------------------------------------------------
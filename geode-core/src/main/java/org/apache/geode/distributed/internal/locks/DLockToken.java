@@ -101,6 +101,19 @@ public class DLockToken {
    */
   private boolean ignoreForRecovery = false;
 
+  /**
+   * True if the lease has been unlocked locally but is still held from the grantor so that any
+   * local thread can relock it without messaging the grantor.
+   */
+  private boolean leaseCached = false;
+
+  /**
+   * The id of the lease the grantor has asked to be given back, so that it must be released to the
+   * grantor rather than cached when it is next unlocked. The revocation may arrive before the reply
+   * granting the lease, so it is remembered until a lease with this id is granted.
+   */
+  private int revokedLeaseId = -1;
+
   // -------------------------------------------------------------------------
   // Constructors
   // -------------------------------------------------------------------------
@@ -312,6 +325,7 @@ public class DLockToken {
     checkForExpiration();
 
     this.ignoreForRecovery = false;
+    this.leaseCached = false;
     this.leaseExpireTime = newLeaseExpireTime;
     this.leaseId = newLeaseId;
     this.lesseeThread = remoteThread;
@@ -360,6 +374,79 @@ public class DLockToken {
     return this.thread == Thread.currentThread();
   }
 
+  /**
+   * Returns true if the lease is cached by this member without being used by any thread. Caller
+   * must synchronize on this lock token.
+   * 
+   * @return true if the lease is cached by this member
+   */
+  boolean isLeaseCached() {
+    return this.leaseCached;
+  }
+
+  /**
+   * Keeps the current lease for this member when the leasing thread unlocks it. The lease stays
+   * held from the grantor until it is reused by {@link #reuseCachedLease(RemoteThread)} or given
+   * back after {@link #requestRevoke(int)}. Caller must synchronize on this lock token.
+   */
+  void cacheLease() {
+    Assert.assertTrue(this.leaseId > -1 && this.recursion == 0,
+        "Invalid attempt to cache lease of " + this);
+    this.leaseCached = true;
+    this.thread = null;
+    if (logger.isTraceEnabled(LogMarker.DLS)) {
+      logger.trace(LogMarker.DLS, "[DLockToken.cacheLease] cached {}", this);
+    }
+  }
+
+  /**
+   * Gives the cached lease to the calling thread. The usage count which was held by the cached
+   * lease is handed over to the calling thread. Caller must synchronize on this lock token.
+   * 
+   * @param remoteThread identity of the calling thread
+   */
+  void reuseCachedLease(RemoteThread remoteThread) {
+    Assert.assertTrue(this.leaseCached, "Lease is not cached: " + this);
+    checkDestroyed();
+    this.leaseCached = false;
+    this.lesseeThread = remoteThread;
+    this.recursion = 0;
+    this.thread = Thread.currentThread();
+    decUsage();
+    if (logger.isTraceEnabled(LogMarker.DLS)) {
+      logger.trace(LogMarker.DLS, "[DLockToken.reuseCachedLease] reused {}", this);
+    }
+  }
+
+  /**
+   * Handles a request from the grantor to give back the lease with the given id. Returns true if
+   * the lease was cached and must now be released by the caller. Otherwise the lease is in use, or
+   * has not been granted to this member yet, and will be released instead of cached when it is
+   * unlocked. Caller must synchronize on this lock token.
+   * 
+   * @param revokedLeaseId the id of the lease the grantor wants back
+   * @return true if the caller must release the lease to the grantor
+   */
+  boolean requestRevoke(int revokedLeaseId) {
+    if (this.leaseCached && this.leaseId == revokedLeaseId) {
+      this.leaseCached = false;
+      this.ignoreForRecovery = true;
+      return true;
+    }
+    this.revokedLeaseId = revokedLeaseId;
+    return false;
+  }
+
+  /**
+   * Returns true if the grantor has asked for the current lease to be given back. Caller must
+   * synchronize on this lock token.
+   * 
+   * @return true if the lease must not be cached when unlocked
+   */
+  boolean isRevokeRequested() {
+    return this.leaseId > -1 && this.revokedLeaseId == this.leaseId;
+  }
+
   /**
    * Returns true if this lock token should be ignored for grantor recovery. Caller must synchronize
    * on this lock token.
@@ -445,6 +532,7 @@ public class DLockToken {
     this.thread = null;
     this.recursion = 0;
     this.ignoreForRecovery = false;
+    this.leaseCached = false;
 
     decUsage();
   }
@@ -534,7 +622,8 @@ public class DLockToken {
       return "DLockToken" + "@" + Integer.toHexString(hashCode()) + ", name: " + this.name
           + ", thread: <" + getThreadName() + ">" + ", recursion: " + this.recursion
           + ", leaseExpireTime: " + this.leaseExpireTime + ", leaseId: " + this.leaseId
-          + ", ignoreForRecovery: " + this.ignoreForRecovery + ", lesseeThread: "
+          + ", ignoreForRecovery: " + this.ignoreForRecovery + ", leaseCached: "
+          + this.leaseCached + ", lesseeThread: "
           + this.lesseeThread + ", usageCount: " + this.usageCount + ", currentTime: "
           + getCurrentTime();
     }
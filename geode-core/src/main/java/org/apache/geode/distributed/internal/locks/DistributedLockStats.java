@@ -266,5 +266,13 @@ public interface DistributedLockStats {
   public int getFreeResourcesFailed();
 
   public void incFreeResourcesFailed();
+
+  public int getCachedLeaseReuses();
+
+  public void incCachedLeaseReuses();
+
+  public int getCachedLeaseRevocations();
+
+  public void incCachedLeaseRevocations();
 }
 
@@ -368,6 +368,18 @@ public class DummyDLockStats implements DistributedLockStats {
 
   public void incFreeResourcesFailed() {}
 
+  public int getCachedLeaseReuses() {
+    return -1;
+  }
+
+  public void incCachedLeaseReuses() {}
+
+  public int getCachedLeaseRevocations() {
+    return -1;
+  }
+
+  public void incCachedLeaseRevocations() {}
+
   public static class DummyPoolStatHelper implements PoolStatHelper {
     public void startJob() {}
 
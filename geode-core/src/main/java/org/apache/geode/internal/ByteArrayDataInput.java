@@ -58,6 +58,17 @@ public class ByteArrayDataInput extends InputStream implements DataInput, Versio
     this.version = version;
   }
 
+  /**
+   * Drops the reference to the byte array this stream was initialized with so that an instance
+   * kept around for reuse does not keep the last deserialized bytes reachable.
+   */
+  public void release() {
+    this.bytes = null;
+    this.nBytes = 0;
+    this.pos = 0;
+    this.version = null;
+  }
+
   /**
    * {@inheritDoc}
    */
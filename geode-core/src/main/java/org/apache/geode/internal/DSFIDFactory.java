@@ -82,6 +82,7 @@ import org.apache.geode.distributed.internal.locks.DLockRecoverGrantorProcessor.
 import org.apache.geode.distributed.internal.locks.DLockRecoverGrantorProcessor.DLockRecoverGrantorReplyMessage;
 import org.apache.geode.distributed.internal.locks.DLockReleaseProcessor;
 import org.apache.geode.distributed.internal.locks.DLockRemoteToken;
+import org.apache.geode.distributed.internal.locks.DLockRevokeLeaseProcessor;
 import org.apache.geode.distributed.internal.locks.DLockRequestProcessor;
 import org.apache.geode.distributed.internal.locks.DLockService;
 import org.apache.geode.distributed.internal.locks.DeposeGrantorProcessor;
@@ -811,6 +812,8 @@ public class DSFIDFactory implements DataSerializableFixedID {
     registerDSFID(CONTROLLER_PROFILE, ControllerProfile.class);
     registerDSFID(DLOCK_QUERY_MESSAGE, DLockQueryProcessor.DLockQueryMessage.class);
     registerDSFID(DLOCK_QUERY_REPLY, DLockQueryProcessor.DLockQueryReplyMessage.class);
+    registerDSFID(DLOCK_REVOKE_LEASE_MESSAGE,
+        DLockRevokeLeaseProcessor.DLockRevokeLeaseMessage.class);
     registerDSFID(LOCATOR_LIST_REQUEST, LocatorListRequest.class);
     registerDSFID(LOCATOR_LIST_RESPONSE, LocatorListResponse.class);
     registerDSFID(CLIENT_CONNECTION_REQUEST, ClientConnectionRequest.class);
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal;
+
+import java.nio.ByteBuffer;
+
+import org.apache.geode.distributed.internal.DMStats;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+
+/**
+ * A pool of heap ByteBuffers used by {@link PooledHeapDataOutputStream}. Buffers are grouped into
+ * power of two size classes between {@link #MIN_BUFFER_SIZE} and {@link #MAX_BUFFER_SIZE} and are
+ * cached per thread, so acquiring and releasing a buffer never contends with other threads. A
+ * buffer released by a thread other than the one that acquired it simply ends up in the releasing
+ * thread's cache.
+ * <p>
+ * Each thread caches at most {@link #MAX_THREAD_BYTES} bytes of buffers. Requests for more than
+ * {@link #MAX_BUFFER_SIZE} bytes are not pooled.
+ *
+ * @see PooledHeapDataOutputStream
+ */
+public class HeapBufferPool {
+
+  /**
+   * Use -Dgemfire.HeapBufferPool.DISABLED=true to allocate a new buffer on every acquire.
+   */
+  public static final boolean DISABLED =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HeapBufferPool.DISABLED");
+
+  /** The capacity of the smallest size class */
+  static final int MIN_BUFFER_SIZE = 1024;
+
+  /** The capacity of the largest size class; rounded up to a power of two */
+  static final int MAX_BUFFER_SIZE = roundUp(Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "HeapBufferPool.MAX_BUFFER_SIZE", 64 * 1024));
+
+  /** The maximum number of bytes of idle buffers each thread keeps */
+  static final int MAX_THREAD_BYTES = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "HeapBufferPool.MAX_THREAD_BYTES", 256 * 1024);
+
+  /** The maximum number of idle buffers each thread keeps per size class */
+  private static final int MAX_BUFFERS_PER_SIZE = 8;
+
+  private static final int SIZE_CLASSES = sizeClass(MAX_BUFFER_SIZE) + 1;
+
+  private static final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<ThreadCache>() {
+    @Override
+    protected ThreadCache initialValue() {
+      return new ThreadCache();
+    }
+  };
+
+  private HeapBufferPool() {
+    // no instances
+  }
+
+  /**
+   * Returns a cleared heap buffer whose capacity is at least {@code size}. The buffer should be
+   * given back with {@link #release(ByteBuffer)} once nothing refers to its contents anymore.
+   */
+  public static ByteBuffer acquire(int size) {
+    if (DISABLED || size > MAX_BUFFER_SIZE) {
+      return ByteBuffer.allocate(size);
+    }
+    int sizeClass = sizeClass(size);
+    ByteBuffer result = threadCache.get().poll(sizeClass);
+    DMStats stats = InternalDistributedSystem.getDMStats();
+    if (result != null) {
+      if (stats != null) {
+        stats.incHeapBufferPoolHits();
+      }
+      return result;
+    }
+    if (stats != null) {
+      stats.incHeapBufferPoolMisses();
+    }
+    return ByteBuffer.allocate(MIN_BUFFER_SIZE << sizeClass);
+  }
+
+  /**
+   * Gives a buffer obtained from {@link #acquire(int)} back to the pool. The caller must not use
+   * the buffer, or anything that shares its contents, after releasing it. Buffers that do not
+   * belong to a size class are ignored.
+   */
+  public static void release(ByteBuffer buffer) {
+    if (DISABLED || !isPoolable(buffer)) {
+      return;
+    }
+    buffer.clear();
+    threadCache.get().offer(sizeClass(buffer.capacity()), buffer);
+  }
+
+  static boolean isPoolable(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    return !buffer.isDirect() && !buffer.isReadOnly() && capacity >= MIN_BUFFER_SIZE
+        && capacity <= MAX_BUFFER_SIZE && Integer.bitCount(capacity) == 1
+        && buffer.arrayOffset() == 0;
+  }
+
+  static int sizeClass(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return 0;
+    }
+    return Integer.numberOfTrailingZeros(roundUp(size))
+        - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+  }
+
+  private static int roundUp(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return MIN_BUFFER_SIZE;
+    }
+    return Integer.highestOneBit(size - 1) << 1;
+  }
+
+  /**
+   * The idle buffers of one thread
+   */
+  private static class ThreadCache {
+    private final ByteBuffer[][] buffers = new ByteBuffer[SIZE_CLASSES][MAX_BUFFERS_PER_SIZE];
+    private final int[] counts = new int[SIZE_CLASSES];
+    private int bytes;
+
+    ByteBuffer poll(int sizeClass) {
+      int count = this.counts[sizeClass];
+      if (count == 0) {
+        return null;
+      }
+      count--;
+      ByteBuffer result = this.buffers[sizeClass][count];
+      this.buffers[sizeClass][count] = null;
+      this.counts[sizeClass] = count;
+      this.bytes -= result.capacity();
+      return result;
+    }
+
+    void offer(int sizeClass, ByteBuffer buffer) {
+      int count = this.counts[sizeClass];
+      if (count == MAX_BUFFERS_PER_SIZE || this.bytes + buffer.capacity() > MAX_THREAD_BYTES) {
+        return;
+      }
+      this.buffers[sizeClass][count] = buffer;
+      this.counts[sizeClass] = count + 1;
+      this.bytes += buffer.capacity();
+    }
+  }
+}
@@ -218,7 +218,14 @@ public class HeapDataOutputStream extends OutputStream
     if (amount < MIN_CHUNK_SIZE) {
       amount = MIN_CHUNK_SIZE;
     }
-    this.buffer = ByteBuffer.allocate(amount);
+    this.buffer = allocateBuffer(amount);
+  }
+
+  /**
+   * Allocates a new buffer of at least the given capacity for this stream to write into.
+   */
+  protected ByteBuffer allocateBuffer(int capacity) {
+    return ByteBuffer.allocate(capacity);
   }
 
   private void checkIfWritable() {
@@ -307,7 +314,7 @@ public class HeapDataOutputStream extends OutputStream
     this.chunks.add(bufToAdd);
     int newPos = oldBuffer.limit();
     if ((oldBuffer.capacity() - newPos) <= 0) {
-      this.buffer = ByteBuffer.allocate(MIN_CHUNK_SIZE);
+      this.buffer = allocateBuffer(MIN_CHUNK_SIZE);
     } else {
       oldBuffer.limit(oldBuffer.capacity());
       oldBuffer.position(newPos);
@@ -115,6 +115,8 @@ import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Contains static methods for data serializing instances of internal GemFire classes. It also
@@ -132,6 +134,39 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
    */
   private static final Map<String, DataSerializer> classesToSerializers = new ConcurrentHashMap<>();
 
+  /**
+   * Incremented whenever the registered {@code DataSerializer}s change. A lookup cached in
+   * {@link #serializerLookups} is only used if it was made at the current version.
+   */
+  private static final AtomicInteger serializersVersion = new AtomicInteger();
+
+  /**
+   * Caches, per Class, the result of looking up its {@code DataSerializer} so that
+   * {@link #getSerializer(Class)} does not have to go through the class name keyed maps on every
+   * write. A cached lookup may be for "no serializer".
+   */
+  private static final ClassValue<AtomicReference<SerializerLookup>> serializerLookups =
+      new ClassValue<AtomicReference<SerializerLookup>>() {
+        @Override
+        protected AtomicReference<SerializerLookup> computeValue(Class<?> type) {
+          return new AtomicReference<>();
+        }
+      };
+
+  /**
+   * The result of a {@code DataSerializer} lookup for a Class and the value of
+   * {@link #serializersVersion} at the time it was made.
+   */
+  private static class SerializerLookup {
+    private final int version;
+    private final DataSerializer serializer;
+
+    SerializerLookup(int version, DataSerializer serializer) {
+      this.version = version;
+      this.serializer = serializer;
+    }
+  }
+
   private static final String serializationVersionTxt =
       System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "serializationVersion");
 
@@ -861,6 +896,7 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
         oldMarker.setSerializer(dsForMarkers);
       }
       m.setSerializer(dsForMarkers);
+      serializersChanged();
     }
 
     // if dataserializer is getting registered for first time
@@ -951,10 +987,12 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
         supportedClassesToHolders.putIfAbsent(supportedClassName, idsToHolders.get(e.getKey()));
       }
     }
+    serializersChanged();
   }
 
   public static void updateSupportedClassesMap(String dsClassName, String supportedClassName) {
     supportedClassesToHolders.putIfAbsent(supportedClassName, dsClassesToHolders.get(dsClassName));
+    serializersChanged();
   }
 
   public static class SerializerAttributesHolder {
@@ -1068,6 +1106,7 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
       }
       dsClassesToHolders.remove(s.getClass().getName());
       idsToHolders.remove(idx);
+      serializersChanged();
     }
   }
 
@@ -1079,6 +1118,7 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
     dsClassesToHolders.clear();
     idsToHolders.clear();
     initializeWellKnownSerializers();
+    serializersChanged();
   }
 
   /**
@@ -1088,6 +1128,25 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
    * fault.
    */
   private static DataSerializer getSerializer(Class c) {
+    final int version = serializersVersion.get();
+    final AtomicReference<SerializerLookup> cached = serializerLookups.get(c);
+    SerializerLookup lookup = cached.get();
+    if (lookup == null || lookup.version != version) {
+      lookup = new SerializerLookup(version, lookupSerializer(c));
+      cached.set(lookup);
+    }
+    return lookup.serializer;
+  }
+
+  /**
+   * Invalidates all of the {@code DataSerializer} lookups cached by {@link #getSerializer(Class)}.
+   * Must be called after any change to the maps used by {@link #lookupSerializer(Class)}.
+   */
+  private static void serializersChanged() {
+    serializersVersion.incrementAndGet();
+  }
+
+  private static DataSerializer lookupSerializer(Class c) {
     DataSerializer ds = classesToSerializers.get(c.getName());
     if (ds == null) {
       SerializerAttributesHolder sah = supportedClassesToHolders.get(c.getName());
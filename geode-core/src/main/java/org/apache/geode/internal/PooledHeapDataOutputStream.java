@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * A {@link HeapDataOutputStream} whose buffers come from the {@link HeapBufferPool}. The buffers
+ * are given back to the pool when the stream is closed, so a stream must not be read from or sent
+ * after {@link #close()} has been called.
+ * <p>
+ * {@link #toByteArray()} always returns a copy, but the ByteBuffers returned by methods such as
+ * {@link #toByteBuffer()} and {@link #finishWritingAndReturnUnusedBuffer()} may share a pooled
+ * buffer and must not be used once the stream is closed.
+ *
+ * @see HeapBufferPool
+ */
+public class PooledHeapDataOutputStream extends HeapDataOutputStream {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /** The buffers acquired from the pool that need to be released on close */
+  private final ArrayList<ByteBuffer> pooledBuffers = new ArrayList<>(2);
+
+  public PooledHeapDataOutputStream(Version version) {
+    this(INITIAL_CAPACITY, version);
+  }
+
+  public PooledHeapDataOutputStream(int allocSize, Version version) {
+    this(allocSize, version, false);
+  }
+
+  /**
+   * @param doNotCopy if true then byte arrays/buffers/sources will not be copied to this hdos but
+   *        instead referenced.
+   */
+  public PooledHeapDataOutputStream(int allocSize, Version version, boolean doNotCopy) {
+    super(HeapBufferPool.acquire(allocSize), version, doNotCopy);
+    this.pooledBuffers.add(this.buffer);
+  }
+
+  @Override
+  protected ByteBuffer allocateBuffer(int capacity) {
+    ByteBuffer result = HeapBufferPool.acquire(capacity);
+    this.pooledBuffers.add(result);
+    return result;
+  }
+
+  /**
+   * Returns a copy of the contents of this stream. Unlike {@link HeapDataOutputStream} the
+   * returned array never shares a pooled buffer.
+   */
+  @Override
+  public byte[] toByteArray() {
+    if (this.chunks != null) {
+      // consolidating the chunks copies them into a new, exactly sized, unpooled array
+      return super.toByteArray();
+    }
+    finishWriting();
+    ByteBuffer bb = this.buffer.duplicate();
+    byte[] result = new byte[bb.remaining()];
+    bb.get(result);
+    return result;
+  }
+
+  /**
+   * Resets this stream and gives its buffers back to the pool. The stream can still be written to
+   * afterwards, in which case it acquires new buffers.
+   */
+  @Override
+  public void close() {
+    super.close();
+    if (!this.pooledBuffers.isEmpty()) {
+      this.buffer = ByteBuffer.allocate(0);
+      for (ByteBuffer bb : this.pooledBuffers) {
+        HeapBufferPool.release(bb);
+      }
+      this.pooledBuffers.clear();
+    }
+  }
+}
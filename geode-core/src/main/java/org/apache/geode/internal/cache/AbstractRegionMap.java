@@ -806,8 +806,8 @@ public abstract class AbstractRegionMap implements RegionMap {
             synchronized (original) {
               if ((HAEventWrapper) haContainer.getKey(original) != null) {
                 original.incAndGetReferenceCount();
-                HARegionQueue.addClientCQsAndInterestList(oldMsg, haEventWrapper, haContainer,
-                    owner.getName());
+                HARegionQueue.addClientCQsAndInterestList(haContainer, original, oldMsg,
+                    haEventWrapper, owner.getName());
                 haEventWrapper.setClientUpdateMessage(null);
                 newValue = CachedDeserializableFactory.create(original,
                     ((CachedDeserializable) newValue).getSizeInBytes());
@@ -75,6 +75,10 @@ public class CachePerfStats {
   protected final static int queryExecutionTimeId;
   protected final static int queryResultsHashCollisionsId;
   protected final static int queryResultsHashCollisionProbeTimeId;
+  protected final static int queryPlanCacheHitsId;
+  protected final static int queryPlanCacheMissesId;
+  protected final static int queryResultCacheHitsId;
+  protected final static int queryResultCacheMissesId;
   protected final static int partitionedRegionQueryRetriesId;
 
   protected static final int txSuccessLifeTimeId;
@@ -236,6 +240,14 @@ public class CachePerfStats {
         "Total number of times an hash code collision occurred when inserting an object into an OQL result set or rehashing it";
     final String queryResultsHashCollisionProbeTimeDesc =
         "Total time spent probing the hashtable in an OQL result set due to hash code collisions, includes reads, writes, and rehashes";
+    final String queryPlanCacheHitsDesc =
+        "Total number of times a query was created from the compiled form of an earlier query on the same query string";
+    final String queryPlanCacheMissesDesc =
+        "Total number of times a query had to be compiled while the compiled query cache was enabled";
+    final String queryResultCacheHitsDesc =
+        "Total number of times a query execution returned a cached result";
+    final String queryResultCacheMissesDesc =
+        "Total number of times a query eligible for the query result cache had to be executed";
     final String partitionedRegionOQLQueryRetriesDesc =
         "Total number of times an OQL Query on a Partitioned Region had to be retried";
     final String txSuccessLifeTimeDesc =
@@ -412,6 +424,11 @@ public class CachePerfStats {
                 "operations"),
             f.createLongCounter("queryResultsHashCollisionProbeTime",
                 queryResultsHashCollisionProbeTimeDesc, "nanoseconds"),
+            f.createIntCounter("queryPlanCacheHits", queryPlanCacheHitsDesc, "operations"),
+            f.createIntCounter("queryPlanCacheMisses", queryPlanCacheMissesDesc, "operations"),
+            f.createIntCounter("queryResultCacheHits", queryResultCacheHitsDesc, "operations"),
+            f.createIntCounter("queryResultCacheMisses", queryResultCacheMissesDesc,
+                "operations"),
             f.createLongCounter("partitionedRegionQueryRetries",
                 partitionedRegionOQLQueryRetriesDesc, "retries"),
 
@@ -557,6 +574,10 @@ public class CachePerfStats {
     queryExecutionTimeId = type.nameToId("queryExecutionTime");
     queryResultsHashCollisionsId = type.nameToId("queryResultsHashCollisions");
     queryResultsHashCollisionProbeTimeId = type.nameToId("queryResultsHashCollisionProbeTime");
+    queryPlanCacheHitsId = type.nameToId("queryPlanCacheHits");
+    queryPlanCacheMissesId = type.nameToId("queryPlanCacheMisses");
+    queryResultCacheHitsId = type.nameToId("queryResultCacheHits");
+    queryResultCacheMissesId = type.nameToId("queryResultCacheMisses");
     partitionedRegionQueryRetriesId = type.nameToId("partitionedRegionQueryRetries");
 
     txSuccessLifeTimeId = type.nameToId("txSuccessLifeTime");
@@ -1181,6 +1202,38 @@ public class CachePerfStats {
     stats.incInt(queryResultsHashCollisionsId, 1);
   }
 
+  public void incQueryPlanCacheHits() {
+    stats.incInt(queryPlanCacheHitsId, 1);
+  }
+
+  public void incQueryPlanCacheMisses() {
+    stats.incInt(queryPlanCacheMissesId, 1);
+  }
+
+  public int getQueryPlanCacheHits() {
+    return stats.getInt(queryPlanCacheHitsId);
+  }
+
+  public int getQueryPlanCacheMisses() {
+    return stats.getInt(queryPlanCacheMissesId);
+  }
+
+  public void incQueryResultCacheHits() {
+    stats.incInt(queryResultCacheHitsId, 1);
+  }
+
+  public void incQueryResultCacheMisses() {
+    stats.incInt(queryResultCacheMissesId, 1);
+  }
+
+  public int getQueryResultCacheHits() {
+    return stats.getInt(queryResultCacheHitsId);
+  }
+
+  public int getQueryResultCacheMisses() {
+    return stats.getInt(queryResultCacheMissesId);
+  }
+
   public int getTxCommits() {
     return stats.getInt(txCommitsId);
   }
@@ -560,6 +560,16 @@ public class CacheServerImpl extends AbstractCacheServer implements Distribution
     AttributesFactory factory = new AttributesFactory();
     factory.setScope(Scope.LOCAL);
 
+    if (HARegionQueue.isClientMessagesOffHeap(cache)) {
+      factory.setOffHeap(true);
+      if (HARegionQueue.HA_EVICTION_POLICY_NONE.equals(ePolicy)) {
+        // messages are kept off-heap without overflowing them to disk
+        factory.setDataPolicy(DataPolicy.NORMAL);
+        factory.setStatisticsEnabled(true);
+        return factory;
+      }
+    }
+
     if (isDiskStore) {
       // overflowDir parameter is actually diskstore name
       factory.setDiskStoreName(overflowDir);
@@ -66,6 +66,7 @@ import org.apache.geode.internal.cache.partitioned.Bucket;
 import org.apache.geode.internal.cache.partitioned.PartitionMessage;
 import org.apache.geode.internal.cache.persistence.PersistentMemberID;
 import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.CacheClientNotifier;
 import org.apache.geode.internal.cache.versions.DiskVersionTag;
 import org.apache.geode.internal.cache.versions.RegionVersionVector;
 import org.apache.geode.internal.cache.versions.VersionSource;
@@ -423,8 +424,7 @@ public abstract class DistributedCacheOperation {
 
         // compute local client routing before waiting for an ack only for a bucket
         if (region.isUsedForPartitionedRegionBucket()) {
-          FilterInfo filterInfo = getLocalFilterRouting(filterRouting);
-          this.event.setLocalFilterInfo(filterInfo);
+          setLocalFilterRouting(filterRouting, isPutAll || isRemoveAll);
         }
 
       } else {
@@ -651,8 +651,7 @@ public abstract class DistributedCacheOperation {
 
         // compute local client routing before waiting for an ack only for a bucket
         if (region.isUsedForPartitionedRegionBucket()) {
-          FilterInfo filterInfo = getLocalFilterRouting(filterRouting);
-          event.setLocalFilterInfo(filterInfo);
+          setLocalFilterRouting(filterRouting, isPutAll || isRemoveAll);
         }
 
         waitForAckIfNeeded(msg, persistentIds);
@@ -844,6 +843,19 @@ public abstract class DistributedCacheOperation {
     return fri.getLocalFilterInfo();
   }
 
+  /**
+   * Sets the local client routing of the event of a bucket. The routing of an entry event is left
+   * to the filter routing pipeline, if there is one, which computes it once the event is applied.
+   */
+  private void setLocalFilterRouting(FilterRoutingInfo frInfo, boolean isBulkOp) {
+    if (!isBulkOp && this.event.getOperation().isEntry()
+        && CacheClientNotifier.getFilterRoutingPipeline() != null) {
+      ((EntryEventImpl) this.event).setLocalFilterRoutingDeferred(true);
+      return;
+    }
+    this.event.setLocalFilterInfo(getLocalFilterRouting(frInfo));
+  }
+
   protected abstract CacheOperationMessage createMessage();
 
   protected void initMessage(CacheOperationMessage msg, DirectReplyProcessor p) {
@@ -316,6 +316,18 @@ public class DummyCachePerfStats extends CachePerfStats {
   @Override
   public void endQueryExecution(long executionTime) {}
 
+  @Override
+  public void incQueryPlanCacheHits() {}
+
+  @Override
+  public void incQueryPlanCacheMisses() {}
+
+  @Override
+  public void incQueryResultCacheHits() {}
+
+  @Override
+  public void incQueryResultCacheMisses() {}
+
   @Override
   public int getTxCommits() {
     return 0;
@@ -180,6 +180,12 @@ public class EntryEventImpl
 
   private transient boolean isPendingSecondaryExpireDestroy = false;
 
+  /**
+   * true if the distribution of this event from a primary bucket left its local filter routing to
+   * the filter routing pipeline
+   */
+  private transient boolean isLocalFilterRoutingDeferred = false;
+
   public final static Object SUSPECT_TOKEN = new Object();
 
   public EntryEventImpl() {
@@ -619,6 +625,14 @@ public class EntryEventImpl
     this.isPendingSecondaryExpireDestroy = value;
   }
 
+  boolean isLocalFilterRoutingDeferred() {
+    return this.isLocalFilterRoutingDeferred;
+  }
+
+  void setLocalFilterRoutingDeferred(boolean value) {
+    this.isLocalFilterRoutingDeferred = value;
+  }
+
   // Note that isOriginRemote is sometimes set to false even though the event
   // was received from a peer. This is done to force distribution of the
   // message to peers and to cause concurrency version stamping to be performed.
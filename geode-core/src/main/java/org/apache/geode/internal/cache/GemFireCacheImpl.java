@@ -61,6 +61,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -134,11 +135,14 @@ import org.apache.geode.cache.client.internal.PoolImpl;
 import org.apache.geode.cache.control.ResourceManager;
 import org.apache.geode.cache.execute.FunctionService;
 import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.CompiledQueryCache;
 import org.apache.geode.cache.query.internal.DefaultQuery;
 import org.apache.geode.cache.query.internal.DefaultQueryService;
 import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.QueryResultCache;
 import org.apache.geode.cache.query.internal.cq.CqService;
 import org.apache.geode.cache.query.internal.cq.CqServiceProvider;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.cache.server.CacheServer;
 import org.apache.geode.cache.snapshot.CacheSnapshotService;
 import org.apache.geode.cache.util.GatewayConflictResolver;
@@ -372,6 +376,17 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
   /** thread pool for event dispatching */
   private final ThreadPoolExecutor eventThreadPool;
 
+  /** thread pool helping to populate the indexes of the regions, created on first use */
+  private ThreadPoolExecutor indexPopulationThreadPool;
+
+  private final Object indexPopulationThreadPoolLock = new Object();
+
+  /** the compiled form of the local queries, by query string */
+  private final CompiledQueryCache compiledQueryCache = new CompiledQueryCache();
+
+  /** the results of the local queries, by query string and bind parameters */
+  private final QueryResultCache queryResultCache = new QueryResultCache();
+
   /**
    * the list of all cache servers. CopyOnWriteArrayList is used to allow concurrent add, remove and
    * retrieval operations. It is assumed that the traversal operations on cache servers list vastly
@@ -2125,6 +2140,11 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
         }
       }
 
+      // indexes can no longer be evaluated once the cache is marked closing
+      if (systemFailureCause == null && IndexManager.isPersistIndexes()) {
+        saveIndexSnapshots();
+      }
+
       this.keepAlive = keepAlive;
       this.isClosing = true;
       logger.info(LocalizedMessage.create(LocalizedStrings.GemFireCache_0_NOW_CLOSING, this));
@@ -2184,6 +2204,18 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
           this.eventThreadPool.shutdown();
         }
 
+        synchronized (this.indexPopulationThreadPoolLock) {
+          if (this.indexPopulationThreadPool != null) {
+            if (isDebugEnabled) {
+              logger.debug("{}: stopping index population thread pool...", this);
+            }
+            this.indexPopulationThreadPool.shutdownNow();
+          }
+        }
+
+        this.compiledQueryCache.clear();
+        this.queryResultCache.clear();
+
         /*
          * IMPORTANT: any operation during shut down that can time out (create a CancelException)
          * must be inside of this try block. If all else fails, we *must* ensure that the cache gets
@@ -3168,6 +3200,55 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
     return getRegion(path, false);
   }
 
+  /**
+   * Saves the index snapshots of the persistent regions and buckets before the cache is closed. The
+   * regions are saved in parallel, and the close does not wait longer than
+   * {@link IndexManager#INDEX_SNAPSHOT_SAVE_TIMEOUT} for them; the snapshots still being written
+   * then are abandoned.
+   */
+  private void saveIndexSnapshots() {
+    List<IndexManager> indexManagers = new ArrayList<>();
+    for (LocalRegion region : getAllRegions()) {
+      IndexManager indexManager = region.getIndexManager();
+      if (indexManager != null && region.getDiskRegion() != null) {
+        indexManagers.add(indexManager);
+      }
+    }
+    if (indexManagers.isEmpty()) {
+      return;
+    }
+    final ThreadGroup threadGroup =
+        LoggingThreadGroup.createThreadGroup("Index Snapshot Threads", logger);
+    ThreadFactory threadFactory = (Runnable command) -> {
+      Thread thread = new Thread(threadGroup, command, "Index Snapshot Thread");
+      thread.setDaemon(true);
+      return thread;
+    };
+    ExecutorService es = Executors.newFixedThreadPool(
+        Math.min(indexManagers.size(), Runtime.getRuntime().availableProcessors()), threadFactory);
+    try {
+      for (final IndexManager indexManager : indexManagers) {
+        es.execute(() -> {
+          try {
+            indexManager.saveIndexSnapshots();
+          } catch (CancelException ignore) {
+            // the region is being closed; its snapshots will be rebuilt on recovery
+          }
+        });
+      }
+      es.shutdown();
+      if (!es.awaitTermination(IndexManager.INDEX_SNAPSHOT_SAVE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        logger.info("Index snapshots not saved within {} ms are discarded",
+            IndexManager.INDEX_SNAPSHOT_SAVE_TIMEOUT);
+      }
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+    } finally {
+      // interrupting the snapshot threads discards the snapshots they are writing
+      es.shutdownNow();
+    }
+  }
+
   /**
    * returns a set of all current regions in the cache, including buckets
    *
@@ -3782,6 +3863,41 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
     return this.eventThreadPool;
   }
 
+  /**
+   * Returns the thread pool helping the calling thread populate the indexes of a region. Its
+   * threads are shared by all the regions and buckets of this cache. Returns {@code null} once the
+   * cache is closing.
+   */
+  @Override
+  public ExecutorService getIndexPopulationThreadPool() {
+    synchronized (this.indexPopulationThreadPoolLock) {
+      if (this.indexPopulationThreadPool == null && !this.isClosing) {
+        final ThreadGroup threadGroup =
+            LoggingThreadGroup.createThreadGroup("Index Population Threads", logger);
+        ThreadFactory threadFactory = (Runnable command) -> {
+          Thread thread = new Thread(threadGroup, command, "Index Population Thread");
+          thread.setDaemon(true);
+          return thread;
+        };
+        int numThreads = Math.max(IndexManager.getIndexPopulationThreads() - 1, 1);
+        this.indexPopulationThreadPool = new ThreadPoolExecutor(numThreads, numThreads, 60,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.indexPopulationThreadPool.allowCoreThreadTimeOut(true);
+      }
+      return this.isClosing ? null : this.indexPopulationThreadPool;
+    }
+  }
+
+  @Override
+  public CompiledQueryCache getCompiledQueryCache() {
+    return this.compiledQueryCache;
+  }
+
+  @Override
+  public QueryResultCache getQueryResultCache() {
+    return this.queryResultCache;
+  }
+
   @Override
   public CacheServer addCacheServer() {
     return addCacheServer(false);
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import javax.transaction.TransactionManager;
 
@@ -39,7 +40,9 @@ import org.apache.geode.cache.asyncqueue.AsyncEventQueue;
 import org.apache.geode.cache.asyncqueue.internal.AsyncEventQueueImpl;
 import org.apache.geode.cache.client.internal.ClientMetadataService;
 import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.CompiledQueryCache;
 import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.QueryResultCache;
 import org.apache.geode.cache.query.internal.cq.CqService;
 import org.apache.geode.cache.server.CacheServer;
 import org.apache.geode.cache.wan.GatewayReceiver;
@@ -155,6 +158,12 @@ public interface InternalCache extends Cache, Extensible<Cache>, CacheTime {
 
   Executor getEventThreadPool();
 
+  ExecutorService getIndexPopulationThreadPool();
+
+  CompiledQueryCache getCompiledQueryCache();
+
+  QueryResultCache getQueryResultCache();
+
   LocalRegion getReinitializingRegion(String fullPath);
 
   boolean keepDurableSubscriptionsAlive();
@@ -150,6 +150,7 @@ import org.apache.geode.internal.cache.persistence.query.IndexMap;
 import org.apache.geode.internal.cache.persistence.query.mock.IndexMapImpl;
 import org.apache.geode.internal.cache.tier.InterestType;
 import org.apache.geode.internal.cache.tier.sockets.CacheClientNotifier;
+import org.apache.geode.internal.cache.tier.sockets.FilterRoutingPipeline;
 import org.apache.geode.internal.cache.tier.sockets.ClientHealthMonitor;
 import org.apache.geode.internal.cache.tier.sockets.ClientProxyMembershipID;
 import org.apache.geode.internal.cache.tier.sockets.ClientTombstoneMessage;
@@ -210,6 +211,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
@@ -2629,6 +2631,16 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
       try {
         if (this.indexManager != null) {
           try {
+            if (IndexManager.isPersistIndexes() && this.diskRegion != null) {
+              if (isClose) {
+                // a closing cache has already saved the snapshots of its regions
+                if (!this.cache.isClosed()) {
+                  this.indexManager.saveIndexSnapshots();
+                }
+              } else {
+                this.indexManager.deleteIndexSnapshots();
+              }
+            }
             if (this instanceof BucketRegion) {
               this.indexManager.removeBucketIndexes(getPartitionedRegion());
             }
@@ -3131,6 +3143,12 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    */
   private final AtomicInteger tombstoneCount = new AtomicInteger();
 
+  /**
+   * the number of changes applied to the entries of this region, counted once each change is
+   * visible in the RegionMap and its synchronously maintained indexes
+   */
+  private final LongAdder entryChangeCount = new LongAdder();
+
   /** a boolean for issuing a client/server configuration mismatch message */
   private boolean concurrencyMessageIssued;
 
@@ -3199,6 +3217,14 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     return this.tombstoneCount.get();
   }
 
+  /**
+   * Returns the number of changes applied to the entries of this region so far. Anything computed
+   * from the region while this count did not change still reflects its current contents.
+   */
+  public long getEntryChangeCount() {
+    return this.entryChangeCount.sum();
+  }
+
   void scheduleTombstone(RegionEntry entry, VersionTag destroyedVersion) {
     scheduleTombstone(entry, destroyedVersion, false);
   }
@@ -4926,6 +4952,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
 
   void basicInvalidatePart2(RegionEntry regionEntry, EntryEventImpl event,
       boolean conflictWithClear, boolean invokeCallbacks) {
+    this.entryChangeCount.increment();
     updateStatsForInvalidate();
 
     if (invokeCallbacks) {
@@ -4991,6 +5018,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    */
   void txApplyInvalidatePart2(RegionEntry regionEntry, Object key, boolean didDestroy,
       boolean didInvalidate) {
+    this.entryChangeCount.increment();
     if (this.testCallable != null) {
       this.testCallable.call(this, Operation.INVALIDATE, regionEntry);
     }
@@ -5063,6 +5091,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
 
   void txApplyPutPart2(RegionEntry regionEntry, Object key, long lastModified, boolean isCreate,
       boolean didDestroy, boolean clearConflict) {
+    this.entryChangeCount.increment();
     if (this.testCallable != null) {
       Operation op = isCreate ? Operation.CREATE : Operation.UPDATE;
       this.testCallable.call(this, op, regionEntry);
@@ -5697,6 +5726,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
 
   protected long basicPutPart2(EntryEventImpl event, RegionEntry entry, boolean isInitialized,
       long lastModified, boolean clearConflict) {
+    this.entryChangeCount.increment();
 
     final boolean isNewKey = event.getOperation().isCreate();
 
@@ -5777,6 +5807,14 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    * {@link FilterProfile#getFilterRoutingInfoPart2(FilterRoutingInfo, CacheEvent)} .
    */
   protected void generateLocalFilterRouting(InternalCacheEvent event) {
+    generateLocalFilterRouting(event, true);
+  }
+
+  /**
+   * Generates the local filter routing of the event, locking its region entry while CQs are
+   * processed if lockEntryForCQ is true.
+   */
+  void generateLocalFilterRouting(InternalCacheEvent event, boolean lockEntryForCQ) {
     boolean isEntryEvent = event.getOperation().isEntry();
     EntryEventImpl entryEvent = isEntryEvent ? (EntryEventImpl) event : null;
 
@@ -5793,7 +5831,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
         regionEntryObject = entryEvent.getRegionEntry();
         if (!entryEvent.isConcurrencyConflict()) {
           Assert.assertTrue(regionEntryObject != null);
-          lockForCQ = true;
+          lockForCQ = lockEntryForCQ;
         }
       }
       if (isEntryEvent) {
@@ -6048,12 +6086,46 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
         }
       }
 
-      InternalCacheEvent ice = (InternalCacheEvent) event;
-      if (!this.isUsedForPartitionedRegionBucket()) {
+      final InternalCacheEvent ice = (InternalCacheEvent) event;
+      FilterRoutingPipeline pipeline = CacheClientNotifier.getFilterRoutingPipeline();
+      if (pipeline != null) {
+        if (event.getOperation().isEntry()) {
+          EntryEventImpl entryEvent = (EntryEventImpl) event;
+          if (getOffHeap()) {
+            // off-heap values are released once the operation completes, so the event keeps
+            // copies of them to be routed after it
+            entryEvent.copyOffHeapToHeap();
+          }
+          // the routing of a bucket event is computed here only if its distribution left it to
+          // the pipeline, on secondaries it comes with the event
+          final boolean generateRouting = !this.isUsedForPartitionedRegionBucket()
+              || entryEvent.isLocalFilterRoutingDeferred();
+          EventID eventId = entryEvent.getEventId();
+          Object originator = eventId == null ? null
+              : new ThreadIdentifier(eventId.getMembershipID(), eventId.getThreadID());
+          pipeline.submit(getFullPath(), entryEvent.getKey(), originator, new Runnable() {
+            public void run() {
+              if (generateRouting) {
+                // the pipeline routes the events on an entry in order, without the entry lock
+                generateLocalFilterRouting(ice, false);
+              }
+            }
+          }, new Runnable() {
+            public void run() {
+              CacheClientNotifier.notifyClients(ice);
+            }
+          });
+          return;
+        }
+        pipeline.waitForPendingEvents();
+      }
+
+      if (!this.isUsedForPartitionedRegionBucket() || (event.getOperation().isEntry()
+          && ((EntryEventImpl) event).isLocalFilterRoutingDeferred())) {
         generateLocalFilterRouting(ice);
       }
 
-      CacheClientNotifier.notifyClients((InternalCacheEvent) event);
+      CacheClientNotifier.notifyClients(ice);
     }
   }
 
@@ -6609,6 +6681,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    */
   void basicDestroyPart2(RegionEntry re, EntryEventImpl event, boolean inTokenMode,
       boolean conflictWithClear, boolean duringRI, boolean invokeCallbacks) {
+    this.entryChangeCount.increment();
     if (!(this instanceof HARegion)) {
       if (logger.isTraceEnabled()) {
         logger.trace("basicDestroyPart2(inTokenMode={},conflictWithClear={},duringRI={}) event={}",
@@ -6789,6 +6862,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    * completed its part of the basic destroy
    */
   void txApplyDestroyPart2(RegionEntry re, Object key, boolean inTokenMode, boolean clearConflict) {
+    this.entryChangeCount.increment();
     if (this.testCallable != null) {
       this.testCallable.call(this, Operation.DESTROY, re);
     }
@@ -9065,6 +9139,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
         }
       }
     }
+    this.entryChangeCount.increment();
 
     if (ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
       CacheObserverHolder.getInstance().afterRegionClear(regionEvent);
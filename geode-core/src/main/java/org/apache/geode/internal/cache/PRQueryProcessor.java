@@ -28,10 +28,17 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.Logger;
 
@@ -67,6 +74,11 @@ import org.apache.geode.internal.logging.LogService;
  * 
  * The QueryTasks add results directly to a results queue. The BucketQueryResult is used not only to
  * indicate completion, and holds an exception if there one occurred while processing a query.
+ * 
+ * If {@code PRQueryProcessor.maxParallelism} is not 1 the buckets are instead scanned by several
+ * threads of a shared {@code ForkJoinPool}, together with the calling thread. Each thread takes the
+ * next chunk of buckets until none are left, and adds the results of each chunk to the results as
+ * they are.
  */
 public class PRQueryProcessor {
   private static final Logger logger = LogService.getLogger();
@@ -79,6 +91,16 @@ public class PRQueryProcessor {
   /* For Test purpose */
   public static int TEST_NUM_THREADS = 0;
 
+  /**
+   * The maximum number of threads, including the calling thread, that scan the local buckets of one
+   * query. 1 scans them sequentially and 0 or less uses one thread per available processor.
+   */
+  public static final int MAX_PARALLELISM =
+      getInteger(DistributionConfig.GEMFIRE_PREFIX + "PRQueryProcessor.maxParallelism", 1);
+
+  /* For Test purpose */
+  public static int TEST_MAX_PARALLELISM = 0;
+
   private PartitionedRegionDataStore _prds;
   private PartitionedRegion pr;
   private final DefaultQuery query;
@@ -87,7 +109,7 @@ public class PRQueryProcessor {
   private volatile int numBucketsProcessed = 0;
   private volatile ObjectType resultType = null;
 
-  private boolean isIndexUsedForLocalQuery = false;
+  private volatile boolean isIndexUsedForLocalQuery = false;
 
   public PRQueryProcessor(PartitionedRegionDataStore prDS, DefaultQuery query, Object[] parameters,
       List<Integer> buckets) {
@@ -132,14 +154,106 @@ public class PRQueryProcessor {
     // ((IndexTrackingQueryObserver)observer).setIndexInfo(resultCollector.getIndexInfoMap());
     // }
 
+    int parallelism = getParallelism();
     if (NUM_THREADS > 1 || TEST_NUM_THREADS > 1) {
       executeWithThreadPool(resultCollector);
+    } else if (parallelism > 1 && canScanInParallel()) {
+      executeInParallel(resultCollector, parallelism);
     } else {
       executeSequentially(resultCollector, this._bucketsToQuery);
     }
     return this.resultType.isStructType();
   }
 
+  /**
+   * Returns the number of threads to scan the buckets of this query with.
+   */
+  private int getParallelism() {
+    int parallelism = TEST_MAX_PARALLELISM != 0 ? TEST_MAX_PARALLELISM : MAX_PARALLELISM;
+    if (parallelism <= 0) {
+      parallelism = Runtime.getRuntime().availableProcessors();
+    }
+    return Math.min(parallelism, this._bucketsToQuery.size());
+  }
+
+  /**
+   * Returns whether the buckets can be scanned by helper threads. A query observer, such as the
+   * {@link IndexTrackingQueryObserver} of a traced query, keeps its state per thread, and a
+   * transaction is bound to the calling thread, so the buckets are scanned by the calling thread
+   * when either is present.
+   */
+  private boolean canScanInParallel() {
+    return !QueryObserverHolder.hasObserver() && TXManagerImpl.getCurrentTXState() == null;
+  }
+
+  /**
+   * Scans the buckets with up to parallelism threads. The calling thread is the one monitored by
+   * the QueryMonitor; the other threads share its query execution status so they stop when the
+   * query is canceled, and read PDX values serialized if it does.
+   */
+  private void executeInParallel(Collection<Collection> resultCollector, int parallelism)
+      throws QueryException, InterruptedException, ForceReattemptException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+
+    CompiledSelect cs = this.query.getSimpleSelect();
+    // ordered results are merged per bucket
+    boolean ordered = cs != null && (cs.isOrderBy() || cs.isGroupBy());
+
+    QueryMonitor queryMonitor = null;
+    if (GemFireCacheImpl.getInstance() != null) {
+      queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
+    }
+    if (queryMonitor != null) {
+      queryMonitor.monitorQueryThread(Thread.currentThread(), this.query);
+    }
+    try {
+      BucketScheduler scheduler = new BucketScheduler(this._bucketsToQuery, parallelism, ordered,
+          QueryMonitor.getQueryExecutionStatus(), DefaultQuery.getPdxReadSerialized());
+      List<BucketScanTask> helpers = new ArrayList<BucketScanTask>(parallelism - 1);
+      ForkJoinPool pool = PRQueryExecutor.getForkJoinPool();
+      for (int i = 1; i < parallelism; i++) {
+        BucketScanTask helper = new BucketScanTask(scheduler, resultCollector);
+        try {
+          pool.execute(helper);
+        } catch (RejectedExecutionException ignore) {
+          // pool is shutting down; the remaining buckets are scanned by the threads already running
+          break;
+        }
+        helpers.add(helper);
+      }
+      new BucketScanTask(scheduler, resultCollector).invoke();
+      for (BucketScanTask helper : helpers) {
+        // a helper canceled before it started did not take any buckets
+        helper.quietlyJoin();
+      }
+
+      scheduler.throwFailure();
+      if (this.query.isCanceled()) {
+        throw this.query.getQueryCanceledException();
+      }
+      if (!scheduler.isDone()) {
+        // no thread was able to finish the scan
+        this.pr.checkReadiness();
+        throw new ForceReattemptException("Query on local buckets did not complete");
+      }
+    } finally {
+      if (queryMonitor != null) {
+        queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), this.query);
+      }
+    }
+
+    if (ordered) {
+      ExecutionContext context =
+          new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query);
+      int limit = this.query.getLimit(parameters);
+      Collection mergedResults = coalesceOrderedResults(resultCollector, context, cs, limit);
+      resultCollector.clear();
+      resultCollector.add(mergedResults);
+    }
+  }
+
   private void executeWithThreadPool(Collection<Collection> resultCollector)
       throws QueryException, InterruptedException, ForceReattemptException {
     if (Thread.interrupted())
@@ -366,10 +480,20 @@ public class PRQueryProcessor {
   private void executeQueryOnBuckets(Collection<Collection> resultCollector,
       ExecutionContext context)
       throws ForceReattemptException, QueryInvocationTargetException, QueryException {
+    executeQueryOnBuckets(resultCollector, context, true);
+  }
+
+  /**
+   * @param monitorQuery false if the calling thread is helping a thread already monitored by the
+   *        QueryMonitor
+   */
+  private void executeQueryOnBuckets(Collection<Collection> resultCollector,
+      ExecutionContext context, boolean monitorQuery)
+      throws ForceReattemptException, QueryInvocationTargetException, QueryException {
     // Check if QueryMonitor is enabled, if so add query to be monitored.
     QueryMonitor queryMonitor = null;
     context.setCqQueryContext(query.isCqQuery());
-    if (GemFireCacheImpl.getInstance() != null) {
+    if (monitorQuery && GemFireCacheImpl.getInstance() != null) {
       queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
     }
 
@@ -387,7 +511,10 @@ public class PRQueryProcessor {
         this.resultType = ((SelectResults) results).getCollectionType().getElementType();
         resultCollector.add((Collection) results);
       }
-      isIndexUsedForLocalQuery = ((QueryExecutionContext) context).isIndexUsed();
+      if (((QueryExecutionContext) context).isIndexUsed()) {
+        // buckets are queried on several threads; any of them using an index counts
+        isIndexUsedForLocalQuery = true;
+      }
 
     } catch (BucketMovedException bme) {
       if (logger.isDebugEnabled()) {
@@ -443,6 +570,11 @@ public class PRQueryProcessor {
 
     private static ExecutorService execService = null;
 
+    /**
+     * Work stealing pool shared by all queries scanning buckets in parallel
+     */
+    private static ForkJoinPool forkJoinPool = null;
+
     /**
      * Closes the executor service. This is called from
      * {@link PartitionedRegion#afterRegionsClosedByCacheClose(InternalCache)}
@@ -451,11 +583,35 @@ public class PRQueryProcessor {
       if (execService != null) {
         execService.shutdown();
       }
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdown();
+      }
     }
 
     static synchronized void shutdownNow() {
       if (execService != null)
         execService.shutdownNow();
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdownNow();
+      }
+    }
+
+    static synchronized ForkJoinPool getForkJoinPool() {
+      if (forkJoinPool == null || forkJoinPool.isShutdown()) {
+        final AtomicInteger threadNum = new AtomicInteger();
+        ForkJoinWorkerThreadFactory threadFactory = new ForkJoinWorkerThreadFactory() {
+          public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PRQueryProcessor Thread " + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        };
+        forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), threadFactory,
+            null, false);
+      }
+      return forkJoinPool;
     }
 
     static synchronized ExecutorService getExecutorService() {
@@ -477,6 +633,117 @@ public class PRQueryProcessor {
     }
   }
 
+  /**
+   * Hands out the buckets of one query to the threads scanning them in parallel. Chunks get smaller
+   * as fewer buckets remain, so that the threads finish at about the same time. Scanning stops at
+   * the first failure or when the query is canceled.
+   */
+  private static class BucketScheduler {
+    private final List<Integer> buckets;
+    private final int parallelism;
+    private final boolean singleBucketChunks;
+    private final AtomicBoolean queryExecutionStatus;
+    /** Whether the calling thread reads PDX values serialized, as the scanning threads do */
+    private final boolean pdxReadSerialized;
+    private final AtomicInteger nextBucket = new AtomicInteger();
+    private final AtomicInteger bucketsDone = new AtomicInteger();
+    private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+    BucketScheduler(List<Integer> buckets, int parallelism, boolean singleBucketChunks,
+        AtomicBoolean queryExecutionStatus, boolean pdxReadSerialized) {
+      this.buckets = buckets;
+      this.parallelism = parallelism;
+      this.singleBucketChunks = singleBucketChunks;
+      this.queryExecutionStatus = queryExecutionStatus;
+      this.pdxReadSerialized = pdxReadSerialized;
+    }
+
+    /**
+     * Returns the next buckets to scan, or null if there are none left or scanning should stop.
+     */
+    List<Integer> nextChunk() {
+      while (this.failure.get() == null && !this.queryExecutionStatus.get()) {
+        int start = this.nextBucket.get();
+        int remaining = this.buckets.size() - start;
+        if (remaining <= 0) {
+          return null;
+        }
+        int size = this.singleBucketChunks ? 1 : Math.max(1, remaining / (this.parallelism * 2));
+        if (this.nextBucket.compareAndSet(start, start + size)) {
+          return new ArrayList<Integer>(this.buckets.subList(start, start + size));
+        }
+      }
+      return null;
+    }
+
+    void chunkDone(List<Integer> chunk) {
+      this.bucketsDone.addAndGet(chunk.size());
+    }
+
+    void failed(Exception e) {
+      this.failure.compareAndSet(null, e);
+    }
+
+    boolean isDone() {
+      return this.bucketsDone.get() == this.buckets.size();
+    }
+
+    void throwFailure() throws QueryException, ForceReattemptException {
+      Exception e = this.failure.get();
+      if (e == null) {
+        return;
+      }
+      if (e instanceof QueryException) {
+        throw (QueryException) e;
+      } else if (e instanceof ForceReattemptException) {
+        throw (ForceReattemptException) e;
+      } else if (e instanceof RuntimeException) {
+        throw (RuntimeException) e;
+      }
+      throw new InternalGemFireException(
+          LocalizedStrings.PRQueryProcessor_GOT_UNEXPECTED_EXCEPTION_WHILE_EXECUTING_QUERY_ON_PARTITIONED_REGION_BUCKET
+              .toLocalizedString(),
+          e);
+    }
+  }
+
+  /**
+   * Scans chunks of buckets handed out by a {@link BucketScheduler} until there are none left.
+   */
+  private class BucketScanTask extends RecursiveAction {
+    private static final long serialVersionUID = -1786397441312346543L;
+
+    private final BucketScheduler scheduler;
+    private final Collection<Collection> resultCollector;
+
+    BucketScanTask(BucketScheduler scheduler, Collection<Collection> resultCollector) {
+      this.scheduler = scheduler;
+      this.resultCollector = resultCollector;
+    }
+
+    @Override
+    protected void compute() {
+      AtomicBoolean previousStatus = QueryMonitor.getQueryExecutionStatus();
+      boolean previousPdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+      QueryMonitor.setQueryExecutionStatus(this.scheduler.queryExecutionStatus);
+      DefaultQuery.setPdxReadSerialized(this.scheduler.pdxReadSerialized);
+      try {
+        List<Integer> chunk;
+        while ((chunk = this.scheduler.nextChunk()) != null) {
+          ExecutionContext context = new QueryExecutionContext(parameters, pr.getCache(), query);
+          context.setBucketList(chunk);
+          executeQueryOnBuckets(this.resultCollector, context, false);
+          this.scheduler.chunkDone(chunk);
+        }
+      } catch (Exception e) {
+        this.scheduler.failed(e);
+      } finally {
+        QueryMonitor.setQueryExecutionStatus(previousStatus);
+        DefaultQuery.setPdxReadSerialized(previousPdxReadSerialized);
+      }
+    }
+  }
+
   /**
    * Status token placed in results stream to track completion of query results for a given bucket
    */
@@ -53,6 +53,15 @@ public class HAContainerRegion implements HAContainerWrapper {
     }
   }
 
+  /**
+   * Returns true if the messages returned by this container are copies of the stored ones, which
+   * is the case when they are stored in off-heap memory. Changes to the messages have to be put
+   * back into the container.
+   */
+  public boolean storesCopies() {
+    return map.getAttributes().getOffHeap();
+  }
+
   public Region getMapForTest() {
     Region region = (Region) map;
     return region;
@@ -236,6 +236,14 @@ public class HARegionQueue implements RegionQueue {
 
   public static final String HA_EVICTION_POLICY_ENTRY = "entry";
 
+  /**
+   * Whether the client messages referenced by subscription queues are kept serialized in off-heap
+   * memory when the cache has off-heap memory, so that only the queue entries and the event
+   * metadata of queued events use heap. Can be combined with any eviction policy.
+   */
+  public static boolean OFF_HEAP_CLIENT_MESSAGES = Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HARegionQueue.OFF_HEAP_CLIENT_MESSAGES");
+
   public static final long INIT_OF_SEQUENCEID = -1L;
 
   /**
@@ -1377,6 +1385,18 @@ public class HARegionQueue implements RegionQueue {
     return peek(batchSize, -1);
   }
 
+  /**
+   * Peeks the events available in the queue, up to the given number, without waiting for more
+   * events to arrive. Like with {@link #peek()}, the peeked events are removed from the queue by the
+   * next call to {@link #remove()} by the same thread.
+   *
+   * @param maxEvents The maximum number of events to peek
+   * @return The list of events peeked, empty if the queue is empty
+   */
+  public List peekAvailable(int maxEvents) throws InterruptedException {
+    return peek(maxEvents, -1);
+  }
+
   /**
    * Return a batch of minimum specified size
    * 
@@ -2395,6 +2415,53 @@ public class HARegionQueue implements RegionQueue {
       }
     }
 
+    /**
+     * Takes the ids of the events off the available ids like successive calls to {@link #peek()}
+     * do, since events peeked from this queue stay in it until the client acknowledges them.
+     */
+    @Override
+    public List peekAvailable(int maxEvents) throws InterruptedException {
+      List ids = new ArrayList(maxEvents);
+      acquireWriteLock();
+      try {
+        Iterator itr = this.idsAvailable.iterator();
+        while (ids.size() < maxEvents && itr.hasNext()) {
+          ids.add(itr.next());
+          itr.remove();
+        }
+      } finally {
+        releaseWriteLock();
+      }
+
+      List events = new ArrayList(ids.size());
+      List peekedIds = new ArrayList(ids.size());
+      for (Object id : ids) {
+        Object object = this.region.get(id);
+        if (object instanceof HAEventWrapper) {
+          object = this.haContainer.get(object);
+        }
+        if (object != null) {
+          events.add(object);
+          peekedIds.add(id);
+        }
+      }
+      if (!peekedIds.isEmpty()) {
+        List peekedEvents = (List) HARegionQueue.peekedEventsContext.get();
+        if (peekedEvents == null) {
+          peekedEvents = new LinkedList();
+          HARegionQueue.peekedEventsContext.set(peekedEvents);
+        }
+        peekedEvents.addAll(peekedIds);
+        acquireWriteLock();
+        try {
+          this.durableIDsList.addAll(peekedIds);
+        } finally {
+          releaseWriteLock();
+        }
+      }
+      return events;
+    }
+
     @Override
     protected boolean checkPrevAcks() {
       this.unremovedElements = new LinkedList();
@@ -3363,7 +3430,7 @@ public class HARegionQueue implements RegionQueue {
                 // assert the entry is still present
                 if (((HAContainerWrapper) this.haContainer).getKey(original) != null) {
                   original.incAndGetReferenceCount();
-                  addClientCQsAndInterestList(old, haEventWrapper, this.haContainer,
+                  addClientCQsAndInterestList(this.haContainer, original, old, haEventWrapper,
                       this.regionName);
                   haEventWrapper = original;
                 } else {
@@ -3416,6 +3483,36 @@ public class HARegionQueue implements RegionQueue {
     }
   }
 
+  /**
+   * Returns true if the client messages of subscription queues are stored in off-heap memory in
+   * the given cache.
+   *
+   * @see #OFF_HEAP_CLIENT_MESSAGES
+   */
+  public static boolean isClientMessagesOffHeap(InternalCache cache) {
+    return OFF_HEAP_CLIENT_MESSAGES && cache.getOffHeapStore() != null;
+  }
+
+  /**
+   * Adds the CQs and interest list of the given wrapper to the message kept in the haContainer for
+   * original, the equal wrapper already in it. Callers hold the lock on original. If the container
+   * only returns copies of its messages, the message is read again under that lock, changed and
+   * put back, so that the interest added by another queue is not overwritten.
+   */
+  public static void addClientCQsAndInterestList(Map haContainer, HAEventWrapper original,
+      ClientUpdateMessageImpl msg, HAEventWrapper haEventWrapper, String regionName) {
+    if (haContainer instanceof HAContainerRegion
+        && ((HAContainerRegion) haContainer).storesCopies()) {
+      ClientUpdateMessageImpl current = (ClientUpdateMessageImpl) haContainer.get(original);
+      if (current != null) {
+        addClientCQsAndInterestList(current, haEventWrapper, haContainer, regionName);
+        haContainer.put(original, current);
+      }
+    } else {
+      addClientCQsAndInterestList(msg, haEventWrapper, haContainer, regionName);
+    }
+  }
+
   public static void addClientCQsAndInterestList(ClientUpdateMessageImpl msg,
       HAEventWrapper haEventWrapper, Map haContainer, String regionName) {
 
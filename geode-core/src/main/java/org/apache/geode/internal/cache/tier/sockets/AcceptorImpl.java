@@ -81,6 +81,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -113,6 +114,16 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
    */
   private final ThreadPoolExecutor hsPool;
 
+  /**
+   * The threads helping the server connection threads of a gateway receiver apply the events of
+   * their batches. Created by the first batch applied concurrently and shut down with the acceptor.
+   */
+  private ThreadPoolExecutor batchApplyPool;
+
+  private boolean batchApplyPoolClosed;
+
+  private final Object batchApplyPoolLock = new Object();
+
   /**
    * The port on which this acceptor listens for client connections
    */
@@ -1621,6 +1632,12 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
       this.pool.shutdownNow();
     }
     this.hsPool.shutdownNow();
+    synchronized (this.batchApplyPoolLock) {
+      this.batchApplyPoolClosed = true;
+      if (this.batchApplyPool != null) {
+        this.batchApplyPool.shutdownNow();
+      }
+    }
   }
 
   private void shutdownSCs() {
@@ -1739,6 +1756,58 @@ public class AcceptorImpl extends Acceptor implements Runnable, CommBufferPool {
     return this.isGatewayReceiver;
   }
 
+  /**
+   * Returns the pool of the threads helping server connection threads apply the events of gateway
+   * batches, resized to the given number of threads if that number changed since the last call.
+   *
+   * @return the pool, or null if this acceptor has been closed
+   */
+  public ExecutorService getBatchApplyExecutor(int threads) {
+    synchronized (this.batchApplyPoolLock) {
+      if (this.batchApplyPoolClosed) {
+        return null;
+      }
+      if (this.batchApplyPool == null) {
+        this.batchApplyPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(), createBatchApplyThreadFactory());
+      } else if (this.batchApplyPool.getCorePoolSize() < threads) {
+        this.batchApplyPool.setMaximumPoolSize(threads);
+        this.batchApplyPool.setCorePoolSize(threads);
+      } else if (this.batchApplyPool.getCorePoolSize() > threads) {
+        this.batchApplyPool.setCorePoolSize(threads);
+        this.batchApplyPool.setMaximumPoolSize(threads);
+      }
+      return this.batchApplyPool;
+    }
+  }
+
+  private ThreadFactory createBatchApplyThreadFactory() {
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup(
+        "Gateway Receiver Batch Apply Threads on port " + this.localPort, logger);
+    return new ThreadFactory() {
+      int threadNum = -1;
+
+      public Thread newThread(final Runnable command) {
+        int tnum;
+        synchronized (this) {
+          tnum = ++threadNum;
+        }
+        Runnable r = new Runnable() {
+          public void run() {
+            try {
+              command.run();
+            } finally {
+              ConnectionTable.releaseThreadsSockets();
+            }
+          }
+        };
+        Thread thread = new Thread(group, r, group.getName() + " Thread " + tnum);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
   public List<GatewayTransportFilter> getGatewayTransportFilters() {
     return this.gatewayTransportFilters;
   }
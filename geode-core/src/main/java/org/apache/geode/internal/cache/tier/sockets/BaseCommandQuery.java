@@ -41,7 +41,6 @@ import org.apache.geode.internal.security.SecurityService;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Set;
 
 public abstract class BaseCommandQuery extends BaseCommand {
@@ -209,7 +208,7 @@ public abstract class BaseCommandQuery extends BaseCommand {
           // from 7.0, if the object is in the form of serialized byte array,
           // send it as a part of ObjectPartList
           if (hasSerializedObjects) {
-            sendResultsAsObjectPartList(numberOfChunks, servConn, selectResults.asList(), isStructs,
+            sendResultsAsObjectPartList(numberOfChunks, servConn, selectResults, isStructs,
                 collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults,
                 securityService);
           } else {
@@ -354,24 +353,29 @@ public abstract class BaseCommandQuery extends BaseCommand {
     int resultIndex = 0;
     // For CQ only as we dont want CQEntries which have null values.
     int cqResultIndex = 0;
-    Object[] objs = selectResults.toArray();
-    for (int j = 0; j < numberOfChunks; j++) {
+    // iterate rather than copying all results to an array
+    Iterator objs = selectResults.iterator();
+    // numberOfChunks is only an estimate since the results may change while they are sent; the
+    // iterator decides which chunk is the last one
+    int j = 0;
+    do {
       boolean incompleteArray = false;
       if (logger.isTraceEnabled()) {
         logger.trace("{}: Creating chunk: {}", servConn.getName(), j);
       }
       Object[] results = new Object[MAXIMUM_CHUNK_SIZE];
       for (int i = 0; i < MAXIMUM_CHUNK_SIZE; i++) {
-        if ((resultIndex) == selectResults.size()) {
+        if (!objs.hasNext()) {
           incompleteArray = true;
           break;
         }
+        Object obj = objs.next();
         if (logger.isTraceEnabled()) {
           logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName(),
-              resultIndex, objs[resultIndex]);
+              resultIndex, obj);
         }
         if (cqQuery != null) {
-          CqEntry e = (CqEntry) objs[resultIndex];
+          CqEntry e = (CqEntry) obj;
           // The value may have become null because of entry invalidation.
           if (e.getValue() == null) {
             resultIndex++;
@@ -397,10 +401,10 @@ public abstract class BaseCommandQuery extends BaseCommand {
           }
         } else {
           // instance check added to fix bug 40516.
-          if (isStructs && (objs[resultIndex] instanceof Struct)) {
-            results[i] = ((Struct) objs[resultIndex]).getFieldValues();
+          if (isStructs && (obj instanceof Struct)) {
+            results[i] = ((Struct) obj).getFieldValues();
           } else {
-            results[i] = objs[resultIndex];
+            results[i] = obj;
           }
         }
         resultIndex++;
@@ -423,43 +427,43 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
 
       if (sendResults) {
-        writeQueryResponseChunk(results, collectionType, (resultIndex == selectResults.size()),
-            servConn);
+        writeQueryResponseChunk(results, collectionType, !objs.hasNext(), servConn);
 
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
               servConn.getName(), (j + 1), numberOfChunks, queryString);
         }
       }
-      // If we have reached the last element of SelectResults then we should
-      // break out of loop here only.
-      if (resultIndex == selectResults.size()) {
-        break;
-      }
-    }
+      j++;
+    } while (objs.hasNext());
   }
 
-  private void sendResultsAsObjectPartList(int numberOfChunks, ServerConnection servConn, List objs,
-      boolean isStructs, CollectionType collectionType, String queryString, ServerCQ cqQuery,
-      boolean sendCqResultsWithKey, boolean sendResults, final SecurityService securityService)
-      throws IOException {
+  private void sendResultsAsObjectPartList(int numberOfChunks, ServerConnection servConn,
+      Collection results, boolean isStructs, CollectionType collectionType, String queryString,
+      ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults,
+      final SecurityService securityService) throws IOException {
     int resultIndex = 0;
     Object result = null;
-    for (int j = 0; j < numberOfChunks; j++) {
+    // iterate rather than copying all results to a list; numberOfChunks is only an estimate since
+    // the results may change while they are sent
+    Iterator objs = results.iterator();
+    int j = 0;
+    do {
       if (logger.isTraceEnabled()) {
         logger.trace("{}: Creating chunk: {}", servConn.getName(), j);
       }
       ObjectPartList serializedObjs = new ObjectPartList(MAXIMUM_CHUNK_SIZE, false);
       for (int i = 0; i < MAXIMUM_CHUNK_SIZE; i++) {
-        if ((resultIndex) == objs.size()) {
+        if (!objs.hasNext()) {
           break;
         }
+        Object obj = objs.next();
         if (logger.isTraceEnabled()) {
           logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName(),
-              resultIndex, objs.get(resultIndex));
+              resultIndex, obj);
         }
         if (cqQuery != null) {
-          CqEntry e = (CqEntry) objs.get(resultIndex);
+          CqEntry e = (CqEntry) obj;
           // The value may have become null because of entry invalidation.
           if (e.getValue() == null) {
             resultIndex++;
@@ -482,7 +486,7 @@ public abstract class BaseCommandQuery extends BaseCommand {
             result = e.getValue();
           }
         } else {
-          result = objs.get(resultIndex);
+          result = obj;
         }
         if (sendResults) {
           addToObjectPartList(serializedObjs, result, collectionType, false, servConn, isStructs,
@@ -492,15 +496,15 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
 
       if (sendResults) {
-        writeQueryResponseChunk(serializedObjs, collectionType, ((j + 1) == numberOfChunks),
-            servConn);
+        writeQueryResponseChunk(serializedObjs, collectionType, !objs.hasNext(), servConn);
 
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
               servConn.getName(), (j + 1), numberOfChunks, queryString);
         }
       }
-    }
+      j++;
+    } while (objs.hasNext());
   }
 
   private void addToObjectPartList(ObjectPartList serializedObjs, Object res,
@@ -150,6 +150,15 @@ public class CacheClientNotifier {
     return ccnSingleton;
   }
 
+  /**
+   * Returns the pipeline that routes and delivers entry events to clients off the threads that
+   * apply them, or null if events are routed and delivered by those threads.
+   */
+  public static FilterRoutingPipeline getFilterRoutingPipeline() {
+    CacheClientNotifier instance = ccnSingleton;
+    return instance == null ? null : instance.filterRoutingPipeline;
+  }
+
   /**
    * Writes a given message to the output stream
    *
@@ -1485,6 +1494,10 @@ public class CacheClientNotifier {
       // cancel the ping task
       this.clientPingTask.cancel();
 
+      if (this.filterRoutingPipeline != null) {
+        this.filterRoutingPipeline.close();
+      }
+
       // Close the statistics
       this.statistics.close();
 
@@ -1908,6 +1921,14 @@ public class CacheClientNotifier {
     }
     this.statistics = new CacheClientNotifierStats(factory);
 
+    int routingThreads = FilterRoutingPipeline.getRoutingThreads();
+    if (routingThreads > 0) {
+      this.filterRoutingPipeline = new FilterRoutingPipeline(routingThreads,
+          FilterRoutingPipeline.getDeliveryThreads(routingThreads), this.statistics);
+    } else {
+      this.filterRoutingPipeline = null;
+    }
+
     try {
       this.logFrequency = Long.valueOf(System.getProperty(MAX_QUEUE_LOG_FREQUENCY));
       if (this.logFrequency <= 0) {
@@ -2139,6 +2160,11 @@ public class CacheClientNotifier {
    */
   protected final CacheClientNotifierStats statistics;
 
+  /**
+   * The pipeline routing and delivering entry events asynchronously, or null if it is disabled
+   */
+  private final FilterRoutingPipeline filterRoutingPipeline;
+
   /**
    * The <code>InterestRegistrationListener</code> instances registered in this VM. This is used
    * when modifying the set of listeners.
@@ -2210,7 +2236,8 @@ public class CacheClientNotifier {
   public void initHaContainer(List overflowAttributesList) {
     // lazily initialize haContainer in case this CCN instance was created by a gateway receiver
     if (overflowAttributesList != null
-        && !HARegionQueue.HA_EVICTION_POLICY_NONE.equals(overflowAttributesList.get(0))) {
+        && (!HARegionQueue.HA_EVICTION_POLICY_NONE.equals(overflowAttributesList.get(0))
+            || HARegionQueue.isClientMessagesOffHeap(cache))) {
       haContainer = new HAContainerRegion(cache.getRegion(Region.SEPARATOR
           + CacheServerImpl.clientMessagesRegion(cache, (String) overflowAttributesList.get(0),
               ((Integer) overflowAttributesList.get(1)).intValue(),
@@ -46,6 +46,7 @@ public class CacheClientNotifierStats {
   private static final String CQ_PROCESSING_TIME = "cqProcessingTime";
   private static final String COMPILED_QUERY_COUNT = "compiledQueryCount";
   private static final String COMPILED_QUERY_USED_COUNT = "compiledQueryUsedCount";
+  private static final String FILTER_ROUTING_QUEUE_SIZE = "filterRoutingQueueSize";
 
   private static final int _eventsId;
   private static final int _eventProcessingTimeId;
@@ -67,6 +68,9 @@ public class CacheClientNotifierStats {
 
   private static final int _compiledQueryUsedCount;
 
+  // Events waiting for asynchronous filter routing and delivery.
+  private static final int _filterRoutingQueueSize;
+
   static {
     String statName = "CacheClientNotifierStatistics";
 
@@ -108,6 +112,10 @@ public class CacheClientNotifierStats {
         f.createLongCounter(COMPILED_QUERY_USED_COUNT, "Number of times compiled queries are used.",
             "used"),
 
+        f.createIntGauge(FILTER_ROUTING_QUEUE_SIZE,
+            "Number of events waiting for their filter routing and delivery to client queues.",
+            "events"),
+
     });
 
     // Initialize id fields
@@ -127,6 +135,7 @@ public class CacheClientNotifierStats {
     _cqProcessingTimeId = _type.nameToId(CQ_PROCESSING_TIME);
     _compiledQueryCount = _type.nameToId(COMPILED_QUERY_COUNT);
     _compiledQueryUsedCount = _type.nameToId(COMPILED_QUERY_USED_COUNT);
+    _filterRoutingQueueSize = _type.nameToId(FILTER_ROUTING_QUEUE_SIZE);
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -259,4 +268,12 @@ public class CacheClientNotifierStats {
     return this._stats.getInt(_clientHealthMonitorUnRegisterId);
   }
 
+  public void incFilterRoutingQueueSize(int delta) {
+    this._stats.incInt(_filterRoutingQueueSize, delta);
+  }
+
+  public int getFilterRoutingQueueSize() {
+    return this._stats.getInt(_filterRoutingQueueSize);
+  }
+
 }
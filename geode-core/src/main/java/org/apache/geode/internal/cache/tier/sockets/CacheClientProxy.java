@@ -281,6 +281,27 @@ public class CacheClientProxy implements ClientSession {
    */
   public static boolean AFTER_MESSAGE_CREATION_FLAG = false;
 
+  /**
+   * System property for the maximum number of queued messages the dispatcher of a client writes to
+   * the client with a single flush of its socket. 1, the default, flushes the socket after every
+   * message.
+   */
+  public static final String DISPATCH_BATCH_SIZE_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CacheClientProxy.DISPATCH_BATCH_SIZE";
+
+  /**
+   * System property for the number of microseconds the dispatcher waits for more messages when
+   * fewer than a batch are queued. Updates queued in the window are conflated if the queue
+   * conflates events. 0, the default, sends the queued messages without waiting.
+   */
+  public static final String DISPATCH_BATCH_WINDOW_MICROS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CacheClientProxy.DISPATCH_BATCH_WINDOW_MICROS";
+
+  public static int DISPATCH_BATCH_SIZE = Integer.getInteger(DISPATCH_BATCH_SIZE_PROPERTY, 1);
+
+  public static long DISPATCH_BATCH_WINDOW_MICROS =
+      Long.getLong(DISPATCH_BATCH_WINDOW_MICROS_PROPERTY, 0);
+
   /**
    * Notify the region when a client interest registration occurs. This tells the region to update
    * access time when an update is to be pushed to a client. It is enabled only for
@@ -2530,6 +2551,15 @@ public class CacheClientProxy implements ClientSession {
             }
             waitForResumption();
           }
+          if (DISPATCH_BATCH_SIZE > 1) {
+            try {
+              if (dispatchBatch(DISPATCH_BATCH_SIZE)) {
+                continue;
+              }
+            } catch (RegionDestroyedException skipped) {
+              break;
+            }
+          }
           try {
             clientMessage = (ClientMessage) this._messageQueue.peek();
           } catch (RegionDestroyedException skipped) {
@@ -2556,6 +2586,7 @@ public class CacheClientProxy implements ClientSession {
           }
           clientMessage = null;
         } catch (MessageTooLargeException e) {
+          getStatistics().incMessagesTooLarge();
           logger.warn("Message too large to send to client: {}, {}", clientMessage, e.getMessage());
         } catch (IOException e) {
           // Added the synchronization below to ensure that exception handling
@@ -2752,34 +2783,7 @@ public class CacheClientProxy implements ClientSession {
       if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
         logger.trace(LogMarker.BRIDGE_SERVER, "Dispatching {}", clientMessage);
       }
-      Message message = null;
-
-      // byte[] latestValue =
-      // this._eventConflator.getLatestValue(clientMessage);
-
-      if (clientMessage instanceof ClientUpdateMessage) {
-        byte[] latestValue = (byte[]) ((ClientUpdateMessage) clientMessage).getValue();
-        if (logger.isTraceEnabled()) {
-          StringBuilder msg = new StringBuilder(100);
-          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
-          if (((ClientUpdateMessage) clientMessage).valueIsObject()) {
-            if (latestValue != null) {
-              msg.append(" (").append(deserialize(latestValue)).append(")");
-            }
-            msg.append(" for ").append(clientMessage);
-          }
-          logger.trace(msg.toString());
-        }
-
-        message = ((ClientUpdateMessageImpl) clientMessage).getMessage(getProxy(), latestValue);
-
-        if (AFTER_MESSAGE_CREATION_FLAG) {
-          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
-          bo.afterMessageCreation(message);
-        }
-      } else {
-        message = clientMessage.getMessage(getProxy(), true /* notify */);
-      }
+      Message message = createMessage(clientMessage);
 
       // //////////////////////////////
       // TEST CODE BEGIN (Throws exception to test closing proxy)
@@ -2827,6 +2831,114 @@ public class CacheClientProxy implements ClientSession {
       return isDispatched;
     }
 
+    /**
+     * Creates the message sending a client message to the client attached to this proxy
+     */
+    private Message createMessage(ClientMessage clientMessage) throws IOException {
+      Message message = null;
+
+      // byte[] latestValue =
+      // this._eventConflator.getLatestValue(clientMessage);
+
+      if (clientMessage instanceof ClientUpdateMessage) {
+        byte[] latestValue = (byte[]) ((ClientUpdateMessage) clientMessage).getValue();
+        if (logger.isTraceEnabled()) {
+          StringBuilder msg = new StringBuilder(100);
+          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
+          if (((ClientUpdateMessage) clientMessage).valueIsObject()) {
+            if (latestValue != null) {
+              msg.append(" (").append(deserialize(latestValue)).append(")");
+            }
+            msg.append(" for ").append(clientMessage);
+          }
+          logger.trace(msg.toString());
+        }
+
+        message = ((ClientUpdateMessageImpl) clientMessage).getMessage(getProxy(), latestValue);
+
+        if (AFTER_MESSAGE_CREATION_FLAG) {
+          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
+          bo.afterMessageCreation(message);
+        }
+      } else {
+        message = clientMessage.getMessage(getProxy(), true /* notify */);
+      }
+      return message;
+    }
+
+    /**
+     * Sends the messages available in the queue, up to the given number, to the client attached to
+     * this proxy with a single flush of the socket and removes them from the queue. If fewer
+     * messages are queued, waits for {@link CacheClientProxy#DISPATCH_BATCH_WINDOW_MICROS} first,
+     * which gives the queue the chance to conflate updates of the same key arriving in the window.
+     *
+     * @return whether any message was available in the queue
+     */
+    private boolean dispatchBatch(int batchSize) throws IOException, InterruptedException {
+      long window = DISPATCH_BATCH_WINDOW_MICROS;
+      if (window > 0) {
+        int size = this._messageQueue.size();
+        if (size > 0 && size < batchSize) {
+          Thread.sleep(window / 1000, (int) (window % 1000) * 1000);
+        }
+      }
+      List batch = this._messageQueue.peekAvailable(batchSize);
+      if (batch.isEmpty()) {
+        return false;
+      }
+      getStatistics().setQueueSize(this._messageQueue.size());
+      if (isStopped() || this._proxy.isPaused()) {
+        // leave the messages in the queue like dispatchMessage does, forgetting that they were
+        // peeked so that they are not peeked twice once dispatching resumes
+        this._messageQueue.clearPeekedIDs();
+        return true;
+      }
+      long start = getStatistics().startTime();
+      boolean markerDispatched = false;
+      int dispatched = 0;
+      this.socketWriteLock.lock();
+      try {
+        Message lastMessage = null;
+        for (int i = 0; i < batch.size(); i++) {
+          ClientMessage clientMessage = (ClientMessage) batch.get(i);
+          Message message = createMessage(clientMessage);
+          if (message == null) {
+            continue;
+          }
+          message.setComms(getSocket(), getCommBuffer(), getStatistics());
+          try {
+            message.sendBuffered(lastMessage == null);
+          } catch (MessageTooLargeException e) {
+            // the message is removed from the queue with the rest of the batch
+            getStatistics().incMessagesTooLarge();
+            logger.warn("Message too large to send to client: {}, {}", clientMessage,
+                e.getMessage());
+            continue;
+          }
+          lastMessage = message;
+          dispatched++;
+          this._messageQueue.getStatistics().incEventsDispatched();
+          markerDispatched |= clientMessage instanceof ClientMarkerMessageImpl;
+          if (logger.isTraceEnabled()) {
+            logger.trace("{}: Dispatched {}", this, clientMessage);
+          }
+        }
+        if (lastMessage != null) {
+          lastMessage.flush();
+          getProxy().resetPingCounter();
+          getStatistics().incMessageBatchesSent();
+        }
+      } finally {
+        this.socketWriteLock.unlock();
+      }
+      getStatistics().endMessages(dispatched, start);
+      this._messageQueue.remove();
+      if (markerDispatched) {
+        getProxy().markerEnqueued = false;
+      }
+      return true;
+    }
+
     private void sendMessage(Message message) throws IOException {
       if (message == null) {
         return;
@@ -2913,6 +3025,7 @@ public class CacheClientProxy implements ClientSession {
         // The exception handling code was modeled after the MessageDispatcher
         // run method
       } catch (MessageTooLargeException e) {
+        getStatistics().incMessagesTooLarge();
         logger.warn("Message too large to send to client: {}, {}", clientMessage, e.getMessage());
 
       } catch (IOException e) {
@@ -58,6 +58,10 @@ public class CacheClientProxyStats implements MessageStats {
   private static final String DELTA_FULL_MESSAGES_SENT = "deltaFullMessagesSent";
   /** Name of the CQ count statistic */
   private static final String CQ_COUNT = "cqCount";
+  /** Name of the message batches sent statistic */
+  private static final String MESSAGE_BATCHES_SENT = "messageBatchesSent";
+  /** Name of the messages too large to be sent statistic */
+  private static final String MESSAGES_TOO_LARGE = "messagesTooLarge";
 
   /** Id of the messages received statistic */
   private static final int _messagesReceivedId;
@@ -82,6 +86,10 @@ public class CacheClientProxyStats implements MessageStats {
   /** Id of the CQ count statistic */
   private static final int _cqCountId;
   private final static int _sentBytesId;
+  /** Id of the message batches sent statistic */
+  private static final int _messageBatchesSentId;
+  /** Id of the messages too large to be sent statistic */
+  private static final int _messagesTooLargeId;
 
   /**
    * Static initializer to create and initialize the <code>StatisticsType</code>
@@ -126,7 +134,15 @@ public class CacheClientProxyStats implements MessageStats {
             "operations"),
 
         f.createLongCounter(CQ_COUNT, "Number of CQs on the client.", "operations"),
-        f.createLongCounter("sentBytes", "Total number of bytes sent to client.", "bytes"),});
+        f.createLongCounter("sentBytes", "Total number of bytes sent to client.", "bytes"),
+
+        f.createIntCounter(MESSAGE_BATCHES_SENT,
+            "Number of batches of client messages written to the client with a single flush.",
+            "operations"),
+
+        f.createIntCounter(MESSAGES_TOO_LARGE,
+            "Number of client messages not sent because they exceeded the maximum message size.",
+            "operations"),});
 
     // Initialize id fields
     _messagesReceivedId = _type.nameToId(MESSAGES_RECEIVED);
@@ -141,6 +157,8 @@ public class CacheClientProxyStats implements MessageStats {
     _deltaFullMessagesSentId = _type.nameToId(DELTA_FULL_MESSAGES_SENT);
     _cqCountId = _type.nameToId(CQ_COUNT);
     _sentBytesId = _type.nameToId("sentBytes");
+    _messageBatchesSentId = _type.nameToId(MESSAGE_BATCHES_SENT);
+    _messagesTooLargeId = _type.nameToId(MESSAGES_TOO_LARGE);
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -269,6 +287,24 @@ public class CacheClientProxyStats implements MessageStats {
     return this._stats.getInt(_cqCountId);
   }
 
+  /**
+   * Returns the current value of the "messageBatchesSent" stat.
+   * 
+   * @return the current value of the "messageBatchesSent" stat
+   */
+  public int getMessageBatchesSent() {
+    return this._stats.getInt(_messageBatchesSentId);
+  }
+
+  /**
+   * Returns the current value of the "messagesTooLarge" stat.
+   * 
+   * @return the current value of the "messagesTooLarge" stat
+   */
+  public int getMessagesTooLarge() {
+    return this._stats.getInt(_messagesTooLargeId);
+  }
+
   /**
    * Increments the "messagesReceived" stat.
    */
@@ -353,6 +389,33 @@ public class CacheClientProxyStats implements MessageStats {
     this._stats.incLong(_messageProcessingTimeId, elapsed);
   }
 
+  /**
+   * Increments the "messageBatchesSent" stat.
+   */
+  public void incMessageBatchesSent() {
+    this._stats.incInt(_messageBatchesSentId, 1);
+  }
+
+  /**
+   * Increments the "messagesTooLarge" stat.
+   */
+  public void incMessagesTooLarge() {
+    this._stats.incInt(_messagesTooLargeId, 1);
+  }
+
+  /**
+   * Increments the "messagesProcessed" stat by the number of messages sent together and the
+   * "messageProcessingTime" stat by the time it took to send them.
+   * 
+   * @param messages The number of messages sent
+   * @param start The start of the batch of messages
+   */
+  public void endMessages(int messages, long start) {
+    long ts = DistributionStats.getStatTime();
+    this._stats.incInt(_messagesProcessedId, messages);
+    this._stats.incLong(_messageProcessingTimeId, ts - start);
+  }
+
   /**
    * Increments the "deltaMessagesSent" stats.
    */
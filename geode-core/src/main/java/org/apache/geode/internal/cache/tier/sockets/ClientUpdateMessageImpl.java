@@ -33,10 +33,12 @@ import org.apache.logging.log4j.Logger;
 import org.apache.geode.DataSerializer;
 import org.apache.geode.GemFireIOException;
 import org.apache.geode.InternalGemFireError;
+import org.apache.geode.SerializationException;
 import org.apache.geode.cache.query.CqQuery;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
 import org.apache.geode.cache.util.ObjectSizer;
 import org.apache.geode.internal.DSCODE;
+import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.internal.InternalDataSerializer;
 import org.apache.geode.internal.Sendable;
 import org.apache.geode.internal.Version;
@@ -56,6 +58,7 @@ import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.internal.util.BlobHelper;
 
 
 /**
@@ -152,6 +155,13 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
   private VersionTag versionTag;
 
+  /**
+   * The parts of the messages sent to clients that do not depend on the client, serialized for the
+   * version of the client last sent this message. They are shared by the dispatchers of all the
+   * clients the message is queued for instead of being serialized for each of them.
+   */
+  private transient volatile SharedParts sharedParts;
+
   /* added up all constants and form single value */
   private static final int CONSTANT_MEMORY_OVERHEAD;
 
@@ -823,6 +833,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     byte[] latestValue = p_latestValue;
     Message message = null;
     ClientProxyMembershipID proxyId = proxy.getProxyID();
+    SharedParts shared = getSharedParts(proxy, clientVersion);
     // Add CQ info.
     int cqMsgParts = 0;
     boolean clientHasCq = this._hasCqs && (this.getCqs(proxyId) != null);
@@ -842,21 +853,21 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         message = getMessage(7 + cqMsgParts, clientVersion);
         message.setMessageType(MessageType.LOCAL_INVALIDATE);
         message.addStringPart(this._regionName, true);
-        message.addStringOrObjPart(this._keyOfInterest);
+        message.addRawPart(shared.key, shared.keyIsObject);
       } else {
         // Notify by subscription - send the value
         message = getMessage(9 + cqMsgParts, clientVersion);
         if (isCreate()) {
           message.setMessageType(MessageType.LOCAL_CREATE);
           message.addStringPart(this._regionName, true);
-          message.addStringOrObjPart(this._keyOfInterest);
+          message.addRawPart(shared.key, shared.keyIsObject);
           message.addObjPart(Boolean.FALSE); // NO delta
           // Add the value (which has already been serialized)
           message.addRawPart(latestValue, (this._valueIsObject == 0x01));
         } else {
           message.setMessageType(MessageType.LOCAL_UPDATE);
           message.addStringPart(this._regionName, true);
-          message.addStringOrObjPart(this._keyOfInterest);
+          message.addRawPart(shared.key, shared.keyIsObject);
 
           if (this.deltaBytes != null && !conflation && !proxy.isMarkerEnqueued()
               && !proxy.getRegionsWithEmptyDataPolicy().containsKey(_regionName)) {
@@ -877,11 +888,8 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         }
       }
 
-      message.addObjPart(this._callbackArgument);
-      if (this.versionTag != null) {
-        this.versionTag.setCanonicalIDs(proxy.getCache().getDistributionManager());
-      }
-      message.addObjPart(this.versionTag);
+      message.addRawPart(shared.callbackArgument, shared.callbackArgumentIsObject);
+      message.addRawPart(shared.versionTag, shared.versionTagIsObject);
       message.addObjPart(Boolean.valueOf(isClientInterested(proxyId)));
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
@@ -904,9 +912,9 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         message.setMessageType(MessageType.LOCAL_INVALIDATE);
       }
       message.addStringPart(this._regionName, true);
-      message.addStringOrObjPart(this._keyOfInterest);
-      message.addObjPart(this._callbackArgument);
-      message.addObjPart(this.versionTag);
+      message.addRawPart(shared.key, shared.keyIsObject);
+      message.addRawPart(shared.callbackArgument, shared.callbackArgumentIsObject);
+      message.addRawPart(shared.versionTag, shared.versionTagIsObject);
       message.addObjPart(Boolean.valueOf(isClientInterested(proxyId)));
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
@@ -922,7 +930,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
       message = getMessage(4 + cqMsgParts, clientVersion);
       message.setMessageType(MessageType.LOCAL_DESTROY_REGION);
       message.addStringPart(this._regionName, true);
-      message.addObjPart(this._callbackArgument);
+      message.addRawPart(shared.callbackArgument, shared.callbackArgumentIsObject);
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
       if (clientHasCq) {
@@ -932,7 +940,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
       message = getMessage(4 + cqMsgParts, clientVersion);
       message.setMessageType(MessageType.CLEAR_REGION);
       message.addStringPart(this._regionName, true);
-      message.addObjPart(this._callbackArgument);
+      message.addRawPart(shared.callbackArgument, shared.callbackArgumentIsObject);
       message.addObjPart(Boolean.valueOf(clientHasCq));
 
       if (clientHasCq) {
@@ -942,7 +950,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
       message = getMessage(4 + cqMsgParts, clientVersion);
       message.setMessageType(MessageType.INVALIDATE_REGION);
       message.addStringPart(this._regionName, true);
-      message.addObjPart(this._callbackArgument);
+      message.addRawPart(shared.callbackArgument, shared.callbackArgumentIsObject);
 
       // Add CQ status.
       message.addObjPart(Boolean.valueOf(clientHasCq));
@@ -957,7 +965,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     message.setTransactionId(0);
     // Add the EventId since 5.1 (used to prevent duplicate events
     // received on the client side after a failover)
-    message.addObjPart(this._eventIdentifier);
+    message.addRawPart(shared.eventIdentifier, shared.eventIdentifierIsObject);
     return message;
   }
 
@@ -968,6 +976,22 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
         };
       };
 
+  /**
+   * Returns the parts of the messages sent to clients of the given version that do not depend on
+   * the client, serializing them if they have not been serialized for that version yet.
+   */
+  private SharedParts getSharedParts(CacheClientProxy proxy, Version clientVersion) {
+    SharedParts shared = this.sharedParts;
+    if (shared == null || shared.clientVersion != clientVersion) {
+      if (this.versionTag != null) {
+        this.versionTag.setCanonicalIDs(proxy.getCache().getDistributionManager());
+      }
+      shared = new SharedParts(this, clientVersion);
+      this.sharedParts = shared;
+    }
+    return shared;
+  }
+
   private Message getMessage(int numParts, Version clientVersion) {
     Message m = CACHED_MESSAGES.get().get(numParts);
     if (m == null) {
@@ -1103,6 +1127,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
   public void setEventIdentifier(EventID eventId) {
     if (this._eventIdentifier == null) {
       this._eventIdentifier = eventId;
+      this.sharedParts = null;
     }
   }
 
@@ -1629,4 +1654,77 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     this._value = nv;
   }
 
+
+  /**
+   * The serialized key, callback argument, version tag and event id of a message, in the form
+   * {@link Message} adds them as parts for a client of a given version.
+   */
+  private static class SharedParts {
+
+    final Version clientVersion;
+
+    final byte[] key;
+
+    final boolean keyIsObject;
+
+    final byte[] callbackArgument;
+
+    final boolean callbackArgumentIsObject;
+
+    final byte[] versionTag;
+
+    final boolean versionTagIsObject;
+
+    final byte[] eventIdentifier;
+
+    final boolean eventIdentifierIsObject;
+
+    SharedParts(ClientUpdateMessageImpl message, Version clientVersion) {
+      this.clientVersion = clientVersion;
+      Version version = clientVersion.equals(Version.CURRENT) ? null : clientVersion;
+
+      Object keyOfInterest = message._keyOfInterest;
+      if (keyOfInterest == null) {
+        this.key = null;
+        this.keyIsObject = false;
+      } else if (keyOfInterest instanceof String) {
+        try (HeapDataOutputStream hdos = new HeapDataOutputStream((String) keyOfInterest)) {
+          this.key = hdos.toByteArray();
+        }
+        this.keyIsObject = false;
+      } else {
+        this.key = serialize(keyOfInterest, version);
+        this.keyIsObject = true;
+      }
+
+      this.callbackArgument = toObjPart(message._callbackArgument, version);
+      this.callbackArgumentIsObject = isObjPart(message._callbackArgument);
+      this.versionTag = toObjPart(message.versionTag, version);
+      this.versionTagIsObject = isObjPart(message.versionTag);
+      this.eventIdentifier = toObjPart(message._eventIdentifier, version);
+      this.eventIdentifierIsObject = isObjPart(message._eventIdentifier);
+    }
+
+    /**
+     * Returns the bytes {@link Message#addObjPart(Object)} would add for the given object
+     */
+    private static byte[] toObjPart(Object o, Version version) {
+      if (o == null || o instanceof byte[]) {
+        return (byte[]) o;
+      }
+      return serialize(o, version);
+    }
+
+    private static boolean isObjPart(Object o) {
+      return !(o == null || o instanceof byte[]);
+    }
+
+    private static byte[] serialize(Object o, Version version) {
+      try {
+        return BlobHelper.serializeToBlob(o, version);
+      } catch (IOException ex) {
+        throw new SerializationException("failed serializing object", ex);
+      }
+    }
+  }
 }
@@ -345,6 +345,11 @@ public class CommandInitializer {
       commands.putAll(ALL_COMMANDS.get(Version.GEODE_111));
       ALL_COMMANDS.put(Version.GEODE_120, commands);
     }
+    {
+      Map<Integer, Command> commands = new HashMap<Integer, Command>();
+      commands.putAll(ALL_COMMANDS.get(Version.GEODE_120));
+      ALL_COMMANDS.put(Version.GEODE_130, commands);
+    }
 
   }
 
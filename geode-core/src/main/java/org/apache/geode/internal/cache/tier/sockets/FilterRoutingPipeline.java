@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Takes the local filter routing of entry events, that is the evaluation of CQs and of client
+ * interest, and their delivery to client queues off the threads that apply the events to the
+ * cache.
+ * <p>
+ * The routing of events is computed by a fixed number of routing threads. Events on the same key
+ * of the same region are always routed by the same thread, in the order they were submitted, so
+ * that the CQ results cache sees the operations on an entry in the order they were applied.
+ * <p>
+ * Events are then delivered to the client queues by a fixed number of delivery threads. The events
+ * originated by the same thread are always delivered by the same delivery thread, in the order they
+ * were submitted, since client queues discard events whose sequence id is not newer than the last
+ * one they have seen from the same thread. An event is not delivered before the events submitted
+ * before it on the same entry, whichever thread delivers them, so that clients see the operations
+ * on an entry in the order they were applied.
+ * <p>
+ * The pipeline is disabled by default. It is enabled by setting the
+ * {@link #ROUTING_THREADS_PROPERTY} system property to the number of routing threads.
+ *
+ * @see CacheClientNotifier#getFilterRoutingPipeline()
+ */
+public class FilterRoutingPipeline {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * System property for the number of threads computing the filter routing of events. 0, the
+   * default, routes and delivers events on the threads that apply them.
+   */
+  public static final String ROUTING_THREADS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CacheClientNotifier.FILTER_ROUTING_THREADS";
+
+  /**
+   * System property for the number of threads delivering routed events to client queues. Defaults
+   * to the number of routing threads.
+   */
+  public static final String DELIVERY_THREADS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CacheClientNotifier.FILTER_ROUTING_DELIVERY_THREADS";
+
+  /**
+   * System property for the maximum number of events waiting to be delivered. Threads submitting
+   * events wait while it is reached.
+   */
+  public static final String MAX_PENDING_EVENTS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CacheClientNotifier.FILTER_ROUTING_MAX_PENDING_EVENTS";
+
+  public static final int DEFAULT_MAX_PENDING_EVENTS = 10000;
+
+  /** The number of locks ordering the submission of the events on an entry */
+  static final int SUBMIT_LOCK_STRIPES = 64;
+
+  /** Test purpose only */
+  public static int TEST_ROUTING_THREADS = -1;
+
+  private final ExecutorService[] routers;
+
+  private final DeliveryLane[] lanes;
+
+  private final Object[] submitLocks;
+
+  /** The last event submitted on each entry that has not been delivered yet */
+  private final ConcurrentMap<EntryKey, PendingEvent> lastEvents = new ConcurrentHashMap<>();
+
+  private final CacheClientNotifierStats stats;
+
+  private volatile boolean closed;
+
+  /**
+   * Returns the number of routing threads configured for the pipeline, or 0 if it is disabled
+   */
+  static int getRoutingThreads() {
+    if (TEST_ROUTING_THREADS >= 0) {
+      return TEST_ROUTING_THREADS;
+    }
+    return Integer.getInteger(ROUTING_THREADS_PROPERTY, 0);
+  }
+
+  /**
+   * Returns the number of delivery threads configured for a pipeline with the given number of
+   * routing threads
+   */
+  static int getDeliveryThreads(int routingThreads) {
+    return Math.max(1, Integer.getInteger(DELIVERY_THREADS_PROPERTY, routingThreads));
+  }
+
+  FilterRoutingPipeline(int routingThreads, int deliveryThreads, CacheClientNotifierStats stats) {
+    this.stats = stats;
+    int maxPendingEvents =
+        Math.max(1, Integer.getInteger(MAX_PENDING_EVENTS_PROPERTY, DEFAULT_MAX_PENDING_EVENTS));
+
+    final ThreadGroup group =
+        LoggingThreadGroup.createThreadGroup("Client Filter Routing Threads", logger);
+    this.routers = new ExecutorService[routingThreads];
+    for (int i = 0; i < routingThreads; i++) {
+      final String name = "Client Filter Routing Thread " + i;
+      this.routers[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable command) {
+          Thread thread = new Thread(group, command, name);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    this.lanes = new DeliveryLane[deliveryThreads];
+    for (int i = 0; i < deliveryThreads; i++) {
+      this.lanes[i] = new DeliveryLane(group, "Client Filter Routing Delivery Thread " + i,
+          Math.max(1, maxPendingEvents / deliveryThreads));
+    }
+    this.submitLocks = new Object[SUBMIT_LOCK_STRIPES];
+    for (int i = 0; i < SUBMIT_LOCK_STRIPES; i++) {
+      this.submitLocks[i] = new Object();
+    }
+  }
+
+  /**
+   * Submits an event on the given key of the region with the given full path, originated by the
+   * thread identified by originator. The routing task is run by the routing thread of the entry.
+   * The delivery task is run by the delivery thread of the originator once the routing of the event
+   * has completed, after the delivery of the events submitted before it by the same originator or
+   * on the same entry. Callers must submit the events on an entry in the order they were applied.
+   */
+  public void submit(String regionPath, Object key, Object originator, Runnable routing,
+      Runnable delivery) {
+    if (this.closed) {
+      return;
+    }
+    EntryKey entryKey = key == null ? null : new EntryKey(regionPath, key);
+    int keyHash = entryKey == null ? 0 : entryKey.hashCode() & Integer.MAX_VALUE;
+    int originatorHash = originator == null ? keyHash : originator.hashCode() & Integer.MAX_VALUE;
+    DeliveryLane lane = this.lanes[originatorHash % this.lanes.length];
+    PendingEvent event = new PendingEvent(entryKey, new FutureTask<>(routing, null), delivery);
+    synchronized (this.submitLocks[keyHash % SUBMIT_LOCK_STRIPES]) {
+      if (entryKey != null) {
+        event.predecessor = this.lastEvents.put(entryKey, event);
+      }
+      if (!lane.enqueue(event)) {
+        // closed concurrently, the event is discarded
+        return;
+      }
+      this.stats.incFilterRoutingQueueSize(1);
+      try {
+        this.routers[keyHash % this.routers.length].execute(event.routing);
+      } catch (RejectedExecutionException e) {
+        // closed concurrently, the event is discarded
+      }
+    }
+  }
+
+  /**
+   * Waits until all events submitted before this call have been delivered. Region events call this
+   * before they are delivered themselves so that clients do not receive them ahead of the entry
+   * events that preceded them.
+   */
+  public void waitForPendingEvents() {
+    long[] targets = new long[this.lanes.length];
+    for (int i = 0; i < this.lanes.length; i++) {
+      if (Thread.currentThread() == this.lanes[i].thread) {
+        return;
+      }
+      targets[i] = this.lanes[i].submitted.get();
+    }
+    for (int i = 0; i < this.lanes.length; i++) {
+      this.lanes[i].waitForDelivery(targets[i]);
+    }
+  }
+
+  /**
+   * Stops routing and delivering events. Events that have not been delivered yet are discarded.
+   */
+  public void close() {
+    this.closed = true;
+    for (ExecutorService router : this.routers) {
+      router.shutdownNow();
+    }
+    for (DeliveryLane lane : this.lanes) {
+      lane.close();
+    }
+  }
+
+  /**
+   * Waits until the given event has been delivered. Returns false if the pipeline was closed first.
+   */
+  private boolean awaitDelivery(PendingEvent event) throws InterruptedException {
+    while (!event.delivered.await(100, TimeUnit.MILLISECONDS)) {
+      if (this.closed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private class DeliveryLane implements Runnable {
+
+    private final BlockingQueue<PendingEvent> pendingEvents;
+
+    private final Thread thread;
+
+    /** The number of events submitted to this lane */
+    private final AtomicLong submitted = new AtomicLong();
+
+    /** The number of events delivered by this lane, guarded by this */
+    private long delivered;
+
+    DeliveryLane(ThreadGroup group, String name, int maxPendingEvents) {
+      this.pendingEvents = new LinkedBlockingQueue<>(maxPendingEvents);
+      this.thread = new Thread(group, this, name);
+      this.thread.setDaemon(true);
+      this.thread.start();
+    }
+
+    /**
+     * Adds the event to this lane, waiting while the lane is full. Returns false if the pipeline
+     * was closed first.
+     */
+    boolean enqueue(PendingEvent event) {
+      boolean interrupted = Thread.interrupted();
+      try {
+        while (true) {
+          try {
+            if (this.pendingEvents.offer(event, 100, TimeUnit.MILLISECONDS)) {
+              break;
+            }
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+          if (closed) {
+            return false;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      this.submitted.incrementAndGet();
+      return true;
+    }
+
+    /**
+     * Waits until the given number of events have been delivered by this lane
+     */
+    void waitForDelivery(long target) {
+      boolean interrupted = false;
+      try {
+        synchronized (this) {
+          while (this.delivered < target && !closed) {
+            try {
+              wait(100);
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    void close() {
+      this.thread.interrupt();
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    public void run() {
+      while (!closed) {
+        PendingEvent event;
+        try {
+          event = this.pendingEvents.take();
+        } catch (InterruptedException e) {
+          continue;
+        }
+        try {
+          event.routing.get();
+          PendingEvent predecessor = event.predecessor;
+          event.predecessor = null;
+          if (predecessor == null || awaitDelivery(predecessor)) {
+            event.delivery.run();
+          }
+        } catch (InterruptedException e) {
+          // closed while waiting for the routing of the event or for an earlier event on its entry
+        } catch (ExecutionException e) {
+          logger.warn("Exception computing the filter routing of an event", e.getCause());
+        } catch (RuntimeException e) {
+          logger.warn("Exception delivering an event to clients", e);
+        } finally {
+          event.delivered.countDown();
+          if (event.key != null) {
+            lastEvents.remove(event.key, event);
+          }
+          stats.incFilterRoutingQueueSize(-1);
+          synchronized (this) {
+            this.delivered++;
+            notifyAll();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Identifies an entry by the full path of its region and its key, since the same key may be used
+   * by entries of different regions.
+   */
+  private static class EntryKey {
+
+    final String regionPath;
+
+    final Object key;
+
+    EntryKey(String regionPath, Object key) {
+      this.regionPath = regionPath;
+      this.key = key;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = this.regionPath == null ? 0 : this.regionPath.hashCode();
+      return 31 * result + this.key.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof EntryKey)) {
+        return false;
+      }
+      EntryKey that = (EntryKey) other;
+      return this.key.equals(that.key) && (this.regionPath == null ? that.regionPath == null
+          : this.regionPath.equals(that.regionPath));
+    }
+  }
+
+  private static class PendingEvent {
+
+    final EntryKey key;
+
+    final FutureTask<Object> routing;
+
+    final Runnable delivery;
+
+    final CountDownLatch delivered = new CountDownLatch(1);
+
+    /**
+     * The event submitted before this one on the same entry that was not delivered yet, if any.
+     * Only read by the thread delivering this event.
+     */
+    PendingEvent predecessor;
+
+    PendingEvent(EntryKey key, FutureTask<Object> routing, Runnable delivery) {
+      this.key = key;
+      this.routing = routing;
+      this.delivery = delivery;
+    }
+  }
+}
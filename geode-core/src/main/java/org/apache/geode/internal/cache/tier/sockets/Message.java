@@ -18,6 +18,7 @@ import org.apache.geode.SerializationException;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.PooledHeapDataOutputStream;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.TXManagerImpl;
 import org.apache.geode.internal.cache.tier.MessageType;
@@ -36,6 +37,7 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
@@ -235,6 +237,33 @@ public class Message {
     this.partsList = parts;
   }
 
+  /**
+   * Replaces the parts of this message from firstPart on with the given parts.
+   *
+   * @see PartsCompressor
+   */
+  void replaceParts(int firstPart, Part[] parts) {
+    this.messageModified = true;
+    for (int i = firstPart; i < this.numberOfParts; i++) {
+      this.partsList[i].clear();
+    }
+    int numberOfParts = firstPart + parts.length;
+    if (numberOfParts > this.partsList.length) {
+      this.partsList = Arrays.copyOf(this.partsList, numberOfParts);
+    }
+    System.arraycopy(parts, 0, this.partsList, firstPart, parts.length);
+    this.numberOfParts = numberOfParts;
+    this.currentPart = numberOfParts;
+  }
+
+  /**
+   * Returns the size above which this message is rejected, set by the
+   * {@link #MAX_MESSAGE_SIZE_PROPERTY} system property.
+   */
+  int getMaxMessageSize() {
+    return this.maxMessageSize;
+  }
+
   public void setTransactionId(int transactionId) {
     this.messageModified = true;
     this.transactionId = transactionId;
@@ -367,8 +396,9 @@ public class Message {
     }
 
     // Create the HDOS with a flag telling it that it can keep any byte[] or ByteBuffers/ByteSources
-    // passed to it. Do NOT close the HeapDataOutputStream!
-    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v, true);
+    // passed to it. Do NOT close the HeapDataOutputStream! Its pooled buffers are released when
+    // the part is cleared.
+    HeapDataOutputStream hdos = new PooledHeapDataOutputStream(this.chunkSize, v, true);
     try {
       BlobHelper.serializeTo(o, hdos);
     } catch (IOException ex) {
@@ -390,8 +420,9 @@ public class Message {
       v = null;
     }
 
-    // do NOT close the HeapDataOutputStream
-    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v);
+    // do NOT close the HeapDataOutputStream; its pooled buffers are released when the part is
+    // cleared
+    HeapDataOutputStream hdos = new PooledHeapDataOutputStream(this.chunkSize, v);
     try {
       BlobHelper.serializeTo(o, hdos);
     } catch (IOException ex) {
@@ -544,6 +575,45 @@ public class Message {
    * Sends this message out on its socket.
    */
   void sendBytes(boolean clearMessage) throws IOException {
+    sendBytes(clearMessage, true, true);
+  }
+
+  /**
+   * Writes this message into its comm buffer after the messages written there since the buffer was
+   * last flushed, so that several messages can go out on the socket with a single write. The buffer
+   * is only written to the socket when it fills up; {@link #flush()} has to be called once the last
+   * message has been written.
+   *
+   * @param firstMessage whether this is the first message written to the buffer, in which case the
+   *        buffer is cleared before writing it
+   */
+  void sendBuffered(boolean firstMessage) throws IOException {
+    sendBytes(true, firstMessage, false);
+  }
+
+  /**
+   * Writes the messages left in the comm buffer by {@link #sendBuffered(boolean)} out on the socket.
+   */
+  void flush() throws IOException {
+    if (this.socket == null) {
+      throw new IOException(LocalizedStrings.Message_DEAD_CONNECTION.toLocalizedString());
+    }
+    final ByteBuffer commBuffer = getCommBuffer();
+    if (commBuffer == null) {
+      throw new IOException("No buffer");
+    }
+    synchronized (commBuffer) {
+      if (commBuffer.position() != 0) {
+        flushBuffer();
+      }
+      if (this.socketChannel == null) {
+        this.outputStream.flush();
+      }
+    }
+  }
+
+  private void sendBytes(boolean clearMessage, boolean clearBuffer, boolean flush)
+      throws IOException {
     if (this.serverConnection != null) {
       // Keep track of the fact that we are making progress.
       this.serverConnection.updateProcessingMessage();
@@ -589,7 +659,11 @@ public class Message {
               + ") exceeds gemfire.client.max-message-size setting (" + this.maxMessageSize + ")");
         }
 
-        commBuffer.clear();
+        if (clearBuffer) {
+          commBuffer.clear();
+        } else if (commBuffer.remaining() < getHeaderLength()) {
+          flushBuffer();
+        }
         packHeaderInfoForSending(msgLen, securityPart != null);
         for (int i = 0; i < partsToTransmit; i++) {
           Part part = i == this.numberOfParts ? securityPart : this.partsList[i];
@@ -615,12 +689,14 @@ public class Message {
             }
           }
         }
-        if (commBuffer.position() != 0) {
-          flushBuffer();
-        }
         this.messageModified = false;
-        if (this.socketChannel == null) {
-          this.outputStream.flush();
+        if (flush) {
+          if (commBuffer.position() != 0) {
+            flushBuffer();
+          }
+          if (this.socketChannel == null) {
+            this.outputStream.flush();
+          }
         }
       }
     } finally {
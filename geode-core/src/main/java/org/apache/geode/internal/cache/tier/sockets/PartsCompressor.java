@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.geode.internal.InternalDataSerializer;
+
+/**
+ * Replaces the trailing parts of a {@link Message} with a single compressed part, and expands such
+ * a part back into the original parts on the receiving side. It is used to reduce the size of the
+ * batches sent to remote sites.
+ * <p>
+ * Each part is encoded as its type code, its length and its bytes. Small parts that are repeated in
+ * the message, such as region names and flags, are encoded once and then referenced by their
+ * position in a dictionary built while encoding. The encoded parts are then compressed with
+ * {@link Deflater}, which also removes the redundancy of the member ids shared by the event ids of
+ * a batch. The compressed part holds the length of the encoded parts followed by the compressed
+ * bytes.
+ */
+public class PartsCompressor {
+
+  /** The longest part that is added to the dictionary */
+  static final int MAX_DICTIONARY_PART_LENGTH = 64;
+
+  /** The number of bytes a part takes in a message in addition to its payload */
+  private static final int PART_HEADER_LENGTH = 5;
+
+  private PartsCompressor() {
+    // no instances allowed
+  }
+
+  /**
+   * Replaces the parts of the message from firstPart on with one compressed part, if that makes the
+   * message smaller.
+   *
+   * @return the number of bytes saved, or 0 if the message was not changed
+   */
+  public static int compress(Message message, int firstPart) throws IOException {
+    int numberOfParts = message.getNumberOfParts() - firstPart;
+    if (numberOfParts <= 1) {
+      return 0;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    ByteArrayOutputStream partBytes = new ByteArrayOutputStream();
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    Map<ByteBuffer, Integer> dictionary = new HashMap<>();
+    int length = 0;
+    InternalDataSerializer.writeUnsignedVL(numberOfParts, out);
+    for (int i = firstPart; i < message.getNumberOfParts(); i++) {
+      Part part = message.getPart(i);
+      partBytes.reset();
+      part.writeTo(partBytes, buffer);
+      byte[] payload = partBytes.toByteArray();
+      length += payload.length + PART_HEADER_LENGTH;
+      if (payload.length <= MAX_DICTIONARY_PART_LENGTH) {
+        ByteBuffer entry = ByteBuffer.allocate(payload.length + 1);
+        entry.put(part.getTypeCode()).put(payload).flip();
+        Integer reference = dictionary.get(entry);
+        if (reference != null) {
+          InternalDataSerializer.writeUnsignedVL(reference, out);
+          continue;
+        }
+        dictionary.put(entry, dictionary.size() + 1);
+      }
+      InternalDataSerializer.writeUnsignedVL(0, out);
+      out.writeByte(part.getTypeCode());
+      InternalDataSerializer.writeUnsignedVL(payload.length, out);
+      out.write(payload);
+    }
+    out.flush();
+    byte[] compressed = deflate(bytes.toByteArray());
+    int saved = length - compressed.length - PART_HEADER_LENGTH;
+    if (saved <= 0) {
+      return 0;
+    }
+    Part part = new Part();
+    part.setPartState(compressed, false);
+    message.replaceParts(firstPart, new Part[] {part});
+    return saved;
+  }
+
+  /**
+   * Replaces the compressed part at firstPart with the parts it was created from. The lengths and
+   * counts read from the part are checked against the maximum size of the message before anything
+   * is allocated for them.
+   *
+   * @return the number of bytes saved by the compression
+   * @throws IOException if the part is not a valid compressed part or expands to more than the
+   *         maximum message size
+   */
+  public static int decompress(Message message, int firstPart) throws IOException {
+    byte[] compressed = message.getPart(firstPart).getSerializedForm();
+    byte[] encoded = inflate(compressed, message.getMaxMessageSize());
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+    // every part takes at least one byte of the encoded parts
+    int numberOfParts = readLength(in, encoded.length, "number of parts");
+    Part[] parts = new Part[numberOfParts];
+    List<Part> dictionary = new ArrayList<>();
+    int length = 0;
+    for (int i = 0; i < numberOfParts; i++) {
+      int reference = readLength(in, dictionary.size(), "dictionary reference");
+      if (reference > 0) {
+        Part entry = dictionary.get(reference - 1);
+        parts[i] = new Part();
+        parts[i].init(entry.getSerializedForm(), entry.getTypeCode());
+      } else {
+        byte typeCode = in.readByte();
+        byte[] bytes = new byte[readLength(in, in.available(), "part length")];
+        in.readFully(bytes);
+        parts[i] = new Part();
+        parts[i].init(bytes, typeCode);
+        if (bytes.length <= MAX_DICTIONARY_PART_LENGTH) {
+          dictionary.add(parts[i]);
+        }
+      }
+      length += parts[i].getLength() + PART_HEADER_LENGTH;
+    }
+    message.replaceParts(firstPart, parts);
+    return length - compressed.length - PART_HEADER_LENGTH;
+  }
+
+  /**
+   * Reads a length or count that cannot be greater than max
+   */
+  private static int readLength(DataInputStream in, int max, String name) throws IOException {
+    long value = InternalDataSerializer.readUnsignedVL(in);
+    if (value < 0 || value > max) {
+      throw new IOException("Invalid " + name + " " + value + " in compressed part");
+    }
+    return (int) value;
+  }
+
+  private static byte[] deflate(byte[] bytes) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+      byte[] header = new byte[4];
+      Part.encodeInt(bytes.length, header);
+      out.write(header, 0, header.length);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] compressed, int maxLength) throws IOException {
+    if (compressed == null || compressed.length < 4) {
+      throw new IOException("Truncated compressed part");
+    }
+    int length = Part.decodeInt(compressed, 0);
+    if (length < 0 || length > maxLength) {
+      throw new IOException("Compressed part expands to " + length
+          + " bytes, more than the maximum message size of " + maxLength);
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed, 4, compressed.length - 4);
+      byte[] bytes = new byte[length];
+      int offset = 0;
+      while (offset < length) {
+        int inflated = inflater.inflate(bytes, offset, length - offset);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IOException("Truncated compressed part");
+        }
+        offset += inflated;
+      }
+      return bytes;
+    } catch (DataFormatException e) {
+      throw new IOException("Invalid compressed part", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
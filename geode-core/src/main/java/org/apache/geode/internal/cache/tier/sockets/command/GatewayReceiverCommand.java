@@ -16,9 +16,20 @@ package org.apache.geode.internal.cache.tier.sockets.command;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.util.ThreadState;
 
 import org.apache.geode.CancelException;
+import org.apache.geode.InternalGemFireException;
 import org.apache.geode.cache.CacheClosedException;
 import org.apache.geode.cache.EntryNotFoundException;
 import org.apache.geode.cache.RegionDestroyedException;
@@ -26,6 +37,7 @@ import org.apache.geode.cache.operations.DestroyOperationContext;
 import org.apache.geode.cache.operations.PutOperationContext;
 import org.apache.geode.cache.wan.GatewayReceiver;
 import org.apache.geode.distributed.DistributedSystem;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.DistributionStats;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.i18n.StringId;
@@ -41,6 +53,7 @@ import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.internal.cache.tier.sockets.BaseCommand;
 import org.apache.geode.internal.cache.tier.sockets.Message;
 import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.internal.cache.tier.sockets.PartsCompressor;
 import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
 import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.cache.wan.BatchException70;
@@ -59,6 +72,32 @@ import org.apache.geode.pdx.internal.PeerTypeRegistration;
 
 public class GatewayReceiverCommand extends BaseCommand {
 
+  /**
+   * Flag of the fourth part of a batch telling that the events of the batch should be removed from
+   * the queue of the sender even if applying them throws an exception
+   */
+  public static final byte REMOVE_FROM_QUEUE_ON_EXCEPTION = 0x01;
+
+  /**
+   * Flag of the fourth part of a batch telling that the parts of the events of the batch were
+   * compressed into a single part by {@link PartsCompressor}
+   */
+  public static final byte COMPRESSED_BATCH = 0x02;
+
+  /**
+   * The oldest version of the receiving sites that expand batches with the
+   * {@link #COMPRESSED_BATCH} flag. Senders do not compress batches sent to older sites.
+   */
+  public static final Version COMPRESSED_BATCH_VERSION = Version.GEODE_130;
+
+  /**
+   * The number of threads applying the events of a batch. The events of different keys are applied
+   * concurrently, the events of a key in the order of the batch. 1, the default, applies the events
+   * one after the other on the server connection thread. A change applies from the next batch on.
+   */
+  public static int APPLY_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "GatewayReceiver.APPLY_THREADS", 1);
+
   private final static GatewayReceiverCommand singleton = new GatewayReceiverCommand();
 
   public static Command getCommand() {
@@ -81,23 +120,14 @@ public class GatewayReceiverCommand extends BaseCommand {
   @Override
   public void cmdExecute(final Message clientMessage, final ServerConnection serverConnection,
       final SecurityService securityService, long start) throws IOException, InterruptedException {
-    Part regionNamePart = null, keyPart = null, valuePart = null, callbackArgPart = null;
-    String regionName = null;
-    Object callbackArg = null, key = null;
     int partNumber = 0;
-    CachedRegionHelper crHelper = serverConnection.getCachedRegionHelper();
     GatewayReceiverStats stats = (GatewayReceiverStats) serverConnection.getCacheServerStats();
-    EventID eventId = null;
-    LocalRegion region = null;
-    List<BatchException70> exceptions = new ArrayList<BatchException70>();
-    Throwable fatalException = null;
     // requiresResponse = true;// let PROCESS_BATCH deal with this itself
     {
       long oldStart = start;
       start = DistributionStats.getStatTime();
       stats.incReadProcessBatchRequestTime(start - oldStart);
     }
-    Part callbackArgExistsPart;
     // Get early ack flag. This test should eventually be moved up above this switch
     // statement so that all messages can take advantage of it.
     boolean earlyAck = false;// msg.getEarlyAck();
@@ -187,622 +217,921 @@ public class GatewayReceiverCommand extends BaseCommand {
     partNumber = 2;
     int dsid = clientMessage.getPart(partNumber++).getInt();
 
-    boolean removeOnException =
-        clientMessage.getPart(partNumber++).getSerializedForm()[0] == 1 ? true : false;
+    byte batchFlags = clientMessage.getPart(partNumber++).getSerializedForm()[0];
+    boolean removeOnException = (batchFlags & REMOVE_FROM_QUEUE_ON_EXCEPTION) != 0;
+    if ((batchFlags & COMPRESSED_BATCH) != 0) {
+      stats.incBatchBytesSaved(PartsCompressor.decompress(clientMessage, partNumber));
+    }
 
     // Keep track of whether a response has been written for
     // exceptions
     boolean wroteResponse = earlyAck;
-    // event received in batch also have PDX events at the start of the batch,to
-    // represent correct index on which the exception occurred, number of PDX
-    // events need to be subtratced.
-    int indexWithoutPDXEvent = -1; //
-    for (int i = 0; i < numberOfEvents; i++) {
-      boolean isPdxEvent = false;
-      indexWithoutPDXEvent++;
-      // System.out.println("Processing event " + i + " in batch " + batchId + "
-      // starting with part number " + partNumber);
-      Part actionTypePart = clientMessage.getPart(partNumber);
-      int actionType = actionTypePart.getInt();
-
-      long versionTimeStamp = VersionTag.ILLEGAL_VERSION_TIMESTAMP;
-      EventIDHolder clientEvent = null;
-
-      boolean callbackArgExists = false;
+    BatchApplication application = new BatchApplication(clientMessage, serverConnection, batchId,
+        numberOfEvents, dsid, removeOnException, wroteResponse);
+    application.findEvents(partNumber);
+    int applyThreads = APPLY_THREADS;
+    ExecutorService applyExecutor = null;
+    // the callbacks of an AuthorizeRequest are not known to be thread safe, so the events of a
+    // connection authorizing its operations are applied on the server connection thread
+    if (applyThreads > 1 && !wroteResponse && serverConnection.getAuthzRequest() == null) {
+      applyExecutor = serverConnection.getAcceptor().getBatchApplyExecutor(applyThreads - 1);
+    }
+    if (applyExecutor != null) {
+      application.applyConcurrently(applyExecutor, applyThreads, securityService);
+    } else {
+      application.applyInOrder();
+    }
+    if (application.cancelException != null) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "{} ignoring message of type {} from client {} because shutdown occurred during message processing.",
+            serverConnection.getName(), MessageType.getString(clientMessage.getMessageType()),
+            serverConnection.getProxyID());
+      }
+      serverConnection.setFlagProcessMessagesAsFalse();
+      serverConnection.setClientDisconnectedException(application.cancelException);
+      return;
+    }
+    if (application.abandoned) {
+      // If it is early ack mode, attempt to process the remaining messages
+      // in the batch.
+      // This could be problematic depending on where the exception
+      // occurred.
+      return;
+    }
+    Throwable fatalException = application.fatalException;
+    List<BatchException70> exceptions = application.exceptions;
 
-      try {
-        Part possibleDuplicatePart = clientMessage.getPart(partNumber + 1);
-        byte[] possibleDuplicatePartBytes;
-        try {
-          possibleDuplicatePartBytes = (byte[]) possibleDuplicatePart.getObject();
-        } catch (Exception e) {
-          logger.warn(LocalizedMessage.create(
-              LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
-              new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                  Integer.valueOf(numberOfEvents)}),
-              e);
-          throw e;
-        }
-        boolean possibleDuplicate = possibleDuplicatePartBytes[0] == 0x01;
+    {
+      long oldStart = start;
+      start = DistributionStats.getStatTime();
+      stats.incProcessBatchTime(start - oldStart);
+    }
+    if (fatalException != null) {
+      serverConnection.incrementLatestBatchIdReplied(batchId);
+      writeFatalException(clientMessage, fatalException, serverConnection, batchId);
+      serverConnection.setAsTrue(RESPONDED);
+    } else if (!exceptions.isEmpty()) {
+      serverConnection.incrementLatestBatchIdReplied(batchId);
+      writeBatchException(clientMessage, exceptions, serverConnection, batchId);
+      serverConnection.setAsTrue(RESPONDED);
+    } else if (!wroteResponse) {
+      // Increment the batch id unless the received batch id is -1 (a failover
+      // batch)
+      serverConnection.incrementLatestBatchIdReplied(batchId);
 
-        // Make sure instance variables are null before each iteration
-        regionName = null;
-        key = null;
-        callbackArg = null;
+      writeReply(clientMessage, serverConnection, batchId, numberOfEvents);
+      serverConnection.setAsTrue(RESPONDED);
+      stats.incWriteProcessBatchResponseTime(DistributionStats.getStatTime() - start);
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "{}: Sent process batch normal response for batch {} containing {} events ({} bytes) with {} acknowledgement on {}",
+            serverConnection.getName(), batchId, numberOfEvents, clientMessage.getPayloadLength(),
+            (earlyAck ? "early" : "normal"), serverConnection.getSocketString());
+      }
+      // logger.warn("Sent process batch normal response for batch " +
+      // batchId + " containing " + numberOfEvents + " events (" +
+      // msg.getPayloadLength() + " bytes) with " + (earlyAck ? "early" :
+      // "normal") + " acknowledgement on " + getSocketString());
+    }
+  }
 
-        // Retrieve the region name from the message parts
-        regionNamePart = clientMessage.getPart(partNumber + 2);
-        regionName = regionNamePart.getString();
-        if (regionName.equals(PeerTypeRegistration.REGION_FULL_PATH)) {
-          indexWithoutPDXEvent--;
-          isPdxEvent = true;
-        }
+  /**
+   * Applies the event at the given index of a batch, whose parts start at the given part number.
+   */
+  private void applyEvent(BatchApplication application, int eventIndex, Message clientMessage,
+      ServerConnection serverConnection, int batchId, int numberOfEvents, int dsid, int partNumber)
+      throws Exception {
+    Part regionNamePart = null, keyPart = null, valuePart = null, callbackArgPart = null;
+    String regionName = null;
+    Object callbackArg = null, key = null;
+    CachedRegionHelper crHelper = serverConnection.getCachedRegionHelper();
+    GatewayReceiverStats stats = (GatewayReceiverStats) serverConnection.getCacheServerStats();
+    EventID eventId = null;
+    LocalRegion region = null;
+    Part callbackArgExistsPart;
+    boolean isPdxEvent = false;
+    Part actionTypePart = clientMessage.getPart(partNumber);
+    int actionType = actionTypePart.getInt();
 
-        // Retrieve the event id from the message parts
-        // This was going to be used to determine possible
-        // duplication of events, but it is unused now. In
-        // fact the event id is overridden by the FROM_GATEWAY
-        // token.
-        Part eventIdPart = clientMessage.getPart(partNumber + 3);
-        eventIdPart.setVersion(serverConnection.getClientVersion());
-        // String eventId = eventIdPart.getString();
-        try {
-          eventId = (EventID) eventIdPart.getObject();
-        } catch (Exception e) {
-          logger.warn(LocalizedMessage.create(
-              LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
-              new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                  Integer.valueOf(numberOfEvents)}),
-              e);
-          throw e;
-        }
+    long versionTimeStamp = VersionTag.ILLEGAL_VERSION_TIMESTAMP;
+    EventIDHolder clientEvent = null;
 
-        // Retrieve the key from the message parts
-        keyPart = clientMessage.getPart(partNumber + 4);
-        try {
-          key = keyPart.getStringOrObject();
-        } catch (Exception e) {
-          logger.warn(LocalizedMessage.create(
-              LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
-              new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                  Integer.valueOf(numberOfEvents)}),
-              e);
-          throw e;
+    boolean callbackArgExists = false;
+
+    Part possibleDuplicatePart = clientMessage.getPart(partNumber + 1);
+    byte[] possibleDuplicatePartBytes;
+    try {
+      possibleDuplicatePartBytes = (byte[]) possibleDuplicatePart.getObject();
+    } catch (Exception e) {
+      logger.warn(LocalizedMessage.create(
+          LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
+          new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+              Integer.valueOf(numberOfEvents)}),
+          e);
+      throw e;
+    }
+    boolean possibleDuplicate = possibleDuplicatePartBytes[0] == 0x01;
+
+    // Retrieve the region name from the message parts
+    regionNamePart = clientMessage.getPart(partNumber + 2);
+    regionName = regionNamePart.getString();
+    if (regionName.equals(PeerTypeRegistration.REGION_FULL_PATH)) {
+      isPdxEvent = true;
+    }
+
+    // Retrieve the event id from the message parts
+    // This was going to be used to determine possible
+    // duplication of events, but it is unused now. In
+    // fact the event id is overridden by the FROM_GATEWAY
+    // token.
+    Part eventIdPart = clientMessage.getPart(partNumber + 3);
+    eventIdPart.setVersion(serverConnection.getClientVersion());
+    // String eventId = eventIdPart.getString();
+    try {
+      eventId = (EventID) eventIdPart.getObject();
+    } catch (Exception e) {
+      logger.warn(LocalizedMessage.create(
+          LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
+          new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+              Integer.valueOf(numberOfEvents)}),
+          e);
+      throw e;
+    }
+
+    // Retrieve the key from the message parts
+    keyPart = clientMessage.getPart(partNumber + 4);
+    try {
+      key = keyPart.getStringOrObject();
+    } catch (Exception e) {
+      logger.warn(LocalizedMessage.create(
+          LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_REQUEST_1_CONTAINING_2_EVENTS,
+          new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+              Integer.valueOf(numberOfEvents)}),
+          e);
+      throw e;
+    }
+    switch (actionType) {
+      case 0: // Create
+
+        /*
+         * CLIENT EXCEPTION HANDLING TESTING CODE String keySt = (String) key;
+         * System.out.println("Processing new key: " + key); if (keySt.startsWith("failure")) {
+         * throw new Exception(LocalizedStrings
+         * .ProcessBatch_THIS_EXCEPTION_REPRESENTS_A_FAILURE_ON_THE_SERVER
+         * .toLocalizedString()); }
+         */
+
+        // Retrieve the value from the message parts (do not deserialize it)
+        valuePart = clientMessage.getPart(partNumber + 5);
+        // try {
+        // logger.warn(getName() + ": Creating key " + key + " value " +
+        // valuePart.getObject());
+        // } catch (Exception e) {}
+
+        // Retrieve the callbackArg from the message parts if necessary
+        int index = partNumber + 6;
+        callbackArgExistsPart = clientMessage.getPart(index++); {
+        byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
+        callbackArgExists = partBytes[0] == 0x01;
+      }
+        if (callbackArgExists) {
+          callbackArgPart = clientMessage.getPart(index++);
+          try {
+            callbackArg = callbackArgPart.getObject();
+          } catch (Exception e) {
+            logger.warn(LocalizedMessage.create(
+                LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_CREATE_REQUEST_1_FOR_2_EVENTS,
+                new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+                    Integer.valueOf(numberOfEvents)}),
+                e);
+            throw e;
+          }
         }
-        switch (actionType) {
-          case 0: // Create
-
-            /*
-             * CLIENT EXCEPTION HANDLING TESTING CODE String keySt = (String) key;
-             * System.out.println("Processing new key: " + key); if (keySt.startsWith("failure")) {
-             * throw new Exception(LocalizedStrings
-             * .ProcessBatch_THIS_EXCEPTION_REPRESENTS_A_FAILURE_ON_THE_SERVER
-             * .toLocalizedString()); }
-             */
-
-            // Retrieve the value from the message parts (do not deserialize it)
-            valuePart = clientMessage.getPart(partNumber + 5);
-            // try {
-            // logger.warn(getName() + ": Creating key " + key + " value " +
-            // valuePart.getObject());
-            // } catch (Exception e) {}
-
-            // Retrieve the callbackArg from the message parts if necessary
-            int index = partNumber + 6;
-            callbackArgExistsPart = clientMessage.getPart(index++); {
-            byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
-            callbackArgExists = partBytes[0] == 0x01;
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              "{}: Processing batch create request {} on {} for region {} key {} value {} callbackArg {}, eventId={}",
+              serverConnection.getName(), batchId, serverConnection.getSocketString(),
+              regionName, key, valuePart, callbackArg, eventId);
+        }
+        versionTimeStamp = clientMessage.getPart(index++).getLong();
+        // Process the create request
+        if (key == null || regionName == null) {
+          StringId message = null;
+          Object[] messageArgs =
+              new Object[] {serverConnection.getName(), Integer.valueOf(batchId)};
+          if (key == null) {
+            message =
+                LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_CREATE_REQUEST_1_IS_NULL;
           }
-            if (callbackArgExists) {
-              callbackArgPart = clientMessage.getPart(index++);
-              try {
-                callbackArg = callbackArgPart.getObject();
-              } catch (Exception e) {
-                logger.warn(LocalizedMessage.create(
-                    LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_CREATE_REQUEST_1_FOR_2_EVENTS,
-                    new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                        Integer.valueOf(numberOfEvents)}),
-                    e);
-                throw e;
-              }
-            }
-            if (logger.isDebugEnabled()) {
-              logger.debug(
-                  "{}: Processing batch create request {} on {} for region {} key {} value {} callbackArg {}, eventId={}",
-                  serverConnection.getName(), batchId, serverConnection.getSocketString(),
-                  regionName, key, valuePart, callbackArg, eventId);
+          if (regionName == null) {
+            message =
+                LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_CREATE_REQUEST_1_IS_NULL;
+          }
+          String s = message.toLocalizedString(messageArgs);
+          logger.warn(s);
+          throw new Exception(s);
+        }
+        region = (LocalRegion) crHelper.getRegion(regionName);
+        if (region == null) {
+          handleRegionNull(serverConnection, regionName, batchId);
+        } else {
+          clientEvent = new EventIDHolder(eventId);
+          if (versionTimeStamp > 0) {
+            VersionTag tag = VersionTag.create(region.getVersionMember());
+            tag.setIsGatewayTag(true);
+            tag.setVersionTimeStamp(versionTimeStamp);
+            tag.setDistributedSystemId(dsid);
+            clientEvent.setVersionTag(tag);
+          }
+          clientEvent.setPossibleDuplicate(possibleDuplicate);
+          handleMessageRetry(region, clientEvent);
+          try {
+            byte[] value = valuePart.getSerializedForm();
+            boolean isObject = valuePart.isObject();
+            // [sumedh] This should be done on client while sending
+            // since that is the WAN gateway
+            AuthorizeRequest authzRequest = serverConnection.getAuthzRequest();
+            if (authzRequest != null) {
+              PutOperationContext putContext =
+                  authzRequest.putAuthorize(regionName, key, value, isObject, callbackArg);
+              value = putContext.getSerializedValue();
+              isObject = putContext.isObject();
             }
-            versionTimeStamp = clientMessage.getPart(index++).getLong();
-            // Process the create request
-            if (key == null || regionName == null) {
-              StringId message = null;
-              Object[] messageArgs =
-                  new Object[] {serverConnection.getName(), Integer.valueOf(batchId)};
-              if (key == null) {
-                message =
-                    LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_CREATE_REQUEST_1_IS_NULL;
-              }
-              if (regionName == null) {
-                message =
-                    LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_CREATE_REQUEST_1_IS_NULL;
+            // Attempt to create the entry
+            boolean result = false;
+            if (isPdxEvent) {
+              result = addPdxType(crHelper, key, value);
+            } else {
+              result = region.basicBridgeCreate(key, value, isObject, callbackArg,
+                  serverConnection.getProxyID(), false, clientEvent, false);
+              // If the create fails (presumably because it already exists),
+              // attempt to update the entry
+              if (!result) {
+                result = region.basicBridgePut(key, value, null, isObject, callbackArg,
+                    serverConnection.getProxyID(), false, clientEvent);
               }
-              String s = message.toLocalizedString(messageArgs);
-              logger.warn(s);
-              throw new Exception(s);
             }
-            region = (LocalRegion) crHelper.getRegion(regionName);
-            if (region == null) {
-              handleRegionNull(serverConnection, regionName, batchId);
+
+            if (result || clientEvent.isConcurrencyConflict()) {
+              application.setModificationInfo(eventIndex, regionName, key);
+              stats.incCreateRequest();
             } else {
-              clientEvent = new EventIDHolder(eventId);
-              if (versionTimeStamp > 0) {
-                VersionTag tag = VersionTag.create(region.getVersionMember());
-                tag.setIsGatewayTag(true);
-                tag.setVersionTimeStamp(versionTimeStamp);
-                tag.setDistributedSystemId(dsid);
-                clientEvent.setVersionTag(tag);
-              }
-              clientEvent.setPossibleDuplicate(possibleDuplicate);
-              handleMessageRetry(region, clientEvent);
-              try {
-                byte[] value = valuePart.getSerializedForm();
-                boolean isObject = valuePart.isObject();
-                // [sumedh] This should be done on client while sending
-                // since that is the WAN gateway
-                AuthorizeRequest authzRequest = serverConnection.getAuthzRequest();
-                if (authzRequest != null) {
-                  PutOperationContext putContext =
-                      authzRequest.putAuthorize(regionName, key, value, isObject, callbackArg);
-                  value = putContext.getSerializedValue();
-                  isObject = putContext.isObject();
-                }
-                // Attempt to create the entry
-                boolean result = false;
-                if (isPdxEvent) {
-                  result = addPdxType(crHelper, key, value);
-                } else {
-                  result = region.basicBridgeCreate(key, value, isObject, callbackArg,
-                      serverConnection.getProxyID(), false, clientEvent, false);
-                  // If the create fails (presumably because it already exists),
-                  // attempt to update the entry
-                  if (!result) {
-                    result = region.basicBridgePut(key, value, null, isObject, callbackArg,
-                        serverConnection.getProxyID(), false, clientEvent);
-                  }
-                }
-
-                if (result || clientEvent.isConcurrencyConflict()) {
-                  serverConnection.setModificationInfo(true, regionName, key);
-                  stats.incCreateRequest();
-                } else {
-                  // This exception will be logged in the catch block below
-                  throw new Exception(
-                      LocalizedStrings.ProcessBatch_0_FAILED_TO_CREATE_OR_UPDATE_ENTRY_FOR_REGION_1_KEY_2_VALUE_3_CALLBACKARG_4
-                          .toLocalizedString(new Object[] {serverConnection.getName(), regionName,
-                              key, valuePart, callbackArg}));
-                }
-              } catch (Exception e) {
-                logger.warn(LocalizedMessage.create(
-                    LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_CREATE_REQUEST_1_FOR_2_EVENTS,
-                    new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                        Integer.valueOf(numberOfEvents)}),
-                    e);
-                throw e;
-              }
+              // This exception will be logged in the catch block below
+              throw new Exception(
+                  LocalizedStrings.ProcessBatch_0_FAILED_TO_CREATE_OR_UPDATE_ENTRY_FOR_REGION_1_KEY_2_VALUE_3_CALLBACKARG_4
+                      .toLocalizedString(new Object[] {serverConnection.getName(), regionName,
+                          key, valuePart, callbackArg}));
             }
-            break;
-          case 1: // Update
-            /*
-             * CLIENT EXCEPTION HANDLING TESTING CODE keySt = (String) key;
-             * System.out.println("Processing updated key: " + key); if
-             * (keySt.startsWith("failure")) { throw new Exception(LocalizedStrings
-             * .ProcessBatch_THIS_EXCEPTION_REPRESENTS_A_FAILURE_ON_THE_SERVER
-             * .toLocalizedString()); }
-             */
-
-            // Retrieve the value from the message parts (do not deserialize it)
-            valuePart = clientMessage.getPart(partNumber + 5);
-            // try {
-            // logger.warn(getName() + ": Updating key " + key + " value " +
-            // valuePart.getObject());
-            // } catch (Exception e) {}
-
-            // Retrieve the callbackArg from the message parts if necessary
-            index = partNumber + 6;
-            callbackArgExistsPart = clientMessage.getPart(index++); {
-            byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
-            callbackArgExists = partBytes[0] == 0x01;
+          } catch (Exception e) {
+            logger.warn(LocalizedMessage.create(
+                LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_CREATE_REQUEST_1_FOR_2_EVENTS,
+                new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+                    Integer.valueOf(numberOfEvents)}),
+                e);
+            throw e;
           }
-            if (callbackArgExists) {
-              callbackArgPart = clientMessage.getPart(index++);
-              try {
-                callbackArg = callbackArgPart.getObject();
-              } catch (Exception e) {
-                logger.warn(LocalizedMessage.create(
-                    LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_REQUEST_1_CONTAINING_2_EVENTS,
-                    new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                        Integer.valueOf(numberOfEvents)}),
-                    e);
-                throw e;
-              }
-            }
-            versionTimeStamp = clientMessage.getPart(index++).getLong();
-            if (logger.isDebugEnabled()) {
-              logger.debug(
-                  "{}: Processing batch update request {} on {} for region {} key {} value {} callbackArg {}",
-                  serverConnection.getName(), batchId, serverConnection.getSocketString(),
-                  regionName, key, valuePart, callbackArg);
+        }
+        break;
+      case 1: // Update
+        /*
+         * CLIENT EXCEPTION HANDLING TESTING CODE keySt = (String) key;
+         * System.out.println("Processing updated key: " + key); if
+         * (keySt.startsWith("failure")) { throw new Exception(LocalizedStrings
+         * .ProcessBatch_THIS_EXCEPTION_REPRESENTS_A_FAILURE_ON_THE_SERVER
+         * .toLocalizedString()); }
+         */
+
+        // Retrieve the value from the message parts (do not deserialize it)
+        valuePart = clientMessage.getPart(partNumber + 5);
+        // try {
+        // logger.warn(getName() + ": Updating key " + key + " value " +
+        // valuePart.getObject());
+        // } catch (Exception e) {}
+
+        // Retrieve the callbackArg from the message parts if necessary
+        index = partNumber + 6;
+        callbackArgExistsPart = clientMessage.getPart(index++); {
+        byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
+        callbackArgExists = partBytes[0] == 0x01;
+      }
+        if (callbackArgExists) {
+          callbackArgPart = clientMessage.getPart(index++);
+          try {
+            callbackArg = callbackArgPart.getObject();
+          } catch (Exception e) {
+            logger.warn(LocalizedMessage.create(
+                LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_REQUEST_1_CONTAINING_2_EVENTS,
+                new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+                    Integer.valueOf(numberOfEvents)}),
+                e);
+            throw e;
+          }
+        }
+        versionTimeStamp = clientMessage.getPart(index++).getLong();
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              "{}: Processing batch update request {} on {} for region {} key {} value {} callbackArg {}",
+              serverConnection.getName(), batchId, serverConnection.getSocketString(),
+              regionName, key, valuePart, callbackArg);
+        }
+        // Process the update request
+        if (key == null || regionName == null) {
+          StringId message = null;
+          Object[] messageArgs =
+              new Object[] {serverConnection.getName(), Integer.valueOf(batchId)};
+          if (key == null) {
+            message =
+                LocalizedStrings.ProcessBatch_0_THE_INPUT_KEY_FOR_THE_BATCH_UPDATE_REQUEST_1_IS_NULL;
+          }
+          if (regionName == null) {
+            message =
+                LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_UPDATE_REQUEST_1_IS_NULL;
+          }
+          String s = message.toLocalizedString(messageArgs);
+          logger.warn(s);
+          throw new Exception(s);
+        }
+        region = (LocalRegion) crHelper.getRegion(regionName);
+        if (region == null) {
+          handleRegionNull(serverConnection, regionName, batchId);
+        } else {
+          clientEvent = new EventIDHolder(eventId);
+          if (versionTimeStamp > 0) {
+            VersionTag tag = VersionTag.create(region.getVersionMember());
+            tag.setIsGatewayTag(true);
+            tag.setVersionTimeStamp(versionTimeStamp);
+            tag.setDistributedSystemId(dsid);
+            clientEvent.setVersionTag(tag);
+          }
+          clientEvent.setPossibleDuplicate(possibleDuplicate);
+          handleMessageRetry(region, clientEvent);
+          try {
+            byte[] value = valuePart.getSerializedForm();
+            boolean isObject = valuePart.isObject();
+            AuthorizeRequest authzRequest = serverConnection.getAuthzRequest();
+            if (authzRequest != null) {
+              PutOperationContext putContext = authzRequest.putAuthorize(regionName, key, value,
+                  isObject, callbackArg, PutOperationContext.UPDATE);
+              value = putContext.getSerializedValue();
+              isObject = putContext.isObject();
             }
-            // Process the update request
-            if (key == null || regionName == null) {
-              StringId message = null;
-              Object[] messageArgs =
-                  new Object[] {serverConnection.getName(), Integer.valueOf(batchId)};
-              if (key == null) {
-                message =
-                    LocalizedStrings.ProcessBatch_0_THE_INPUT_KEY_FOR_THE_BATCH_UPDATE_REQUEST_1_IS_NULL;
-              }
-              if (regionName == null) {
-                message =
-                    LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_UPDATE_REQUEST_1_IS_NULL;
-              }
-              String s = message.toLocalizedString(messageArgs);
-              logger.warn(s);
-              throw new Exception(s);
+            boolean result = false;
+            if (isPdxEvent) {
+              result = addPdxType(crHelper, key, value);
+            } else {
+              result = region.basicBridgePut(key, value, null, isObject, callbackArg,
+                  serverConnection.getProxyID(), false, clientEvent);
             }
-            region = (LocalRegion) crHelper.getRegion(regionName);
-            if (region == null) {
-              handleRegionNull(serverConnection, regionName, batchId);
+            if (result || clientEvent.isConcurrencyConflict()) {
+              application.setModificationInfo(eventIndex, regionName, key);
+              stats.incUpdateRequest();
             } else {
-              clientEvent = new EventIDHolder(eventId);
-              if (versionTimeStamp > 0) {
-                VersionTag tag = VersionTag.create(region.getVersionMember());
-                tag.setIsGatewayTag(true);
-                tag.setVersionTimeStamp(versionTimeStamp);
-                tag.setDistributedSystemId(dsid);
-                clientEvent.setVersionTag(tag);
-              }
-              clientEvent.setPossibleDuplicate(possibleDuplicate);
-              handleMessageRetry(region, clientEvent);
-              try {
-                byte[] value = valuePart.getSerializedForm();
-                boolean isObject = valuePart.isObject();
-                AuthorizeRequest authzRequest = serverConnection.getAuthzRequest();
-                if (authzRequest != null) {
-                  PutOperationContext putContext = authzRequest.putAuthorize(regionName, key, value,
-                      isObject, callbackArg, PutOperationContext.UPDATE);
-                  value = putContext.getSerializedValue();
-                  isObject = putContext.isObject();
-                }
-                boolean result = false;
-                if (isPdxEvent) {
-                  result = addPdxType(crHelper, key, value);
-                } else {
-                  result = region.basicBridgePut(key, value, null, isObject, callbackArg,
-                      serverConnection.getProxyID(), false, clientEvent);
-                }
-                if (result || clientEvent.isConcurrencyConflict()) {
-                  serverConnection.setModificationInfo(true, regionName, key);
-                  stats.incUpdateRequest();
-                } else {
-                  final Object[] msgArgs = new Object[] {serverConnection.getName(), regionName,
-                      key, valuePart, callbackArg};
-                  final StringId message =
-                      LocalizedStrings.ProcessBatch_0_FAILED_TO_UPDATE_ENTRY_FOR_REGION_1_KEY_2_VALUE_3_AND_CALLBACKARG_4;
-                  String s = message.toLocalizedString(msgArgs);
-                  logger.info(s);
-                  throw new Exception(s);
-                }
-              } catch (CancelException e) {
-                // FIXME better exception hierarchy would avoid this check
-                if (serverConnection.getCachedRegionHelper().getCache().getCancelCriterion()
-                    .isCancelInProgress()) {
-                  if (logger.isDebugEnabled()) {
-                    logger.debug(
-                        "{} ignoring message of type {} from client {} because shutdown occurred during message processing.",
-                        serverConnection.getName(),
-                        MessageType.getString(clientMessage.getMessageType()),
-                        serverConnection.getProxyID());
-                  }
-                  serverConnection.setFlagProcessMessagesAsFalse();
-                  serverConnection.setClientDisconnectedException(e);
-                } else {
-                  throw e;
-                }
-                return;
-              } catch (Exception e) {
-                // Preserve the connection under all circumstances
-                logger.warn(LocalizedMessage.create(
-                    LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_REQUEST_1_CONTAINING_2_EVENTS,
-                    new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                        Integer.valueOf(numberOfEvents)}),
-                    e);
-                throw e;
-              }
+              final Object[] msgArgs = new Object[] {serverConnection.getName(), regionName,
+                  key, valuePart, callbackArg};
+              final StringId message =
+                  LocalizedStrings.ProcessBatch_0_FAILED_TO_UPDATE_ENTRY_FOR_REGION_1_KEY_2_VALUE_3_AND_CALLBACKARG_4;
+              String s = message.toLocalizedString(msgArgs);
+              logger.info(s);
+              throw new Exception(s);
             }
-            break;
-          case 2: // Destroy
-            // Retrieve the callbackArg from the message parts if necessary
-            index = partNumber + 5;
-            callbackArgExistsPart = clientMessage.getPart(index++); {
-            byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
-            callbackArgExists = partBytes[0] == 0x01;
+          } catch (CancelException e) {
+            // The caller stops processing the batch
+            throw e;
+          } catch (Exception e) {
+            // Preserve the connection under all circumstances
+            logger.warn(LocalizedMessage.create(
+                LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_REQUEST_1_CONTAINING_2_EVENTS,
+                new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+                    Integer.valueOf(numberOfEvents)}),
+                e);
+            throw e;
           }
-            if (callbackArgExists) {
-              callbackArgPart = clientMessage.getPart(index++);
-              try {
-                callbackArg = callbackArgPart.getObject();
-              } catch (Exception e) {
-                logger.warn(LocalizedMessage.create(
-                    LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_DESTROY_REQUEST_1_CONTAINING_2_EVENTS,
-                    new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                        Integer.valueOf(numberOfEvents)}),
-                    e);
-                throw e;
-              }
-            }
+        }
+        break;
+      case 2: // Destroy
+        // Retrieve the callbackArg from the message parts if necessary
+        index = partNumber + 5;
+        callbackArgExistsPart = clientMessage.getPart(index++); {
+        byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
+        callbackArgExists = partBytes[0] == 0x01;
+      }
+        if (callbackArgExists) {
+          callbackArgPart = clientMessage.getPart(index++);
+          try {
+            callbackArg = callbackArgPart.getObject();
+          } catch (Exception e) {
+            logger.warn(LocalizedMessage.create(
+                LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_DESTROY_REQUEST_1_CONTAINING_2_EVENTS,
+                new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+                    Integer.valueOf(numberOfEvents)}),
+                e);
+            throw e;
+          }
+        }
 
-            versionTimeStamp = clientMessage.getPart(index++).getLong();
-            if (logger.isDebugEnabled()) {
-              logger.debug("{}: Processing batch destroy request {} on {} for region {} key {}",
-                  serverConnection.getName(), batchId, serverConnection.getSocketString(),
-                  regionName, key);
-            }
+        versionTimeStamp = clientMessage.getPart(index++).getLong();
+        if (logger.isDebugEnabled()) {
+          logger.debug("{}: Processing batch destroy request {} on {} for region {} key {}",
+              serverConnection.getName(), batchId, serverConnection.getSocketString(),
+              regionName, key);
+        }
 
-            // Process the destroy request
-            if (key == null || regionName == null) {
-              StringId message = null;
-              if (key == null) {
-                message =
-                    LocalizedStrings.ProcessBatch_0_THE_INPUT_KEY_FOR_THE_BATCH_DESTROY_REQUEST_1_IS_NULL;
-              }
-              if (regionName == null) {
-                message =
-                    LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_DESTROY_REQUEST_1_IS_NULL;
-              }
-              Object[] messageArgs =
-                  new Object[] {serverConnection.getName(), Integer.valueOf(batchId)};
-              String s = message.toLocalizedString(messageArgs);
-              logger.warn(s);
-              throw new Exception(s);
-            }
-            region = (LocalRegion) crHelper.getRegion(regionName);
-            if (region == null) {
-              handleRegionNull(serverConnection, regionName, batchId);
-            } else {
-              clientEvent = new EventIDHolder(eventId);
-              if (versionTimeStamp > 0) {
-                VersionTag tag = VersionTag.create(region.getVersionMember());
-                tag.setIsGatewayTag(true);
-                tag.setVersionTimeStamp(versionTimeStamp);
-                tag.setDistributedSystemId(dsid);
-                clientEvent.setVersionTag(tag);
-              }
-              handleMessageRetry(region, clientEvent);
-              // Destroy the entry
-              try {
-                AuthorizeRequest authzRequest = serverConnection.getAuthzRequest();
-                if (authzRequest != null) {
-                  DestroyOperationContext destroyContext =
-                      authzRequest.destroyAuthorize(regionName, key, callbackArg);
-                  callbackArg = destroyContext.getCallbackArg();
-                }
-                region.basicBridgeDestroy(key, callbackArg, serverConnection.getProxyID(), false,
-                    clientEvent);
-                serverConnection.setModificationInfo(true, regionName, key);
-                stats.incDestroyRequest();
-              } catch (EntryNotFoundException e) {
-                logger.info(LocalizedMessage.create(
-                    LocalizedStrings.ProcessBatch_0_DURING_BATCH_DESTROY_NO_ENTRY_WAS_FOUND_FOR_KEY_1,
-                    new Object[] {serverConnection.getName(), key}));
-                // throw new Exception(e);
-              }
+        // Process the destroy request
+        if (key == null || regionName == null) {
+          StringId message = null;
+          if (key == null) {
+            message =
+                LocalizedStrings.ProcessBatch_0_THE_INPUT_KEY_FOR_THE_BATCH_DESTROY_REQUEST_1_IS_NULL;
+          }
+          if (regionName == null) {
+            message =
+                LocalizedStrings.ProcessBatch_0_THE_INPUT_REGION_NAME_FOR_THE_BATCH_DESTROY_REQUEST_1_IS_NULL;
+          }
+          Object[] messageArgs =
+              new Object[] {serverConnection.getName(), Integer.valueOf(batchId)};
+          String s = message.toLocalizedString(messageArgs);
+          logger.warn(s);
+          throw new Exception(s);
+        }
+        region = (LocalRegion) crHelper.getRegion(regionName);
+        if (region == null) {
+          handleRegionNull(serverConnection, regionName, batchId);
+        } else {
+          clientEvent = new EventIDHolder(eventId);
+          if (versionTimeStamp > 0) {
+            VersionTag tag = VersionTag.create(region.getVersionMember());
+            tag.setIsGatewayTag(true);
+            tag.setVersionTimeStamp(versionTimeStamp);
+            tag.setDistributedSystemId(dsid);
+            clientEvent.setVersionTag(tag);
+          }
+          handleMessageRetry(region, clientEvent);
+          // Destroy the entry
+          try {
+            AuthorizeRequest authzRequest = serverConnection.getAuthzRequest();
+            if (authzRequest != null) {
+              DestroyOperationContext destroyContext =
+                  authzRequest.destroyAuthorize(regionName, key, callbackArg);
+              callbackArg = destroyContext.getCallbackArg();
             }
-            break;
-          case 3: // Update Time-stamp for a RegionEntry
+            region.basicBridgeDestroy(key, callbackArg, serverConnection.getProxyID(), false,
+                clientEvent);
+            application.setModificationInfo(eventIndex, regionName, key);
+            stats.incDestroyRequest();
+          } catch (EntryNotFoundException e) {
+            logger.info(LocalizedMessage.create(
+                LocalizedStrings.ProcessBatch_0_DURING_BATCH_DESTROY_NO_ENTRY_WAS_FOUND_FOR_KEY_1,
+                new Object[] {serverConnection.getName(), key}));
+            // throw new Exception(e);
+          }
+        }
+        break;
+      case 3: // Update Time-stamp for a RegionEntry
 
-            try {
-              // Region name
-              regionNamePart = clientMessage.getPart(partNumber + 2);
-              regionName = regionNamePart.getString();
+        try {
+          // Region name
+          regionNamePart = clientMessage.getPart(partNumber + 2);
+          regionName = regionNamePart.getString();
 
-              // Retrieve the event id from the message parts
-              eventIdPart = clientMessage.getPart(partNumber + 3);
-              eventId = (EventID) eventIdPart.getObject();
+          // Retrieve the event id from the message parts
+          eventIdPart = clientMessage.getPart(partNumber + 3);
+          eventId = (EventID) eventIdPart.getObject();
 
-              // Retrieve the key from the message parts
-              keyPart = clientMessage.getPart(partNumber + 4);
-              key = keyPart.getStringOrObject();
+          // Retrieve the key from the message parts
+          keyPart = clientMessage.getPart(partNumber + 4);
+          key = keyPart.getStringOrObject();
 
-              // Retrieve the callbackArg from the message parts if necessary
-              index = partNumber + 5;
-              callbackArgExistsPart = clientMessage.getPart(index++);
+          // Retrieve the callbackArg from the message parts if necessary
+          index = partNumber + 5;
+          callbackArgExistsPart = clientMessage.getPart(index++);
 
-              byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
-              callbackArgExists = partBytes[0] == 0x01;
+          byte[] partBytes = (byte[]) callbackArgExistsPart.getObject();
+          callbackArgExists = partBytes[0] == 0x01;
 
-              if (callbackArgExists) {
-                callbackArgPart = clientMessage.getPart(index++);
-                callbackArg = callbackArgPart.getObject();
-              }
+          if (callbackArgExists) {
+            callbackArgPart = clientMessage.getPart(index++);
+            callbackArg = callbackArgPart.getObject();
+          }
 
-            } catch (Exception e) {
-              logger.warn(LocalizedMessage.create(
-                  LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_VERSION_REQUEST_1_CONTAINING_2_EVENTS,
-                  new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
-                      Integer.valueOf(numberOfEvents)}),
-                  e);
-              throw e;
+        } catch (Exception e) {
+          logger.warn(LocalizedMessage.create(
+              LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_VERSION_REQUEST_1_CONTAINING_2_EVENTS,
+              new Object[] {serverConnection.getName(), Integer.valueOf(batchId),
+                  Integer.valueOf(numberOfEvents)}),
+              e);
+          throw e;
+        }
+
+        versionTimeStamp = clientMessage.getPart(index++).getLong();
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              "{}: Processing batch update-version request {} on {} for region {} key {} value {} callbackArg {}",
+              serverConnection.getName(), batchId, serverConnection.getSocketString(),
+              regionName, key, valuePart, callbackArg);
+        }
+        // Process the update time-stamp request
+        if (key == null || regionName == null) {
+          StringId message =
+              LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_VERSION_REQUEST_1_CONTAINING_2_EVENTS;
+
+          Object[] messageArgs = new Object[] {serverConnection.getName(),
+              Integer.valueOf(batchId), Integer.valueOf(numberOfEvents)};
+          String s = message.toLocalizedString(messageArgs);
+          logger.warn(s);
+          throw new Exception(s);
+
+        } else {
+          region = (LocalRegion) crHelper.getRegion(regionName);
+
+          if (region == null) {
+            handleRegionNull(serverConnection, regionName, batchId);
+          } else {
+
+            clientEvent = new EventIDHolder(eventId);
+
+            if (versionTimeStamp > 0) {
+              VersionTag tag = VersionTag.create(region.getVersionMember());
+              tag.setIsGatewayTag(true);
+              tag.setVersionTimeStamp(versionTimeStamp);
+              tag.setDistributedSystemId(dsid);
+              clientEvent.setVersionTag(tag);
             }
 
-            versionTimeStamp = clientMessage.getPart(index++).getLong();
-            if (logger.isDebugEnabled()) {
-              logger.debug(
-                  "{}: Processing batch update-version request {} on {} for region {} key {} value {} callbackArg {}",
-                  serverConnection.getName(), batchId, serverConnection.getSocketString(),
-                  regionName, key, valuePart, callbackArg);
+            // Update the version tag
+            try {
+
+              region.basicBridgeUpdateVersionStamp(key, callbackArg,
+                  serverConnection.getProxyID(), false, clientEvent);
+
+            } catch (EntryNotFoundException e) {
+              logger.info(LocalizedMessage.create(
+                  LocalizedStrings.ProcessBatch_0_DURING_BATCH_UPDATE_VERSION_NO_ENTRY_WAS_FOUND_FOR_KEY_1,
+                  new Object[] {serverConnection.getName(), key}));
+              // throw new Exception(e);
             }
-            // Process the update time-stamp request
-            if (key == null || regionName == null) {
-              StringId message =
-                  LocalizedStrings.ProcessBatch_0_CAUGHT_EXCEPTION_PROCESSING_BATCH_UPDATE_VERSION_REQUEST_1_CONTAINING_2_EVENTS;
-
-              Object[] messageArgs = new Object[] {serverConnection.getName(),
-                  Integer.valueOf(batchId), Integer.valueOf(numberOfEvents)};
-              String s = message.toLocalizedString(messageArgs);
-              logger.warn(s);
-              throw new Exception(s);
+          }
+        }
 
-            } else {
-              region = (LocalRegion) crHelper.getRegion(regionName);
-
-              if (region == null) {
-                handleRegionNull(serverConnection, regionName, batchId);
-              } else {
-
-                clientEvent = new EventIDHolder(eventId);
-
-                if (versionTimeStamp > 0) {
-                  VersionTag tag = VersionTag.create(region.getVersionMember());
-                  tag.setIsGatewayTag(true);
-                  tag.setVersionTimeStamp(versionTimeStamp);
-                  tag.setDistributedSystemId(dsid);
-                  clientEvent.setVersionTag(tag);
-                }
-
-                // Update the version tag
-                try {
-
-                  region.basicBridgeUpdateVersionStamp(key, callbackArg,
-                      serverConnection.getProxyID(), false, clientEvent);
-
-                } catch (EntryNotFoundException e) {
-                  logger.info(LocalizedMessage.create(
-                      LocalizedStrings.ProcessBatch_0_DURING_BATCH_UPDATE_VERSION_NO_ENTRY_WAS_FOUND_FOR_KEY_1,
-                      new Object[] {serverConnection.getName(), key}));
-                  // throw new Exception(e);
-                }
+        break;
+      default:
+        logger.fatal(LocalizedMessage.create(
+            LocalizedStrings.Processbatch_0_UNKNOWN_ACTION_TYPE_1_FOR_BATCH_FROM_2,
+            new Object[] {serverConnection.getName(), Integer.valueOf(actionType),
+                serverConnection.getSocketString()}));
+        stats.incUnknowsOperationsReceived();
+    }
+  }
+
+  /**
+   * Applies the events of one batch. The events are located in the message first, so that they can
+   * be applied either in order on the server connection thread or by {@link #APPLY_THREADS}
+   * threads, the server connection thread and the batch apply threads of its acceptor.
+   */
+  private class BatchApplication {
+
+    private final Message clientMessage;
+
+    private final ServerConnection serverConnection;
+
+    private final int batchId;
+
+    private final int numberOfEvents;
+
+    private final int dsid;
+
+    private final boolean removeOnException;
+
+    private final boolean wroteResponse;
+
+    /** The part number of the first part of each event */
+    private final int[] eventParts;
+
+    /**
+     * The index of each event in the batch without the PDX events, which is the index reported in a
+     * {@link BatchException70}
+     */
+    private final int[] eventIndexes;
+
+    /** The number of events up to and including the last PDX event of the batch */
+    private int pdxEventsEnd;
+
+    /**
+     * The region and key modified by each event applied concurrently, set on the server connection
+     * once all lanes have been applied. Null while the events are applied in order.
+     */
+    private String[] modifiedRegions;
+
+    private Object[] modifiedKeys;
+
+    final List<BatchException70> exceptions = new ArrayList<BatchException70>();
+
+    volatile Throwable fatalException;
+
+    volatile CancelException cancelException;
+
+    volatile boolean abandoned;
+
+    private volatile boolean stopped;
+
+    BatchApplication(Message clientMessage, ServerConnection serverConnection, int batchId,
+        int numberOfEvents, int dsid, boolean removeOnException, boolean wroteResponse) {
+      this.clientMessage = clientMessage;
+      this.serverConnection = serverConnection;
+      this.batchId = batchId;
+      this.numberOfEvents = numberOfEvents;
+      this.dsid = dsid;
+      this.removeOnException = removeOnException;
+      this.wroteResponse = wroteResponse;
+      this.eventParts = new int[numberOfEvents];
+      this.eventIndexes = new int[numberOfEvents];
+    }
+
+    /**
+     * Finds the parts of the events of the batch, starting at the given part number.
+     */
+    void findEvents(int partNumber) {
+      // event received in batch also have PDX events at the start of the batch,to
+      // represent correct index on which the exception occurred, number of PDX
+      // events need to be subtratced.
+      int indexWithoutPDXEvent = -1;
+      for (int i = 0; i < this.numberOfEvents; i++) {
+        indexWithoutPDXEvent++;
+        this.eventParts[i] = partNumber;
+        if (PeerTypeRegistration.REGION_FULL_PATH
+            .equals(this.clientMessage.getPart(partNumber + 2).getString())) {
+          indexWithoutPDXEvent--;
+          this.pdxEventsEnd = i + 1;
+        }
+        this.eventIndexes[i] = indexWithoutPDXEvent;
+        partNumber += getNumberOfParts(partNumber);
+      }
+    }
+
+    private int getNumberOfParts(int partNumber) {
+      switch (this.clientMessage.getPart(partNumber).getInt()) {
+        case 0: // Create
+        case 1: // Update
+          return hasCallbackArg(partNumber + 6) ? 9 : 8;
+        case 2: // Destroy
+        case 3: // Update Time-stamp
+          return hasCallbackArg(partNumber + 5) ? 8 : 7;
+        default:
+          // the event is reported as unknown, like the following ones
+          return 0;
+      }
+    }
+
+    private boolean hasCallbackArg(int callbackArgExistsPartNumber) {
+      return this.clientMessage.getPart(callbackArgExistsPartNumber).getSerializedForm()[0] == 0x01;
+    }
+
+    void applyInOrder() throws IOException, InterruptedException {
+      for (int i = 0; i < this.numberOfEvents; i++) {
+        if (!apply(i)) {
+          break;
+        }
+      }
+    }
+
+    /**
+     * Applies the PDX events of the batch in order, then the other events on several threads. The
+     * events are split into lanes by region and key, and the events of a lane are applied in order.
+     * The server connection thread applies lanes as well, so lanes that could not be handed to a
+     * helper thread in time are applied by it.
+     */
+    void applyConcurrently(ExecutorService executor, int applyThreads,
+        final SecurityService securityService) throws IOException, InterruptedException {
+      for (int i = 0; i < this.pdxEventsEnd; i++) {
+        if (!apply(i)) {
+          return;
+        }
+      }
+      int numberOfLanes = Math.min(applyThreads, this.numberOfEvents - this.pdxEventsEnd);
+      if (numberOfLanes <= 1) {
+        applyLane(this.pdxEventsEnd, this.numberOfEvents, null);
+        return;
+      }
+      int[] eventLanes = new int[this.numberOfEvents];
+      int[] laneSizes = new int[numberOfLanes];
+      for (int i = this.pdxEventsEnd; i < this.numberOfEvents; i++) {
+        eventLanes[i] = getLane(i, numberOfLanes);
+        laneSizes[eventLanes[i]]++;
+      }
+      final int[][] lanes = new int[numberOfLanes][];
+      for (int lane = 0; lane < numberOfLanes; lane++) {
+        lanes[lane] = new int[laneSizes[lane]];
+        laneSizes[lane] = 0;
+      }
+      for (int i = this.pdxEventsEnd; i < this.numberOfEvents; i++) {
+        lanes[eventLanes[i]][laneSizes[eventLanes[i]]++] = i;
+      }
+
+      this.modifiedRegions = new String[this.numberOfEvents];
+      this.modifiedKeys = new Object[this.numberOfEvents];
+
+      final AtomicInteger nextLane = new AtomicInteger();
+      final Subject subject = ThreadContext.getSubject();
+      final Byte executeFunctionOnLocalNodeOnly =
+          ServerConnection.isExecuteFunctionOnLocalNodeOnly();
+      List<Future<Void>> helpers = new ArrayList<Future<Void>>(numberOfLanes - 1);
+      for (int i = 1; i < numberOfLanes; i++) {
+        try {
+          helpers.add(executor.submit(() -> {
+            applyLanesOnHelper(lanes, nextLane, securityService, subject,
+                executeFunctionOnLocalNodeOnly);
+            return null;
+          }));
+        } catch (RejectedExecutionException e) {
+          // the receiver is closing, the lanes are applied by the threads already started
+          break;
+        }
+      }
+      try {
+        applyLanes(lanes, nextLane);
+      } finally {
+        waitForHelpers(helpers);
+      }
+      for (int i = this.numberOfEvents - 1; i >= this.pdxEventsEnd; i--) {
+        if (this.modifiedRegions[i] != null) {
+          this.serverConnection.setModificationInfo(true, this.modifiedRegions[i],
+              this.modifiedKeys[i]);
+          break;
+        }
+      }
+      // The sender resumes the batch from the first event that failed
+      Collections.sort(this.exceptions,
+          (e1, e2) -> Integer.compare(e1.getIndex(), e2.getIndex()));
+    }
+
+    private void waitForHelpers(List<Future<Void>> helpers)
+        throws IOException, InterruptedException {
+      boolean interrupted = false;
+      try {
+        for (Future<Void> helper : helpers) {
+          if (helper.cancel(false)) {
+            // the helper had not started, its lanes have been applied by the others
+            continue;
+          }
+          while (true) {
+            try {
+              helper.get();
+              break;
+            } catch (InterruptedException ignore) {
+              // the helper reads the parts of the message, so wait for it to finish
+              interrupted = true;
+            } catch (ExecutionException e) {
+              Throwable cause = e.getCause();
+              if (cause instanceof IOException) {
+                throw (IOException) cause;
+              }
+              if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
               }
+              if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+              }
+              if (cause instanceof Error) {
+                throw (Error) cause;
+              }
+              throw new InternalGemFireException(cause);
             }
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
 
-            break;
-          default:
-            logger.fatal(LocalizedMessage.create(
-                LocalizedStrings.Processbatch_0_UNKNOWN_ACTION_TYPE_1_FOR_BATCH_FROM_2,
-                new Object[] {serverConnection.getName(), Integer.valueOf(actionType),
-                    serverConnection.getSocketString()}));
-            stats.incUnknowsOperationsReceived();
+    private int getLane(int i, int numberOfLanes) {
+      int hash = 0;
+      try {
+        hash = this.clientMessage.getPart(this.eventParts[i] + 2).getString().hashCode();
+        Object key = this.clientMessage.getPart(this.eventParts[i] + 4).getStringOrObject();
+        if (key != null) {
+          hash = 31 * hash + key.hashCode();
         }
-      } catch (CancelException e) {
-        if (logger.isDebugEnabled()) {
-          logger.debug(
-              "{} ignoring message of type {} from client {} because shutdown occurred during message processing.",
-              serverConnection.getName(), MessageType.getString(clientMessage.getMessageType()),
-              serverConnection.getProxyID());
+      } catch (Exception ignore) {
+        // applying the event reports the exception
+      }
+      return (hash & Integer.MAX_VALUE) % numberOfLanes;
+    }
+
+    /**
+     * Applies lanes on a batch apply thread, as the security subject and with the thread local
+     * state of the server connection thread that received the batch.
+     */
+    private void applyLanesOnHelper(int[][] lanes, AtomicInteger nextLane,
+        SecurityService securityService, Subject subject, Byte executeFunctionOnLocalNodeOnly)
+        throws IOException, InterruptedException {
+      ThreadState threadState = null;
+      if (subject != null) {
+        threadState = securityService.bindSubject(subject);
+      }
+      Byte previousExecuteFunctionOnLocalNodeOnly =
+          ServerConnection.isExecuteFunctionOnLocalNodeOnly();
+      ServerConnection.executeFunctionOnLocalNodeOnly(executeFunctionOnLocalNodeOnly);
+      try {
+        applyLanes(lanes, nextLane);
+      } finally {
+        ServerConnection.executeFunctionOnLocalNodeOnly(previousExecuteFunctionOnLocalNodeOnly);
+        if (threadState != null) {
+          threadState.clear();
         }
-        serverConnection.setFlagProcessMessagesAsFalse();
-        serverConnection.setClientDisconnectedException(e);
-        return;
+      }
+    }
+
+    private void applyLanes(int[][] lanes, AtomicInteger nextLane)
+        throws IOException, InterruptedException {
+      int lane;
+      while ((lane = nextLane.getAndIncrement()) < lanes.length) {
+        applyLane(0, lanes[lane].length, lanes[lane]);
+      }
+    }
+
+    /**
+     * Applies the events from start to end of the given lane, or of the batch if lane is null.
+     */
+    private void applyLane(int start, int end, int[] lane)
+        throws IOException, InterruptedException {
+      for (int i = start; i < end; i++) {
+        if (!apply(lane == null ? i : lane[i])) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Records that the event at the given index modified the given key. The server connection is
+     * told directly while the events are applied in order, and by the server connection thread
+     * once all lanes have been applied otherwise.
+     */
+    void setModificationInfo(int i, String regionName, Object key) {
+      if (this.modifiedRegions == null) {
+        this.serverConnection.setModificationInfo(true, regionName, key);
+      } else {
+        this.modifiedRegions[i] = regionName;
+        this.modifiedKeys[i] = key;
+      }
+    }
+
+    /**
+     * Applies the event at the given index of the batch.
+     *
+     * @return whether the following events should be applied
+     */
+    private boolean apply(int i) throws IOException, InterruptedException {
+      if (this.stopped) {
+        return false;
+      }
+      try {
+        applyEvent(this, i, this.clientMessage, this.serverConnection, this.batchId,
+            this.numberOfEvents, this.dsid, this.eventParts[i]);
+        return true;
+      } catch (CancelException e) {
+        this.cancelException = e;
+        this.stopped = true;
+        return false;
       } catch (Exception e) {
         // If an interrupted exception is thrown , rethrow it
-        checkForInterrupt(serverConnection, e);
+        checkForInterrupt(this.serverConnection, e);
 
         // If we have an issue with the PDX registry, stop processing more data
         if (e.getCause() instanceof PdxRegistryMismatchException) {
-          fatalException = e.getCause();
+          this.fatalException = e.getCause();
+          this.stopped = true;
           logger.fatal(LocalizedMessage.create(LocalizedStrings.GatewayReceiver_PDX_CONFIGURATION,
-              new Object[] {serverConnection.getMembershipID()}), e.getCause());
-          break;
+              new Object[] {this.serverConnection.getMembershipID()}), e.getCause());
+          return false;
         }
 
-        // logger.warn("Caught exception for batch " + batchId + " containing
-        // " + numberOfEvents + " events (" + msg.getPayloadLength() + " bytes)
-        // with " + (earlyAck ? "early" : "normal") + " acknowledgement on " +
-        // getSocketString());
         // If the response has not already been written (it is not
         // early ack mode), increment the latest batch id replied,
         // write the batch exception to the caller and break
-        if (!wroteResponse) {
+        if (!this.wroteResponse) {
           // Increment the batch id unless the received batch id is -1 (a
           // failover batch)
-          DistributedSystem ds = crHelper.getCache().getDistributedSystem();
+          DistributedSystem ds =
+              this.serverConnection.getCachedRegionHelper().getCache().getDistributedSystem();
           String exceptionMessage =
               LocalizedStrings.GatewayReceiver_EXCEPTION_WHILE_PROCESSING_BATCH.toLocalizedString(
                   new Object[] {((InternalDistributedSystem) ds).getDistributionManager()
                       .getDistributedSystemId(), ds.getDistributedMember()});
           BatchException70 be =
-              new BatchException70(exceptionMessage, e, indexWithoutPDXEvent, batchId);
-          exceptions.add(be);
-          if (!removeOnException) {
-            break;
+              new BatchException70(exceptionMessage, e, this.eventIndexes[i], this.batchId);
+          synchronized (this.exceptions) {
+            this.exceptions.add(be);
           }
-
-          // servConn.setAsTrue(RESPONDED);
-          // wroteResponse = true;
-          // break;
+          return this.removeOnException;
         } else {
-          // If it is early ack mode, attempt to process the remaining messages
-          // in the batch.
-          // This could be problematic depending on where the exception
-          // occurred.
-          return;
-        }
-      } finally {
-        // Increment the partNumber
-        if (actionType == 0 /* create */ || actionType == 1 /* update */) {
-          if (callbackArgExists) {
-            partNumber += 9;
-          } else {
-            partNumber += 8;
-          }
-        } else if (actionType == 2 /* destroy */) {
-          if (callbackArgExists) {
-            partNumber += 8;
-          } else {
-            partNumber += 7;
-          }
-        } else if (actionType == 3 /* update-version */) {
-          if (callbackArgExists) {
-            partNumber += 8;
-          } else {
-            partNumber += 7;
-          }
+          this.abandoned = true;
+          this.stopped = true;
+          return false;
         }
       }
     }
-
-    {
-      long oldStart = start;
-      start = DistributionStats.getStatTime();
-      stats.incProcessBatchTime(start - oldStart);
-    }
-    if (fatalException != null) {
-      serverConnection.incrementLatestBatchIdReplied(batchId);
-      writeFatalException(clientMessage, fatalException, serverConnection, batchId);
-      serverConnection.setAsTrue(RESPONDED);
-    } else if (!exceptions.isEmpty()) {
-      serverConnection.incrementLatestBatchIdReplied(batchId);
-      writeBatchException(clientMessage, exceptions, serverConnection, batchId);
-      serverConnection.setAsTrue(RESPONDED);
-    } else if (!wroteResponse) {
-      // Increment the batch id unless the received batch id is -1 (a failover
-      // batch)
-      serverConnection.incrementLatestBatchIdReplied(batchId);
-
-      writeReply(clientMessage, serverConnection, batchId, numberOfEvents);
-      serverConnection.setAsTrue(RESPONDED);
-      stats.incWriteProcessBatchResponseTime(DistributionStats.getStatTime() - start);
-      if (logger.isDebugEnabled()) {
-        logger.debug(
-            "{}: Sent process batch normal response for batch {} containing {} events ({} bytes) with {} acknowledgement on {}",
-            serverConnection.getName(), batchId, numberOfEvents, clientMessage.getPayloadLength(),
-            (earlyAck ? "early" : "normal"), serverConnection.getSocketString());
-      }
-      // logger.warn("Sent process batch normal response for batch " +
-      // batchId + " containing " + numberOfEvents + " events (" +
-      // msg.getPayloadLength() + " bytes) with " + (earlyAck ? "early" :
-      // "normal") + " acknowledgement on " + getSocketString());
-    }
   }
 
   private boolean addPdxType(CachedRegionHelper crHelper, Object key, Object value)
@@ -133,6 +133,11 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
 
   private volatile boolean resetLastPeekedEvents;
 
+  /**
+   * A lock object used to wait for the acknowledgement of dispatched batches
+   */
+  private final Object unackedBatchesLock = new Object();
+
   private long numEventsDispatched;
 
   /**
@@ -336,6 +341,15 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
   private final ConcurrentHashMap<Integer, long[]> failureLogInterval =
       new ConcurrentHashMap<Integer, long[]>();
 
+  /**
+   * The maximum number of batches dispatched to the remote site that have not been acknowledged
+   * yet. The processor waits for acknowledgements before dispatching more batches, which bounds the
+   * number of batches redispatched when the connection is reset. 0, the default, does not limit the
+   * number of unacknowledged batches.
+   */
+  public static int MAX_UNACKED_BATCHES =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.MAX_UNACKED_BATCHES", 0);
+
   /**
    * The maximum size of {@link #failureLogInterval} beyond which it will start logging all failure
    * instances. Hopefully this should never happen in practice.
@@ -452,6 +466,11 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
               resetLastPeekedEvents = false;
             }
 
+            waitForUnackedBatches();
+            if (resetLastPeekedEvents || stopped()) {
+              continue;
+            }
+
             {
               // Below code was added to consider the case of queue region is
               // destroyed due to userPRs localdestroy or destroy operation.
@@ -962,6 +981,7 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
     final GatewaySenderStats statistics = this.sender.getStatistics();
     statistics.incBatchesRedistributed();
     this.resetLastPeekedEvents = true;
+    notifyUnackedBatchesWaiter();
   }
 
   public void handleSuccessBatchAck(int batchId) {
@@ -993,6 +1013,33 @@ public abstract class AbstractGatewaySenderEventProcessor extends Thread {
       }
       eventQueueRemove(events.size());
     }
+    notifyUnackedBatchesWaiter();
+  }
+
+  /**
+   * Waits while {@link #MAX_UNACKED_BATCHES} batches dispatched to the remote site have not been
+   * acknowledged yet. Returns early if the connection is reset or the processor is stopped or
+   * paused.
+   */
+  protected void waitForUnackedBatches() throws InterruptedException {
+    int maxUnackedBatches = MAX_UNACKED_BATCHES;
+    if (maxUnackedBatches <= 0) {
+      return;
+    }
+    synchronized (this.unackedBatchesLock) {
+      while (this.batchIdToEventsMap.size() >= maxUnackedBatches && !this.resetLastPeekedEvents
+          && !stopped() && !this.isPaused) {
+        this.unackedBatchesLock.wait(100);
+      }
+    }
+  }
+
+  private void notifyUnackedBatchesWaiter() {
+    if (MAX_UNACKED_BATCHES > 0) {
+      synchronized (this.unackedBatchesLock) {
+        this.unackedBatchesLock.notifyAll();
+      }
+    }
   }
 
   public void handleUnSuccessBatchAck(int bId) {
@@ -56,6 +56,8 @@ public class GatewayReceiverStats extends CacheServerStats {
   /** Name of the unprocessed events added by primary statistic */
   private static final String EXCEPTIONS_OCCURRED = "exceptionsOccurred";
 
+  private static final String BATCH_BYTES_SAVED = "batchBytesSaved";
+
   // /** Id of the events queued statistic */
   // private int failoverBatchesReceivedId;
 
@@ -86,6 +88,8 @@ public class GatewayReceiverStats extends CacheServerStats {
   /** Id of the unprocessed events added by primary statistic */
   private int exceptionsOccurredId;
 
+  private int batchBytesSavedId;
+
   // ///////////////////// Constructors ///////////////////////
 
   public static GatewayReceiverStats createGatewayReceiverStats(String ownerName) {
@@ -110,7 +114,10 @@ public class GatewayReceiverStats extends CacheServerStats {
         f.createIntCounter(UNKNOWN_OPERATIONS_RECEIVED,
             "total number of unknown operations received by this GatewayReceiver", "operations"),
         f.createIntCounter(EXCEPTIONS_OCCURRED,
-            "number of exceptions occurred while porcessing the batches", "operations")};
+            "number of exceptions occurred while porcessing the batches", "operations"),
+        f.createLongCounter(BATCH_BYTES_SAVED,
+            "number of bytes saved by compressing the batches received by this GatewayReceiver",
+            "bytes")};
     return new GatewayReceiverStats(f, ownerName, typeName, descriptors);
 
   }
@@ -129,6 +136,7 @@ public class GatewayReceiverStats extends CacheServerStats {
     destroyRequestId = statType.nameToId(DESTROY_REQUESTS);
     unknowsOperationsReceivedId = statType.nameToId(UNKNOWN_OPERATIONS_RECEIVED);
     exceptionsOccurredId = statType.nameToId(EXCEPTIONS_OCCURRED);
+    batchBytesSavedId = statType.nameToId(BATCH_BYTES_SAVED);
   }
 
   // /////////////////// Instance Methods /////////////////////
@@ -243,6 +251,14 @@ public class GatewayReceiverStats extends CacheServerStats {
     return this.stats.getInt(exceptionsOccurredId);
   }
 
+  public void incBatchBytesSaved(int bytes) {
+    this.stats.incLong(batchBytesSavedId, bytes);
+  }
+
+  public long getBatchBytesSaved() {
+    return this.stats.getLong(batchBytesSavedId);
+  }
+
   /**
    * Returns the current time (ns).
    * 
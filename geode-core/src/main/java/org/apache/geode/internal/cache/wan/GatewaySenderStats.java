@@ -60,6 +60,10 @@ public class GatewaySenderStats {
   protected static final String BATCHES_REDISTRIBUTED = "batchesRedistributed";
   /** Name of the batches resized statistic */
   protected static final String BATCHES_RESIZED = "batchesResized";
+  /** Name of the batch bytes saved statistic */
+  protected static final String BATCH_BYTES_SAVED = "batchBytesSaved";
+  /** Name of the buckets reassigned statistic */
+  protected static final String BUCKETS_REASSIGNED = "bucketsReassigned";
   /** Name of the unprocessed events added by primary statistic */
   protected static final String UNPROCESSED_TOKENS_ADDED_BY_PRIMARY =
       "unprocessedTokensAddedByPrimary";
@@ -140,6 +144,10 @@ public class GatewaySenderStats {
   protected static int loadBalancesInProgressId;
   /** Id of load balance time */
   protected static int loadBalanceTimeId;
+  /** Id of the batch bytes saved statistic */
+  protected static int batchBytesSavedId;
+  /** Id of the buckets reassigned statistic */
+  protected static int bucketsReassignedId;
 
   /**
    * Static initializer to create and initialize the <code>StatisticsType</code>
@@ -213,7 +221,13 @@ public class GatewaySenderStats {
             f.createIntGauge(LOAD_BALANCES_IN_PROGRESS, "Number of load balances in progress",
                 "operations"),
             f.createLongCounter(LOAD_BALANCE_TIME, "Total time spent load balancing this sender",
-                "nanoseconds"),});
+                "nanoseconds"),
+            f.createLongCounter(BATCH_BYTES_SAVED,
+                "Number of bytes saved by compressing the batches sent to remote sites.",
+                "bytes"),
+            f.createIntCounter(BUCKETS_REASSIGNED,
+                "Number of queue buckets handed from one dispatcher thread to another.",
+                "operations"),});
 
     // Initialize id fields
     eventsReceivedId = type.nameToId(EVENTS_RECEIVED);
@@ -243,6 +257,8 @@ public class GatewaySenderStats {
     loadBalancesCompletedId = type.nameToId(LOAD_BALANCES_COMPLETED);
     loadBalancesInProgressId = type.nameToId(LOAD_BALANCES_IN_PROGRESS);
     loadBalanceTimeId = type.nameToId(LOAD_BALANCE_TIME);
+    batchBytesSavedId = type.nameToId(BATCH_BYTES_SAVED);
+    bucketsReassignedId = type.nameToId(BUCKETS_REASSIGNED);
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -431,6 +447,38 @@ public class GatewaySenderStats {
     this.stats.incInt(batchesResizedId, 1);
   }
 
+  /**
+   * Returns the current value of the "batchBytesSaved" stat.
+   *
+   * @return the current value of the "batchBytesSaved" stat
+   */
+  public long getBatchBytesSaved() {
+    return this.stats.getLong(batchBytesSavedId);
+  }
+
+  /**
+   * Increments the value of the "batchBytesSaved" stat by the given number of bytes.
+   */
+  public void incBatchBytesSaved(int bytes) {
+    this.stats.incLong(batchBytesSavedId, bytes);
+  }
+
+  /**
+   * Returns the current value of the "bucketsReassigned" stat.
+   *
+   * @return the current value of the "bucketsReassigned" stat
+   */
+  public int getBucketsReassigned() {
+    return this.stats.getInt(bucketsReassignedId);
+  }
+
+  /**
+   * Increments the value of the "bucketsReassigned" stat by 1.
+   */
+  public void incBucketsReassigned() {
+    this.stats.incInt(bucketsReassignedId, 1);
+  }
+
   /**
    * Sets the "eventQueueSize" stat.
    * 
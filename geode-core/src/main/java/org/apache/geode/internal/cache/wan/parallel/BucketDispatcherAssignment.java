@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.wan.parallel;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.BucketRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.wan.GatewaySenderEventImpl;
+import org.apache.geode.internal.cache.wan.GatewaySenderStats;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Assigns the buckets of the queue of a parallel gateway sender to the dispatcher threads of a
+ * {@link ConcurrentParallelGatewaySenderEventProcessor}. Bucket n starts out with dispatcher
+ * n % dispatcherThreads. When {@link #REBALANCE_INTERVAL} is set, the dispatchers periodically
+ * compare the number of events queued in the local primary buckets assigned to them. If one of them
+ * is more than a batch behind another, one of its buckets is handed to the dispatcher with the
+ * smallest backlog.
+ *
+ * A bucket is handed off only once its dispatcher has no peeked events of the bucket left that have
+ * not been acknowledged, so the events of a bucket are still dispatched in order by one thread.
+ */
+class BucketDispatcherAssignment {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The interval in milliseconds at which the backlog of the dispatchers is compared. 0, the
+   * default, keeps every bucket with its initial dispatcher.
+   */
+  public static long REBALANCE_INTERVAL = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.BUCKET_REBALANCE_INTERVAL", 0);
+
+  private final int nDispatcher;
+
+  /**
+   * The minimum difference in queued events between two dispatchers that causes a bucket to be
+   * handed off
+   */
+  private final int threshold;
+
+  private final GatewaySenderStats stats;
+
+  private final ParallelGatewaySenderQueue[] queues;
+
+  /**
+   * The dispatchers of the buckets that have been handed off from their initial dispatcher
+   */
+  private final ConcurrentMap<Integer, Integer> dispatchers =
+      new ConcurrentHashMap<Integer, Integer>();
+
+  /**
+   * The buckets being handed off, mapped to the dispatcher they are handed to
+   */
+  private final ConcurrentMap<Integer, Integer> handoffs =
+      new ConcurrentHashMap<Integer, Integer>();
+
+  private final AtomicLong nextRebalanceTime = new AtomicLong();
+
+  BucketDispatcherAssignment(int nDispatcher, int threshold, GatewaySenderStats stats) {
+    this.nDispatcher = nDispatcher;
+    this.threshold = threshold;
+    this.stats = stats;
+    this.queues = new ParallelGatewaySenderQueue[nDispatcher];
+  }
+
+  void setQueue(int index, ParallelGatewaySenderQueue queue) {
+    this.queues[index] = queue;
+  }
+
+  /**
+   * Returns the index of the dispatcher the given bucket is assigned to.
+   */
+  int getDispatcher(int bucketId) {
+    Integer dispatcher = this.dispatchers.get(bucketId);
+    return dispatcher == null ? bucketId % this.nDispatcher : dispatcher;
+  }
+
+  /**
+   * Returns whether the given dispatcher may peek events from the given bucket. A bucket being
+   * handed off is not peeked by anyone.
+   */
+  boolean isPeekable(int bucketId, int index) {
+    return getDispatcher(bucketId) == index && !this.handoffs.containsKey(bucketId);
+  }
+
+  /**
+   * Wakes up the dispatcher of the given bucket if it is waiting for events.
+   */
+  void notifyDispatcher(int bucketId) {
+    ParallelGatewaySenderQueue queue = this.queues[getDispatcher(bucketId)];
+    if (queue != null) {
+      queue.notifyEventProcessorIfRequired();
+    }
+  }
+
+  /**
+   * Completes the handoff of the buckets of the given dispatcher that none of its peeked events
+   * belong to. Only called by the dispatcher thread itself, which is the only one peeking events
+   * from its buckets.
+   */
+  void completeHandoffs(int index, Collection<GatewaySenderEventImpl> peekedEvents) {
+    if (this.handoffs.isEmpty()) {
+      return;
+    }
+    for (Iterator<Map.Entry<Integer, Integer>> iterator =
+        this.handoffs.entrySet().iterator(); iterator.hasNext();) {
+      Map.Entry<Integer, Integer> handoff = iterator.next();
+      int bucketId = handoff.getKey();
+      if (getDispatcher(bucketId) != index || hasEventOfBucket(peekedEvents, bucketId)) {
+        continue;
+      }
+      int target = handoff.getValue();
+      if (target == bucketId % this.nDispatcher) {
+        this.dispatchers.remove(bucketId);
+      } else {
+        this.dispatchers.put(bucketId, target);
+      }
+      iterator.remove();
+      if (this.stats != null) {
+        this.stats.incBucketsReassigned();
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Handed bucket {} from dispatcher {} to dispatcher {}", bucketId, index,
+            target);
+      }
+      notifyDispatcher(bucketId);
+    }
+  }
+
+  private boolean hasEventOfBucket(Collection<GatewaySenderEventImpl> events, int bucketId) {
+    for (GatewaySenderEventImpl event : events) {
+      if (event.getBucketId() == bucketId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts a handoff if {@link #REBALANCE_INTERVAL} has elapsed since the last time the backlog of
+   * the dispatchers was compared and one of them has fallen behind. At most one handoff is in
+   * progress at a time.
+   */
+  void rebalanceIfRequired() {
+    long interval = REBALANCE_INTERVAL;
+    if (interval <= 0 || this.nDispatcher < 2 || !this.handoffs.isEmpty()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long next = this.nextRebalanceTime.get();
+    if (now < next || !this.nextRebalanceTime.compareAndSet(next, now + interval)) {
+      return;
+    }
+    ParallelGatewaySenderQueue queue = this.queues[0];
+    if (queue == null) {
+      return;
+    }
+    Map<Integer, Integer> bucketSizes = new HashMap<Integer, Integer>();
+    for (PartitionedRegion prQ : queue.getRegions()) {
+      if (prQ.getDataStore() == null) {
+        continue;
+      }
+      for (BucketRegion br : prQ.getDataStore().getAllLocalPrimaryBucketRegions()) {
+        Integer size = bucketSizes.get(br.getId());
+        bucketSizes.put(br.getId(), size == null ? br.size() : size + br.size());
+      }
+    }
+    int[] handoff = chooseHandoff(bucketSizes);
+    if (handoff != null) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Handing bucket {} with {} queued events to dispatcher {}", handoff[0],
+            bucketSizes.get(handoff[0]), handoff[1]);
+      }
+      handOff(handoff[0], handoff[1]);
+    }
+  }
+
+  /**
+   * Stops the current dispatcher of the given bucket from peeking its events, and hands the bucket
+   * to the given dispatcher once the current dispatcher calls {@link #completeHandoffs}.
+   */
+  void handOff(int bucketId, int index) {
+    this.handoffs.put(bucketId, index);
+  }
+
+  /**
+   * Chooses the bucket to hand from the dispatcher with the largest backlog to the one with the
+   * smallest backlog, given the number of events queued in each local primary bucket. The largest
+   * bucket whose move reduces the difference between the two is chosen.
+   *
+   * @return the bucket id and the index of the dispatcher to hand it to, or null if the dispatchers
+   *         are balanced
+   */
+  int[] chooseHandoff(Map<Integer, Integer> bucketSizes) {
+    long[] backlogs = new long[this.nDispatcher];
+    for (Map.Entry<Integer, Integer> bucketSize : bucketSizes.entrySet()) {
+      backlogs[getDispatcher(bucketSize.getKey())] += bucketSize.getValue();
+    }
+    int behind = 0;
+    int ahead = 0;
+    for (int i = 1; i < this.nDispatcher; i++) {
+      if (backlogs[i] > backlogs[behind]) {
+        behind = i;
+      }
+      if (backlogs[i] < backlogs[ahead]) {
+        ahead = i;
+      }
+    }
+    long difference = backlogs[behind] - backlogs[ahead];
+    if (difference <= this.threshold) {
+      return null;
+    }
+    int bucketToMove = -1;
+    int sizeToMove = 0;
+    for (Map.Entry<Integer, Integer> bucketSize : bucketSizes.entrySet()) {
+      int size = bucketSize.getValue();
+      if (size > sizeToMove && size < difference
+          && getDispatcher(bucketSize.getKey()) == behind) {
+        bucketToMove = bucketSize.getKey();
+        sizeToMove = size;
+      }
+    }
+    return bucketToMove == -1 ? null : new int[] {bucketToMove, ahead};
+  }
+}
@@ -50,8 +50,10 @@ import org.apache.geode.internal.logging.log4j.LocalizedMessage;
 /**
  * Parallel processor which constitutes of multiple {@link ParallelGatewaySenderEventProcessor}.
  * Each of the {@link ParallelGatewaySenderEventProcessor} is responsible of dispatching events from
- * a set of shadowPR or buckets. Once the buckets/shadowPRs are assigned to a processor it should
- * not change to avoid any event ordering issue.
+ * a set of shadowPR or buckets. The {@link BucketDispatcherAssignment} decides which processor
+ * dispatches the events of a bucket. A bucket only moves to another processor once the events of
+ * the bucket peeked by its current processor have been acknowledged, to avoid any event ordering
+ * issue.
  *
  * The {@link ParallelGatewaySenderQueue} should be shared among all the
  * {@link ParallelGatewaySenderEventProcessor}s.
@@ -101,6 +103,13 @@ public class ConcurrentParallelGatewaySenderEventProcessor
 
     createProcessors(sender.getDispatcherThreads(), targetRs);
 
+    BucketDispatcherAssignment bucketAssignment = new BucketDispatcherAssignment(
+        this.processors.length, sender.getBatchSize(), sender.getStatistics());
+    for (ParallelGatewaySenderEventProcessor parallelProcessor : this.processors) {
+      ((ParallelGatewaySenderQueue) parallelProcessor.getQueue())
+          .setBucketAssignment(bucketAssignment);
+    }
+
     // this.queue = parallelQueue;
     this.queue = new ConcurrentParallelGatewaySenderQueue(sender, this.processors);
     setDaemon(true);
@@ -226,6 +226,12 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
 
   private MetaRegionFactory metaRegionFactory;
 
+  /**
+   * The assignment of buckets to the dispatchers sharing this queue's shadow PRs, or null if this
+   * queue's dispatcher is the only one
+   */
+  private BucketDispatcherAssignment bucketAssignment;
+
   public ParallelGatewaySenderQueue(AbstractGatewaySender sender, Set<Region> userRegions, int idx,
       int nDispatcher) {
     this(sender, userRegions, idx, nDispatcher, new MetaRegionFactory());
@@ -791,11 +797,44 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
         }
       }
     } finally {
-      notifyEventProcessorIfRequired();
+      notifyEventProcessorIfRequired(bucketId);
     }
     return putDone;
   }
 
+  void setBucketAssignment(BucketDispatcherAssignment bucketAssignment) {
+    this.bucketAssignment = bucketAssignment;
+    bucketAssignment.setQueue(this.index, this);
+  }
+
+  /**
+   * Returns whether this queue's dispatcher may peek events from the given bucket
+   */
+  private boolean isPeekableBucket(int bucketId) {
+    if (this.bucketAssignment != null) {
+      return this.bucketAssignment.isPeekable(bucketId, this.index);
+    }
+    return bucketId % this.nDispatcher == this.index;
+  }
+
+  private boolean isAssignedBucket(int bucketId) {
+    if (this.bucketAssignment != null) {
+      return this.bucketAssignment.getDispatcher(bucketId) == this.index;
+    }
+    return bucketId % this.nDispatcher == this.index;
+  }
+
+  /**
+   * Wakes up this queue's dispatcher and, if the given bucket has been handed to another
+   * dispatcher, that dispatcher as well.
+   */
+  public void notifyEventProcessorIfRequired(int bucketId) {
+    notifyEventProcessorIfRequired();
+    if (this.bucketAssignment != null && !isAssignedBucket(bucketId)) {
+      this.bucketAssignment.notifyDispatcher(bucketId);
+    }
+  }
+
   public void notifyEventProcessorIfRequired() {
     // putter thread should not take lock every time
     if (isQueueEmpty) {
@@ -924,7 +963,7 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
         BucketRegion bucket = bucketEntry.getValue();
         if (bucket.getBucketAdvisor().isPrimary()) {
           int bId = bucket.getId();
-          if (bId % this.nDispatcher == this.index) {
+          if (isPeekableBucket(bId)) {
             thisProcessorBuckets.add(bId);
           }
         }
@@ -1174,6 +1213,11 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
       return batch;
     }
 
+    if (this.bucketAssignment != null) {
+      this.bucketAssignment.completeHandoffs(this.index, this.peekedEvents);
+      this.bucketAssignment.rebalanceIfRequired();
+    }
+
     long start = System.currentTimeMillis();
     long end = start + timeToWait;
 
@@ -1398,7 +1442,7 @@ public class ParallelGatewaySenderQueue implements RegionQueue {
             ((PartitionedRegion) prQ.getRegion()).getDataStore().getAllLocalPrimaryBucketRegions();
 
         for (BucketRegion br : primaryBuckets) {
-          if (br.getId() % this.nDispatcher == this.index)
+          if (isAssignedBucket(br.getId()))
             size += br.size();
         }
       }
@@ -292,7 +292,7 @@ public class MsgStreamer extends OutputStream
   public void realFlush(boolean lastFlushForMessage) {
     if (isOverflowMode()) {
       if (this.overflowBuf == null) {
-        this.overflowBuf = new HeapDataOutputStream(
+        this.overflowBuf = new PooledHeapDataOutputStream(
             this.buffer.capacity() - Connection.MSG_HEADER_BYTES, Version.CURRENT);
       }
       return;
@@ -906,7 +906,7 @@ public class MsgStreamer extends OutputStream
       if (remainingSpace < 5) {
         // we don't even have room to write the length field so just create
         // the overflowBuf
-        this.overflowBuf = new HeapDataOutputStream(
+        this.overflowBuf = new PooledHeapDataOutputStream(
             this.buffer.capacity() - Connection.MSG_HEADER_BYTES, Version.CURRENT);
         this.overflowBuf.writeAsSerializedByteArray(v);
         return;
@@ -942,6 +942,7 @@ public class MsgStreamer extends OutputStream
       finished = true;
       if (overBuf != null && !isOverflowMode()) {
         overBuf.sendTo((ByteBufferWriter) this);
+        overBuf.close();
       }
     } finally {
       if (!finished) {
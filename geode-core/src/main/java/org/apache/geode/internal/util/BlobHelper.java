@@ -22,6 +22,7 @@ import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.internal.ByteArrayDataInput;
 import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.PooledHeapDataOutputStream;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.internal.offheap.annotations.Unretained;
@@ -35,6 +36,12 @@ import org.apache.geode.pdx.internal.PdxInputStream;
  */
 public class BlobHelper {
 
+  /**
+   * An idle {@link ByteArrayDataInput} that the current thread can reuse for deserializing a blob.
+   * It is removed while in use so that a nested call to deserializeBlob gets its own instance.
+   */
+  private static final ThreadLocal<ByteArrayDataInput> idleDataInput = new ThreadLocal<>();
+
   /**
    * A blob is a serialized Object. This method serializes the object into a blob and returns the
    * byte array that contains the blob.
@@ -49,9 +56,11 @@ public class BlobHelper {
    */
   public static byte[] serializeToBlob(Object obj, Version version) throws IOException {
     final long start = startSerialization();
-    HeapDataOutputStream hdos = new HeapDataOutputStream(version);
-    DataSerializer.writeObject(obj, hdos);
-    byte[] result = hdos.toByteArray();
+    byte[] result;
+    try (HeapDataOutputStream hdos = new PooledHeapDataOutputStream(version)) {
+      DataSerializer.writeObject(obj, hdos);
+      result = hdos.toByteArray();
+    }
     endSerialization(start, result.length);
     return result;
   }
@@ -92,11 +101,24 @@ public class BlobHelper {
       // if we have a nested pdx then we want to make a copy
       // when a PdxInstance is created so that the byte[] will
       // just have the pdx bytes and not the outer objects bytes.
-      if (in == null) {
-        in = new ByteArrayDataInput();
+      if (in != null) {
+        in.initialize(blob, version);
+        result = DataSerializer.readObject(in);
+      } else {
+        in = idleDataInput.get();
+        if (in == null) {
+          in = new ByteArrayDataInput();
+        } else {
+          idleDataInput.set(null);
+        }
+        in.initialize(blob, version);
+        try {
+          result = DataSerializer.readObject(in);
+        } finally {
+          in.release();
+          idleDataInput.set(in);
+        }
       }
-      in.initialize(blob, version);
-      result = DataSerializer.readObject(in);
     }
     endDeserialization(start, blob.length);
     return result;
@@ -20,9 +20,12 @@ import org.apache.geode.internal.Assert;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 /**
- * This class is a "stoppable" cover for {@link CountDownLatch}.
+ * This class is a "stoppable" cover for {@link CountDownLatch}. It implements the latch directly on
+ * {@link AbstractQueuedSynchronizer} instead of wrapping a {@link CountDownLatch} because one of
+ * these is created for every reply processor.
  */
 public class StoppableCountDownLatch {
 
@@ -36,7 +39,7 @@ public class StoppableCountDownLatch {
   /**
    * The underlying latch
    */
-  private final CountDownLatch latch;
+  private final Sync latch;
 
   /**
    * The cancellation criterion
@@ -51,7 +54,10 @@ public class StoppableCountDownLatch {
    */
   public StoppableCountDownLatch(CancelCriterion stopper, int count) {
     Assert.assertTrue(stopper != null);
-    this.latch = new CountDownLatch(count);
+    if (count < 0) {
+      throw new IllegalArgumentException("count < 0");
+    }
+    this.latch = new Sync(count);
     this.stopper = stopper;
   }
 
@@ -61,7 +67,7 @@ public class StoppableCountDownLatch {
   public void await() throws InterruptedException {
     for (;;) {
       stopper.checkCancelInProgress(null);
-      if (latch.await(RETRY_TIME, TimeUnit.MILLISECONDS)) {
+      if (latch.tryAcquireSharedNanos(1, TimeUnit.MILLISECONDS.toNanos(RETRY_TIME))) {
         break;
       }
     }
@@ -74,16 +80,16 @@ public class StoppableCountDownLatch {
    */
   public boolean await(long msTimeout) throws InterruptedException {
     stopper.checkCancelInProgress(null);
-    return latch.await(msTimeout, TimeUnit.MILLISECONDS);
+    return latch.tryAcquireSharedNanos(1, TimeUnit.MILLISECONDS.toNanos(msTimeout));
   }
 
   public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
     stopper.checkCancelInProgress(null);
-    return latch.await(timeout, unit);
+    return latch.tryAcquireSharedNanos(1, unit.toNanos(timeout));
   }
 
-  public synchronized void countDown() {
-    latch.countDown();
+  public void countDown() {
+    latch.releaseShared(1);
   }
 
   /**
@@ -98,6 +104,42 @@ public class StoppableCountDownLatch {
    */
   @Override
   public String toString() {
-    return "(Stoppable) " + latch.toString();
+    return "(Stoppable) " + super.toString() + "[Count = " + latch.getCount() + "]";
+  }
+
+  /**
+   * Synchronization control for the latch, the same as the one used by {@link CountDownLatch}. Uses
+   * AQS state to represent the count.
+   */
+  private static final class Sync extends AbstractQueuedSynchronizer {
+    private static final long serialVersionUID = 8358004117036826384L;
+
+    Sync(int count) {
+      setState(count);
+    }
+
+    int getCount() {
+      return getState();
+    }
+
+    @Override
+    protected int tryAcquireShared(int acquires) {
+      return (getState() == 0) ? 1 : -1;
+    }
+
+    @Override
+    protected boolean tryReleaseShared(int releases) {
+      // Decrement count; signal when transition to zero
+      for (;;) {
+        int c = getState();
+        if (c == 0) {
+          return false;
+        }
+        int nextc = c - 1;
+        if (compareAndSetState(c, nextc)) {
+          return nextc == 0;
+        }
+      }
+    }
   }
 }
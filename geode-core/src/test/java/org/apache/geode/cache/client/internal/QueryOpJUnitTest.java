@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.cache.query.types.CollectionType;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class QueryOpJUnitTest {
+
+  private ExecutablePool pool;
+  private Connection connection;
+  private ChunkedMessage response;
+  private Part resultPart;
+
+  @Before
+  public void setUp() throws Exception {
+    CollectionType collectionType = new CollectionTypeImpl(List.class, TypeUtils.OBJECT_TYPE);
+    Part collectionTypePart = mock(Part.class);
+    when(collectionTypePart.getObject()).thenReturn(collectionType);
+    resultPart = mock(Part.class);
+    when(resultPart.getObject()).thenReturn(new Object[] {1, 2}, new Object[] {3, 4},
+        new Object[] {5});
+
+    response = mock(ChunkedMessage.class);
+    when(response.getMessageType()).thenReturn(MessageType.RESPONSE);
+    when(response.isLastChunk()).thenReturn(false, false, true);
+    when(response.getPart(0)).thenReturn(collectionTypePart);
+    when(response.getPart(1)).thenReturn(resultPart);
+
+    connection = mock(Connection.class);
+    pool = mock(ExecutablePool.class);
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> ((AbstractOp) invocation
+        .getArguments()[0]).processResponse(response, connection));
+    when(pool.execute(any(Op.class))).thenAnswer(invocation -> ((AbstractOp) invocation
+        .getArguments()[0]).processResponse(response, connection));
+  }
+
+  @Test
+  public void queryCollectsTheResultsOfAllChunks() throws Exception {
+    SelectResults results = QueryOp.execute(pool, "select * from /region", null);
+
+    assertThat(results).containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+    verify(response, times(3)).receiveChunk();
+  }
+
+  @Test
+  public void queryReadsTheRemainingChunksAfterAnExceptionChunk() throws Exception {
+    when(resultPart.getObject()).thenReturn(new Object[] {1, 2},
+        new IllegalStateException("failed"), new Object[] {5});
+
+    assertThatThrownBy(() -> QueryOp.execute(pool, "select * from /region", null))
+        .isInstanceOf(ServerOperationException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+    verify(response, times(3)).receiveChunk();
+    verify(resultPart, times(2)).getObject();
+    verify(connection, never()).destroy();
+  }
+
+  @Test
+  public void streamingQueryPassesEachChunkToHandler() throws Exception {
+    List<List<Object>> chunks = new ArrayList<>();
+
+    QueryOp.execute(pool, "select * from /region", null, (collectionType, results) -> {
+      chunks.add(results);
+      return true;
+    });
+
+    assertThat(chunks).hasSize(3);
+    assertThat(chunks.get(0)).containsExactly(1, 2);
+    assertThat(chunks.get(1)).containsExactly(3, 4);
+    assertThat(chunks.get(2)).containsExactly(5);
+    verify(connection, never()).destroy();
+  }
+
+  @Test
+  public void streamingQueryClosesConnectionWhenHandlerStopsEarly() throws Exception {
+    List<List<Object>> chunks = new ArrayList<>();
+
+    QueryOp.execute(pool, "select * from /region", null, (collectionType, results) -> {
+      chunks.add(results);
+      return false;
+    });
+
+    assertThat(chunks).hasSize(1);
+    verify(response, times(1)).receiveChunk();
+    verify(resultPart, times(1)).getObject();
+    verify(connection).destroy();
+  }
+
+  @Test
+  public void streamingQueryKeepsConnectionWhenHandlerStopsAtLastChunk() throws Exception {
+    List<List<Object>> chunks = new ArrayList<>();
+
+    QueryOp.execute(pool, "select * from /region", null, (collectionType, results) -> {
+      chunks.add(results);
+      return chunks.size() < 3;
+    });
+
+    assertThat(chunks).hasSize(3);
+    verify(connection, never()).destroy();
+  }
+}
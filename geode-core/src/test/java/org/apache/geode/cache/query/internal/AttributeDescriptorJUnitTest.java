@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.query.NameNotFoundException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AttributeDescriptorJUnitTest {
+
+  @Test
+  public void readsFieldsGettersAndMethods() throws Exception {
+    Item item = new Item(7);
+
+    assertThat(new AttributeDescriptor("id").read(item)).isEqualTo(7);
+    assertThat(new AttributeDescriptor("status").read(item)).isEqualTo("active");
+    assertThat(new AttributeDescriptor("name").read(item)).isEqualTo("item7");
+    assertThat(new AttributeDescriptor("count").read(item)).isEqualTo(1);
+  }
+
+  @Test
+  public void readsTargetsOfDifferentClasses() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor("status");
+
+    assertThat(descriptor.read(new Item(1))).isEqualTo("active");
+    assertThat(descriptor.read(new OtherItem())).isEqualTo("other");
+    assertThat(descriptor.read(new Item(2))).isEqualTo("active");
+    assertThatThrownBy(() -> descriptor.read("string"))
+        .isInstanceOf(NameNotFoundException.class);
+  }
+
+  @Test
+  public void exceptionsOfGettersAreWrapped() throws Exception {
+    assertThat(new AttributeDescriptor("destroyed").read(new Item(1)))
+        .isSameAs(QueryService.UNDEFINED);
+    assertThatThrownBy(() -> new AttributeDescriptor("failing").read(new Item(1)))
+        .isInstanceOf(QueryInvocationTargetException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void methodDispatchInvokesMethodsWithAndWithoutArguments() throws Exception {
+    MethodDispatch noArgs = new MethodDispatch(Item.class, "getName", Collections.emptyList());
+    MethodDispatch withArgs = new MethodDispatch(Item.class, "plus",
+        Collections.singletonList((Object) Integer.class));
+
+    assertThat(noArgs.invoke(new Item(3), Collections.emptyList())).isEqualTo("item3");
+    assertThat(withArgs.invoke(new Item(3), Collections.singletonList(4))).isEqualTo(7);
+  }
+
+  public static class Item {
+    public final int id;
+    private final String name;
+
+    public static int count = 1;
+
+    Item(int id) {
+      this.id = id;
+      this.name = "item" + id;
+    }
+
+    public String getStatus() {
+      return "active";
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int plus(int other) {
+      return id + other;
+    }
+
+    public Object getDestroyed() {
+      throw new EntryDestroyedException();
+    }
+
+    public Object getFailing() {
+      throw new IllegalStateException();
+    }
+  }
+
+  public static class OtherItem {
+    public String getStatus() {
+      return "other";
+    }
+  }
+}
@@ -14,10 +14,13 @@
  */
 package org.apache.geode.cache.query.internal;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Iterator;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,9 +28,12 @@ import org.junit.experimental.categories.Category;
 
 import org.apache.geode.cache.AttributesFactory;
 import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
 import org.apache.geode.cache.query.CacheUtils;
 import org.apache.geode.cache.query.QueryInvalidException;
 import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.data.Portfolio;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.test.junit.categories.IntegrationTest;
@@ -141,6 +147,56 @@ public class CompiledGroupBySelectJUnitTest {
     }
   }
 
+  @Test
+  public void testGroupsAggregatedWhileScanningLocalRegion() throws Exception {
+    for (int i = 0; i < 600; i++) {
+      this.rgn.put(i, new Portfolio(i));
+    }
+    assertGroupAggregates("/portfolio");
+  }
+
+  @Test
+  public void testGroupsAggregatedWhileScanningBucketsOfPartitionedRegion() throws Exception {
+    Region pr =
+        CacheUtils.getCache().createRegionFactory(RegionShortcut.PARTITION).create("portfolioPR");
+    for (int i = 0; i < 600; i++) {
+      pr.put(i, new Portfolio(i));
+    }
+    assertGroupAggregates("/portfolioPR");
+  }
+
+  private void assertGroupAggregates(String regionPath) throws Exception {
+    String queryStr = "select p.status, p.\"type\", count(*), sum(p.ID), max(p.ID), avg(p.ID) "
+        + "from " + regionPath + " p where p.ID >= 100 group by p.status, p.\"type\" "
+        + "order by p.\"type\" desc";
+    QueryService qs = CacheUtils.getQueryService();
+    SelectResults results = (SelectResults) qs.newQuery(queryStr).execute();
+
+    assertEquals(6, results.size());
+    Iterator iter = results.iterator();
+    for (int type = 2; type >= 0; type--) {
+      for (int odd = 0; odd < 2; odd++) {
+        Object[] row = ((Struct) iter.next()).getFieldValues();
+        long count = 0;
+        long sum = 0;
+        int max = 0;
+        for (int id = 100; id < 600; id++) {
+          if (id % 3 == type && id % 2 == odd) {
+            count++;
+            sum += id;
+            max = id;
+          }
+        }
+        assertEquals(odd == 0 ? "active" : "inactive", row[0]);
+        assertEquals("type" + type, row[1]);
+        assertEquals(count, ((Number) row[2]).longValue());
+        assertEquals(sum, ((Number) row[3]).longValue());
+        assertEquals(max, ((Number) row[4]).intValue());
+        assertEquals((double) sum / count, ((Number) row[5]).doubleValue(), 0.001);
+      }
+    }
+  }
+
   @Test
   public void testUnsupportedQuery() throws Exception {
     String queryStr = "select count(*)  from /portfolio pf where pf.ID > 0  group by pf.shortID";
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CompiledQueryCacheJUnitTest {
+
+  private QueryService qs;
+
+  @Before
+  public void setUp() throws Exception {
+    DefaultQueryService.TEST_COMPILED_QUERY_CACHE_SIZE = 10;
+    CacheUtils.startCache();
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+    qs = CacheUtils.getQueryService();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    DefaultQueryService.TEST_COMPILED_QUERY_CACHE_SIZE = -1;
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void queriesOnTheSameStringShareTheirCompiledForm() throws Exception {
+    String queryString =
+        "select distinct p.ID from /portfolios p where p.status = $1 order by p.ID desc";
+    DefaultQuery query1 = (DefaultQuery) qs.newQuery(queryString);
+    DefaultQuery query2 = (DefaultQuery) qs.newQuery(queryString);
+
+    assertThat(query1).isNotSameAs(query2);
+    assertThat(query1.getSimpleSelect()).isSameAs(query2.getSimpleSelect());
+    SelectResults active = (SelectResults) query1.execute(new Object[] {"active"});
+    SelectResults inactive = (SelectResults) query2.execute(new Object[] {"inactive"});
+    assertThat(active.asList()).hasSize(50).startsWith(98);
+    assertThat(inactive.asList()).hasSize(50).startsWith(99);
+    assertThat(query1.getStatistics().getNumExecutions()).isEqualTo(1);
+  }
+
+  @Test
+  public void queriesDifferingOnlyInWhitespaceShareTheirCompiledForm() throws Exception {
+    CachePerfStats stats = ((InternalCache) CacheUtils.getCache()).getCachePerfStats();
+    int hits = stats.getQueryPlanCacheHits();
+    DefaultQuery query1 =
+        (DefaultQuery) qs.newQuery("select * from /portfolios p where p.status = 'active'");
+    DefaultQuery query2 = (DefaultQuery) qs
+        .newQuery("  select *\n  from /portfolios p\n  where p.status = 'active'  ");
+    DefaultQuery query3 =
+        (DefaultQuery) qs.newQuery("select * from /portfolios p where p.status = 'active '");
+
+    assertThat(query1.getSimpleSelect()).isSameAs(query2.getSimpleSelect());
+    assertThat(query1.getSimpleSelect()).isNotSameAs(query3.getSimpleSelect());
+    assertThat(stats.getQueryPlanCacheHits()).isEqualTo(hits + 1);
+    assertThat(((SelectResults) query3.execute()).size()).isEqualTo(0);
+  }
+
+  @Test
+  public void normalizingKeepsWhitespaceInQuotes() {
+    assertThat(DefaultQueryService
+        .normalizeQueryString(" select\t\"type\"  from /r where a = ' x  y''s  ' "))
+            .isEqualTo("select \"type\" from /r where a = ' x  y''s  '");
+  }
+
+  @Test
+  public void countQueriesAreNotShared() throws Exception {
+    String queryString = "select count(*) from /portfolios p";
+    DefaultQuery query1 = (DefaultQuery) qs.newQuery(queryString);
+    DefaultQuery query2 = (DefaultQuery) qs.newQuery(queryString);
+
+    assertThat(query1.getSimpleSelect()).isNotSameAs(query2.getSimpleSelect());
+    assertThat(((SelectResults) query2.execute()).asList()).containsExactly(100);
+  }
+
+  @Test
+  public void sharedCompiledFormIsTransformedBeforeItIsShared() throws Exception {
+    DefaultQuery query = (DefaultQuery) qs.newQuery("select * from /portfolios p where p.ID > 10");
+
+    assertThat(query.getSimpleSelect().transformationDone).isTrue();
+  }
+
+  @Test
+  public void leastRecentlyUsedQueryIsEvicted() throws Exception {
+    CompiledQueryCache compiledQueries =
+        ((InternalCache) CacheUtils.getCache()).getCompiledQueryCache();
+    DefaultQuery first = (DefaultQuery) qs.newQuery("select * from /portfolios p where p.ID = 0");
+    DefaultQuery second = (DefaultQuery) qs.newQuery("select * from /portfolios p where p.ID = 1");
+    for (int i = 2; i < 11; i++) {
+      qs.newQuery("select * from /portfolios p where p.ID = " + i);
+      // keeps the first query the most recently used
+      qs.newQuery("select * from /portfolios p where p.ID = 0");
+    }
+
+    assertThat(compiledQueries.size()).isEqualTo(10);
+    assertThat(compiledQueries.get("select * from /portfolios p where p.ID = 0")).isSameAs(first);
+    assertThat(compiledQueries.get("select * from /portfolios p where p.ID = 1")).isNull();
+    assertThat(((DefaultQuery) qs.newQuery("select * from /portfolios p where p.ID = 1"))
+        .getSimpleSelect()).isNotSameAs(second.getSimpleSelect());
+  }
+
+  @Test
+  public void closingTheCacheClearsItsCompiledQueries() throws Exception {
+    InternalCache cache = (InternalCache) CacheUtils.getCache();
+    qs.newQuery("select * from /portfolios p");
+    assertThat(cache.getCompiledQueryCache().size()).isEqualTo(1);
+
+    CacheUtils.closeCache();
+
+    assertThat(cache.getCompiledQueryCache().size()).isEqualTo(0);
+  }
+}
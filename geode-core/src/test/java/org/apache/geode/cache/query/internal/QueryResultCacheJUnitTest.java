@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class QueryResultCacheJUnitTest {
+
+  private static final String QUERY = "select * from /portfolios p where p.ID < $1";
+
+  private QueryService qs;
+
+  private CachePerfStats stats;
+
+  @Before
+  public void setUp() throws Exception {
+    QueryResultCache.TEST_RESULT_CACHE_SIZE = 10;
+    QueryObserverHolder.reset();
+    CacheUtils.startCache();
+    qs = CacheUtils.getQueryService();
+    stats = ((InternalCache) CacheUtils.getCache()).getCachePerfStats();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    QueryResultCache.TEST_RESULT_CACHE_SIZE = -1;
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void repeatedQueryWithTheSameParametersReturnsCachedResults() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+
+    SelectResults first = execute(QUERY, 10);
+    SelectResults second = execute(QUERY, 10);
+    SelectResults other = execute(QUERY, 20);
+
+    assertThat(second.asList()).hasSize(10).containsOnlyElementsOf(first.asList());
+    assertThat(other.size()).isEqualTo(20);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(1);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void changesToTheRegionInvalidateCachedResults() throws Exception {
+    Region region = createAndPopulateRegion(RegionShortcut.REPLICATE);
+    qs.createIndex("idIndex", "p.ID", "/portfolios p");
+    assertThat(execute(QUERY, 10).size()).isEqualTo(10);
+
+    region.put("100", new Portfolio(5));
+    assertThat(execute(QUERY, 10).size()).isEqualTo(11);
+
+    region.destroy("1");
+    assertThat(execute(QUERY, 10).size()).isEqualTo(10);
+
+    region.invalidate("2");
+    assertThat(execute(QUERY, 10).size()).isEqualTo(9);
+
+    region.clear();
+    assertThat(execute(QUERY, 10).size()).isEqualTo(0);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+  }
+
+  @Test
+  public void queriesOnPartitionedRegionsAreNotCached() throws Exception {
+    createAndPopulateRegion(RegionShortcut.PARTITION);
+
+    execute(QUERY, 10);
+    assertThat(execute(QUERY, 10).size()).isEqualTo(10);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void queriesAreNotCachedWhenDisabled() throws Exception {
+    QueryResultCache.TEST_RESULT_CACHE_SIZE = 0;
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+
+    execute(QUERY, 10);
+    assertThat(execute(QUERY, 10).size()).isEqualTo(10);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void cachedResultsCannotBeModified() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+
+    SelectResults first = execute(QUERY, 10);
+    SelectResults second = execute(QUERY, 10);
+
+    assertThatThrownBy(() -> first.clear()).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> second.remove(second.iterator().next()))
+        .isInstanceOf(UnsupportedOperationException.class);
+    second.asList().clear();
+    assertThat(execute(QUERY, 10).size()).isEqualTo(10);
+  }
+
+  @Test
+  public void queriesWithMutableParametersAreNotCached() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+    String queryString = "select * from /portfolios p where p.createDate < $1";
+
+    execute(queryString, new Date());
+    execute(queryString, new Date());
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void remoteAndLocalExecutionsDoNotShareResults() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+
+    execute(QUERY, 10);
+    DefaultQuery remoteQuery = (DefaultQuery) qs.newQuery(QUERY);
+    remoteQuery.setRemoteQuery(true);
+    remoteQuery.execute(new Object[] {10});
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void leastRecentlyUsedResultIsEvicted() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+    QueryResultCache resultCache = ((InternalCache) CacheUtils.getCache()).getQueryResultCache();
+
+    for (int i = 1; i <= 11; i++) {
+      execute(QUERY, i);
+      // keeps the first result the most recently used
+      execute(QUERY, 1);
+    }
+
+    assertThat(resultCache.size()).isEqualTo(10);
+    execute(QUERY, 2);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(11);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(12);
+  }
+
+  @Test
+  public void closingTheCacheClearsItsResults() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+    QueryResultCache resultCache = ((InternalCache) CacheUtils.getCache()).getQueryResultCache();
+    execute(QUERY, 10);
+    assertThat(resultCache.size()).isEqualTo(1);
+
+    CacheUtils.closeCache();
+
+    assertThat(resultCache.size()).isEqualTo(0);
+  }
+
+  private Region createAndPopulateRegion(RegionShortcut shortcut) {
+    Region region = CacheUtils.getCache().createRegionFactory(shortcut).create("portfolios");
+    for (int i = 0; i < 100; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+    return region;
+  }
+
+  private SelectResults execute(String queryString, Object... params) throws Exception {
+    return (SelectResults) qs.newQuery(queryString).execute(params);
+  }
+}
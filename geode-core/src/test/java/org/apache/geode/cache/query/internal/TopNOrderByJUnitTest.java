@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class TopNOrderByJUnitTest {
+
+  private static final Comparator<Integer> NATURAL_ORDER = Comparator.naturalOrder();
+
+  @After
+  public void tearDown() throws Exception {
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void boundedBagKeepsTheFirstElementsIncludingDuplicates() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(NATURAL_ORDER, true);
+    bag.setTopN(4);
+    for (int i : new int[] {7, 3, 9, 3, 1, 8, 3, 2}) {
+      bag.add(i);
+    }
+
+    assertThat(bag.size()).isEqualTo(4);
+    assertThat(bag.asList()).containsExactly(1, 2, 3, 3);
+  }
+
+  @Test
+  public void boundedBagDiscardsNullsFirstWhenTheySortLast() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(NATURAL_ORDER.reversed(), false);
+    bag.setTopN(2);
+    bag.add(null);
+    bag.add(1);
+    bag.add(null);
+    bag.add(2);
+
+    assertThat(bag.asList()).containsExactly(2, 1);
+  }
+
+  @Test
+  public void boundedBagKeepsNullsWhenTheySortFirst() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(NATURAL_ORDER, true);
+    bag.setTopN(2);
+    bag.add(1);
+    bag.add(null);
+    bag.add(2);
+    bag.add(null);
+
+    assertThat(bag.asList()).containsExactly(null, null);
+  }
+
+  @Test
+  public void boundedSetKeepsTheFirstDistinctElements() {
+    SortedResultSet set = new SortedResultSet(NATURAL_ORDER);
+    set.setTopN(3);
+    for (int i : new int[] {5, 4, 4, 6, 1, 1, 2}) {
+      set.add(i);
+    }
+
+    assertThat(set.asList()).containsExactly(1, 2, 4);
+  }
+
+  @Test
+  public void limitedOrderByQueriesOnReplicatedRegionReturnTheFirstRows() throws Exception {
+    createAndPopulateRegion(RegionShortcut.REPLICATE);
+    assertLimitedQueriesReturnFirstRows();
+    assertLimitedQueryReturnsFirstRows(
+        "select p.pkid from /portfolios p where p.ID > 10 order by p.ID desc, p.pkid");
+  }
+
+  @Test
+  public void limitedOrderByQueriesOnPartitionedRegionReturnTheFirstRows() throws Exception {
+    createAndPopulateRegion(RegionShortcut.PARTITION);
+    assertLimitedQueriesReturnFirstRows();
+  }
+
+  private void createAndPopulateRegion(RegionShortcut shortcut) {
+    CacheUtils.startCache();
+    Region region = CacheUtils.getCache().createRegionFactory(shortcut).create("portfolios");
+    for (int i = 0; i < 200; i++) {
+      region.put("" + i, new Portfolio(i % 50));
+    }
+  }
+
+  private void assertLimitedQueriesReturnFirstRows() throws Exception {
+    String[] queries = {"select * from /portfolios p order by p.ID desc",
+        "select p.ID, p.status from /portfolios p order by p.ID",
+        "select distinct p.ID from /portfolios p order by p.ID desc",
+        "select distinct p.ID, p.status from /portfolios p order by p.status, p.ID desc",
+        "select p.ID, p.pkid from /portfolios p where p.ID > 10 order by p.ID desc, p.pkid"};
+    for (String query : queries) {
+      assertLimitedQueryReturnsFirstRows(query);
+    }
+  }
+
+  private void assertLimitedQueryReturnsFirstRows(String query) throws Exception {
+    List all = execute(query).asList();
+    List limited = execute(query + " limit 15").asList();
+    assertThat(limited).as(query).hasSize(15).isEqualTo(all.subList(0, 15));
+  }
+
+  private SelectResults execute(String queryString) throws Exception {
+    QueryService qs = CacheUtils.getQueryService();
+    return (SelectResults) qs.newQuery(queryString).execute();
+  }
+}
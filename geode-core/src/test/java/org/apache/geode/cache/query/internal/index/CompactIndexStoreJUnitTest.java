@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactIndexStoreJUnitTest {
+
+  private static final int NUM_ENTRIES = 1000;
+
+  private GemFireCacheImpl actualInstance;
+  private CompactIndexStore store;
+
+  @Before
+  public void setUp() {
+    Region region = mock(LocalRegion.class);
+    actualInstance = GemFireCacheImpl.setInstanceForTests(mock(GemFireCacheImpl.class));
+    store = new CompactIndexStore(region, mock(InternalIndexStatistics.class));
+    store.setIndexOnValues(true);
+  }
+
+  @After
+  public void tearDown() {
+    GemFireCacheImpl.setInstanceForTests(actualInstance);
+  }
+
+  @Test
+  public void rangesAreIteratedInKeyOrder() throws Exception {
+    // enough mappings for the buffer to be merged several times
+    for (int i = NUM_ENTRIES - 1; i >= 0; i--) {
+      store.addMapping(i % 100, createRegionEntry(i));
+    }
+
+    assertThat(store.size()).isEqualTo(100);
+    assertThat(store.size(42)).isEqualTo(10);
+    assertThat(keys(store.iterator(10, true, 20, false, null))).hasSize(100).isSorted()
+        .containsOnlyElementsOf(range(10, 20));
+    assertThat(keys(store.iterator(95, false, null))).hasSize(40).isSorted();
+    assertThat(keys(store.iterator(null, true, 5, true, null))).hasSize(60);
+    List<Object> descending = keys(store.descendingIterator(null));
+    assertThat(descending).hasSize(NUM_ENTRIES).startsWith(99).endsWith(0);
+    Collections.reverse(descending);
+    assertThat(descending).isSorted();
+  }
+
+  @Test
+  public void updatesAreSeenBeforeAndAfterMerge() throws Exception {
+    RegionEntry[] entries = new RegionEntry[NUM_ENTRIES];
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      entries[i] = createRegionEntry(i);
+      store.addMapping(i, entries[i]);
+    }
+    store.removeMapping(1, entries[1]);
+    store.updateMapping(2000, 2, entries[2], null);
+
+    assertThat(keys(store.get(1))).isEmpty();
+    assertThat(keys(store.get(2))).isEmpty();
+    assertThat(regionKeys(store.get(2000))).containsExactly(2);
+    assertThat(keys(store.iterator(null, true, 5, false, null))).containsExactly(0, 3, 4);
+
+    for (int i = 10; i < NUM_ENTRIES; i++) {
+      store.removeMapping(i, entries[i]);
+    }
+
+    assertThat(store.size()).isEqualTo(9);
+    assertThat(keys(store.iterator(null))).containsExactly(0, 3, 4, 5, 6, 7, 8, 9, 2000);
+  }
+
+  @Test
+  public void removeFindsEntryProvidedTheWrongKey() throws Exception {
+    RegionEntry entry1 = createRegionEntry(1);
+    RegionEntry entry2 = createRegionEntry(2);
+    store.addMapping("1", entry1);
+    store.addMapping("2", entry2);
+
+    store.removeMapping("1", entry2);
+
+    assertThat(regionKeys(store.iterator(null))).containsExactly(1);
+  }
+
+  @Test
+  public void nullAndUndefinedKeysAreOnlyReturnedByGet() throws Exception {
+    store.addMapping(1, createRegionEntry(1));
+    store.addMapping(IndexManager.NULL, createRegionEntry(2));
+    store.addMapping(QueryService.UNDEFINED, createRegionEntry(3));
+
+    assertThat(keys(store.iterator(null))).containsExactly(1);
+    assertThat(keys(store.iterator(IndexManager.NULL, true, null))).containsExactly(1);
+    assertThat(keys(store.iterator(null, true, IndexManager.NULL, true, null))).isEmpty();
+    assertThat(regionKeys(store.get(IndexManager.NULL))).containsExactly(2);
+    assertThat(regionKeys(store.get(QueryService.UNDEFINED))).containsExactly(3);
+    assertThat(store.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void keysToRemoveAreSkipped() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      store.addMapping(i % 5, createRegionEntry(i));
+    }
+
+    List<Object> keysToRemove = new ArrayList<>();
+    keysToRemove.add(2);
+    keysToRemove.add(4.0);
+
+    assertThat(keys(store.iterator(keysToRemove))).containsExactly(0, 0, 1, 1, 3, 3);
+  }
+
+  @Test
+  public void boundsOfOtherNumericTypesAreCompared() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      store.addMapping(i, createRegionEntry(i));
+    }
+
+    assertThat(keys(store.iterator(2.5, true, 5L, true, null))).containsExactly(3, 4, 5);
+    assertThat(keys(store.get(7.0))).containsExactly(7);
+    assertThat(keys(store.get(7.5))).isEmpty();
+    assertThatThrownBy(() -> store.iterator("a", true, null))
+        .isInstanceOf(ClassCastException.class);
+  }
+
+  @Test
+  public void dateAndStringKeysAreSupported() throws Exception {
+    store.addMapping(new Date(2000), createRegionEntry(2));
+    store.addMapping(new Date(1000), createRegionEntry(1));
+
+    assertThat(keys(store.iterator(new Date(1500), true, null))).containsExactly(new Date(2000));
+
+    CompactIndexStore stringStore =
+        new CompactIndexStore(mock(LocalRegion.class), mock(InternalIndexStatistics.class));
+    stringStore.setIndexOnValues(true);
+    stringStore.addMapping("b", createRegionEntry(2));
+    stringStore.addMapping("a", createRegionEntry(1));
+
+    assertThat(keys(stringStore.descendingIterator(null))).containsExactly("b", "a");
+  }
+
+  @Test
+  public void keyOfAnotherTypeMovesMappingsToMemoryStore() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      store.addMapping(i, createRegionEntry(i));
+    }
+    store.addMapping(IndexManager.NULL, createRegionEntry(10));
+
+    store.addMapping(10.5, createRegionEntry(11));
+
+    assertThat(keys(store.iterator(null))).hasSize(11).contains(0, 9, 10.5);
+    assertThat(regionKeys(store.get(IndexManager.NULL))).containsExactly(10);
+    assertThat(store.size()).isEqualTo(12);
+  }
+
+  @Test
+  public void removeFindsEntryOfMergedBlockProvidedTheWrongKey() throws Exception {
+    RegionEntry[] entries = new RegionEntry[NUM_ENTRIES];
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      entries[i] = createRegionEntry(i);
+      store.addMapping(i, entries[i]);
+    }
+
+    store.removeMapping(1, entries[500]);
+
+    assertThat(keys(store.get(500))).isEmpty();
+    assertThat(keys(store.get(1))).containsExactly(1);
+    assertThat(keys(store.iterator(null))).hasSize(NUM_ENTRIES - 1);
+  }
+
+  @Test
+  public void nullEntriesBeingIteratedSurviveMoveToMemoryStore() throws Exception {
+    store.addMapping(1, createRegionEntry(1));
+    store.addMapping(IndexManager.NULL, createRegionEntry(2));
+    store.addMapping(IndexManager.NULL, createRegionEntry(3));
+    Iterator<IndexStoreEntry> nulls = store.get(IndexManager.NULL);
+
+    store.addMapping(10.5, createRegionEntry(4));
+
+    assertThat(regionKeys(nulls)).containsOnly(2, 3);
+    assertThat(regionKeys(store.get(IndexManager.NULL))).containsOnly(2, 3);
+  }
+
+  @Test
+  public void concurrentUpdatesAreKeptAcrossMerges() throws Exception {
+    int numThreads = 4;
+    RegionEntry[][] entries = new RegionEntry[numThreads][NUM_ENTRIES];
+    Thread[] threads = new Thread[numThreads];
+    List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    for (int t = 0; t < numThreads; t++) {
+      final int thread = t;
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+        entries[t][i] = createRegionEntry(t * NUM_ENTRIES + i);
+      }
+      threads[t] = new Thread(() -> {
+        try {
+          for (int i = 0; i < NUM_ENTRIES; i++) {
+            store.addMapping(thread * NUM_ENTRIES + i, entries[thread][i]);
+          }
+          // remove every other mapping again
+          for (int i = 0; i < NUM_ENTRIES; i += 2) {
+            store.removeMapping(thread * NUM_ENTRIES + i, entries[thread][i]);
+          }
+        } catch (Throwable e) {
+          failures.add(e);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join(30000);
+    }
+
+    assertThat(failures).isEmpty();
+    List<Object> keys = keys(store.iterator(null));
+    assertThat(keys).hasSize(numThreads * NUM_ENTRIES / 2).isSorted().doesNotHaveDuplicates();
+    for (Object key : keys) {
+      assertThat((Integer) key % 2).isEqualTo(1);
+    }
+    assertThat(store.size()).isEqualTo(numThreads * NUM_ENTRIES / 2);
+  }
+
+  private List<Object> keys(Iterator<IndexStoreEntry> iterator) {
+    List<Object> keys = new ArrayList<>();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getDeserializedKey());
+    }
+    return keys;
+  }
+
+  private List<Object> regionKeys(Iterator<IndexStoreEntry> iterator) {
+    List<Object> keys = new ArrayList<>();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getDeserializedRegionKey());
+    }
+    return keys;
+  }
+
+  private List<Object> range(int start, int end) {
+    List<Object> range = new ArrayList<>();
+    for (int i = start; i < end; i++) {
+      range.add(i);
+    }
+    return range;
+  }
+
+  private RegionEntry createRegionEntry(Object key) {
+    RegionEntry mockEntry = mock(RegionEntry.class);
+    when(mockEntry.getValue(any())).thenReturn(new Object());
+    when(mockEntry.getKey()).thenReturn(key);
+    return mockEntry;
+  }
+}
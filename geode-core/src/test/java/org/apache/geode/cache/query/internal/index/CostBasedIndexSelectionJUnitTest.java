@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.IndexTrackingQueryObserver;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CostBasedIndexSelectionJUnitTest {
+
+  private static final String QUERY =
+      "select * from /Portfolios p where p.status = 'active' and p.ID < 10";
+
+  private IndexTrackingQueryObserver observer;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    observer = new IndexTrackingQueryObserver();
+    observer.reset();
+    QueryObserverHolder.setInstance(observer);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = false;
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void equalityIsPreferredWithoutCostBasedSelection() throws Exception {
+    createIndexedRegion();
+
+    SelectResults results = (SelectResults) CacheUtils.getQueryService().newQuery(QUERY).execute();
+
+    assertThat(results.size()).isEqualTo(5);
+    assertThat(observer.getUsedIndexes()).containsOnlyKeys("statusIndex");
+    assertThat(observer.getUsedIndexes().get("statusIndex").toString())
+        .doesNotContain("Estimated");
+  }
+
+  @Test
+  public void mostSelectiveIndexIsChosenWithCostBasedSelection() throws Exception {
+    IndexManager.TEST_COST_BASED_INDEX_SELECTION = true;
+    createIndexedRegion();
+
+    SelectResults results = (SelectResults) CacheUtils.getQueryService().newQuery(QUERY).execute();
+
+    assertThat(results.size()).isEqualTo(5);
+    Map usedIndexes = observer.getUsedIndexes();
+    assertThat(usedIndexes).containsOnlyKeys("idIndex");
+    assertThat(usedIndexes.get("idIndex").toString()).startsWith("(Estimated: ")
+        .endsWith("Results: 5)");
+  }
+
+  private void createIndexedRegion() throws Exception {
+    Region region = CacheUtils.createRegion("Portfolios", Portfolio.class);
+    QueryService qs = CacheUtils.getQueryService();
+    qs.createIndex("statusIndex", "p.status", "/Portfolios p");
+    qs.createIndex("idIndex", "p.ID", "/Portfolios p");
+    for (int i = 0; i < 1000; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class IndexKeyStatisticsJUnitTest {
+
+  private IndexKeyStatistics statistics;
+
+  @Before
+  public void setUp() {
+    statistics = new IndexKeyStatistics();
+  }
+
+  @Test
+  public void noEstimateUntilEnoughKeysAreSampled() {
+    for (int i = 0; i < IndexKeyStatistics.MIN_SAMPLE_SIZE - 1; i++) {
+      statistics.keyAdded(i);
+    }
+
+    assertThat(statistics.estimateMatches(10, OQLLexerTokenTypes.TOK_LT, 100)).isEqualTo(-1);
+  }
+
+  @Test
+  public void estimatesRangeFromSample() {
+    for (int i = 0; i < 10000; i++) {
+      statistics.keyAdded(i);
+    }
+
+    int estimate = statistics.estimateMatches(1000, OQLLexerTokenTypes.TOK_LT, 10000);
+
+    // about 10% of the keys, allowing for the sampling error
+    assertThat(estimate).isBetween(1, 3000);
+    assertThat(statistics.estimateMatches(1000, OQLLexerTokenTypes.TOK_GE, 10000))
+        .isGreaterThan(estimate);
+  }
+
+  @Test
+  public void estimatesRangeOfStrings() {
+    for (int i = 0; i < 1000; i++) {
+      statistics.keyAdded(i % 2 == 0 ? "a" + i : "b" + i);
+    }
+
+    assertThat(statistics.estimateMatches("b", OQLLexerTokenTypes.TOK_LT, 1000)).isBetween(300,
+        700);
+  }
+
+  @Test
+  public void estimatesEqualityFromDistinctKeys() {
+    for (int i = 0; i < 10000; i++) {
+      statistics.keyAdded(i % 100);
+    }
+
+    assertThat(statistics.getDistinctKeys()).isBetween(90L, 110L);
+    assertThat(statistics.estimateEqualMatches(10000)).isBetween(90, 110);
+  }
+
+  @Test
+  public void ignoresNullAndUndefinedKeys() {
+    statistics.keyAdded(null);
+    statistics.keyAdded(IndexManager.NULL);
+    statistics.keyAdded(QueryService.UNDEFINED);
+
+    assertThat(statistics.getDistinctKeys()).isEqualTo(0);
+    assertThat(statistics.estimateEqualMatches(10)).isEqualTo(10);
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class IndexSnapshotJUnitTest {
+
+  private static final int NUM_ENTRIES = 100;
+
+  private static final AtomicInteger statusEvaluations = new AtomicInteger();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+  private Cache cache;
+  private Region<Integer, Item> region;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.TEST_PERSIST_INDEXES = true;
+    diskDir = temporaryFolder.newFolder();
+    createRegion();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Item(i));
+    }
+    createIndexes();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    IndexManager.TEST_PERSIST_INDEXES = false;
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void indexesAreLoadedFromSnapshotAfterCleanClose() throws Exception {
+    cache.close();
+    assertThat(snapshotFiles()).hasSize(2);
+
+    createRegion();
+    statusEvaluations.set(0);
+    createIndexes();
+
+    assertThat(statusEvaluations.get()).isEqualTo(0);
+    assertThat(snapshotFiles()).isEmpty();
+    assertQueryResults(NUM_ENTRIES);
+  }
+
+  @Test
+  public void staleSnapshotIsNotLoaded() throws Exception {
+    cache.close();
+
+    createRegion();
+    region.put(NUM_ENTRIES, new Item(NUM_ENTRIES));
+    statusEvaluations.set(0);
+    createIndexes();
+
+    assertThat(statusEvaluations.get()).isGreaterThanOrEqualTo(NUM_ENTRIES + 1);
+    assertThat(snapshotFiles()).isEmpty();
+    assertQueryResults(NUM_ENTRIES + 1);
+  }
+
+  @Test
+  public void destroyedRegionLeavesNoSnapshot() throws Exception {
+    region.destroyRegion();
+
+    assertThat(snapshotFiles()).isEmpty();
+  }
+
+  @Test
+  public void hashIndexWithValuesOnDiskIsNotSaved() throws Exception {
+    cache.close();
+    createRegion();
+    Region<Integer, Item> overflowRegion =
+        cache.<Integer, Item>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+            .setDiskStoreName("store").setEvictionAttributes(EvictionAttributes
+                .createLRUEntryAttributes(NUM_ENTRIES / 10, EvictionAction.OVERFLOW_TO_DISK))
+            .create("overflowItems");
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      overflowRegion.put(i, new Item(i));
+    }
+    cache.getQueryService().createHashIndex("overflowIdIndex", "i.id", "/overflowItems i");
+
+    cache.close();
+
+    assertThat(snapshotFiles()).noneMatch(file -> file.getName().contains("overflowIdIndex"));
+  }
+
+  private void createRegion() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+    region = cache.<Integer, Item>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").create("items");
+  }
+
+  private void createIndexes() throws Exception {
+    QueryService qs = cache.getQueryService();
+    qs.createIndex("statusIndex", "i.status", "/items i");
+    qs.createHashIndex("idIndex", "i.id", "/items i");
+  }
+
+  private void assertQueryResults(int numEntries) throws Exception {
+    QueryService qs = cache.getQueryService();
+    SelectResults active =
+        (SelectResults) qs.newQuery("select * from /items i where i.status = 'active'").execute();
+    SelectResults one = (SelectResults) qs.newQuery("select * from /items i where i.id = 1").execute();
+    SelectResults none =
+        (SelectResults) qs.newQuery("select * from /items i where i.status = null").execute();
+
+    assertThat(active.size()).isEqualTo((numEntries + 1) / 2);
+    assertThat(none.size()).isEqualTo((numEntries + 1) / 10);
+    assertThat(one.size()).isEqualTo(1);
+    assertThat(qs.getIndex(region, "statusIndex").getStatistics().getNumberOfValues())
+        .isEqualTo(numEntries);
+    assertThat(qs.getIndex(region, "idIndex").getStatistics().getNumberOfValues())
+        .isEqualTo(numEntries);
+  }
+
+  private File[] snapshotFiles() {
+    return diskDir.listFiles((dir, name) -> name.startsWith("INDEX"));
+  }
+
+  public static class Item implements Serializable {
+    private final int id;
+    private final String status;
+
+    Item(int id) {
+      this.id = id;
+      this.status = id % 2 == 0 ? "active" : id % 10 == 9 ? null : "inactive";
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getStatus() {
+      statusEvaluations.incrementAndGet();
+      return status;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryExecutionTimeoutException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class MultiThreadedAsyncIndexMaintenanceJUnitTest {
+
+  private static final int NUM_ENTRIES = 2000;
+
+  private QueryService qs;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.TEST_ASYNC_MAINTENANCE_THREADS = 4;
+    CacheUtils.startCache();
+    qs = CacheUtils.getQueryService();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    IndexManager.TEST_ASYNC_MAINTENANCE_THREADS = 0;
+    IndexManager.TEST_ASYNC_MAINTENANCE_THROTTLE_LAG = -1;
+    IndexManager.testHook = null;
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void queryWaitingForIndexMaintenanceOnReplicatedRegionSeesAllUpdates() throws Exception {
+    Region region = createRegion(RegionShortcut.REPLICATE);
+    IndexManager indexManager = ((LocalRegion) region).getIndexManager();
+
+    assertThat(indexManager.getUpdaterThread().getName()).endsWith("-0");
+    putAndUpdateEntries(region);
+    assertQueryResults();
+  }
+
+  @Test
+  public void queryWaitingForIndexMaintenanceOnPartitionedRegionSeesAllUpdates() throws Exception {
+    Region region = createRegion(RegionShortcut.PARTITION);
+
+    putAndUpdateEntries(region);
+    assertQueryResults();
+  }
+
+  @Test
+  public void queryFailsIfIndexesDoNotCatchUpInTime() throws Exception {
+    Region region = createRegion(RegionShortcut.REPLICATE);
+    CountDownLatch updatesBlocked = blockIndexUpdates();
+    region.put("0", new Portfolio(0));
+
+    DefaultQuery query = (DefaultQuery) qs.newQuery("select * from /portfolios p where p.ID = 0");
+    query.setIndexMaintenanceWaitTime(100);
+
+    assertThatThrownBy(() -> query.execute()).isInstanceOf(QueryExecutionTimeoutException.class);
+    updatesBlocked.countDown();
+    query.setIndexMaintenanceWaitTime(10000);
+    assertThat(((SelectResults) query.execute()).size()).isEqualTo(1);
+  }
+
+  @Test
+  public void operationWaitsForLaggingUpdates() throws Exception {
+    IndexManager.TEST_ASYNC_MAINTENANCE_THROTTLE_LAG = 50;
+    Region region = createRegion(RegionShortcut.REPLICATE);
+    CountDownLatch updatesBlocked = blockIndexUpdates();
+    region.put("0", new Portfolio(0));
+    Thread.sleep(100);
+
+    long start = System.nanoTime();
+    region.put("0", new Portfolio(1));
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    updatesBlocked.countDown();
+
+    assertThat(elapsed).isGreaterThanOrEqualTo(50);
+    assertThat(query("select * from /portfolios p where p.ID = 1").size()).isEqualTo(1);
+  }
+
+  @Test
+  public void clearRecreatesIndexesOnceAllUpdatersAppliedTheirQueuedUpdates() throws Exception {
+    Region region = createRegion(RegionShortcut.REPLICATE);
+    CountDownLatch updatesBlocked = blockIndexUpdates();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+    region.clear();
+    region.put("0", new Portfolio(0));
+    updatesBlocked.countDown();
+
+    assertThat(query("select * from /portfolios p where p.ID >= 0").size()).isEqualTo(1);
+    assertThat(query("select * from /portfolios p where p.status = 'active'").size())
+        .isEqualTo(1);
+  }
+
+  private CountDownLatch blockIndexUpdates() {
+    CountDownLatch updatesBlocked = new CountDownLatch(1);
+    IndexManager.testHook = spot -> {
+      if (spot == 6) {
+        try {
+          updatesBlocked.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    return updatesBlocked;
+  }
+
+  private Region createRegion(RegionShortcut shortcut) throws Exception {
+    Region region = CacheUtils.getCache().createRegionFactory(shortcut)
+        .setIndexMaintenanceSynchronous(false).create("portfolios");
+    qs.createIndex("idIndex", "p.ID", "/portfolios p");
+    qs.createIndex("statusIndex", "p.status", "/portfolios p");
+    return region;
+  }
+
+  private void putAndUpdateEntries(Region region) {
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+    // make every entry active, then remove a tenth of them
+    for (int i = 1; i < NUM_ENTRIES; i += 2) {
+      region.put("" + i, new Portfolio(i - 1));
+    }
+    for (int i = 0; i < NUM_ENTRIES; i += 10) {
+      region.destroy("" + i);
+    }
+  }
+
+  private void assertQueryResults() throws Exception {
+    assertThat(query("select * from /portfolios p where p.status = 'active'").size())
+        .isEqualTo(NUM_ENTRIES - NUM_ENTRIES / 10);
+    assertThat(query("select * from /portfolios p where p.status = 'inactive'").size())
+        .isEqualTo(0);
+    assertThat(query("select * from /portfolios p where p.ID < 100").size()).isEqualTo(90);
+  }
+
+  private SelectResults query(String queryString) throws Exception {
+    DefaultQuery query = (DefaultQuery) qs.newQuery(queryString);
+    query.setIndexMaintenanceWaitTime(10000);
+    return (SelectResults) query.execute();
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.Statistics;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.MultiIndexCreationException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class ParallelIndexPopulationJUnitTest {
+
+  private static final int NUM_ENTRIES = 5000;
+
+  private Region region;
+  private QueryService qs;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.TEST_INDEX_POPULATION_THREADS = 4;
+    CacheUtils.startCache();
+    region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+    qs = CacheUtils.getQueryService();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    IndexManager.TEST_INDEX_POPULATION_THREADS = 0;
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void definedIndexesArePopulatedByAllThreads() throws Exception {
+    qs.defineIndex("idIndex", "p.ID", "/portfolios p");
+    qs.defineHashIndex("statusIndex", "p.status", "/portfolios p");
+    qs.defineIndex("secIdIndex", "pos.secId", "/portfolios p, p.positions.values pos");
+
+    List<Index> indexes = qs.createDefinedIndexes();
+
+    assertThat(indexes).hasSize(3);
+    for (Index index : indexes) {
+      assertThat(((AbstractIndex) index).isPopulated()).isTrue();
+      Statistics stats = getIndexStats(index.getName());
+      assertThat(stats.getLong("populateEntries")).isEqualTo(NUM_ENTRIES);
+      assertThat(stats.getInt("populatesInProgress")).isEqualTo(0);
+    }
+    assertThat(qs.getIndex(region, "idIndex").getStatistics().getNumberOfValues())
+        .isEqualTo(NUM_ENTRIES);
+    assertThat(qs.getIndex(region, "statusIndex").getStatistics().getNumberOfValues())
+        .isEqualTo(NUM_ENTRIES);
+    assertThat(query("select * from /portfolios p where p.ID < 100").size()).isEqualTo(100);
+    assertThat(query("select * from /portfolios p where p.status = 'active'").size())
+        .isEqualTo(NUM_ENTRIES / 2);
+  }
+
+  @Test
+  public void failedIndexIsNotMarkedPopulated() throws Exception {
+    qs.defineIndex("idIndex", "p.ID", "/portfolios p");
+    qs.defineIndex("badIndex", "p.getPk().toString().substring(10)", "/portfolios p");
+
+    Throwable thrown = catchThrowable(() -> qs.createDefinedIndexes());
+
+    assertThat(thrown).isInstanceOf(MultiIndexCreationException.class);
+    assertThat(((MultiIndexCreationException) thrown).getExceptionsMap())
+        .containsOnlyKeys("badIndex");
+    assertThat(((AbstractIndex) qs.getIndex(region, "idIndex")).isPopulated()).isTrue();
+    assertThat(query("select * from /portfolios p where p.ID < 100").size()).isEqualTo(100);
+  }
+
+  @Test
+  public void helperThreadsComeFromTheBoundedPoolOfTheCache() throws Exception {
+    Region otherRegion = CacheUtils.createRegion("otherPortfolios", Portfolio.class);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      otherRegion.put("" + i, new Portfolio(i));
+    }
+
+    qs.defineIndex("idIndex", "p.ID", "/portfolios p");
+    qs.createDefinedIndexes();
+    ExecutorService pool = ((InternalCache) CacheUtils.getCache()).getIndexPopulationThreadPool();
+    qs.defineIndex("otherIdIndex", "p.ID", "/otherPortfolios p");
+    qs.createDefinedIndexes();
+
+    assertThat(((InternalCache) CacheUtils.getCache()).getIndexPopulationThreadPool())
+        .isSameAs(pool);
+    assertThat(((ThreadPoolExecutor) pool).getLargestPoolSize()).isLessThanOrEqualTo(3);
+    assertThat(qs.getIndex(otherRegion, "otherIdIndex").getStatistics().getNumberOfValues())
+        .isEqualTo(NUM_ENTRIES);
+  }
+
+  @Test
+  public void closingTheCacheStopsThePopulationThreads() throws Exception {
+    qs.defineIndex("idIndex", "p.ID", "/portfolios p");
+    qs.createDefinedIndexes();
+    InternalCache cache = (InternalCache) CacheUtils.getCache();
+    ExecutorService pool = cache.getIndexPopulationThreadPool();
+
+    CacheUtils.closeCache();
+
+    assertThat(pool.isShutdown()).isTrue();
+    assertThat(cache.getIndexPopulationThreadPool()).isNull();
+  }
+
+  private SelectResults query(String queryString) throws Exception {
+    return (SelectResults) qs.newQuery(queryString).execute();
+  }
+
+  private Statistics getIndexStats(String indexName) {
+    Statistics[] stats =
+        CacheUtils.getCache().getDistributedSystem().findStatisticsByTextId(indexName);
+    assertThat(stats).hasSize(1);
+    return stats[0];
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.partitioned;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.PortfolioData;
+import org.apache.geode.cache.query.data.PortfolioPdx;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.internal.cache.PRQueryProcessor;
+import org.apache.geode.internal.cache.PartitionedRegionTestHelper;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Verifies queries on a PartitionedRegion whose local buckets are scanned by several threads.
+ */
+@Category(IntegrationTest.class)
+public class PRQueryParallelismJUnitTest {
+  private static final String REGION_NAME = "portfolios";
+
+  private Region region;
+
+  @Before
+  public void setUp() throws Exception {
+    PRQueryProcessor.TEST_MAX_PARALLELISM = 4;
+    region = PartitionedRegionTestHelper.createPartitionedRegion(REGION_NAME, "100", 0);
+    for (int j = 0; j < 200; j++) {
+      region.put(j, new PortfolioData(j));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    PRQueryProcessor.TEST_MAX_PARALLELISM = 0;
+    QueryObserverHolder.reset();
+    region.close();
+  }
+
+  @Test
+  public void queryReturnsMatchesFromAllBuckets() throws Exception {
+    SelectResults results = region.query("ID < 5");
+    assertThat(results).hasSize(5);
+
+    results = region.query("ID > 5 and ID <= 150");
+    assertThat(results).hasSize(145);
+  }
+
+  @Test
+  public void orderByQueryReturnsOrderedResults() throws Exception {
+    Query query = region.getCache().getQueryService()
+        .newQuery("select distinct p.ID from /" + REGION_NAME + " p order by p.ID desc");
+
+    List results = ((SelectResults) query.execute()).asList();
+
+    assertThat(results).hasSize(200);
+    for (int i = 0; i < results.size(); i++) {
+      assertThat(results.get(i)).isEqualTo(199 - i);
+    }
+  }
+
+  @Test
+  public void limitIsAppliedToCombinedResults() throws Exception {
+    Query query = region.getCache().getQueryService()
+        .newQuery("select * from /" + REGION_NAME + " p where p.ID >= 100 limit 10");
+
+    SelectResults results = (SelectResults) query.execute();
+
+    assertThat(results).hasSize(10);
+  }
+
+  @Test
+  public void tracedQueryReturnsMatchesFromAllBuckets() throws Exception {
+    Query query = region.getCache().getQueryService()
+        .newQuery("<trace> select * from /" + REGION_NAME + " p where p.ID < 50");
+
+    SelectResults results = (SelectResults) query.execute();
+
+    assertThat(results).hasSize(50);
+  }
+
+  @Test
+  public void queryOnPdxValuesReturnsDomainObjectsFromAllBuckets() throws Exception {
+    Region pdxRegion =
+        PartitionedRegionTestHelper.createPartitionedRegion("pdxPortfolios", "100", 0);
+    try {
+      for (int j = 0; j < 200; j++) {
+        pdxRegion.put(j, new PortfolioPdx(j));
+      }
+      Query query = region.getCache().getQueryService()
+          .newQuery("select * from /pdxPortfolios p where p.ID < 50");
+
+      SelectResults results = (SelectResults) query.execute();
+
+      assertThat(results).hasSize(50);
+      assertThat(results.asList()).allMatch(value -> value instanceof PortfolioPdx);
+    } finally {
+      pdxRegion.close();
+    }
+  }
+}
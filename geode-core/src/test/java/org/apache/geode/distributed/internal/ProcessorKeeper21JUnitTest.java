@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ProcessorKeeper21JUnitTest {
+
+  @Test
+  public void retrieveReturnsProcessorUntilRemoved() {
+    ProcessorKeeper21 keeper = new ProcessorKeeper21(false);
+    Object processor = new Object();
+
+    int id = keeper.put(processor);
+
+    assertThat(id).isGreaterThan(0);
+    assertThat(keeper.retrieve(id)).isSameAs(processor);
+
+    keeper.remove(id);
+
+    assertThat(keeper.retrieve(id)).isNull();
+  }
+
+  @Test
+  public void removeOfUnknownIdIsIgnored() {
+    ProcessorKeeper21 keeper = new ProcessorKeeper21();
+    Object processor = new Object();
+    int id = keeper.put(processor);
+
+    keeper.remove(id + 1);
+
+    assertThat(keeper.retrieve(id)).isSameAs(processor);
+  }
+
+  @Test
+  public void processorsThatDoNotFitInTableAreStillKept() {
+    ProcessorKeeper21 keeper = new ProcessorKeeper21(false, 16);
+    int count = keeper.getTableSize() * 2 + 10;
+    Object[] processors = new Object[count];
+    int[] ids = new int[count];
+    Set<Integer> uniqueIds = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      processors[i] = new Object();
+      ids[i] = keeper.put(processors[i]);
+      uniqueIds.add(ids[i]);
+    }
+
+    assertThat(uniqueIds).hasSize(count);
+    for (int i = 0; i < count; i++) {
+      assertThat(keeper.retrieve(ids[i])).isSameAs(processors[i]);
+    }
+
+    for (int i = 0; i < count; i++) {
+      keeper.remove(ids[i]);
+      assertThat(keeper.retrieve(ids[i])).isNull();
+    }
+  }
+
+  @Test
+  public void tableSizeIsRoundedUpToPowerOfTwo() {
+    assertThat(new ProcessorKeeper21(false, 100).getTableSize()).isEqualTo(128);
+    assertThat(new ProcessorKeeper21().getTableSize())
+        .isEqualTo(ProcessorKeeper21.DEFAULT_TABLE_SIZE);
+  }
+
+  @Test
+  public void slotIsReusedAfterRemove() {
+    ProcessorKeeper21 keeper = new ProcessorKeeper21(false);
+    int first = keeper.put(new Object());
+    keeper.remove(first);
+
+    Object processor = null;
+    int id = 0;
+    for (int i = 0; i < keeper.getTableSize(); i++) {
+      processor = new Object();
+      id = keeper.put(processor);
+      keeper.remove(id);
+    }
+    id = keeper.put(processor);
+
+    assertThat(keeper.retrieve(first)).isNull();
+    assertThat(keeper.retrieve(id)).isSameAs(processor);
+  }
+}
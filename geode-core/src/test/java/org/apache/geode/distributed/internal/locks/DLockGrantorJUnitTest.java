@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal.locks;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.locks.DLockGrantor.DLockGrantToken;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.test.junit.categories.DLockTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, DLockTest.class})
+public class DLockGrantorJUnitTest {
+
+  /** Enough lock names to land in every stripe of the grant tokens */
+  private static final int NUMBER_OF_LOCKS = DLockGrantor.GRANT_TOKEN_STRIPES * 4;
+
+  private InternalDistributedMember member1;
+  private InternalDistributedMember member2;
+  private DLockGrantor grantor;
+
+  @Before
+  public void setUp() throws Exception {
+    member1 = mock(InternalDistributedMember.class);
+    member2 = mock(InternalDistributedMember.class);
+    Set<InternalDistributedMember> members = new HashSet<>();
+    members.add(member1);
+    members.add(member2);
+
+    DM dm = mock(DM.class);
+    when(dm.getCancelCriterion()).thenReturn(mock(CancelCriterion.class));
+    when(dm.getDistributionManagerIds()).thenReturn(members);
+    when(dm.cacheTimeMillis()).thenReturn(System.currentTimeMillis());
+    DLockService dlock = mock(DLockService.class);
+    when(dlock.getDistributionManager()).thenReturn(dm);
+    when(dlock.getStats()).thenReturn(mock(DistributedLockStats.class));
+    when(dlock.getName()).thenReturn("service");
+
+    grantor = DLockGrantor.createGrantor(dlock, 1);
+    grantor.initializeHeldLocks(member1, heldLocks(member1, 0));
+    grantor.initializeHeldLocks(member2, heldLocks(member2, 1));
+    grantor.makeReady(true);
+  }
+
+  @After
+  public void tearDown() {
+    grantor.destroy();
+  }
+
+  @Test
+  public void grantTokenStripesArePowerOfTwo() {
+    assertThat(Integer.bitCount(DLockGrantor.GRANT_TOKEN_STRIPES)).isEqualTo(1);
+  }
+
+  @Test
+  public void initializedLocksAreGrantedToTheirOwner() {
+    assertThat(grantor.getGrantTokens()).hasSize(NUMBER_OF_LOCKS);
+    for (int i = 0; i < NUMBER_OF_LOCKS; i++) {
+      DLockGrantToken grant = grantor.getGrantToken(lockName(i));
+      assertThat(grant).isNotNull();
+      assertThat(grant.getOwner()).isEqualTo(i % 2 == 0 ? member1 : member2);
+    }
+  }
+
+  @Test
+  public void leaseThatNeverExpiresIsRevokedOnlyIfCached() {
+    DLockGrantToken grant = grantor.getGrantToken(lockName(0));
+    synchronized (grant) {
+      assertThat(grant.isLeaseHeld()).isTrue();
+      assertThat(grant.shouldRevokeLease()).isEqualTo(DLockService.CACHE_LEASES);
+    }
+  }
+
+  @Test
+  public void releaseIfLockedRemovesGrantOfOwnerOnly() throws Exception {
+    grantor.releaseIfLocked(lockName(0), member2, leaseId(0));
+    assertThat(grantor.getGrantToken(lockName(0))).isNotNull();
+
+    grantor.releaseIfLocked(lockName(0), member1, leaseId(0));
+    assertThat(grantor.getGrantToken(lockName(0))).isNull();
+    assertThat(grantor.getGrantTokens()).hasSize(NUMBER_OF_LOCKS - 1);
+  }
+
+  @Test
+  public void departureReleasesEveryLockOfTheDepartedMemberInAllStripes() throws Exception {
+    grantor.handleDepartureOf(member1);
+
+    assertThat(grantor.getGrantTokens()).hasSize(NUMBER_OF_LOCKS / 2);
+    for (int i = 0; i < NUMBER_OF_LOCKS; i++) {
+      DLockGrantToken grant = grantor.getGrantToken(lockName(i));
+      if (i % 2 == 0) {
+        assertThat(grant).isNull();
+      } else {
+        assertThat(grant.getOwner()).isEqualTo(member2);
+      }
+    }
+  }
+
+  @Test
+  public void concurrentReleasesOfLocksInDifferentStripesRemoveAllGrants() throws Exception {
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int first = t;
+      threads[t] = new Thread(() -> {
+        try {
+          for (int i = first; i < NUMBER_OF_LOCKS; i += threads.length) {
+            grantor.releaseIfLocked(lockName(i), i % 2 == 0 ? member1 : member2, leaseId(i));
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join(30000);
+    }
+
+    assertThat(grantor.getGrantTokens()).isEmpty();
+  }
+
+  private Set<DLockRemoteToken> heldLocks(InternalDistributedMember owner, int firstLock) {
+    Set<DLockRemoteToken> tokens = new HashSet<>();
+    for (int i = firstLock; i < NUMBER_OF_LOCKS; i += 2) {
+      tokens.add(DLockRemoteToken.create(lockName(i), new RemoteThread(owner, i), leaseId(i),
+          Long.MAX_VALUE));
+    }
+    return tokens;
+  }
+
+  private static String lockName(int i) {
+    return "lock" + i;
+  }
+
+  private static int leaseId(int i) {
+    return i + 1;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal.locks;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.test.junit.categories.DLockTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, DLockTest.class})
+public class DLockTokenJUnitTest {
+
+  private static final int LEASE_ID = 7;
+
+  private DLockToken token;
+  private RemoteThread owner;
+
+  @Before
+  public void setUp() {
+    InternalDistributedMember member = mock(InternalDistributedMember.class);
+    owner = new RemoteThread(member, 1);
+    token = new DLockToken(null, "lock");
+    synchronized (token) {
+      token.incUsage();
+      token.grantLock(Long.MAX_VALUE, LEASE_ID, 0, owner);
+    }
+  }
+
+  @Test
+  public void cachedLeaseIsHeldButNotByAnyThread() {
+    synchronized (token) {
+      token.cacheLease();
+
+      assertThat(token.isLeaseCached()).isTrue();
+      assertThat(token.isLeaseHeld()).isTrue();
+      assertThat(token.isLeaseHeldByCurrentThread()).isFalse();
+      assertThat(token.isBeingUsed()).isTrue();
+    }
+  }
+
+  @Test
+  public void reuseCachedLeaseGivesLeaseToCallingThread() {
+    RemoteThread other = new RemoteThread(owner.getDistributedMember(), 2);
+    synchronized (token) {
+      token.cacheLease();
+      token.incUsage();
+
+      token.reuseCachedLease(other);
+
+      assertThat(token.isLeaseCached()).isFalse();
+      assertThat(token.isLeaseHeldByCurrentThread()).isTrue();
+      assertThat(token.getLeaseId()).isEqualTo(LEASE_ID);
+      assertThat(token.getLesseeThread()).isEqualTo(other);
+      assertThat(token.getUsageCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void revokeOfCachedLeaseRequiresRelease() {
+    synchronized (token) {
+      token.cacheLease();
+
+      assertThat(token.requestRevoke(LEASE_ID)).isTrue();
+      assertThat(token.isLeaseCached()).isFalse();
+      assertThat(token.ignoreForRecovery()).isTrue();
+
+      assertThat(token.releaseLock(LEASE_ID, owner)).isTrue();
+      assertThat(token.isLeaseHeld()).isFalse();
+      assertThat(token.isBeingUsed()).isFalse();
+    }
+  }
+
+  @Test
+  public void revokeOfLeaseInUseIsRememberedUntilReleased() {
+    synchronized (token) {
+      assertThat(token.requestRevoke(LEASE_ID)).isFalse();
+      assertThat(token.isRevokeRequested()).isTrue();
+
+      token.releaseLock(LEASE_ID, owner);
+
+      assertThat(token.isRevokeRequested()).isFalse();
+    }
+  }
+
+  @Test
+  public void revokeArrivingBeforeGrantAppliesToThatLease() {
+    DLockToken requested = new DLockToken(null, "requested");
+    synchronized (requested) {
+      requested.incUsage();
+
+      assertThat(requested.requestRevoke(LEASE_ID)).isFalse();
+      assertThat(requested.isRevokeRequested()).isFalse();
+
+      requested.grantLock(Long.MAX_VALUE, LEASE_ID, 0, owner);
+
+      assertThat(requested.isRevokeRequested()).isTrue();
+    }
+  }
+
+  @Test
+  public void revokeOfOtherLeaseDoesNotApplyToCurrentLease() {
+    synchronized (token) {
+      token.cacheLease();
+
+      assertThat(token.requestRevoke(LEASE_ID + 1)).isFalse();
+      assertThat(token.isLeaseCached()).isTrue();
+      assertThat(token.isRevokeRequested()).isFalse();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -1861,6 +1862,41 @@ public class DataSerializableJUnitTest implements Serializable {
 
   }
 
+  /**
+   * Tests that registering and unregistering a <code>DataSerializer</code> is noticed by
+   * writeObject for a class that has already been written.
+   */
+  @Test
+  public void testSerializerRegisteredAfterWrite() throws Exception {
+    Random random = new Random();
+    Object o = new NonDataSerializable(random);
+
+    try {
+      DataSerializer.writeObject(o, getDataOutput());
+      fail("Should have thrown a NotSerializableException");
+    } catch (NotSerializableException ex) {
+      // pass...
+    }
+
+    byte id = (byte) 100;
+    DataSerializer.register(NonDataSerializable.NonDSSerializer.class);
+    try {
+      this.baos.reset();
+      DataSerializer.writeObject(o, getDataOutput());
+      Object o2 = DataSerializer.readObject(getDataInput());
+      assertEquals(o, o2);
+    } finally {
+      InternalDataSerializer.unregister(id);
+    }
+
+    try {
+      DataSerializer.writeObject(o, getDataOutput());
+      fail("Should have thrown a NotSerializableException");
+    } catch (NotSerializableException ex) {
+      // pass...
+    }
+  }
+
   /**
    * Tests that a late-registering <code>DataSerializable</code> indeed causes a waiting
    * readObject() method to be notified.
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+/**
+ * Unit tests for {@link PooledHeapDataOutputStream} and {@link HeapBufferPool}.
+ */
+@Category(UnitTest.class)
+public class PooledHeapDataOutputStreamJUnitTest {
+
+  @Test
+  public void sizeClassesArePowersOfTwoFromMinimum() {
+    assertThat(HeapBufferPool.sizeClass(1)).isEqualTo(0);
+    assertThat(HeapBufferPool.sizeClass(HeapBufferPool.MIN_BUFFER_SIZE)).isEqualTo(0);
+    assertThat(HeapBufferPool.sizeClass(HeapBufferPool.MIN_BUFFER_SIZE + 1)).isEqualTo(1);
+    assertThat(HeapBufferPool.sizeClass(HeapBufferPool.MIN_BUFFER_SIZE * 4)).isEqualTo(2);
+  }
+
+  @Test
+  public void acquireReturnsReleasedBuffer() {
+    ByteBuffer bb = HeapBufferPool.acquire(100);
+    assertThat(bb.capacity()).isEqualTo(HeapBufferPool.MIN_BUFFER_SIZE);
+    bb.putInt(7);
+
+    HeapBufferPool.release(bb);
+    ByteBuffer reused = HeapBufferPool.acquire(200);
+
+    assertThat(reused).isSameAs(bb);
+    assertThat(reused.position()).isEqualTo(0);
+    assertThat(reused.limit()).isEqualTo(reused.capacity());
+  }
+
+  @Test
+  public void releaseIgnoresBuffersNotFromPool() {
+    ByteBuffer wrapped = ByteBuffer.wrap(new byte[HeapBufferPool.MIN_BUFFER_SIZE], 1, 10).slice();
+    ByteBuffer odd = ByteBuffer.allocate(HeapBufferPool.MIN_BUFFER_SIZE + 1);
+
+    assertThat(HeapBufferPool.isPoolable(wrapped)).isFalse();
+    assertThat(HeapBufferPool.isPoolable(odd)).isFalse();
+    assertThat(HeapBufferPool.isPoolable(ByteBuffer.allocateDirect(1024))).isFalse();
+  }
+
+  @Test
+  public void toByteArrayReturnsCopyNotSharedWithPool() {
+    byte[] expected = new byte[HeapBufferPool.MIN_BUFFER_SIZE];
+    Arrays.fill(expected, (byte) 1);
+
+    PooledHeapDataOutputStream out = new PooledHeapDataOutputStream(Version.CURRENT);
+    out.write(expected, 0, expected.length);
+    byte[] actual = out.toByteArray();
+    out.close();
+
+    PooledHeapDataOutputStream other = new PooledHeapDataOutputStream(Version.CURRENT);
+    byte[] zeros = new byte[HeapBufferPool.MIN_BUFFER_SIZE];
+    other.write(zeros, 0, zeros.length);
+    other.close();
+
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  @Test
+  public void toByteArrayOfMultipleChunks() {
+    byte[] expected = new byte[HeapBufferPool.MIN_BUFFER_SIZE * 3 + 17];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte) i;
+    }
+
+    PooledHeapDataOutputStream out = new PooledHeapDataOutputStream(Version.CURRENT);
+    for (byte b : expected) {
+      out.writeByte(b);
+    }
+
+    assertThat(out.toByteArray()).isEqualTo(expected);
+    out.close();
+  }
+
+  @Test
+  public void streamIsWritableAfterClose() {
+    PooledHeapDataOutputStream out = new PooledHeapDataOutputStream(Version.CURRENT);
+    out.writeInt(1);
+    out.close();
+
+    out.writeInt(2);
+
+    assertThat(out.size()).isEqualTo(4);
+    assertThat(ByteBuffer.wrap(out.toByteArray()).getInt()).isEqualTo(2);
+    out.close();
+  }
+}
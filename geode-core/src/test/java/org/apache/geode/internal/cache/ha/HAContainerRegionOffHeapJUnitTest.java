@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.ha;
+
+import static org.apache.geode.distributed.ConfigurationProperties.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.server.ClientSubscriptionConfig;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.cache.CacheServerImpl;
+import org.apache.geode.internal.cache.EnumListenerEvent;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.sockets.CacheClientProxy;
+import org.apache.geode.internal.cache.tier.sockets.ClientProxyMembershipID;
+import org.apache.geode.internal.cache.tier.sockets.ClientUpdateMessageImpl;
+import org.apache.geode.internal.cache.tier.sockets.HAEventWrapper;
+import org.apache.geode.test.junit.categories.ClientSubscriptionTest;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category({IntegrationTest.class, ClientSubscriptionTest.class})
+public class HAContainerRegionOffHeapJUnitTest {
+
+  private InternalCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    HARegionQueue.OFF_HEAP_CLIENT_MESSAGES = true;
+    cache = (InternalCache) new CacheFactory().set(MCAST_PORT, "0")
+        .set(OFF_HEAP_MEMORY_SIZE, "2m").create();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    HARegionQueue.OFF_HEAP_CLIENT_MESSAGES = false;
+    cache.close();
+  }
+
+  @Test
+  public void clientMessagesAreStoredOffHeapWithoutEviction() {
+    HAContainerRegion container = createContainer(HARegionQueue.HA_EVICTION_POLICY_NONE);
+
+    assertThat(container.getMapForTest().getAttributes().getOffHeap()).isTrue();
+    assertThat(container.getMapForTest().getAttributes().getEvictionAttributes().getAlgorithm()
+        .isNone()).isTrue();
+    assertThat(container.storesCopies()).isTrue();
+  }
+
+  @Test
+  public void messagesReadBackKeepTheirEventIdAndPutBackInterest() {
+    HAContainerRegion container = createContainer(HARegionQueue.HA_EVICTION_POLICY_ENTRY);
+    EventID eventId = new EventID(new byte[] {1}, 1, 1);
+    LocalRegion region = (LocalRegion) cache.createRegionFactory(RegionShortcut.LOCAL).create("r");
+    ClientUpdateMessageImpl message = newMessage(region, eventId);
+    HAEventWrapper wrapper = new HAEventWrapper(message);
+    container.put(wrapper, message);
+
+    ClientUpdateMessageImpl copy = (ClientUpdateMessageImpl) container.get(wrapper);
+    assertThat(copy).isNotSameAs(message);
+    assertThat(copy.getEventId()).isEqualTo(eventId);
+
+    ClientProxyMembershipID client = clientId(1);
+    container.putProxy("queue", proxy(client));
+    ClientUpdateMessageImpl interest = newMessage(region, eventId);
+    interest.addClientInterestList(client, true);
+    synchronized (wrapper) {
+      HARegionQueue.addClientCQsAndInterestList(container, wrapper, copy,
+          new HAEventWrapper(interest), "queue");
+    }
+
+    assertThat(((ClientUpdateMessageImpl) container.get(wrapper))
+        .isClientInterestedInUpdates(client)).isTrue();
+    assertThat(container.getKey(new HAEventWrapper(message))).isSameAs(wrapper);
+  }
+
+  @Test
+  public void interestAddedConcurrentlyByTwoQueuesIsKept() throws Exception {
+    final HAContainerRegion container = createContainer(HARegionQueue.HA_EVICTION_POLICY_NONE);
+    final LocalRegion region =
+        (LocalRegion) cache.createRegionFactory(RegionShortcut.LOCAL).create("r");
+    final int numberOfEvents = 200;
+    final ClientProxyMembershipID[] clients =
+        new ClientProxyMembershipID[] {clientId(1), clientId(2)};
+    HAEventWrapper[] wrappers = new HAEventWrapper[numberOfEvents];
+    for (int i = 0; i < numberOfEvents; i++) {
+      ClientUpdateMessageImpl message = newMessage(region, new EventID(new byte[] {1}, 1, i));
+      wrappers[i] = new HAEventWrapper(message);
+      container.put(wrappers[i], message);
+    }
+
+    final CyclicBarrier start = new CyclicBarrier(clients.length);
+    Thread[] queues = new Thread[clients.length];
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    for (int q = 0; q < clients.length; q++) {
+      final int queue = q;
+      container.putProxy("queue" + queue, proxy(clients[queue]));
+      queues[queue] = new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < numberOfEvents; i++) {
+            ClientUpdateMessageImpl message =
+                newMessage(region, new EventID(new byte[] {1}, 1, i));
+            message.addClientInterestList(clients[queue], true);
+            HAEventWrapper wrapper = new HAEventWrapper(message);
+            ClientUpdateMessageImpl old =
+                (ClientUpdateMessageImpl) container.putIfAbsent(wrapper, message);
+            HAEventWrapper original = (HAEventWrapper) container.getKey(wrapper);
+            synchronized (original) {
+              HARegionQueue.addClientCQsAndInterestList(container, original, old, wrapper,
+                  "queue" + queue);
+            }
+          }
+        } catch (Throwable t) {
+          failures.add(t);
+        }
+      });
+      queues[queue].start();
+    }
+    for (Thread queue : queues) {
+      queue.join(30000);
+    }
+
+    assertThat(failures).isEmpty();
+    for (HAEventWrapper wrapper : wrappers) {
+      ClientUpdateMessageImpl message = (ClientUpdateMessageImpl) container.get(wrapper);
+      for (ClientProxyMembershipID client : clients) {
+        assertThat(message.isClientInterestedInUpdates(client)).isTrue();
+      }
+    }
+  }
+
+  private ClientUpdateMessageImpl newMessage(LocalRegion region, EventID eventId) {
+    return new ClientUpdateMessageImpl(EnumListenerEvent.AFTER_UPDATE, region, "key",
+        "value".getBytes(), (byte) 0x01, null, new ClientProxyMembershipID(), eventId);
+  }
+
+  private ClientProxyMembershipID clientId(int port) {
+    return new ClientProxyMembershipID(new InternalDistributedMember("localhost", port));
+  }
+
+  private CacheClientProxy proxy(ClientProxyMembershipID client) {
+    CacheClientProxy proxy = mock(CacheClientProxy.class);
+    when(proxy.getProxyID()).thenReturn(client);
+    return proxy;
+  }
+
+  private HAContainerRegion createContainer(String evictionPolicy) {
+    String regionName = CacheServerImpl.clientMessagesRegion(cache, evictionPolicy, 100, 0,
+        ClientSubscriptionConfig.DEFAULT_OVERFLOW_DIRECTORY, false);
+    Region region = cache.getRegion(Region.SEPARATOR + regionName);
+    return new HAContainerRegion(region);
+  }
+}
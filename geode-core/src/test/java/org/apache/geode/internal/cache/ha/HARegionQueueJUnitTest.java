@@ -1356,6 +1356,72 @@ public class HARegionQueueJUnitTest {
     });
   }
 
+  /**
+   * Tests that peekAvailable returns the available events without waiting and that they are
+   * removed by the next remove
+   */
+  @Test
+  public void testPeekAvailable() throws Exception {
+    HARegionQueue regionQueue = createHARegionQueue(this.testName.getMethodName());
+    assertThat(regionQueue.peekAvailable(3).isEmpty(), is(true));
+    putEvents(regionQueue, 5);
+
+    assertThat(regionQueue.peekAvailable(3).size(), is(3));
+    regionQueue.remove();
+
+    List events = regionQueue.peekAvailable(3);
+    assertThat(events.size(), is(2));
+    assertThat(((Conflatable) events.get(0)).getEventId().getSequenceID(), is(4L));
+  }
+
+  /**
+   * Tests that events peeked again after clearing the peeked ids, as the dispatcher of a paused
+   * proxy does, are removed once by the next remove
+   */
+  @Test
+  public void testPeekAvailableAfterClearingPeekedIDs() throws Exception {
+    HARegionQueue regionQueue = createHARegionQueue(this.testName.getMethodName());
+    putEvents(regionQueue, 5);
+
+    assertThat(regionQueue.peekAvailable(3).size(), is(3));
+    regionQueue.clearPeekedIDs();
+    assertThat(regionQueue.isPeekInitialized(), is(false));
+
+    List events = regionQueue.peekAvailable(3);
+    assertThat(events.size(), is(3));
+    assertThat(((Conflatable) events.get(0)).getEventId().getSequenceID(), is(1L));
+    regionQueue.remove();
+
+    assertThat(regionQueue.size(), is(2));
+    assertThat(((Conflatable) regionQueue.peekAvailable(3).get(0)).getEventId().getSequenceID(),
+        is(4L));
+  }
+
+  /**
+   * Tests that peekAvailable on a durable queue, whose peeked events stay in the queue until the
+   * client acknowledges them, returns the events following the ones already peeked
+   */
+  @Test
+  public void testPeekAvailableFromDurableQueue() throws Exception {
+    HARegionQueue regionQueue = HARegionQueue.getHARegionQueueInstance(
+        this.testName.getMethodName(), this.cache, HARegionQueue.BLOCKING_HA_QUEUE, true);
+    putEvents(regionQueue, 5);
+
+    assertThat(regionQueue.peekAvailable(3).size(), is(3));
+    List events = regionQueue.peekAvailable(3);
+
+    assertThat(events.size(), is(2));
+    assertThat(((Conflatable) events.get(0)).getEventId().getSequenceID(), is(4L));
+    assertThat(regionQueue.peekAvailable(3).isEmpty(), is(true));
+  }
+
+  private void putEvents(HARegionQueue regionQueue, int count) throws Exception {
+    for (int i = 1; i <= count; i++) {
+      regionQueue.put(new ConflatableObject("key" + i, "value" + i,
+          new EventID(new byte[] {1}, 1, i), false, this.testName.getMethodName()));
+    }
+  }
+
   /**
    * This tests whether the messageSyncInterval for QueueRemovalThread is refreshed properly when
    * set/updated using cache's setter API
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EnumListenerEvent;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class ClientUpdateMessageImplJUnitTest {
+
+  private static final int KEY_PART = 1;
+  private static final int CALLBACK_ARGUMENT_PART = 4;
+  private static final int EVENT_ID_PART = 8;
+
+  private final EventID eventId = new EventID(new byte[] {1}, 1, 1);
+
+  private ClientUpdateMessageImpl clientMessage;
+
+  @Before
+  public void setUp() {
+    LocalRegion region = mock(LocalRegion.class);
+    when(region.getFullPath()).thenReturn("/region");
+    clientMessage = new ClientUpdateMessageImpl(EnumListenerEvent.AFTER_CREATE, region, 7,
+        new byte[] {1, 2, 3}, (byte) 0x01, "callback", new ClientProxyMembershipID(), eventId);
+  }
+
+  @Test
+  public void partsThatDoNotDependOnTheClientAreSerializedOnce() throws Exception {
+    Message message = clientMessage.getMessage(createProxy(), new byte[] {1, 2, 3});
+    assertThat(message.getMessageType()).isEqualTo(MessageType.LOCAL_CREATE);
+    byte[] key = message.getPart(KEY_PART).getSerializedForm();
+    byte[] callbackArgument = message.getPart(CALLBACK_ARGUMENT_PART).getSerializedForm();
+    byte[] eventIdentifier = message.getPart(EVENT_ID_PART).getSerializedForm();
+    assertThat(message.getPart(KEY_PART).getObject()).isEqualTo(7);
+    assertThat(message.getPart(CALLBACK_ARGUMENT_PART).getObject()).isEqualTo("callback");
+    assertThat(message.getPart(EVENT_ID_PART).getObject()).isEqualTo(eventId);
+
+    message = clientMessage.getMessage(createProxy(), new byte[] {1, 2, 3});
+
+    assertThat(message.getPart(KEY_PART).getSerializedForm()).isSameAs(key);
+    assertThat(message.getPart(CALLBACK_ARGUMENT_PART).getSerializedForm())
+        .isSameAs(callbackArgument);
+    assertThat(message.getPart(EVENT_ID_PART).getSerializedForm()).isSameAs(eventIdentifier);
+  }
+
+  private CacheClientProxy createProxy() {
+    CacheClientProxy proxy = mock(CacheClientProxy.class);
+    when(proxy.getProxyID()).thenReturn(mock(ClientProxyMembershipID.class));
+    when(proxy.getVersion()).thenReturn(Version.CURRENT);
+    when(proxy.getCache()).thenReturn(mock(InternalCache.class));
+    return proxy;
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class FilterRoutingPipelineJUnitTest {
+
+  private static final String REGION = "/region";
+
+  private FilterRoutingPipeline pipeline;
+
+  @Before
+  public void setUp() {
+    pipeline = new FilterRoutingPipeline(4, 4, mock(CacheClientNotifierStats.class));
+  }
+
+  @After
+  public void tearDown() {
+    pipeline.close();
+  }
+
+  @Test
+  public void eventsAreDeliveredInSubmissionOrderPerOriginatorAndPerKey() {
+    final Map<Integer, List<Integer>> deliveredByOriginator = new ConcurrentHashMap<>();
+    final Map<Integer, List<Integer>> deliveredByKey = new ConcurrentHashMap<>();
+    final Map<Integer, List<Integer>> routedByKey = new ConcurrentHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      final int key = i % 7;
+      final int originator = i % 3;
+      final int event = i;
+      routedByKey.putIfAbsent(key, Collections.synchronizedList(new ArrayList<Integer>()));
+      deliveredByKey.putIfAbsent(key, Collections.synchronizedList(new ArrayList<Integer>()));
+      deliveredByOriginator.putIfAbsent(originator,
+          Collections.synchronizedList(new ArrayList<Integer>()));
+      pipeline.submit(REGION, key, originator, new Runnable() {
+        public void run() {
+          routedByKey.get(key).add(event);
+        }
+      }, new Runnable() {
+        public void run() {
+          deliveredByKey.get(key).add(event);
+          deliveredByOriginator.get(originator).add(event);
+        }
+      });
+    }
+
+    pipeline.waitForPendingEvents();
+
+    int delivered = 0;
+    for (List<Integer> events : deliveredByOriginator.values()) {
+      assertThat(events).isSorted();
+      delivered += events.size();
+    }
+    assertThat(delivered).isEqualTo(1000);
+    for (List<Integer> events : deliveredByKey.values()) {
+      assertThat(events).isSorted();
+    }
+    for (List<Integer> routed : routedByKey.values()) {
+      assertThat(routed).isSorted();
+    }
+  }
+
+  @Test
+  public void deliveryWaitsForTheRoutingOfEarlierEvents() throws Exception {
+    final CountDownLatch routingMayComplete = new CountDownLatch(1);
+    final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+    pipeline.submit(REGION, "slow", 0, new Runnable() {
+      public void run() {
+        try {
+          routingMayComplete.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, deliver(delivered, "slow"));
+    pipeline.submit(REGION, "fast", 0, mock(Runnable.class), deliver(delivered, "fast"));
+
+    Thread.sleep(200);
+    assertThat(delivered).isEmpty();
+
+    routingMayComplete.countDown();
+    pipeline.waitForPendingEvents();
+    assertThat(delivered).containsExactly("slow", "fast");
+  }
+
+  @Test
+  public void failedRoutingDoesNotStopLaterEvents() {
+    final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+    pipeline.submit(REGION, "failed", 0, new Runnable() {
+      public void run() {
+        throw new IllegalStateException("expected");
+      }
+    }, deliver(delivered, "failed"));
+    pipeline.submit(REGION, "other", 0, mock(Runnable.class), deliver(delivered, "other"));
+
+    pipeline.waitForPendingEvents();
+
+    assertThat(delivered).containsExactly("other");
+  }
+
+  @Test
+  public void eventsOfOtherOriginatorsAreDeliveredWhileAnEventIsRouted() throws Exception {
+    final CountDownLatch routingMayComplete = new CountDownLatch(1);
+    final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+    pipeline.submit(REGION, "slow", 0, awaitLatch(routingMayComplete), deliver(delivered, "slow"));
+    pipeline.submit(REGION, "fast", 1, mock(Runnable.class), deliver(delivered, "fast"));
+
+    Thread.sleep(200);
+    assertThat(delivered).containsExactly("fast");
+
+    routingMayComplete.countDown();
+    pipeline.waitForPendingEvents();
+    assertThat(delivered).containsExactly("fast", "slow");
+  }
+
+  @Test
+  public void eventsOnAKeyAreDeliveredInSubmissionOrderAcrossOriginators() throws Exception {
+    final CountDownLatch deliveryMayComplete = new CountDownLatch(1);
+    final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+    final Runnable deliverFirst = deliver(delivered, "first");
+    pipeline.submit(REGION, "key", 0, mock(Runnable.class), new Runnable() {
+      public void run() {
+        awaitLatch(deliveryMayComplete).run();
+        deliverFirst.run();
+      }
+    });
+    pipeline.submit(REGION, "key", 1, mock(Runnable.class), deliver(delivered, "second"));
+
+    Thread.sleep(200);
+    assertThat(delivered).isEmpty();
+
+    deliveryMayComplete.countDown();
+    pipeline.waitForPendingEvents();
+    assertThat(delivered).containsExactly("first", "second");
+  }
+
+  @Test
+  public void eventsOnTheSameKeyOfDifferentRegionsAreNotOrdered() throws Exception {
+    final CountDownLatch deliveryMayComplete = new CountDownLatch(1);
+    final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+    final Runnable deliverFirst = deliver(delivered, "first");
+    pipeline.submit(REGION, "key", 0, mock(Runnable.class), new Runnable() {
+      public void run() {
+        awaitLatch(deliveryMayComplete).run();
+        deliverFirst.run();
+      }
+    });
+    pipeline.submit("/other", "key", 1, mock(Runnable.class), deliver(delivered, "second"));
+
+    Thread.sleep(200);
+    assertThat(delivered).containsExactly("second");
+
+    deliveryMayComplete.countDown();
+    pipeline.waitForPendingEvents();
+    assertThat(delivered).containsExactly("second", "first");
+  }
+
+  private Runnable awaitLatch(final CountDownLatch latch) {
+    return new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  private Runnable deliver(final List<String> delivered, final String event) {
+    return new Runnable() {
+      public void run() {
+        delivered.add(event);
+      }
+    };
+  }
+}
@@ -17,6 +17,7 @@ package org.apache.geode.internal.cache.tier.sockets;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayOutputStream;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 
@@ -97,6 +98,35 @@ public class MessageJUnitTest {
     }
   }
 
+  @Test
+  public void bufferedMessagesAreWrittenWithASingleWriteOnFlush() throws Exception {
+    ByteArrayOutputStream buffered = spy(new ByteArrayOutputStream());
+    this.message.setComms(mock(Socket.class), null, buffered, ByteBuffer.allocate(1000),
+        mock(MessageStats.class));
+    addStringParts("a", "b");
+    this.message.sendBuffered(true);
+    addStringParts("c", "d");
+    this.message.sendBuffered(false);
+    assertEquals(0, buffered.size());
+
+    this.message.flush();
+
+    verify(buffered, times(1)).write(any(byte[].class), anyInt(), anyInt());
+    ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    this.message.setComms(mock(Socket.class), null, sent, ByteBuffer.allocate(1000),
+        mock(MessageStats.class));
+    addStringParts("a", "b");
+    this.message.send();
+    addStringParts("c", "d");
+    this.message.send();
+    assertArrayEquals(sent.toByteArray(), buffered.toByteArray());
+  }
+
+  private void addStringParts(String first, String second) {
+    this.message.addStringPart(first);
+    this.message.addStringPart(second);
+  }
+
   /**
    * geode-1468: Message should clear the chunks in its Parts when performing cleanup.
    */
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.InternalDataSerializer;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PartsCompressorJUnitTest {
+
+  private static final int EVENTS = 50;
+
+  private static final int PARTS_PER_EVENT = 6;
+
+  @Test
+  public void compressedPartsAreExpandedToTheOriginalParts() throws Exception {
+    Message message = new Message(1 + EVENTS * PARTS_PER_EVENT, Version.CURRENT);
+    message.addIntPart(EVENTS);
+    for (int i = 0; i < EVENTS; i++) {
+      message.addIntPart(1);
+      message.addBytesPart(new byte[] {0x00});
+      message.addStringPart("/region");
+      message.addObjPart(new EventID(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, 1, i));
+      message.addRawPart(("value-" + i).getBytes(), false);
+      message.addLongPart(i);
+    }
+
+    int saved = PartsCompressor.compress(message, 1);
+
+    assertThat(saved).isGreaterThan(0);
+    assertThat(message.getNumberOfParts()).isEqualTo(2);
+    assertThat(message.getPart(0).getInt()).isEqualTo(EVENTS);
+
+    assertThat(PartsCompressor.decompress(message, 1)).isEqualTo(saved);
+
+    assertThat(message.getNumberOfParts()).isEqualTo(1 + EVENTS * PARTS_PER_EVENT);
+    int partNumber = 1;
+    for (int i = 0; i < EVENTS; i++) {
+      assertThat(message.getPart(partNumber++).getInt()).isEqualTo(1);
+      assertThat(message.getPart(partNumber++).getSerializedForm()).containsExactly(0x00);
+      assertThat(message.getPart(partNumber++).getString()).isEqualTo("/region");
+      assertThat(message.getPart(partNumber++).getObject())
+          .isEqualTo(new EventID(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, 1, i));
+      assertThat(message.getPart(partNumber).isBytes()).isTrue();
+      assertThat(new String(message.getPart(partNumber++).getSerializedForm()))
+          .isEqualTo("value-" + i);
+      assertThat(message.getPart(partNumber++).getLong()).isEqualTo(i);
+    }
+  }
+
+  @Test
+  public void messageIsNotChangedIfCompressionDoesNotMakeItSmaller() throws Exception {
+    byte[] first = new byte[100];
+    byte[] second = new byte[100];
+    Random random = new Random(1);
+    random.nextBytes(first);
+    random.nextBytes(second);
+    Message message = new Message(3, Version.CURRENT);
+    message.addIntPart(1);
+    message.addBytesPart(first);
+    message.addBytesPart(second);
+
+    assertThat(PartsCompressor.compress(message, 1)).isEqualTo(0);
+
+    assertThat(message.getNumberOfParts()).isEqualTo(3);
+    assertThat(message.getPart(1).getSerializedForm()).isSameAs(first);
+    assertThat(message.getPart(2).getSerializedForm()).isSameAs(second);
+  }
+
+  @Test
+  public void partExpandingBeyondTheMaximumMessageSizeIsRejected() throws Exception {
+    byte[] compressed = new byte[8];
+    Part.encodeInt(Integer.MAX_VALUE, compressed);
+    Message message = new Message(2, Version.CURRENT);
+    message.addIntPart(1);
+    message.addBytesPart(compressed);
+
+    assertThatThrownBy(() -> PartsCompressor.decompress(message, 1))
+        .isInstanceOf(IOException.class).hasMessageContaining("maximum message size");
+  }
+
+  @Test
+  public void numberOfPartsLargerThanThePartIsRejected() throws Exception {
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(encoded);
+    InternalDataSerializer.writeUnsignedVL(Integer.MAX_VALUE, out);
+    out.flush();
+    Message message = new Message(2, Version.CURRENT);
+    message.addIntPart(1);
+    message.addBytesPart(deflate(encoded.toByteArray()));
+
+    assertThatThrownBy(() -> PartsCompressor.decompress(message, 1))
+        .isInstanceOf(IOException.class).hasMessageContaining("number of parts");
+  }
+
+  private byte[] deflate(byte[] bytes) {
+    Deflater deflater = new Deflater();
+    deflater.setInput(bytes);
+    deflater.finish();
+    byte[] buffer = new byte[1024];
+    int length = deflater.deflate(buffer);
+    deflater.end();
+    byte[] compressed = new byte[length + 4];
+    Part.encodeInt(bytes.length, compressed);
+    System.arraycopy(buffer, 0, compressed, 4, length);
+    return compressed;
+  }
+}
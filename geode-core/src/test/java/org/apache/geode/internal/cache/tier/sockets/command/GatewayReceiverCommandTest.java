@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets.command;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+
+import org.apache.geode.cache.operations.DestroyOperationContext;
+import org.apache.geode.distributed.internal.DM;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.CachedRegionHelper;
+import org.apache.geode.internal.cache.tier.sockets.AcceptorImpl;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.cache.wan.BatchException70;
+import org.apache.geode.internal.cache.wan.GatewayReceiverStats;
+import org.apache.geode.internal.security.AuthorizeRequest;
+import org.apache.geode.internal.security.SecurityService;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class GatewayReceiverCommandTest {
+
+  private static final String REGION_NAME = "/region1";
+
+  private int applyThreads;
+  private ExecutorService applyExecutor;
+  private Message message;
+  private ServerConnection serverConnection;
+  private LocalRegion region;
+  private Message replyMessage;
+  private Message errorResponseMessage;
+  private List<Part> parts;
+  private List<String> appliedEvents;
+
+  @Before
+  public void setUp() throws Exception {
+    this.applyThreads = GatewayReceiverCommand.APPLY_THREADS;
+    this.applyExecutor = Executors.newFixedThreadPool(3);
+
+    this.message = mock(Message.class);
+    this.serverConnection = mock(ServerConnection.class);
+    this.region = mock(LocalRegion.class);
+    this.replyMessage = mock(Message.class);
+    this.errorResponseMessage = mock(Message.class);
+    this.parts = new ArrayList<Part>();
+    this.appliedEvents = new ArrayList<String>();
+
+    CachedRegionHelper crHelper = mock(CachedRegionHelper.class);
+    InternalCache cache = mock(InternalCache.class);
+    InternalDistributedSystem system = mock(InternalDistributedSystem.class);
+    when(system.getDistributionManager()).thenReturn(mock(DM.class));
+    when(cache.getDistributedSystem()).thenReturn(system);
+    when(crHelper.getCache()).thenReturn(cache);
+    when(crHelper.getRegion(REGION_NAME)).thenReturn(this.region);
+
+    AcceptorImpl acceptor = mock(AcceptorImpl.class);
+    when(acceptor.getBatchApplyExecutor(3)).thenReturn(this.applyExecutor);
+
+    when(this.serverConnection.getCachedRegionHelper()).thenReturn(crHelper);
+    when(this.serverConnection.getAcceptor()).thenReturn(acceptor);
+    when(this.serverConnection.getCacheServerStats()).thenReturn(mock(GatewayReceiverStats.class));
+    when(this.serverConnection.getResponseMessage()).thenReturn(this.replyMessage);
+    when(this.serverConnection.getErrorResponseMessage()).thenReturn(this.errorResponseMessage);
+    when(this.serverConnection.getClientVersion()).thenReturn(Version.CURRENT);
+    when(this.message.getPart(anyInt()))
+        .thenAnswer(invocation -> this.parts.get((Integer) invocation.getArgument(0)));
+
+    doAnswer(invocation -> {
+      EntryEventImpl clientEvent = invocation.getArgument(4);
+      synchronized (this.appliedEvents) {
+        this.appliedEvents.add(invocation.getArgument(0) + ":"
+            + clientEvent.getEventId().getSequenceID());
+      }
+      return null;
+    }).when(this.region).basicBridgeDestroy(any(), any(), any(), anyBoolean(), any());
+  }
+
+  @After
+  public void tearDown() {
+    GatewayReceiverCommand.APPLY_THREADS = this.applyThreads;
+    this.applyExecutor.shutdownNow();
+  }
+
+  @Test
+  public void concurrentlyAppliedEventsKeepTheOrderOfTheirKey() throws Exception {
+    GatewayReceiverCommand.APPLY_THREADS = 4;
+    int numberOfEvents = 40;
+    addBatchHeader(numberOfEvents, (byte) 0);
+    for (int i = 0; i < numberOfEvents; i++) {
+      addDestroyEvent("key" + (i % 5), i);
+    }
+
+    GatewayReceiverCommand.getCommand().cmdExecute(this.message, this.serverConnection,
+        mock(SecurityService.class), 0);
+
+    assertEquals(numberOfEvents, this.appliedEvents.size());
+    for (int key = 0; key < 5; key++) {
+      long lastSequenceId = -1;
+      for (String appliedEvent : this.appliedEvents) {
+        String[] keyAndSequenceId = appliedEvent.split(":");
+        if (keyAndSequenceId[0].equals("key" + key)) {
+          long sequenceId = Long.parseLong(keyAndSequenceId[1]);
+          assertTrue(sequenceId > lastSequenceId);
+          lastSequenceId = sequenceId;
+        }
+      }
+    }
+    verify(this.replyMessage).addIntPart(numberOfEvents);
+    verify(this.replyMessage).send(this.serverConnection);
+  }
+
+  @Test
+  public void concurrentlyAppliedEventsReportTheLastModificationOfTheBatchOnce() throws Exception {
+    GatewayReceiverCommand.APPLY_THREADS = 4;
+    int numberOfEvents = 40;
+    addBatchHeader(numberOfEvents, (byte) 0);
+    for (int i = 0; i < numberOfEvents; i++) {
+      addDestroyEvent("key" + i, i);
+    }
+
+    GatewayReceiverCommand.getCommand().cmdExecute(this.message, this.serverConnection,
+        mock(SecurityService.class), 0);
+
+    verify(this.serverConnection).setModificationInfo(true, REGION_NAME,
+        "key" + (numberOfEvents - 1));
+    verify(this.serverConnection, times(1)).setModificationInfo(anyBoolean(), any(), any());
+  }
+
+  @Test
+  public void eventsAreAppliedInOrderWhenOperationsAreAuthorized() throws Exception {
+    GatewayReceiverCommand.APPLY_THREADS = 4;
+    AuthorizeRequest authzRequest = mock(AuthorizeRequest.class);
+    when(authzRequest.destroyAuthorize(any(), any(), any()))
+        .thenAnswer(invocation -> new DestroyOperationContext(invocation.getArgument(1)));
+    when(this.serverConnection.getAuthzRequest()).thenReturn(authzRequest);
+    int numberOfEvents = 10;
+    addBatchHeader(numberOfEvents, (byte) 0);
+    for (int i = 0; i < numberOfEvents; i++) {
+      addDestroyEvent("key" + i, i);
+    }
+
+    GatewayReceiverCommand.getCommand().cmdExecute(this.message, this.serverConnection,
+        mock(SecurityService.class), 0);
+
+    for (int i = 0; i < numberOfEvents; i++) {
+      assertEquals("key" + i + ":" + i, this.appliedEvents.get(i));
+    }
+    verify(this.serverConnection.getAcceptor(), never()).getBatchApplyExecutor(anyInt());
+  }
+
+  @Test
+  public void eventsAreAppliedInOrderWhenTheAcceptorIsClosed() throws Exception {
+    GatewayReceiverCommand.APPLY_THREADS = 4;
+    when(this.serverConnection.getAcceptor().getBatchApplyExecutor(3)).thenReturn(null);
+    int numberOfEvents = 10;
+    addBatchHeader(numberOfEvents, (byte) 0);
+    for (int i = 0; i < numberOfEvents; i++) {
+      addDestroyEvent("key" + i, i);
+    }
+
+    GatewayReceiverCommand.getCommand().cmdExecute(this.message, this.serverConnection,
+        mock(SecurityService.class), 0);
+
+    for (int i = 0; i < numberOfEvents; i++) {
+      assertEquals("key" + i + ":" + i, this.appliedEvents.get(i));
+    }
+    verify(this.replyMessage).addIntPart(numberOfEvents);
+  }
+
+  @Test
+  public void batchExceptionOfConcurrentlyAppliedEventsReportsTheFirstFailedEvent()
+      throws Exception {
+    GatewayReceiverCommand.APPLY_THREADS = 4;
+    doThrow(new IllegalStateException("failed")).when(this.region).basicBridgeDestroy(eq("bad"),
+        any(), any(), anyBoolean(), any());
+    int numberOfEvents = 20;
+    addBatchHeader(numberOfEvents, GatewayReceiverCommand.REMOVE_FROM_QUEUE_ON_EXCEPTION);
+    for (int i = 0; i < numberOfEvents; i++) {
+      addDestroyEvent(i == 7 || i == 15 ? "bad" : "key" + i, i);
+    }
+
+    GatewayReceiverCommand.getCommand().cmdExecute(this.message, this.serverConnection,
+        mock(SecurityService.class), 0);
+
+    ArgumentCaptor<Object> exceptions = ArgumentCaptor.forClass(Object.class);
+    verify(this.errorResponseMessage).addObjPart(exceptions.capture());
+    List<BatchException70> batchExceptions = (List<BatchException70>) exceptions.getValue();
+    assertEquals(2, batchExceptions.size());
+    assertEquals(7, batchExceptions.get(0).getIndex());
+    assertEquals(15, batchExceptions.get(1).getIndex());
+    verify(this.region, times(numberOfEvents)).basicBridgeDestroy(any(), any(), any(),
+        anyBoolean(), any());
+  }
+
+  private void addBatchHeader(int numberOfEvents, byte batchFlags) throws Exception {
+    this.parts.add(intPart(numberOfEvents));
+    this.parts.add(intPart(1));
+    this.parts.add(intPart(2));
+    this.parts.add(bytesPart(batchFlags));
+  }
+
+  private void addDestroyEvent(Object key, long sequenceId) throws Exception {
+    this.parts.add(intPart(2));
+    this.parts.add(bytesPart((byte) 0x00));
+    Part regionNamePart = mock(Part.class);
+    when(regionNamePart.getString()).thenReturn(REGION_NAME);
+    this.parts.add(regionNamePart);
+    Part eventIdPart = mock(Part.class);
+    when(eventIdPart.getObject()).thenReturn(new EventID(new byte[8], 1, sequenceId));
+    this.parts.add(eventIdPart);
+    Part keyPart = mock(Part.class);
+    when(keyPart.getStringOrObject()).thenReturn(key);
+    this.parts.add(keyPart);
+    this.parts.add(bytesPart((byte) 0x00));
+    Part versionTimeStampPart = mock(Part.class);
+    when(versionTimeStampPart.getLong()).thenReturn(0L);
+    this.parts.add(versionTimeStampPart);
+  }
+
+  private Part intPart(int value) {
+    Part part = mock(Part.class);
+    when(part.getInt()).thenReturn(value);
+    return part;
+  }
+
+  private Part bytesPart(byte value) throws Exception {
+    Part part = mock(Part.class);
+    byte[] bytes = new byte[] {value};
+    when(part.getSerializedForm()).thenReturn(bytes);
+    when(part.getObject()).thenReturn(bytes);
+    return part;
+  }
+}
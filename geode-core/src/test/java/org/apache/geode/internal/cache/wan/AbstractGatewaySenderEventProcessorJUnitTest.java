@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.wan;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.internal.cache.wan.serial.ConcurrentSerialGatewaySenderEventProcessor;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AbstractGatewaySenderEventProcessorJUnitTest {
+
+  private AbstractGatewaySenderEventProcessor processor;
+  private Thread waiter;
+
+  @Before
+  public void setUp() throws Exception {
+    AbstractGatewaySenderEventProcessor.MAX_UNACKED_BATCHES = 2;
+    AbstractGatewaySender sender = mock(AbstractGatewaySender.class);
+    when(sender.getStatistics()).thenReturn(mock(GatewaySenderStats.class));
+    when(sender.getGatewayEventFilters()).thenReturn(Collections.emptyList());
+    when(sender.getStopper()).thenReturn(mock(CancelCriterion.class));
+    processor = new ConcurrentSerialGatewaySenderEventProcessor(sender);
+    processor.setIsStopped(false);
+    waiter = new Thread(() -> {
+      try {
+        processor.waitForUnackedBatches();
+      } catch (InterruptedException ignore) {
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    AbstractGatewaySenderEventProcessor.MAX_UNACKED_BATCHES = 0;
+    waiter.interrupt();
+  }
+
+  @Test
+  public void dispatchWaitsForTheAcknowledgementOfABatch() throws Exception {
+    addUnackedBatch(0);
+    addUnackedBatch(1);
+    waiter.start();
+    waiter.join(300);
+    assertTrue(waiter.isAlive());
+
+    processor.getBatchIdToEventsMap().remove(0);
+    processor.handleSuccessBatchAck(0);
+
+    waiter.join(10000);
+    assertFalse(waiter.isAlive());
+  }
+
+  @Test
+  public void dispatchDoesNotWaitOnceTheConnectionIsReset() throws Exception {
+    addUnackedBatch(0);
+    addUnackedBatch(1);
+    waiter.start();
+    waiter.join(300);
+    assertTrue(waiter.isAlive());
+
+    processor.handleException();
+
+    waiter.join(10000);
+    assertFalse(waiter.isAlive());
+  }
+
+  private void addUnackedBatch(int batchId) {
+    List<GatewaySenderEventImpl>[] events = new List[] {Collections.emptyList(),
+        Collections.emptyList()};
+    processor.getBatchIdToEventsMap().put(batchId, events);
+  }
+}
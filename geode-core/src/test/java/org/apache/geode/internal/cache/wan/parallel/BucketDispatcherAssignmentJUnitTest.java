@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.wan.parallel;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.cache.wan.GatewaySenderEventImpl;
+import org.apache.geode.internal.cache.wan.GatewaySenderStats;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class BucketDispatcherAssignmentJUnitTest {
+
+  private GatewaySenderStats stats;
+  private BucketDispatcherAssignment assignment;
+
+  @Before
+  public void setUp() {
+    this.stats = mock(GatewaySenderStats.class);
+    this.assignment = new BucketDispatcherAssignment(2, 10, this.stats);
+  }
+
+  @Test
+  public void bucketsStartWithTheirModuloDispatcher() {
+    assertEquals(0, this.assignment.getDispatcher(4));
+    assertEquals(1, this.assignment.getDispatcher(7));
+    assertTrue(this.assignment.isPeekable(4, 0));
+    assertFalse(this.assignment.isPeekable(4, 1));
+  }
+
+  @Test
+  public void balancedDispatchersDoNotHandOffBuckets() {
+    Map<Integer, Integer> bucketSizes = new HashMap<Integer, Integer>();
+    bucketSizes.put(0, 20);
+    bucketSizes.put(1, 15);
+    assertNull(this.assignment.chooseHandoff(bucketSizes));
+  }
+
+  @Test
+  public void largestBucketIsHandedToTheDispatcherAhead() {
+    Map<Integer, Integer> bucketSizes = new HashMap<Integer, Integer>();
+    bucketSizes.put(0, 100);
+    bucketSizes.put(2, 40);
+    bucketSizes.put(4, 30);
+    bucketSizes.put(1, 10);
+    assertArrayEquals(new int[] {0, 1}, this.assignment.chooseHandoff(bucketSizes));
+  }
+
+  @Test
+  public void bucketNotReducingTheDifferenceIsNotHandedOff() {
+    Map<Integer, Integer> bucketSizes = new HashMap<Integer, Integer>();
+    bucketSizes.put(0, 100);
+    bucketSizes.put(2, 5);
+    bucketSizes.put(1, 10);
+    assertArrayEquals(new int[] {2, 1}, this.assignment.chooseHandoff(bucketSizes));
+  }
+
+  @Test
+  public void singleBucketOfTheDispatcherBehindIsNotHandedOff() {
+    Map<Integer, Integer> bucketSizes = new HashMap<Integer, Integer>();
+    bucketSizes.put(0, 100);
+    bucketSizes.put(1, 10);
+    assertNull(this.assignment.chooseHandoff(bucketSizes));
+  }
+
+  @Test
+  public void handoffCompletesOnceNoPeekedEventOfTheBucketIsLeft() {
+    ParallelGatewaySenderQueue queue = mock(ParallelGatewaySenderQueue.class);
+    this.assignment.setQueue(0, queue);
+    this.assignment.setQueue(1, queue);
+    GatewaySenderEventImpl event = mock(GatewaySenderEventImpl.class);
+    when(event.getBucketId()).thenReturn(2);
+
+    this.assignment.handOff(2, 1);
+    assertFalse(this.assignment.isPeekable(2, 0));
+    assertFalse(this.assignment.isPeekable(2, 1));
+
+    this.assignment.completeHandoffs(0, Collections.singletonList(event));
+    assertEquals(0, this.assignment.getDispatcher(2));
+    verify(this.stats, never()).incBucketsReassigned();
+
+    this.assignment.completeHandoffs(1, Collections.<GatewaySenderEventImpl>emptyList());
+    assertEquals(0, this.assignment.getDispatcher(2));
+
+    this.assignment.completeHandoffs(0, Collections.<GatewaySenderEventImpl>emptyList());
+    assertEquals(1, this.assignment.getDispatcher(2));
+    assertTrue(this.assignment.isPeekable(2, 1));
+    verify(this.stats).incBucketsReassigned();
+    verify(queue).notifyEventProcessorIfRequired();
+  }
+}
@@ -17,7 +17,10 @@ package org.apache.geode.internal.util;
 import static org.apache.geode.internal.util.BlobHelper.*;
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.EOFException;
+import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
@@ -28,6 +31,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.DataSerializable;
 import org.apache.geode.DataSerializer;
 import org.apache.geode.internal.ByteArrayDataInput;
 import org.apache.geode.internal.HeapDataOutputStream;
@@ -110,6 +114,16 @@ public class BlobHelperTest {
     assertThatThrownBy(() -> deserializeBlob(null)).isExactlyInstanceOf(NullPointerException.class);
   }
 
+  @Test
+  public void deserializeBlobOfNestedBlobReturnsBothObjects() throws Exception {
+    byte[] bytes = serializeToBlob(new NestedBlob(this.bytesOfMap));
+
+    NestedBlob object = (NestedBlob) deserializeBlob(bytes);
+
+    assertThat(object.nestedObject).isEqualTo(this.mapWithTwoEntries);
+    assertThat(deserializeBlob(this.bytesOfMap)).isEqualTo(this.mapWithTwoEntries);
+  }
+
   @Test
   public void serializeMapToStreamWritesMapAsBytes() throws Exception {
     HeapDataOutputStream hdos = createHeapDataOutputStream();
@@ -172,6 +186,33 @@ public class BlobHelperTest {
     return new HeapDataOutputStream(HDOS_ALLOC_SIZE, null, true);
   }
 
+  /**
+   * Deserializes another blob while it is itself being deserialized.
+   */
+  public static class NestedBlob implements DataSerializable {
+    private byte[] nestedBytes;
+    private Object nestedObject;
+
+    public NestedBlob() {}
+
+    NestedBlob(byte[] nestedBytes) {
+      this.nestedBytes = nestedBytes;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      DataSerializer.writeByteArray(this.nestedBytes, out);
+      out.writeInt(7);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      this.nestedBytes = DataSerializer.readByteArray(in);
+      this.nestedObject = deserializeBlob(this.nestedBytes);
+      assertThat(in.readInt()).isEqualTo(7);
+    }
+  }
+
   private static class ClassNotFoundSerialization implements Serializable {
     private void readObject(final ObjectInputStream in) throws ClassNotFoundException {
       throw new ClassNotFoundException(CLASS_NOT_FOUND_MESSAGE);
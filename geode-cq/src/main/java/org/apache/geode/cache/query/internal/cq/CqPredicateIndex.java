@@ -0,0 +1,545 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.cq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.AttributeDescriptor;
+import org.apache.geode.cache.query.internal.CompiledComparison;
+import org.apache.geode.cache.query.internal.CompiledID;
+import org.apache.geode.cache.query.internal.CompiledIteratorDef;
+import org.apache.geode.cache.query.internal.CompiledJunction;
+import org.apache.geode.cache.query.internal.CompiledLiteral;
+import org.apache.geode.cache.query.internal.CompiledPath;
+import org.apache.geode.cache.query.internal.CompiledSelect;
+import org.apache.geode.cache.query.internal.CompiledValue;
+import org.apache.geode.cache.query.internal.PathUtils;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * Indexes the WHERE clauses of CQ queries by the comparisons of an attribute of the CQ iterator
+ * with a literal they contain, so that the CQs a value cannot satisfy are found without evaluating
+ * their queries on it. Equality comparisons are kept in hash maps and range comparisons in sorted
+ * maps by the literal, so that the queries whose comparisons a value satisfies are found with one
+ * lookup per attribute.
+ * <p>
+ * A query is indexed by one comparison each of its AND conditions must satisfy, preferably an
+ * equality, or by all comparisons of an OR condition. The index only tells which queries cannot
+ * match a value; the others still have to be evaluated on it. Queries that are not indexed, and
+ * queries whose attribute could not be compared with their literal exactly as the query would
+ * compare them, always might match.
+ * <p>
+ * The queries are indexed by the region they are on, so that a value is only compared by the
+ * queries on its region.
+ */
+class CqPredicateIndex {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /** The largest magnitude of an integer that a double represents exactly */
+  private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+  /** The predicates of the indexed queries by query string */
+  private final Map<String, List<Predicate>> predicatesByQuery = new HashMap<>();
+
+  /** The region path of the indexed queries by query string */
+  private final Map<String, String> regionsByQuery = new HashMap<>();
+
+  /** The generation in which each indexed query was added to the index, by query string */
+  private final Map<String, Long> generationsByQuery = new ConcurrentHashMap<>();
+
+  /** The attributes compared by the indexed queries, by region path and attribute path */
+  private final Map<String, Map<String, AttributeIndex>> attributeIndexes = new HashMap<>();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private long generation;
+
+  /**
+   * Indexes the query of a CQ on the given region. Nothing is indexed if the query has no
+   * comparison that can be indexed.
+   */
+  void add(String regionPath, String queryString, CompiledSelect select) {
+    List<Predicate> predicates = getPredicates(select);
+    this.lock.writeLock().lock();
+    try {
+      removeQuery(queryString);
+      if (predicates == null) {
+        return;
+      }
+      Map<String, AttributeIndex> regionIndexes =
+          this.attributeIndexes.computeIfAbsent(regionPath, path -> new HashMap<>());
+      for (Predicate predicate : predicates) {
+        regionIndexes
+            .computeIfAbsent(predicate.path, path -> new AttributeIndex(predicate.attributes))
+            .add(predicate, queryString);
+      }
+      this.predicatesByQuery.put(queryString, predicates);
+      this.regionsByQuery.put(queryString, regionPath);
+      this.generationsByQuery.put(queryString, ++this.generation);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the query of a CQ from the index
+   */
+  void remove(String queryString) {
+    this.lock.writeLock().lock();
+    try {
+      removeQuery(queryString);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private void removeQuery(String queryString) {
+    this.generationsByQuery.remove(queryString);
+    List<Predicate> predicates = this.predicatesByQuery.remove(queryString);
+    String regionPath = this.regionsByQuery.remove(queryString);
+    if (predicates == null) {
+      return;
+    }
+    Map<String, AttributeIndex> regionIndexes = this.attributeIndexes.get(regionPath);
+    if (regionIndexes == null) {
+      return;
+    }
+    for (Predicate predicate : predicates) {
+      AttributeIndex attributeIndex = regionIndexes.get(predicate.path);
+      if (attributeIndex != null && attributeIndex.remove(predicate, queryString)) {
+        regionIndexes.remove(predicate.path);
+      }
+    }
+    if (regionIndexes.isEmpty()) {
+      this.attributeIndexes.remove(regionPath);
+    }
+  }
+
+  /**
+   * Returns whether the query is indexed
+   */
+  boolean isIndexed(String queryString) {
+    return this.generationsByQuery.containsKey(queryString);
+  }
+
+  /**
+   * Finds the queries indexed on the given region that the given value of the region might match
+   */
+  Matches match(String regionPath, Object value) {
+    Set<String> candidates = new HashSet<>();
+    this.lock.readLock().lock();
+    try {
+      Map<String, AttributeIndex> regionIndexes = this.attributeIndexes.get(regionPath);
+      if (regionIndexes != null) {
+        for (AttributeIndex attributeIndex : regionIndexes.values()) {
+          attributeIndex.match(value, candidates);
+        }
+      }
+      return new Matches(this.generation, candidates);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * The queries a value might match
+   */
+  class Matches {
+
+    private final long generation;
+
+    private final Set<String> candidates;
+
+    Matches(long generation, Set<String> candidates) {
+      this.generation = generation;
+      this.candidates = candidates;
+    }
+
+    /**
+     * Returns false if the value cannot match the query, true if it might
+     */
+    boolean mightMatch(String queryString) {
+      Long added = CqPredicateIndex.this.generationsByQuery.get(queryString);
+      return added == null || added > this.generation || this.candidates.contains(queryString);
+    }
+  }
+
+  /**
+   * Returns the predicates to index a CQ query by, or null if it cannot be indexed
+   */
+  static List<Predicate> getPredicates(CompiledSelect select) {
+    if (select == null || select.getWhereClause() == null || select.getIterators().size() != 1) {
+      return null;
+    }
+    String iteratorName = ((CompiledIteratorDef) select.getIterators().get(0)).getName();
+    return getPredicates(select.getWhereClause(), iteratorName);
+  }
+
+  private static List<Predicate> getPredicates(CompiledValue condition, String iteratorName) {
+    if (condition.getType() == CompiledValue.COMPARISON) {
+      Predicate predicate = getPredicate((CompiledComparison) condition, iteratorName);
+      return predicate == null ? null : Collections.singletonList(predicate);
+    }
+    if (condition.getType() != CompiledValue.JUNCTION) {
+      return null;
+    }
+    CompiledJunction junction = (CompiledJunction) condition;
+    List<Predicate> predicates = null;
+    if (junction.getOperator() == OQLLexerTokenTypes.LITERAL_and) {
+      // any one condition the query must satisfy is enough, preferably an equality
+      for (Object operand : junction.getChildren()) {
+        List<Predicate> operandPredicates = getPredicates((CompiledValue) operand, iteratorName);
+        if (operandPredicates != null
+            && (predicates == null || isEquality(operandPredicates) && !isEquality(predicates))) {
+          predicates = operandPredicates;
+        }
+      }
+    } else {
+      // the query matches if any of the conditions does, so all of them must be indexed
+      predicates = new ArrayList<>();
+      for (Object operand : junction.getChildren()) {
+        List<Predicate> operandPredicates = getPredicates((CompiledValue) operand, iteratorName);
+        if (operandPredicates == null) {
+          return null;
+        }
+        predicates.addAll(operandPredicates);
+      }
+    }
+    return predicates;
+  }
+
+  private static boolean isEquality(List<Predicate> predicates) {
+    for (Predicate predicate : predicates) {
+      if (predicate.operator != OQLLexerTokenTypes.TOK_EQ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Predicate getPredicate(CompiledComparison comparison, String iteratorName) {
+    List operands = comparison.getChildren();
+    CompiledValue attribute = (CompiledValue) operands.get(0);
+    CompiledValue literal = (CompiledValue) operands.get(1);
+    int operator = comparison.getOperator();
+    if (attribute instanceof CompiledLiteral) {
+      attribute = literal;
+      literal = (CompiledValue) operands.get(0);
+      operator = reflect(operator);
+    }
+    if (!(literal instanceof CompiledLiteral) || operator == OQLLexerTokenTypes.TOK_NE) {
+      return null;
+    }
+    List<String> attributes = getAttributes(attribute, iteratorName);
+    Object key;
+    try {
+      key = getKey(literal.evaluate(null));
+    } catch (Exception ignore) {
+      return null;
+    }
+    if (attributes == null || key == null
+        || key instanceof Boolean && operator != OQLLexerTokenTypes.TOK_EQ) {
+      return null;
+    }
+    return new Predicate(attributes.toArray(new String[attributes.size()]), operator, key);
+  }
+
+  private static int reflect(int operator) {
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_LT:
+        return OQLLexerTokenTypes.TOK_GT;
+      case OQLLexerTokenTypes.TOK_LE:
+        return OQLLexerTokenTypes.TOK_GE;
+      case OQLLexerTokenTypes.TOK_GT:
+        return OQLLexerTokenTypes.TOK_LT;
+      case OQLLexerTokenTypes.TOK_GE:
+        return OQLLexerTokenTypes.TOK_LE;
+      default:
+        return operator;
+    }
+  }
+
+  /**
+   * Returns the attribute path of the iterator the value refers to, or null if it does not refer
+   * to an attribute of the iterator
+   */
+  private static List<String> getAttributes(CompiledValue value, String iteratorName) {
+    if (value instanceof CompiledID) {
+      String id = ((CompiledID) value).getId();
+      List<String> attributes = new ArrayList<>();
+      if (!id.equals(iteratorName)) {
+        // an attribute of the implicit iterator
+        attributes.add(id);
+      }
+      return attributes;
+    }
+    if (value instanceof CompiledPath) {
+      CompiledPath path = (CompiledPath) value;
+      List<String> attributes = getAttributes(path.getReceiver(), iteratorName);
+      if (attributes != null) {
+        attributes.add(path.getTailID());
+      }
+      return attributes;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the key the value is indexed or looked up by, or null if it is not of a type that can
+   * be compared with the keys exactly as a query compares it. Integers are compared as doubles, so
+   * only those a double represents exactly have a key. Floats have none, as a query compares them
+   * with integers as floats.
+   */
+  static Object getKey(Object value) {
+    if (value instanceof String || value instanceof Boolean || value instanceof Double) {
+      return value;
+    }
+    if (value instanceof PdxString) {
+      return value.toString();
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      long longValue = ((Number) value).longValue();
+      if (longValue > MAX_EXACT_INTEGER || longValue < -MAX_EXACT_INTEGER) {
+        return null;
+      }
+      return (double) longValue;
+    }
+    return null;
+  }
+
+  /**
+   * A comparison of an attribute of the CQ iterator with a literal
+   */
+  static class Predicate {
+
+    final String path;
+
+    final String[] attributes;
+
+    final int operator;
+
+    final Object key;
+
+    Predicate(String[] attributes, int operator, Object key) {
+      this.path = String.join(".", attributes);
+      this.attributes = attributes;
+      this.operator = operator;
+      this.key = key;
+    }
+  }
+
+  /**
+   * The queries comparing one attribute path, by the literals they compare it with
+   */
+  private static class AttributeIndex {
+
+    private final String[] attributes;
+
+    private final AttributeDescriptor[] descriptors;
+
+    /**
+     * The classes of the values that do not have the first attribute, which are not evaluated
+     * again
+     */
+    private final Set<Class<?>> classesWithoutAttribute = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> queries = new HashSet<>();
+
+    /** The queries by the type of their literals, for the values of other types */
+    private final Map<Class<?>, Set<String>> queriesByKeyType = new HashMap<>();
+
+    private final Map<Object, Set<String>> equal = new HashMap<>();
+
+    private final Map<Class<?>, NavigableMap<Object, Set<String>>> lessThan = new HashMap<>();
+
+    private final Map<Class<?>, NavigableMap<Object, Set<String>>> lessOrEqual = new HashMap<>();
+
+    private final Map<Class<?>, NavigableMap<Object, Set<String>>> greaterThan = new HashMap<>();
+
+    private final Map<Class<?>, NavigableMap<Object, Set<String>>> greaterOrEqual =
+        new HashMap<>();
+
+    AttributeIndex(String[] attributes) {
+      this.attributes = attributes;
+      this.descriptors = new AttributeDescriptor[attributes.length];
+      for (int i = 0; i < attributes.length; i++) {
+        this.descriptors[i] = new AttributeDescriptor(attributes[i]);
+      }
+    }
+
+    void add(Predicate predicate, String queryString) {
+      this.queries.add(queryString);
+      this.queriesByKeyType.computeIfAbsent(predicate.key.getClass(), type -> new HashSet<>())
+          .add(queryString);
+      Map<Object, Set<String>> keys = getKeys(predicate, true);
+      keys.computeIfAbsent(predicate.key, key -> new HashSet<>()).add(queryString);
+    }
+
+    /**
+     * Removes the query of the predicate, returning whether the attribute is no longer compared
+     */
+    boolean remove(Predicate predicate, String queryString) {
+      this.queries.remove(queryString);
+      removeFrom(this.queriesByKeyType, predicate.key.getClass(), queryString);
+      Map<Object, Set<String>> keys = getKeys(predicate, false);
+      if (keys != null) {
+        removeFrom(keys, predicate.key, queryString);
+      }
+      return this.queries.isEmpty();
+    }
+
+    private static <K> void removeFrom(Map<K, Set<String>> map, K key, String queryString) {
+      Set<String> queries = map.get(key);
+      if (queries != null) {
+        queries.remove(queryString);
+        if (queries.isEmpty()) {
+          map.remove(key);
+        }
+      }
+    }
+
+    private Map<Object, Set<String>> getKeys(Predicate predicate, boolean create) {
+      Map<Class<?>, NavigableMap<Object, Set<String>>> ranges;
+      switch (predicate.operator) {
+        case OQLLexerTokenTypes.TOK_EQ:
+          return this.equal;
+        case OQLLexerTokenTypes.TOK_LT:
+          ranges = this.lessThan;
+          break;
+        case OQLLexerTokenTypes.TOK_LE:
+          ranges = this.lessOrEqual;
+          break;
+        case OQLLexerTokenTypes.TOK_GT:
+          ranges = this.greaterThan;
+          break;
+        default:
+          ranges = this.greaterOrEqual;
+          break;
+      }
+      Class<?> keyType = predicate.key.getClass();
+      return create ? ranges.computeIfAbsent(keyType, type -> new TreeMap<>())
+          : ranges.get(keyType);
+    }
+
+    /**
+     * Adds the queries comparing this attribute that the value might match to the candidates
+     */
+    void match(Object value, Set<String> candidates) {
+      Object attribute = evaluate(value);
+      Object key = getKey(attribute);
+      if (key == null) {
+        candidates.addAll(this.queries);
+        return;
+      }
+      Class<?> keyType = key.getClass();
+      // the query decides how values of another type compare with its literal
+      for (Map.Entry<Class<?>, Set<String>> entry : this.queriesByKeyType.entrySet()) {
+        if (entry.getKey() != keyType) {
+          candidates.addAll(entry.getValue());
+        }
+      }
+      addAll(candidates, this.equal.get(key));
+      if (attribute instanceof PdxString) {
+        // a query orders pdx strings by their encoded form
+        addAll(candidates, this.lessThan.get(keyType), this.lessOrEqual.get(keyType),
+            this.greaterThan.get(keyType), this.greaterOrEqual.get(keyType));
+        return;
+      }
+      // attribute < literal
+      addAll(candidates, tailMap(this.lessThan, keyType, key, false));
+      addAll(candidates, tailMap(this.lessOrEqual, keyType, key, true));
+      // attribute > literal
+      addAll(candidates, headMap(this.greaterThan, keyType, key, false));
+      addAll(candidates, headMap(this.greaterOrEqual, keyType, key, true));
+    }
+
+    private Object evaluate(Object value) {
+      if (value == null || this.classesWithoutAttribute.contains(value.getClass())) {
+        return null;
+      }
+      Object attribute = value;
+      int i = 0;
+      try {
+        for (; i < this.attributes.length; i++) {
+          if (attribute == null || attribute == QueryService.UNDEFINED) {
+            return null;
+          }
+          attribute = PathUtils.evaluateAttribute(attribute, this.attributes[i],
+              this.descriptors[i]);
+        }
+      } catch (Exception e) {
+        // the queries report this when they are evaluated
+        if (i == 0 && !(value instanceof PdxInstance)
+            && this.classesWithoutAttribute.add(value.getClass()) && logger.isDebugEnabled()) {
+          logger.debug("Values of {} cannot be matched by attribute {} of CQ queries: {}",
+              value.getClass().getName(), this.attributes[0], e.toString());
+        }
+        return null;
+      }
+      return attribute;
+    }
+
+    private static Map<Object, Set<String>> tailMap(
+        Map<Class<?>, NavigableMap<Object, Set<String>>> ranges, Class<?> keyType, Object key,
+        boolean inclusive) {
+      NavigableMap<Object, Set<String>> keys = ranges.get(keyType);
+      return keys == null ? null : keys.tailMap(key, inclusive);
+    }
+
+    private static Map<Object, Set<String>> headMap(
+        Map<Class<?>, NavigableMap<Object, Set<String>>> ranges, Class<?> keyType, Object key,
+        boolean inclusive) {
+      NavigableMap<Object, Set<String>> keys = ranges.get(keyType);
+      return keys == null ? null : keys.headMap(key, inclusive);
+    }
+
+    private static void addAll(Set<String> candidates, Collection<String> queries) {
+      if (queries != null) {
+        candidates.addAll(queries);
+      }
+    }
+
+    @SafeVarargs
+    private static void addAll(Set<String> candidates, Map<Object, Set<String>>... keyMaps) {
+      for (Map<Object, Set<String>> keys : keyMaps) {
+        if (keys != null) {
+          for (Set<String> queries : keys.values()) {
+            candidates.addAll(queries);
+          }
+        }
+      }
+    }
+  }
+}
@@ -100,6 +100,13 @@ public class CqServiceImpl implements CqService {
   public static boolean EXECUTE_QUERY_DURING_INIT = Boolean.valueOf(System
       .getProperty(DistributionConfig.GEMFIRE_PREFIX + "cq.EXECUTE_QUERY_DURING_INIT", "true"));
 
+  /**
+   * System property to match entry events against the CQs through an index of the comparisons in
+   * their queries, so that a CQ does not evaluate its query on the values it cannot match.
+   */
+  public static final boolean USE_PREDICATE_INDEX =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "cq.USE_PREDICATE_INDEX");
+
   private static final String CQ_NAME_PREFIX = "GfCq";
 
   private final InternalCache cache;
@@ -129,6 +136,9 @@ public class CqServiceImpl implements CqService {
   // With query as key and Set of CQs as values.
   private final ConcurrentHashMap matchingCqMap;
 
+  // Index of the comparisons in the queries of the matching CQ map.
+  private final CqPredicateIndex predicateIndex = new CqPredicateIndex();
+
   // CQ Service statistics
   private final CqServiceStatisticsImpl cqServiceStats;
   private final CqServiceVsdStats stats;
@@ -1271,6 +1281,12 @@ public class CqServiceImpl implements CqService {
         || (event.getOperation().isCreate() && isDupEvent));
 
     HashMap<String, Integer> matchedCqs = new HashMap<>();
+    // the values of the event are looked up in the predicate index once, as the CQs of all
+    // profiles are on the region of the event
+    CqPredicateIndex.Matches newValueMatches = null;
+    CqPredicateIndex.Matches oldValueMatches = null;
+    boolean newValueMatched = false;
+    boolean oldValueMatched = false;
     long executionStartTime;
     for (int i = -1; i < profiles.length; i++) {
       CacheProfile cf;
@@ -1345,9 +1361,16 @@ public class CqServiceImpl implements CqService {
           boolean error = false;
           {
             try {
+              if (USE_PREDICATE_INDEX && !newValueMatched
+                  && !cqUnfilteredEventsSet_newValue.isEmpty()) {
+                newValueMatches = matchPredicates(cQuery,
+                    cqUnfilteredEventsSet_newValue.iterator().next());
+                newValueMatched = true;
+              }
               synchronized (cQuery) {
                 // Apply query on new value.
-                if (!cqUnfilteredEventsSet_newValue.isEmpty()) {
+                if (!cqUnfilteredEventsSet_newValue.isEmpty()
+                    && mightMatch(cQuery, newValueMatches)) {
                   executionStartTime = this.stats.startCqQueryExecution();
 
                   b_cqResults_newValue =
@@ -1387,16 +1410,23 @@ public class CqServiceImpl implements CqService {
                       cqUnfilteredEventsSet_oldValue.add(oldValue);
                     }
                   }
+                  if (USE_PREDICATE_INDEX && !oldValueMatched
+                      && !cqUnfilteredEventsSet_oldValue.isEmpty()) {
+                    oldValueMatches = matchPredicates(cQuery,
+                        cqUnfilteredEventsSet_oldValue.iterator().next());
+                    oldValueMatched = true;
+                  }
 
                   synchronized (cQuery) {
                     // Apply query on old value.
-                    if (!cqUnfilteredEventsSet_oldValue.isEmpty()) {
+                    if (!cqUnfilteredEventsSet_oldValue.isEmpty()
+                        && mightMatch(cQuery, oldValueMatches)) {
                       executionStartTime = this.stats.startCqQueryExecution();
                       b_cqResults_oldValue =
                           evaluateQuery(cQuery, new Object[] {cqUnfilteredEventsSet_oldValue});
                       this.stats.endCqQueryExecution(executionStartTime);
                     } else {
-                      if (isDebugEnabled) {
+                      if (isDebugEnabled && cqUnfilteredEventsSet_oldValue.isEmpty()) {
                         logger.debug(
                             "old value for event with key {} is null - query execution not performed",
                             eventKey);
@@ -1489,6 +1519,30 @@ public class CqServiceImpl implements CqService {
     } // iteration over Profiles.
   }
 
+  /**
+   * Looks up the queries on the region of the given CQ that the given value might match
+   */
+  private CqPredicateIndex.Matches matchPredicates(CqQueryImpl cQuery, Object value) {
+    long start = this.stats.startCqEventMatch();
+    try {
+      return this.predicateIndex.match(cQuery.getRegionName(), value);
+    } finally {
+      this.stats.endCqEventMatch(start);
+    }
+  }
+
+  /**
+   * Returns false if the predicate index shows the value of the matches cannot satisfy the query of
+   * the CQ, which then need not be evaluated on it.
+   */
+  private boolean mightMatch(CqQueryImpl cQuery, CqPredicateIndex.Matches matches) {
+    if (matches == null || matches.mightMatch(cQuery.getQueryString())) {
+      return true;
+    }
+    this.stats.incCqQueryExecutionsSkipped();
+    return false;
+  }
+
   private Integer generateCqRegionEvent(CacheEvent event) {
     Integer cqEvent = null;
     if (event.getOperation().isRegionDestroy()) {
@@ -1551,6 +1605,10 @@ public class CqServiceImpl implements CqService {
         matchingCQs = Collections.newSetFromMap(new ConcurrentHashMap());
         matchingCqMap.put(cqQuery, matchingCQs);
         this.stats.incUniqueCqQuery();
+        if (USE_PREDICATE_INDEX && cq.getQuery() != null) {
+          this.predicateIndex.add(cq.getRegionName(), cqQuery,
+              ((DefaultQuery) cq.getQuery()).getSimpleSelect());
+        }
       } else {
         matchingCQs = (Set) matchingCqMap.get(cqQuery);
       }
@@ -1579,6 +1637,7 @@ public class CqServiceImpl implements CqService {
         if (matchingCQs.isEmpty()) {
           matchingCqMap.remove(cqQuery);
           this.stats.decUniqueCqQuery();
+          this.predicateIndex.remove(cqQuery);
         }
       }
     }
@@ -73,6 +73,15 @@ public class CqServiceVsdStats {
   /** Unique CQs, number of different CQ queries */
   private static final String UNIQUE_CQ_QUERY = "numUniqueCqQuery";
 
+  /** Time spent looking up the values of entry events in the CQ predicate index */
+  private static final String CQ_EVENT_MATCH_TIME = "cqEventMatchTime";
+
+  /** Values of entry events looked up in the CQ predicate index */
+  private static final String CQ_EVENTS_MATCHED = "cqEventsMatched";
+
+  /** CQ query executions the predicate index showed were not needed */
+  private static final String CQ_QUERY_EXECUTIONS_SKIPPED = "cqQueryExecutionsSkipped";
+
   /** Id of the CQs created statistic */
   private static final int _numCqsCreatedId;
 
@@ -103,6 +112,15 @@ public class CqServiceVsdStats {
   /** Id for unique CQs, difference in CQ queries */
   private static final int _numUniqueCqQuery;
 
+  /** Id for the time spent looking up values in the CQ predicate index */
+  private static final int _cqEventMatchTimeId;
+
+  /** Id for the values looked up in the CQ predicate index */
+  private static final int _cqEventsMatchedId;
+
+  /** Id for the CQ query executions the predicate index showed were not needed */
+  private static final int _cqQueryExecutionsSkippedId;
+
   /*
    * Static initializer to create and initialize the <code>StatisticsType</code>
    */
@@ -125,6 +143,13 @@ public class CqServiceVsdStats {
             f.createIntGauge(CQ_QUERY_EXECUTION_IN_PROGRESS, "CQ Query Execution In Progress.",
                 "operations"),
             f.createIntGauge(UNIQUE_CQ_QUERY, "Number of Unique CQ Querys.", "Queries"),
+            f.createLongCounter(CQ_EVENT_MATCH_TIME,
+                "Time taken to look up the values of entry events in the CQ predicate index.", "nanoseconds"),
+            f.createLongCounter(CQ_EVENTS_MATCHED,
+                "Number of values of entry events looked up in the CQ predicate index.", "operations"),
+            f.createLongCounter(CQ_QUERY_EXECUTIONS_SKIPPED,
+                "Number of CQ Query Executions not needed because the CQ predicate index showed the event could not match.",
+                "operations"),
 
         });
 
@@ -139,6 +164,9 @@ public class CqServiceVsdStats {
     _cqQueryExecutionsCompletedId = _type.nameToId(CQ_QUERY_EXECUTIONS_COMPLETED);
     _cqQueryExecutionInProgressId = _type.nameToId(CQ_QUERY_EXECUTION_IN_PROGRESS);
     _numUniqueCqQuery = _type.nameToId(UNIQUE_CQ_QUERY);
+    _cqEventMatchTimeId = _type.nameToId(CQ_EVENT_MATCH_TIME);
+    _cqEventsMatchedId = _type.nameToId(CQ_EVENTS_MATCHED);
+    _cqQueryExecutionsSkippedId = _type.nameToId(CQ_QUERY_EXECUTIONS_SKIPPED);
   }
 
   /** The <code>Statistics</code> instance to which most behavior is delegated */
@@ -314,6 +342,53 @@ public class CqServiceVsdStats {
     return this._stats.getLong(_cqQueryExecutionTimeId);
   }
 
+  /**
+   * Start looking up a value of an entry event in the CQ predicate index.
+   */
+  long startCqEventMatch() {
+    return NanoTimer.getTime();
+  }
+
+  /**
+   * End looking up a value of an entry event in the CQ predicate index.
+   * 
+   * @param start long time value.
+   */
+  void endCqEventMatch(long start) {
+    this._stats.incLong(_cqEventMatchTimeId, NanoTimer.getTime() - start);
+    this._stats.incLong(_cqEventsMatchedId, 1);
+  }
+
+  /**
+   * Returns the total time spent looking up values in the CQ predicate index.
+   * 
+   * @return long time spent.
+   */
+  public long getCqEventMatchTime() {
+    return this._stats.getLong(_cqEventMatchTimeId);
+  }
+
+  /**
+   * Returns the number of values looked up in the CQ predicate index.
+   */
+  public long getCqEventsMatched() {
+    return this._stats.getLong(_cqEventsMatchedId);
+  }
+
+  /**
+   * Increments the number of CQ query executions the predicate index showed were not needed.
+   */
+  void incCqQueryExecutionsSkipped() {
+    this._stats.incLong(_cqQueryExecutionsSkippedId, 1);
+  }
+
+  /**
+   * Returns the number of CQ query executions the predicate index showed were not needed.
+   */
+  public long getCqQueryExecutionsSkipped() {
+    return this._stats.getLong(_cqQueryExecutionsSkippedId);
+  }
+
   /**
    * Increments number of Unique queries.
    */
@@ -283,7 +283,9 @@ public class ServerCQImpl extends CqQueryImpl implements DataSerializable, Serve
    */
   private Query constructServerSideQuery() throws QueryException {
     InternalCache cache = cqService.getInternalCache();
-    DefaultQuery locQuery = (DefaultQuery) cache.getLocalQueryService().newQuery(this.queryString);
+    // the FROM clause of the compiled query is modified below, so it must not be shared with the
+    // queries of the compiled query cache
+    DefaultQuery locQuery = new DefaultQuery(this.queryString, cache, false);
     CompiledSelect select = locQuery.getSimpleSelect();
     CompiledIteratorDef from = (CompiledIteratorDef) select.getIterators().get(0);
     // WARNING: ASSUMES QUERY WAS ALREADY VALIDATED FOR PROPER "FORM" ON CLIENT;
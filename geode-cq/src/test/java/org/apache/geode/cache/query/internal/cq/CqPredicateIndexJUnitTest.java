@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.cq;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.CompiledIteratorDef;
+import org.apache.geode.cache.query.internal.CompiledRegion;
+import org.apache.geode.cache.query.internal.CompiledSelect;
+import org.apache.geode.cache.query.internal.QCompiler;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CqPredicateIndexJUnitTest {
+
+  private static final String PORTFOLIOS = "/portfolios";
+
+  private static final String ID_EQUALS_5 = "select * from /portfolios p where p.ID = 5";
+  private static final String ID_GREATER_THAN_10 = "select * from /portfolios p where p.ID > 10";
+  private static final String ID_AT_MOST_3 = "select * from /portfolios p where 3 >= p.ID";
+  private static final String ACTIVE_AND_LARGE_ID =
+      "select * from /portfolios p where p.ID > 1 and p.status = 'active'";
+  private static final String ID_1_OR_7 =
+      "select * from /portfolios p where p.ID = 1 or p.ID = 7.0";
+  private static final String INACTIVE = "select * from /portfolios where status = 'inactive'";
+  private static final String SEC_ID = "select * from /portfolios p where p.position1.secId = 'X'";
+  private static final String METHOD = "select * from /portfolios p where p.getID() = 5";
+  private static final String NOT_EQUAL = "select * from /portfolios p where p.ID <> 5";
+
+  private final CqPredicateIndex index = new CqPredicateIndex();
+
+  @Test
+  public void valueOnlyMatchesQueriesWhoseComparisonsItSatisfies() {
+    addAll(ID_EQUALS_5, ID_GREATER_THAN_10, ID_AT_MOST_3, ACTIVE_AND_LARGE_ID, ID_1_OR_7,
+        INACTIVE, SEC_ID, METHOD, NOT_EQUAL);
+
+    CqPredicateIndex.Matches matches = index.match(PORTFOLIOS, new Portfolio(7));
+
+    assertThat(matches.mightMatch(ID_EQUALS_5)).isFalse();
+    assertThat(matches.mightMatch(ID_GREATER_THAN_10)).isFalse();
+    assertThat(matches.mightMatch(ID_AT_MOST_3)).isFalse();
+    assertThat(matches.mightMatch(ACTIVE_AND_LARGE_ID)).isFalse();
+    assertThat(matches.mightMatch(SEC_ID)).isFalse();
+    assertThat(matches.mightMatch(ID_1_OR_7)).isTrue();
+    assertThat(matches.mightMatch(INACTIVE)).isTrue();
+
+    matches = index.match(PORTFOLIOS, new Portfolio(12));
+    assertThat(matches.mightMatch(ID_GREATER_THAN_10)).isTrue();
+    assertThat(matches.mightMatch(ACTIVE_AND_LARGE_ID)).isTrue();
+    assertThat(matches.mightMatch(ID_1_OR_7)).isFalse();
+    assertThat(index.match(PORTFOLIOS, new Portfolio(3)).mightMatch(ID_AT_MOST_3)).isTrue();
+  }
+
+  @Test
+  public void queriesWithoutIndexableComparisonsAreNotIndexed() {
+    String[] queries = {METHOD, NOT_EQUAL, "select * from /portfolios p",
+        "select * from /portfolios p where p.ID = p.indexKey",
+        "select * from /portfolios p where p.ID > 1 or p.getID() = 2"};
+    addAll(queries);
+
+    for (String query : queries) {
+      assertThat(index.isIndexed(query)).as(query).isFalse();
+    }
+    assertThat(index.match(PORTFOLIOS, new Portfolio(5)).mightMatch(METHOD)).isTrue();
+  }
+
+  @Test
+  public void valuesWithoutTheAttributeMightMatchAllQueriesOnIt() {
+    addAll(ID_EQUALS_5, SEC_ID, INACTIVE);
+
+    CqPredicateIndex.Matches matches = index.match(PORTFOLIOS, "a string");
+
+    assertThat(matches.mightMatch(ID_EQUALS_5)).isTrue();
+    assertThat(matches.mightMatch(SEC_ID)).isTrue();
+    assertThat(matches.mightMatch(INACTIVE)).isTrue();
+  }
+
+  @Test
+  public void numbersOfDifferentTypesMatchByValue() {
+    addAll(ID_EQUALS_5, "select * from /r r where r = 5L", "select * from /r r where r > 2.5",
+        "select * from /r r where r = 'five'");
+
+    CqPredicateIndex.Matches matches = index.match("/r", 5L);
+
+    assertThat(matches.mightMatch("select * from /r r where r = 5L")).isTrue();
+    assertThat(matches.mightMatch("select * from /r r where r > 2.5")).isTrue();
+    assertThat(matches.mightMatch("select * from /r r where r = 'five'")).isTrue();
+    assertThat(index.match("/r", 2).mightMatch("select * from /r r where r > 2.5")).isFalse();
+    assertThat(index.match("/r", 6.0f).mightMatch("select * from /r r where r = 5L")).isTrue();
+  }
+
+  @Test
+  public void removedAndLaterAddedQueriesMightMatch() {
+    addAll(ID_EQUALS_5);
+    CqPredicateIndex.Matches matches = index.match(PORTFOLIOS, new Portfolio(7));
+
+    index.remove(ID_EQUALS_5);
+    assertThat(index.isIndexed(ID_EQUALS_5)).isFalse();
+    assertThat(matches.mightMatch(ID_EQUALS_5)).isTrue();
+
+    addAll(ID_GREATER_THAN_10);
+    assertThat(matches.mightMatch(ID_GREATER_THAN_10)).isTrue();
+    assertThat(index.match(PORTFOLIOS, new Portfolio(7)).mightMatch(ID_GREATER_THAN_10)).isFalse();
+  }
+
+  @Test
+  public void valuesOnlyMatchQueriesOnTheirRegion() {
+    addAll(ID_EQUALS_5, "select * from /other p where p.ID = 7");
+
+    assertThat(index.match(PORTFOLIOS, new Portfolio(7)).mightMatch(ID_EQUALS_5)).isFalse();
+    assertThat(index.match("/other", new Portfolio(5)).mightMatch(ID_EQUALS_5)).isTrue();
+    assertThat(index.match("/other", new Portfolio(5))
+        .mightMatch("select * from /other p where p.ID = 7")).isFalse();
+  }
+
+  @Test
+  public void valuesOfAClassWithoutTheAttributeKeepMightMatching() {
+    addAll(ID_EQUALS_5);
+
+    assertThat(index.match(PORTFOLIOS, "a string").mightMatch(ID_EQUALS_5)).isTrue();
+    assertThat(index.match(PORTFOLIOS, "another string").mightMatch(ID_EQUALS_5)).isTrue();
+    assertThat(index.match(PORTFOLIOS, new Portfolio(7)).mightMatch(ID_EQUALS_5)).isFalse();
+  }
+
+  private void addAll(String... queries) {
+    for (String query : queries) {
+      CompiledSelect select = (CompiledSelect) new QCompiler().compileQuery(query);
+      String regionPath = ((CompiledRegion) ((CompiledIteratorDef) select.getIterators().get(0))
+          .getCollectionExpr()).getRegionPath();
+      index.add(regionPath, query, select);
+    }
+  }
+}
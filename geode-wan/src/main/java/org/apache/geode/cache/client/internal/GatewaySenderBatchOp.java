@@ -15,6 +15,7 @@
 package org.apache.geode.cache.client.internal;
 
 import org.apache.geode.InternalGemFireError;
+import org.apache.geode.SerializationException;
 import org.apache.geode.cache.client.ServerOperationException;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.EventID;
@@ -22,6 +23,8 @@ import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
 import org.apache.geode.internal.cache.tier.sockets.Message;
 import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.internal.cache.tier.sockets.PartsCompressor;
+import org.apache.geode.internal.cache.tier.sockets.command.GatewayReceiverCommand;
 import org.apache.geode.internal.cache.wan.BatchException70;
 import org.apache.geode.internal.cache.wan.GatewaySenderEventImpl;
 import org.apache.geode.internal.cache.wan.GatewaySenderEventRemoteDispatcher;
@@ -29,6 +32,7 @@ import org.apache.geode.internal.cache.wan.GatewaySenderEventRemoteDispatcher.Ga
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 
+import java.io.IOException;
 import java.net.SocketTimeoutException;
 import java.util.Iterator;
 import java.util.List;
@@ -53,19 +57,40 @@ public class GatewaySenderBatchOp {
    */
   public static void executeOn(Connection con, ExecutablePool pool, List events, int batchId,
       boolean removeFromQueueOnException, boolean isRetry) {
-    AbstractOp op = null;
+    executeOn(con, pool, events, batchId, removeFromQueueOnException, isRetry, false);
+  }
+
+  /**
+   * Send a list of gateway events to a server to execute using connections from the given pool to
+   * communicate with the server.
+   *
+   * @param con the connection to send the message on.
+   * @param pool the pool to use to communicate with the server.
+   * @param events list of gateway events
+   * @param batchId the ID of this batch
+   * @param removeFromQueueOnException true if the events should be processed even after some
+   *        exception
+   * @param compress true if the events should be compressed into a single part
+   * @return the number of bytes saved by compressing the events
+   */
+  public static int executeOn(Connection con, ExecutablePool pool, List events, int batchId,
+      boolean removeFromQueueOnException, boolean isRetry, boolean compress) {
+    GatewaySenderGFEBatchOpImpl op = null;
     // System.out.println("Version: "+con.getWanSiteVersion());
     // Is this check even needed anymore? It looks like we just create the same exact op impl with
     // the same parameters...
     if (Version.GFE_651.compareTo(con.getWanSiteVersion()) >= 0) {
       op = new GatewaySenderGFEBatchOpImpl(events, batchId, removeFromQueueOnException,
-          con.getDistributedSystemId(), isRetry);
+          con.getDistributedSystemId(), isRetry, false);
     } else {
       // Default should create a batch of server version (ACCEPTOR.VERSION)
       op = new GatewaySenderGFEBatchOpImpl(events, batchId, removeFromQueueOnException,
-          con.getDistributedSystemId(), isRetry);
+          con.getDistributedSystemId(), isRetry,
+          compress && GatewayReceiverCommand.COMPRESSED_BATCH_VERSION
+              .compareTo(con.getWanSiteVersion()) <= 0);
     }
     pool.executeOn(con, op, true/* timeoutFatal */);
+    return op.bytesSaved;
   }
 
 
@@ -80,11 +105,22 @@ public class GatewaySenderBatchOp {
 
   static class GatewaySenderGFEBatchOpImpl extends AbstractOp {
 
+    /** The number of bytes saved by compressing the events of the batch */
+    int bytesSaved;
+
     /**
      * @throws org.apache.geode.SerializationException if serialization fails
      */
     public GatewaySenderGFEBatchOpImpl(List events, int batchId, boolean removeFromQueueOnException,
         int dsId, boolean isRetry) {
+      this(events, batchId, removeFromQueueOnException, dsId, isRetry, false);
+    }
+
+    /**
+     * @throws org.apache.geode.SerializationException if serialization fails
+     */
+    public GatewaySenderGFEBatchOpImpl(List events, int batchId, boolean removeFromQueueOnException,
+        int dsId, boolean isRetry, boolean compress) {
       super(MessageType.GATEWAY_RECEIVER_COMMAND, calcPartCount(events));
       if (isRetry) {
         getMessage().setIsRetry();
@@ -92,7 +128,9 @@ public class GatewaySenderBatchOp {
       getMessage().addIntPart(events.size());
       getMessage().addIntPart(batchId);
       getMessage().addIntPart(dsId);
-      getMessage().addBytesPart(new byte[] {removeFromQueueOnException ? (byte) 1 : (byte) 0});
+      byte[] batchFlags = new byte[] {removeFromQueueOnException
+          ? GatewayReceiverCommand.REMOVE_FROM_QUEUE_ON_EXCEPTION : (byte) 0};
+      getMessage().addBytesPart(batchFlags);
       // Add each event
       for (Iterator i = events.iterator(); i.hasNext();) {
         GatewaySenderEventImpl event = (GatewaySenderEventImpl) i.next();
@@ -134,6 +172,17 @@ public class GatewaySenderBatchOp {
           getMessage().addLongPart(event.getVersionTimeStamp());
         }
       }
+      if (compress) {
+        try {
+          // the events follow the number of events, the batchId, the dsId and the flags
+          this.bytesSaved = PartsCompressor.compress(getMessage(), 4);
+        } catch (IOException e) {
+          throw new SerializationException("Could not compress the batch", e);
+        }
+        if (this.bytesSaved > 0) {
+          batchFlags[0] |= GatewayReceiverCommand.COMPRESSED_BATCH;
+        }
+      }
     }
 
     public GatewaySenderGFEBatchOpImpl() {
@@ -31,8 +31,16 @@ public class SenderProxy extends ServerProxy {
 
   public void dispatchBatch_NewWAN(Connection con, List events, int batchId,
       boolean removeFromQueueOnException, boolean isRetry) {
-    GatewaySenderBatchOp.executeOn(con, this.pool, events, batchId, removeFromQueueOnException,
-        isRetry);
+    dispatchBatch_NewWAN(con, events, batchId, removeFromQueueOnException, isRetry, false);
+  }
+
+  /**
+   * @return the number of bytes saved by compressing the batch
+   */
+  public int dispatchBatch_NewWAN(Connection con, List events, int batchId,
+      boolean removeFromQueueOnException, boolean isRetry, boolean compress) {
+    return GatewaySenderBatchOp.executeOn(con, this.pool, events, batchId,
+        removeFromQueueOnException, isRetry, compress);
   }
 
   public Object receiveAckFromReceiver(Connection con) {
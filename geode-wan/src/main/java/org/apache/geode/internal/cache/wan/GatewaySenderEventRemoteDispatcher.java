@@ -31,6 +31,7 @@ import org.apache.geode.cache.client.internal.Connection;
 import org.apache.geode.cache.client.internal.SenderProxy;
 import org.apache.geode.cache.client.internal.pooling.ConnectionDestroyedException;
 import org.apache.geode.cache.wan.GatewaySender;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.UpdateAttributesProcessor;
@@ -48,6 +49,13 @@ public class GatewaySenderEventRemoteDispatcher implements GatewaySenderEventDis
 
   private static final Logger logger = LogService.getLogger();
 
+  /**
+   * Whether the events of a batch are compressed before the batch is sent. The receivers of the
+   * sender must all be able to decompress batches.
+   */
+  public static boolean COMPRESS_BATCHES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.COMPRESS_BATCHES");
+
   private final AbstractGatewaySenderEventProcessor processor;
 
   private volatile Connection connection;
@@ -212,8 +220,11 @@ public class GatewaySenderEventRemoteDispatcher implements GatewaySenderEventDis
       this.connectionLifeCycleLock.readLock().lock();
       try {
         if (connection != null) {
-          sp.dispatchBatch_NewWAN(connection, events, currentBatchId,
-              sender.isRemoveFromQueueOnException(), isRetry);
+          int bytesSaved = sp.dispatchBatch_NewWAN(connection, events, currentBatchId,
+              sender.isRemoveFromQueueOnException(), isRetry, COMPRESS_BATCHES);
+          if (bytesSaved > 0) {
+            statistics.incBatchBytesSaved(bytesSaved);
+          }
           if (logger.isDebugEnabled()) {
             logger.debug(
                 "{} : Dispatched batch (id={}) of {} events, queue size: {} on connection {}",